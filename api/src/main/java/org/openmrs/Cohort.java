@@ -18,6 +18,7 @@ import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.openmrs.util.SortedIntSet;
 
 /**
  * This class represents a list of patientIds.
@@ -36,6 +37,11 @@ public class Cohort extends BaseOpenmrsData  {
 
 	private Collection<CohortMembership> members;
 
+	/**
+	 * The ids of the members of a computed cohort, their memberships are only created when needed
+	 */
+	private SortedIntSet computedMemberIds;
+
 	public Cohort() {
 		members = new TreeSet<CohortMembership>();
 	}
@@ -116,6 +122,22 @@ public class Cohort extends BaseOpenmrsData  {
 		}
 	}
 	
+	/**
+	 * Creates a computed cohort of the given patient ids. The members are kept as primitive ids, so
+	 * {@link #contains(Integer)}, {@link #size()} and {@link #union(Cohort, Cohort)},
+	 * {@link #intersect(Cohort, Cohort)} and {@link #subtract(Cohort, Cohort)} with other computed
+	 * cohorts don't create any {@link CohortMembership}s. The memberships are only created once
+	 * {@link #getMembers()} is called, e.g. when the cohort is saved.
+	 *
+	 * @param memberIds the ids of the patients in the cohort
+	 * @since 2.2.0
+	 * @should not create memberships until they are needed
+	 */
+	public Cohort(SortedIntSet memberIds) {
+		this();
+		this.computedMemberIds = memberIds == null ? SortedIntSet.EMPTY : memberIds;
+	}
+	
 	/**
 	 * Convenience constructor taking in a string that is a list of comma separated patient ids This
 	 * constructor does not check whether the database contains patients with the given ids, but
@@ -136,6 +158,10 @@ public class Cohort extends BaseOpenmrsData  {
 	}
 
 	public boolean contains(Integer patientId) {
+		SortedIntSet computed = computedMemberIds;
+		if (computed != null) {
+			return patientId != null && computed.contains(patientId);
+		}
 		return getMembers() != null && getMembers().stream()
 				.anyMatch(m -> m.getPatient().getPatientId().equals(patientId) && m.isMemberActive());
 	}
@@ -150,8 +176,8 @@ public class Cohort extends BaseOpenmrsData  {
 		if (getName() != null) {
 			sb.append(" name=").append(getName());
 		}
-		if (getMembers() != null) {
-			sb.append(" size=").append(getMembers().size());
+		if (computedMemberIds != null || getMembers() != null) {
+			sb.append(" size=").append(size());
 		}
 		return sb.toString();
 	}
@@ -204,6 +230,10 @@ public class Cohort extends BaseOpenmrsData  {
 
 
 	public int size() {
+		SortedIntSet computed = computedMemberIds;
+		if (computed != null) {
+			return computed.size();
+		}
 		return getMembers().size();
 	}
 	
@@ -225,12 +255,17 @@ public class Cohort extends BaseOpenmrsData  {
 	 * @return Cohort
 	 */
 	public static Cohort union(Cohort a, Cohort b) {
-		Cohort ret = new Cohort();
-		if (a != null) {
-			ret.getMembers().addAll(a.getMembers());
-		}
-		if (b != null) {
-			ret.getMembers().addAll(b.getMembers());
+		Cohort ret;
+		if (isComputedOrNull(a) && isComputedOrNull(b)) {
+			ret = new Cohort(computedMemberIds(a).union(computedMemberIds(b)));
+		} else {
+			ret = new Cohort();
+			if (a != null) {
+				ret.getMembers().addAll(a.getMembers());
+			}
+			if (b != null) {
+				ret.getMembers().addAll(b.getMembers());
+			}
 		}
 		if (a != null && b != null) {
 			ret.setName("(" + a.getName() + " + " + b.getName() + ")");
@@ -246,12 +281,17 @@ public class Cohort extends BaseOpenmrsData  {
 	 * @return Cohort
 	 */
 	public static Cohort intersect(Cohort a, Cohort b) {
-		Cohort ret = new Cohort();
-		ret.setName("(" + (a == null ? "NULL" : a.getName()) + " * " + (b == null ? "NULL" : b.getName()) + ")");
-		if (a != null && b != null) {
-			ret.getMembers().addAll(a.getMembers());
-			ret.getMembers().retainAll(b.getMembers());
+		Cohort ret;
+		if (a != null && b != null && a.isComputed() && b.isComputed()) {
+			ret = new Cohort(a.computedMemberIds.intersect(b.computedMemberIds));
+		} else {
+			ret = new Cohort();
+			if (a != null && b != null) {
+				ret.getMembers().addAll(a.getMembers());
+				ret.getMembers().retainAll(b.getMembers());
+			}
 		}
+		ret.setName("(" + (a == null ? "NULL" : a.getName()) + " * " + (b == null ? "NULL" : b.getName()) + ")");
 		return ret;
 	}
 	
@@ -263,6 +303,14 @@ public class Cohort extends BaseOpenmrsData  {
 	 * @return Cohort
 	 */
 	public static Cohort subtract(Cohort a, Cohort b) {
+		if (a != null && a.isComputed() && isComputedOrNull(b)) {
+			Cohort ret = new Cohort(a.computedMemberIds.subtract(computedMemberIds(b)));
+			if (b != null) {
+				ret.setName("(" + a.getName() + " - " + b.getName() + ")");
+			}
+			return ret;
+		}
+		
 		Cohort ret = new Cohort();
 		if (a != null) {
 			ret.getMembers().addAll(a.getMembers());
@@ -273,6 +321,41 @@ public class Cohort extends BaseOpenmrsData  {
 		}
 		return ret;
 	}
+	
+	/**
+	 * @return true if this is a computed cohort whose memberships have not been created yet
+	 * @see #Cohort(SortedIntSet)
+	 * @since 2.2.0
+	 */
+	public boolean isComputed() {
+		return computedMemberIds != null;
+	}
+	
+	/**
+	 * Gets the ids of the active members of this cohort as primitive ids, which can be combined
+	 * with other sets of ids without boxing and turned into a computed cohort again
+	 *
+	 * @return the ids of the active members
+	 * @see #Cohort(SortedIntSet)
+	 * @since 2.2.0
+	 * @should return the ids of active members only
+	 */
+	public SortedIntSet getActiveMemberIdSet() {
+		SortedIntSet computed = computedMemberIds;
+		if (computed != null) {
+			return computed;
+		}
+		return SortedIntSet.of(getMembers().stream().filter(CohortMembership::isMemberActive).map(
+		    m -> m.getPatient().getPatientId()).collect(Collectors.toList()));
+	}
+	
+	private static boolean isComputedOrNull(Cohort cohort) {
+		return cohort == null || cohort.isComputed();
+	}
+	
+	private static SortedIntSet computedMemberIds(Cohort cohort) {
+		return cohort == null ? SortedIntSet.EMPTY : cohort.computedMemberIds;
+	}
 
 
 	// getters and setters
@@ -302,6 +385,11 @@ public class Cohort extends BaseOpenmrsData  {
 	}
 
 	public Set<Integer> getMemberIds() {
+		SortedIntSet computed = computedMemberIds;
+		if (computed != null) {
+			memberIds = computed.toSet();
+			return memberIds;
+		}
 		memberIds = new TreeSet<Integer>();
 		for (CohortMembership member : getMembers()) {
 			memberIds.add(member.getPatient().getPatientId());
@@ -320,11 +408,21 @@ public class Cohort extends BaseOpenmrsData  {
 		if (members == null) {
 			members = new TreeSet<CohortMembership>();
 		}
+		if (computedMemberIds != null) {
+			SortedIntSet computed = computedMemberIds;
+			computedMemberIds = null;
+			computed.stream().forEach(id -> {
+				CohortMembership membership = new CohortMembership(new Patient(id));
+				membership.setCohort(this);
+				members.add(membership);
+			});
+		}
 		return members;
 	}
 
 	public void setMembers(Collection<CohortMembership> members) {
 		this.members = members;
+		this.computedMemberIds = null;
 	}
 
 	/**
@@ -10,6 +10,7 @@
 package org.openmrs;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -35,6 +36,8 @@ public class Patient extends Person {
 	@ContainedIn
 	private Set<PatientIdentifier> identifiers;
 	
+	private Set<String> duplicateKeys;
+	
 	// Constructors
 	
 	/** default constructor */
@@ -116,6 +119,32 @@ public class Patient extends Person {
 		this.allergyStatus = allergyStatus;
 	}
 	
+	/**
+	 * Returns the blocking keys which possible duplicates of this patient are looked up by, they are
+	 * maintained by the supporting infrastructure whenever the patient is saved.
+	 * 
+	 * @return the blocking keys of this patient
+	 * @see org.openmrs.util.DuplicatePatientKeyUtil
+	 * @since 2.2.0
+	 */
+	public Set<String> getDuplicateKeys() {
+		if (duplicateKeys == null) {
+			duplicateKeys = new HashSet<String>();
+		}
+		return duplicateKeys;
+	}
+	
+	/**
+	 * Sets the blocking keys of this patient. <b>This should never be called directly</b>. It
+	 * exists only for the use of the supporting infrastructure.
+	 * 
+	 * @param duplicateKeys
+	 * @since 2.2.0
+	 */
+	public void setDuplicateKeys(Set<String> duplicateKeys) {
+		this.duplicateKeys = duplicateKeys;
+	}
+	
 	/**
 	 * Overrides the parent setPersonId(Integer) so that we can be sure patient id is also set
 	 * correctly.
@@ -86,6 +86,14 @@ public class PersonName extends BaseOpenmrsData implements java.io.Serializable,
 	
 	private String degree;
 	
+	private String givenNameSoundex;
+	
+	private String middleNameSoundex;
+	
+	private String familyNameSoundex;
+	
+	private String familyName2Soundex;
+	
 	private static String format = OpenmrsConstants.PERSON_NAME_FORMAT_SHORT;
 	
 	// Constructors
@@ -283,6 +291,74 @@ public class PersonName extends BaseOpenmrsData implements java.io.Serializable,
 		this.familyNameSuffix = familyNameSuffix;
 	}
 	
+	/**
+	 * @return the Soundex code of the given name, it is kept up to date when the name is saved
+	 * @see org.openmrs.util.SoundexUtil
+	 * @since 2.2.0
+	 */
+	public String getGivenNameSoundex() {
+		return givenNameSoundex;
+	}
+	
+	/**
+	 * @param givenNameSoundex the Soundex code of the given name to set
+	 * @since 2.2.0
+	 */
+	public void setGivenNameSoundex(String givenNameSoundex) {
+		this.givenNameSoundex = givenNameSoundex;
+	}
+	
+	/**
+	 * @return the Soundex code of the middle name, it is kept up to date when the name is saved
+	 * @see org.openmrs.util.SoundexUtil
+	 * @since 2.2.0
+	 */
+	public String getMiddleNameSoundex() {
+		return middleNameSoundex;
+	}
+	
+	/**
+	 * @param middleNameSoundex the Soundex code of the middle name to set
+	 * @since 2.2.0
+	 */
+	public void setMiddleNameSoundex(String middleNameSoundex) {
+		this.middleNameSoundex = middleNameSoundex;
+	}
+	
+	/**
+	 * @return the Soundex code of the family name, it is kept up to date when the name is saved
+	 * @see org.openmrs.util.SoundexUtil
+	 * @since 2.2.0
+	 */
+	public String getFamilyNameSoundex() {
+		return familyNameSoundex;
+	}
+	
+	/**
+	 * @param familyNameSoundex the Soundex code of the family name to set
+	 * @since 2.2.0
+	 */
+	public void setFamilyNameSoundex(String familyNameSoundex) {
+		this.familyNameSoundex = familyNameSoundex;
+	}
+	
+	/**
+	 * @return the Soundex code of the second family name, it is kept up to date when the name is saved
+	 * @see org.openmrs.util.SoundexUtil
+	 * @since 2.2.0
+	 */
+	public String getFamilyName2Soundex() {
+		return familyName2Soundex;
+	}
+	
+	/**
+	 * @param familyName2Soundex the Soundex code of the second family name to set
+	 * @since 2.2.0
+	 */
+	public void setFamilyName2Soundex(String familyName2Soundex) {
+		this.familyName2Soundex = familyName2Soundex;
+	}
+	
 	/**
 	 * @return Returns the givenName.
 	 * @should return obscured name if obscure_patients is set to true
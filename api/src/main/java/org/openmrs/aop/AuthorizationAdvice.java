@@ -11,6 +11,9 @@ package org.openmrs.aop;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.User;
@@ -32,6 +35,11 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 	 */
 	protected final Logger log = LoggerFactory.getLogger(AuthorizationAdvice.class);
 	
+	/**
+	 * The authorization attributes of each advised method, read once per method
+	 */
+	private final Map<Method, MethodAuthorization> methodAuthorizations = new ConcurrentHashMap<>();
+	
 	/**
 	 * Allows us to check whether a user is authorized to access a particular method.
 	 * 
@@ -56,9 +64,9 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 			}
 		}
 		
-		AuthorizedAnnotationAttributes attributes = new AuthorizedAnnotationAttributes();
-		Collection<String> privileges = attributes.getAttributes(method);
-		boolean requireAll = attributes.getRequireAll(method);
+		MethodAuthorization authorization = getMethodAuthorization(method);
+		Collection<String> privileges = authorization.privileges;
+		boolean requireAll = authorization.requireAll;
 		
 		// Only execute if the "secure" method has authorization attributes
 		// Iterate through required privileges and return only if the user has
@@ -97,11 +105,29 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 				throwUnauthorized(Context.getAuthenticatedUser(), method, privileges);
 			}
 			
-		} else if (attributes.hasAuthorizedAnnotation(method) && !Context.isAuthenticated()) {
+		} else if (authorization.annotated && !Context.isAuthenticated()) {
 			throwUnauthorized(Context.getAuthenticatedUser(), method);
 		}
 	}
 	
+	/**
+	 * Gets the authorization attributes of the given method, reading its annotations the first time
+	 * the method is called
+	 * 
+	 * @param method the advised method
+	 * @return the authorization attributes
+	 */
+	private MethodAuthorization getMethodAuthorization(Method method) {
+		MethodAuthorization authorization = methodAuthorizations.get(method);
+		if (authorization == null) {
+			AuthorizedAnnotationAttributes attributes = new AuthorizedAnnotationAttributes();
+			authorization = new MethodAuthorization(attributes.getAttributes(method), attributes.getRequireAll(method),
+			        attributes.hasAuthorizedAnnotation(method));
+			methodAuthorizations.put(method, authorization);
+		}
+		return authorization;
+	}
+	
 	/**
 	 * Throws an APIAuthorization exception stating why the user failed
 	 * 
@@ -144,4 +170,22 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 		}
 		throw new APIAuthenticationException(Context.getMessageSourceService().getMessage("error.aunthenticationRequired"));
 	}
+	
+	/**
+	 * The authorization attributes of a method
+	 */
+	private static final class MethodAuthorization {
+		
+		private final Collection<String> privileges;
+		
+		private final boolean requireAll;
+		
+		private final boolean annotated;
+		
+		private MethodAuthorization(Collection<String> privileges, boolean requireAll, boolean annotated) {
+			this.privileges = Collections.unmodifiableCollection(privileges);
+			this.requireAll = requireAll;
+			this.annotated = annotated;
+		}
+	}
 }
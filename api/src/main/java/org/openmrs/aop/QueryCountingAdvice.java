@@ -0,0 +1,214 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.QueryCounter;
+import org.openmrs.api.metrics.ServiceCallMetrics;
+import org.openmrs.util.OpenmrsConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class provides the AOP around advice which counts the statements prepared and the entities
+ * and collections loaded by Hibernate during each service layer method call. Calls exceeding the
+ * thresholds set by the queryCounting global properties are logged and recorded by method, see
+ * {@link #getOffenders(int)}. <br>
+ * <br>
+ * Only the outermost service call on a thread is counted, the statements of the service calls it
+ * makes are counted towards it. Loads triggered outside of service calls, e.g. by lazy loading in a
+ * web controller, are not counted. While counting, each statement and load costs a thread local
+ * lookup and an increment, the stack is only captured once a call exceeds a threshold.
+ *
+ * @see QueryCounter
+ * @since 2.2.0
+ */
+public class QueryCountingAdvice implements MethodInterceptor, GlobalPropertyListener {
+	
+	private static final Logger log = LoggerFactory.getLogger(QueryCountingAdvice.class);
+	
+	/**
+	 * The maximum number of methods whose flagged calls are recorded
+	 */
+	public static final int MAX_RECORDED_METHODS = 1000;
+	
+	private static final Comparator<ServiceCallMetrics> WORST_FIRST = (a, b) -> {
+		int result = Integer.compare(b.getMaxStatementCount(), a.getMaxStatementCount());
+		return result != 0 ? result : Long.compare(b.getFlaggedCallCount(), a.getFlaggedCallCount());
+	};
+	
+	private volatile Settings settings;
+	
+	private final AtomicBoolean loadingSettings = new AtomicBoolean();
+	
+	private final ConcurrentMap<String, ServiceCallMetrics> offenders = new ConcurrentHashMap<>();
+	
+	/**
+	 * @see org.aopalliance.intercept.MethodInterceptor#invoke(org.aopalliance.intercept.MethodInvocation)
+	 * @should record calls exceeding a threshold
+	 * @should not record calls within the thresholds
+	 * @should not count calls if disabled
+	 */
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Settings current = getSettings();
+		QueryCounter counter = null;
+		if (current != null && current.enabled) {
+			counter = QueryCounter.start(current.statementThreshold, current.entityLoadThreshold,
+			    current.collectionLoadThreshold);
+		}
+		if (counter == null) {
+			return invocation.proceed();
+		}
+		
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			counter.stop();
+			if (counter.isThresholdExceeded()) {
+				record(invocation.getMethod(), counter);
+			}
+		}
+	}
+	
+	private void record(Method method, QueryCounter counter) {
+		String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+		ServiceCallMetrics call = new ServiceCallMetrics(name, 1, counter.getStatementCount(), counter
+		        .getEntityLoadCount(), counter.getCollectionLoadCount(), counter.getStackFragment());
+		
+		boolean first = !offenders.containsKey(name);
+		if (!first || offenders.size() < MAX_RECORDED_METHODS) {
+			offenders.merge(name, call, ServiceCallMetrics::add);
+		}
+		
+		if (first ? log.isWarnEnabled() : log.isDebugEnabled()) {
+			StringBuilder message = new StringBuilder();
+			message.append("Service call ").append(name).append(" prepared ").append(call.getMaxStatementCount())
+			        .append(" statements, loaded ").append(call.getMaxEntityLoadCount()).append(" entities and ")
+			        .append(call.getMaxCollectionLoadCount()).append(" collections, exceeding a threshold at:");
+			for (String frame : call.getStackFragment()) {
+				message.append(System.lineSeparator()).append("\tat ").append(frame);
+			}
+			if (first) {
+				log.warn(message.toString());
+			} else {
+				log.debug(message.toString());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the methods whose calls exceeded a threshold, the methods whose calls prepared the most
+	 * statements first
+	 *
+	 * @param max the maximum number of methods to return
+	 * @return the flagged calls by method
+	 */
+	public List<ServiceCallMetrics> getOffenders(int max) {
+		List<ServiceCallMetrics> result = new ArrayList<>(offenders.values());
+		Collections.sort(result, WORST_FIRST);
+		return result.size() > max ? new ArrayList<>(result.subList(0, max)) : result;
+	}
+	
+	/**
+	 * Forgets the recorded calls
+	 */
+	public void clearOffenders() {
+		offenders.clear();
+	}
+	
+	/**
+	 * Gets the settings, loading them from the global properties if they were not loaded yet. The
+	 * service calls made to load them are not counted.
+	 *
+	 * @return the settings or null if they are being or could not be loaded
+	 */
+	private Settings getSettings() {
+		Settings current = settings;
+		if (current != null || !loadingSettings.compareAndSet(false, true)) {
+			return current;
+		}
+		
+		try {
+			AdministrationService as = Context.getAdministrationService();
+			current = new Settings(as.getGlobalPropertyValue(OpenmrsConstants.GP_QUERY_COUNTING_ENABLED, Boolean.TRUE),
+			        as.getGlobalPropertyValue(OpenmrsConstants.GP_QUERY_COUNTING_STATEMENT_THRESHOLD, 100), as
+			                .getGlobalPropertyValue(OpenmrsConstants.GP_QUERY_COUNTING_ENTITY_LOAD_THRESHOLD, 1000), as
+			                .getGlobalPropertyValue(OpenmrsConstants.GP_QUERY_COUNTING_COLLECTION_LOAD_THRESHOLD, 50));
+			settings = current;
+			return current;
+		}
+		catch (RuntimeException e) {
+			// e.g. during startup before a session can be opened, try again on a later call
+			log.debug("Unable to load the query counting settings", e);
+			return null;
+		}
+		finally {
+			loadingSettings.set(false);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#supportsPropertyName(java.lang.String)
+	 */
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return propertyName.startsWith("queryCounting.");
+	}
+	
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#globalPropertyChanged(org.openmrs.GlobalProperty)
+	 */
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		settings = null;
+	}
+	
+	/**
+	 * @see org.openmrs.api.GlobalPropertyListener#globalPropertyDeleted(java.lang.String)
+	 */
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		settings = null;
+	}
+	
+	private static class Settings {
+		
+		private final boolean enabled;
+		
+		private final int statementThreshold;
+		
+		private final int entityLoadThreshold;
+		
+		private final int collectionLoadThreshold;
+		
+		Settings(boolean enabled, int statementThreshold, int entityLoadThreshold, int collectionLoadThreshold) {
+			this.enabled = enabled;
+			this.statementThreshold = statementThreshold;
+			this.entityLoadThreshold = entityLoadThreshold;
+			this.collectionLoadThreshold = collectionLoadThreshold;
+		}
+	}
+}
@@ -16,7 +16,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.OpenmrsObject;
 import org.openmrs.Retireable;
@@ -38,6 +40,8 @@ import org.openmrs.util.HandlerUtil;
 import org.openmrs.util.Reflect;
 import org.openmrs.validator.ValidateUtil;
 import org.springframework.aop.MethodBeforeAdvice;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.util.StringUtils;
 
 /**
@@ -69,14 +73,28 @@ import org.springframework.util.StringUtils;
  * would then be run twice because both handlers are registered. Be sure to add the
  * {@link org.openmrs.annotation.Handler} annotation (like
  * "@Handler(supports=YourPojoThatHasUniqueSaveNeeds.class)") to your class so that it is picked up
- * by Spring automatically.
+ * by Spring automatically.<br>
+ * <br>
+ * What has to be done for a service method and which child collections of a class have to be
+ * handled is worked out once and cached, the caches are cleared whenever the application context
+ * is refreshed.
  *
  * @see RequiredDataHandler
  * @see SaveHandler
  * @see VoidHandler
  * @since 1.5
  */
-public class RequiredDataAdvice implements MethodBeforeAdvice {
+public class RequiredDataAdvice implements MethodBeforeAdvice, ApplicationListener<ContextRefreshedEvent> {
+	
+	/**
+	 * The child collections to handle for each class of OpenmrsObject
+	 */
+	private static final Map<Class<?>, List<ChildCollectionField>> childCollectionFields = new ConcurrentHashMap<>();
+	
+	/**
+	 * What has to be done for each advised service method
+	 */
+	private final Map<Method, MethodPlan> methodPlans = new ConcurrentHashMap<>();
 	
 	/**
 	 * @see org.springframework.aop.MethodBeforeAdvice#before(java.lang.reflect.Method,
@@ -86,8 +104,6 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 	@Override
 	@SuppressWarnings("unchecked")
 	public void before(Method method, Object[] args, Object target) throws Throwable {
-		String methodName = method.getName();
-		
 		// skip out early if there are no arguments
 		if (args == null || args.length == 0) {
 			return;
@@ -100,18 +116,17 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 			return;
 		}
 		
-		// the "create" is there to cover old deprecated methods since AOP doesn't occur
-		// on method calls within a class, only on calls to methods from external classes to methods
-		// "update" is not an option here because there are multiple methods that start with "update" but is
-		// not updating the primary argument. eg: ConceptService.updateConceptWord(Concept)
-		if (methodName.startsWith("save") || methodName.startsWith("create")) {
+		MethodPlan plan = getMethodPlan(method);
+		if (plan.type == MethodType.OTHER) {
+			return;
+		}
+		
+		if (plan.type == MethodType.SAVE) {
 			
 			// if the first argument is an OpenmrsObject, handle it now
-			Reflect reflect = new Reflect(OpenmrsObject.class);
-			
-			if (reflect.isSuperClass(mainArgument)) {
+			if (mainArgument instanceof OpenmrsObject) {
 				// fail early if the method name is not like saveXyz(Xyz)
-				if (!methodNameEndsWithClassName(method, mainArgument.getClass())) {
+				if (!plan.isNamedAfter(mainArgument.getClass())) {
 					return;
 				}
 				
@@ -141,9 +156,9 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 				
 				Collection<OpenmrsObject> openmrsObjects = (Collection<OpenmrsObject>) mainArgument;
 				
+				ValidateUtil.validate(mainArgument);
+				
 				for (OpenmrsObject object : openmrsObjects) {
-					ValidateUtil.validate(mainArgument);
-					
 					recursivelyHandle(SaveHandler.class, object, other);
 				}
 				
@@ -151,28 +166,28 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		} else {
 			// fail early if the method name is not like retirePatient or retireConcept when dealing
 			// with Patients or Concepts as the first argument
-			if (!methodNameEndsWithClassName(method, mainArgument.getClass())) {
+			if (!plan.isNamedAfter(mainArgument.getClass())) {
 				return;
 			}
 			
-			if (methodName.startsWith("void")) {
+			if (plan.type == MethodType.VOID) {
 				Voidable voidable = (Voidable) args[0];
 				Date dateVoided = voidable.getDateVoided() == null ? new Date() : voidable.getDateVoided();
 				String voidReason = (String) args[1];
 				recursivelyHandle(VoidHandler.class, voidable, Context.getAuthenticatedUser(), dateVoided, voidReason, null);
 				
-			} else if (methodName.startsWith("unvoid")) {
+			} else if (plan.type == MethodType.UNVOID) {
 				Voidable voidable = (Voidable) args[0];
 				Date originalDateVoided = voidable.getDateVoided();
 				User originalVoidingUser = voidable.getVoidedBy();
 				recursivelyHandle(UnvoidHandler.class, voidable, originalVoidingUser, originalDateVoided, null, null);
 				
-			} else if (methodName.startsWith("retire")) {
+			} else if (plan.type == MethodType.RETIRE) {
 				Retireable retirable = (Retireable) args[0];
 				String retireReason = (String) args[1];
 				recursivelyHandle(RetireHandler.class, retirable, retireReason);
 				
-			} else if (methodName.startsWith("unretire")) {
+			} else if (plan.type == MethodType.UNRETIRE) {
 				Retireable retirable = (Retireable) args[0];
 				Date originalDateRetired = retirable.getDateRetired();
 				recursivelyHandle(UnretireHandler.class, retirable, Context.getAuthenticatedUser(), originalDateRetired,
@@ -181,6 +196,34 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		}
 	}
 	
+	/**
+	 * Clears the cached method plans and child collections since handlers and classes may have
+	 * been added or removed by modules
+	 *
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		methodPlans.clear();
+		childCollectionFields.clear();
+	}
+	
+	/**
+	 * Gets what has to be done for the given service method, working it out the first time the
+	 * method is called
+	 *
+	 * @param method the advised service method
+	 * @return the plan for the method
+	 */
+	private MethodPlan getMethodPlan(Method method) {
+		MethodPlan plan = methodPlans.get(method);
+		if (plan == null) {
+			plan = new MethodPlan(method);
+			methodPlans.put(method, plan);
+		}
+		return plan;
+	}
+	
 	/**
 	 * Convenience method to change the given method to make sure it ends with
 	 * the given class name. <br>
@@ -194,7 +237,7 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 	 * @return true if method's name ends with the mainArgumentClasses simple
 	 *         name
 	 */
-	private boolean methodNameEndsWithClassName(Method method, Class<?> mainArgumentClass) {
+	private static boolean methodNameEndsWithClassName(Method method, Class<?> mainArgumentClass) {
 		if (method.getName().endsWith(mainArgumentClass.getSimpleName())) {
 			return true;
 		} else {
@@ -262,21 +305,13 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		}
 		alreadyHandled.add(openmrsObject);
 		
-		Reflect reflect = new Reflect(OpenmrsObject.class);
-		List<Field> allInheritedFields = reflect.getInheritedFields(openmrsObjectClass);
-		
 		// loop over all child collections of OpenmrsObjects and recursively save on those
-		for (Field field : allInheritedFields) {
-			
-			// skip field if it's declared independent
-			if (Reflect.isAnnotationPresent(openmrsObjectClass, field.getName(), Independent.class)) {
-				continue;
-			}
+		for (ChildCollectionField childCollectionField : getChildCollectionFields(openmrsObjectClass)) {
 			
-			if (reflect.isCollectionField(field) && !isHandlerMarkedAsDisabled(handlerType, field)) {
+			if (!childCollectionField.isHandlerDisabled(handlerType)) {
 				
 				// the collection we'll be looping over
-				Collection<OpenmrsObject> childCollection = getChildCollection(openmrsObject, field);
+				Collection<OpenmrsObject> childCollection = childCollectionField.getChildCollection(openmrsObject);
 				
 				if (childCollection != null) {
 					for (Object collectionElement : childCollection) {
@@ -291,6 +326,37 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		
 	}
 	
+	/**
+	 * Gets the fields of the given class that are collections of OpenmrsObjects which are not
+	 * declared {@link Independent}, looking them up the first time the class is handled
+	 *
+	 * @param openmrsObjectClass the class of the object being handled
+	 * @return the child collection fields
+	 */
+	private static List<ChildCollectionField> getChildCollectionFields(Class<? extends OpenmrsObject> openmrsObjectClass) {
+		List<ChildCollectionField> fields = childCollectionFields.get(openmrsObjectClass);
+		if (fields != null) {
+			return fields;
+		}
+		
+		fields = new ArrayList<>();
+		Reflect reflect = new Reflect(OpenmrsObject.class);
+		for (Field field : reflect.getInheritedFields(openmrsObjectClass)) {
+			
+			// skip field if it's declared independent
+			if (Reflect.isAnnotationPresent(openmrsObjectClass, field.getName(), Independent.class)) {
+				continue;
+			}
+			
+			if (reflect.isCollectionField(field)) {
+				fields.add(new ChildCollectionField(openmrsObjectClass, field));
+			}
+		}
+		
+		childCollectionFields.put(openmrsObjectClass, fields);
+		return fields;
+	}
+	
 	/**
 	 * This method gets a child attribute off of an OpenmrsObject. It usually uses the getter for
 	 * the attribute, but can use the direct field (even if its private) if told to by the
@@ -389,4 +455,132 @@ public class RequiredDataAdvice implements MethodBeforeAdvice {
 		
 		return false;
 	}
+	
+	/**
+	 * The kinds of service methods this advice acts on
+	 */
+	private enum MethodType {
+		SAVE, VOID, UNVOID, RETIRE, UNRETIRE, OTHER
+	}
+	
+	/**
+	 * What has to be done for a service method
+	 */
+	private static final class MethodPlan {
+		
+		private final Method method;
+		
+		private final MethodType type;
+		
+		/**
+		 * Whether the method name ends with the name of a given argument class
+		 */
+		private final Map<Class<?>, Boolean> namedAfter = new ConcurrentHashMap<>();
+		
+		private MethodPlan(Method method) {
+			this.method = method;
+			
+			String methodName = method.getName();
+			// the "create" is there to cover old deprecated methods since AOP doesn't occur
+			// on method calls within a class, only on calls to methods from external classes to methods
+			// "update" is not an option here because there are multiple methods that start with "update" but is
+			// not updating the primary argument. eg: ConceptService.updateConceptWord(Concept)
+			if (methodName.startsWith("save") || methodName.startsWith("create")) {
+				type = MethodType.SAVE;
+			} else if (methodName.startsWith("void")) {
+				type = MethodType.VOID;
+			} else if (methodName.startsWith("unvoid")) {
+				type = MethodType.UNVOID;
+			} else if (methodName.startsWith("retire")) {
+				type = MethodType.RETIRE;
+			} else if (methodName.startsWith("unretire")) {
+				type = MethodType.UNRETIRE;
+			} else {
+				type = MethodType.OTHER;
+			}
+		}
+		
+		/**
+		 * @param argumentClass the class of the main argument
+		 * @return true if the method name ends with the simple name of the given class or one of its
+		 *         super classes
+		 */
+		private boolean isNamedAfter(Class<?> argumentClass) {
+			Boolean result = namedAfter.get(argumentClass);
+			if (result == null) {
+				result = methodNameEndsWithClassName(method, argumentClass);
+				namedAfter.put(argumentClass, result);
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * A field holding a collection of OpenmrsObjects that have to be handled along with their parent
+	 */
+	private static final class ChildCollectionField {
+		
+		private final Field field;
+		
+		private final Class<? extends RequiredDataHandler>[] disabledHandlerTypes;
+		
+		private final Method getter;
+		
+		private ChildCollectionField(Class<? extends OpenmrsObject> openmrsObjectClass, Field field) {
+			this.field = field;
+			
+			DisableHandlers disableHandlers = field.getAnnotation(DisableHandlers.class);
+			this.disabledHandlerTypes = disableHandlers == null ? null : disableHandlers.handlerTypes();
+			
+			Method getterMethod = null;
+			if (field.isAnnotationPresent(AllowDirectAccess.class)) {
+				field.setAccessible(true);
+			} else {
+				try {
+					getterMethod = openmrsObjectClass.getMethod("get" + StringUtils.capitalize(field.getName()),
+					    (Class[]) null);
+				}
+				catch (NoSuchMethodException e) {
+					// reported by getChildCollection when the collection is accessed
+				}
+			}
+			this.getter = getterMethod;
+		}
+		
+		/**
+		 * @see RequiredDataAdvice#isHandlerMarkedAsDisabled(Class, Field)
+		 */
+		private boolean isHandlerDisabled(Class<? extends RequiredDataHandler> handlerType) {
+			if (disabledHandlerTypes != null) {
+				for (Class<? extends RequiredDataHandler> h : disabledHandlerTypes) {
+					if (h.isAssignableFrom(handlerType)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * @see RequiredDataAdvice#getChildCollection(OpenmrsObject, Field)
+		 */
+		@SuppressWarnings("unchecked")
+		private Collection<OpenmrsObject> getChildCollection(OpenmrsObject openmrsObject) {
+			if (getter == null) {
+				return RequiredDataAdvice.getChildCollection(openmrsObject, field);
+			}
+			
+			try {
+				return (Collection<OpenmrsObject>) getter.invoke(openmrsObject);
+			}
+			catch (IllegalAccessException e) {
+				throw new APIException("unable.getter.method", new Object[] { "use", getter.getName(), field.getName(),
+				        openmrsObject.getClass() });
+			}
+			catch (InvocationTargetException e) {
+				throw new APIException("unable.getter.method", new Object[] { "run", getter.getName(), field.getName(),
+				        openmrsObject.getClass() });
+			}
+		}
+	}
 }
@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.openmrs.Concept;
@@ -616,6 +617,9 @@ public interface ConceptService extends OpenmrsService {
 	 * @param concept The concept representing the concept set
 	 * @return A List&lt;Concept&gt; object containing all objects within the ConceptSet
 	 * @throws APIException
+	 * @should return all concepts in set
+	 * @should return the concepts in the order of their sort weights
+	 * @should return concepts added in the current transaction
 	 */
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	public List<Concept> getConceptsByConceptSet(Concept concept) throws APIException;
@@ -633,6 +637,21 @@ public interface ConceptService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	public List<ConceptSet> getSetsContainingConcept(Concept concept) throws APIException;
 	
+	/**
+	 * Find all sets that the given concept is a member of, either directly or as a member of a
+	 * nested set
+	 * 
+	 * @param concept the concept to find the sets of
+	 * @return the sets containing the concept, the sets containing it directly first
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should return the sets containing the concept directly and through nested sets
+	 * @should return an empty list if the concept is not in any set
+	 * @should return sets changed in the current transaction
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public List<Concept> getAllSetsContainingConcept(Concept concept) throws APIException;
+	
 	/**
 	 * Get a List of all concept proposals
 	 * 
@@ -1026,6 +1045,26 @@ public interface ConceptService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	public List<Concept> getConceptsByMapping(String code, String sourceName, boolean includeRetired) throws APIException;
 	
+	/**
+	 * Looks up the concepts mapped to each of the given codes of a {@link ConceptSource} at once,
+	 * for example for all the observations of an HL7 message. Retired concepts are included and
+	 * sorted to the end of each list, as by {@link #getConceptsByMapping(String, String)}.
+	 * 
+	 * @param codes the codes associated with concepts within the given {@link ConceptSource}
+	 * @param sourceName the name or hl7Code of the {@link ConceptSource} to check
+	 * @return the concepts mapped to each code, in the order of the codes, with an empty list for
+	 *         codes which are not mapped
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should get concepts with the given codes and source name
+	 * @should get concepts with the given codes and source hl7 code
+	 * @should return empty lists for codes which are not mapped
+	 * @should return concepts mapped in the current transaction
+	 */
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	public Map<String, List<Concept>> getConceptsByMappings(Collection<String> codes, String sourceName)
+	        throws APIException;
+	
 	/**
 	 * Get all the concept name tags defined in the database, included voided ones
 	 * 
@@ -0,0 +1,65 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+/**
+ * A pair of patients which might be duplicates of each other because they share blocking keys.
+ * The score is the sum of the weights of the shared keys, the higher it is the more likely the
+ * patients are the same person.
+ * 
+ * @see PatientService#getDuplicatePatientCandidates(int, Integer, Integer)
+ * @see org.openmrs.util.DuplicatePatientKeyUtil
+ * @since 2.2.0
+ */
+public class DuplicatePatientCandidate {
+	
+	private final Integer patientId;
+	
+	private final Integer otherPatientId;
+	
+	private final int score;
+	
+	/**
+	 * @param patientId the id of the first patient
+	 * @param otherPatientId the id of the other patient, greater than the first one
+	 * @param score the score of the pair
+	 */
+	public DuplicatePatientCandidate(Integer patientId, Integer otherPatientId, int score) {
+		this.patientId = patientId;
+		this.otherPatientId = otherPatientId;
+		this.score = score;
+	}
+	
+	/**
+	 * @return the id of the first patient
+	 */
+	public Integer getPatientId() {
+		return patientId;
+	}
+	
+	/**
+	 * @return the id of the other patient, greater than the first one
+	 */
+	public Integer getOtherPatientId() {
+		return otherPatientId;
+	}
+	
+	/**
+	 * @return the sum of the weights of the keys the patients share
+	 */
+	public int getScore() {
+		return score;
+	}
+	
+	@Override
+	public String toString() {
+		return "DuplicatePatientCandidate[" + patientId + ", " + otherPatientId + ", score=" + score + "]";
+	}
+}
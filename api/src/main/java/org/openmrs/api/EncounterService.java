@@ -442,6 +442,22 @@ public interface EncounterService extends OpenmrsService {
 	 */
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients);
 	
+	/**
+	 * Streams all encounters for a cohort of patients to the given callback one patient at a time,
+	 * so that only the encounters of a single patient are held in memory. Patients are handled in
+	 * ascending order of their ids and the cohort members are queried in chunks, pending changes
+	 * in the session are flushed first.
+	 * 
+	 * @param patients Cohort of patients to search, null for all patients
+	 * @param callback called with the encounters of each patient that has any
+	 * @should call back once for each patient with their encounters
+	 * @should not call back for patients without encounters
+	 * @should call back for all patients if the cohort is null
+	 * @since 2.2.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_ENCOUNTERS })
+	public void getAllEncounters(Cohort patients, PatientEncountersCallback callback);
+	
 	/**
 	 * Return the number of encounters matching a patient name or patient identifier
 	 * 
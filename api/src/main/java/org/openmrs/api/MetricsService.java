@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import org.openmrs.annotation.Authorized;
+import org.openmrs.api.metrics.MetricsSnapshot;
+import org.openmrs.util.PrivilegeConstants;
+
+/**
+ * Gives operators the Hibernate statistics, the hit ratios of the second level cache regions and
+ * the API caches and the usage of the connection pool, so that N+1 select patterns and badly
+ * configured caches can be found in production. The metrics are also exposed over JMX by
+ * {@link org.openmrs.api.metrics.MetricsMXBean}.
+ * <p>
+ * The Hibernate counts are only collected while hibernate.generate_statistics is true.
+ *
+ * @since 2.2.0
+ */
+public interface MetricsService extends OpenmrsService {
+
+	/**
+	 * Gets the metrics since the statistics were started
+	 *
+	 * @return the current metrics
+	 * @should return the load counts of entities
+	 * @should return the statistics of the api caches
+	 * @should return the statistics of the concept mapping index
+	 */
+	@Authorized(PrivilegeConstants.VIEW_ADMIN_FUNCTIONS)
+	MetricsSnapshot getMetricsSnapshot();
+
+	/**
+	 * Gets the metrics since the given snapshot was taken
+	 *
+	 * @param since a snapshot returned earlier by {@link #getMetricsSnapshot()}
+	 * @return the metrics of what happened since the snapshot was taken
+	 * @should return the counts since the given snapshot
+	 */
+	@Authorized(PrivilegeConstants.VIEW_ADMIN_FUNCTIONS)
+	MetricsSnapshot getMetricsDelta(MetricsSnapshot since);
+}
@@ -9,10 +9,12 @@
  */
 package org.openmrs.api;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Encounter;
@@ -117,6 +119,32 @@ public interface ObsService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
 	public Obs saveObs(Obs obs, String changeMessage) throws APIException;
 	
+	/**
+	 * Saves the given obs like {@link #saveObs(Obs, String)} but as one batch. The privileges are
+	 * checked, the required data is set and the obs are validated once for the whole batch rather
+	 * than once per obs and group member, the new rows are written in a single flush and all edited
+	 * obs are voided together once their replacements have been saved. This is the way to save the
+	 * many obs of a form in one go. Adding obs requires {@link PrivilegeConstants#ADD_OBS}, only obs
+	 * with changes require {@link PrivilegeConstants#EDIT_OBS}.
+	 * 
+	 * @param obs the obs to save, new and edited ones may be mixed
+	 * @param changeMessage String explaining why the obs are being changed, it is required if any of
+	 *            them has already been saved
+	 * @return the saved obs in the order they were given in, for an edited obs this is the new obs
+	 *         replacing it whose previous version is the voided original
+	 * @throws APIException
+	 * @since 2.2.0
+	 * @should save new obs and their group members
+	 * @should void edited obs and return their replacements
+	 * @should return an obs without changes as it is
+	 * @should fail if an edited obs is given without a change message
+	 * @should fail if any obs is invalid
+	 * @should not require the edit obs privilege for obs without changes
+	 * @should require the edit obs privilege for changed obs
+	 */
+	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
+	public List<Obs> saveObs(Collection<Obs> obs, String changeMessage) throws APIException;
+	
 	/**
 	 * Equivalent to deleting an observation
 	 * 
@@ -377,6 +405,32 @@ public interface ObsService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_OBS)
 	public List<Obs> getObservationsByPersonAndConcept(Person who, Concept question) throws APIException;
 	
+	/**
+	 * Streams the most recent or the earliest observations of each of the given questions for a
+	 * cohort of patients to the given callback one patient at a time, for example the last three
+	 * CD4 counts of every patient in a cohort. Unlike the mostRecentN argument of
+	 * {@link #getObservations(List, List, List, List, List, List, List, Integer, Integer, Date, Date, boolean)}
+	 * , which limits the number of observations returned in total, the limit applies to each
+	 * patient and question. The observations to return are selected with a single query for each
+	 * chunk of cohort members, using window functions if the database supports them. Patients are
+	 * handled in ascending order of their ids, pending changes in the session are flushed first.
+	 * 
+	 * @param patients Cohort of patients to search, null for all patients
+	 * @param questions the question concepts of the observations
+	 * @param maxObsPerQuestion the number of observations to return for each patient and question
+	 * @param mostRecent true for the most recent observations, false for the earliest ones
+	 * @param callback called with the observations of each patient that has any
+	 * @throws APIException
+	 * @should call back with the most recent observations of each patient and question
+	 * @should call back with the earliest observations of each patient and question
+	 * @should not call back for patients without observations
+	 * @should call back for all patients if the cohort is null
+	 * @since 2.2.0
+	 */
+	@Authorized(PrivilegeConstants.GET_OBS)
+	public void getObservationsPerPatient(Cohort patients, List<Concept> questions, int maxObsPerQuestion,
+	        boolean mostRecent, PatientObsCallback callback) throws APIException;
+	
 	/**
 	 * Get a complex observation. If obs.isComplex() is true, then returns an Obs with its
 	 * ComplexData. Otherwise returns a simple Obs. 
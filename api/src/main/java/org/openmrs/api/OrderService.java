@@ -299,6 +299,18 @@ public interface OrderService extends OpenmrsService {
 	@Authorized(PrivilegeConstants.ADD_ORDERS)
 	public Long getNextOrderNumberSeedSequenceValue();
 	
+	/**
+	 * Reserves a block of consecutive order number seeds in a single database round trip, the
+	 * caller is responsible for handing them out
+	 * 
+	 * @param count the number of seeds to reserve
+	 * @return the first seed in the reserved block
+	 * @since 2.2.0
+	 * @should reserve the given number of consecutive seeds
+	 */
+	@Authorized(PrivilegeConstants.ADD_ORDERS)
+	public Long reserveOrderNumberSeedSequenceValues(int count);
+	
 	/**
 	 * Gets the order matching the specified order number and its previous orders in the ordering
 	 * they occurred, i.e if this order has a previous order, fetch it and if it also has a previous
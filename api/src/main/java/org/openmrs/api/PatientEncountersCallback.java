@@ -0,0 +1,33 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import java.util.List;
+
+import org.openmrs.Encounter;
+
+/**
+ * Receives the encounters of a cohort one patient at a time.
+ * 
+ * @see EncounterService#getAllEncounters(org.openmrs.Cohort, PatientEncountersCallback)
+ * @since 2.2.0
+ */
+public interface PatientEncountersCallback {
+	
+	/**
+	 * Called once for each patient that has encounters. The encounters and their patient are
+	 * evicted from the session once this method returns, so implementations must not hold on to
+	 * them expecting to lazy load their properties later.
+	 * 
+	 * @param patientId the id of the patient
+	 * @param encounters the non voided encounters of the patient, latest first
+	 */
+	public void handle(Integer patientId, List<Encounter> encounters);
+}
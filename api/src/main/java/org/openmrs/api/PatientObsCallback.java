@@ -0,0 +1,35 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import java.util.List;
+
+import org.openmrs.Obs;
+
+/**
+ * Receives the observations of a cohort one patient at a time.
+ * 
+ * @see ObsService#getObservationsPerPatient(org.openmrs.Cohort, List, int, boolean,
+ *      PatientObsCallback)
+ * @since 2.2.0
+ */
+public interface PatientObsCallback {
+	
+	/**
+	 * Called once for each patient that has observations. The observations and their person are
+	 * evicted from the session once this method returns, so implementations must not hold on to
+	 * them expecting to lazy load their properties later.
+	 * 
+	 * @param patientId the id of the patient
+	 * @param observations the non voided observations of the patient, ordered by question concept
+	 *            id and then by date in the requested order
+	 */
+	public void handle(Integer patientId, List<Obs> observations);
+}
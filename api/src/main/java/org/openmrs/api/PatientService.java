@@ -486,6 +486,36 @@ public interface PatientService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.GET_PATIENTS })
 	public List<Patient> getDuplicatePatientsByAttributes(List<String> attributes) throws APIException;
 	
+	/**
+	 * Gets pairs of patients which might be duplicates of each other. Patients are paired if they
+	 * share blocking keys, which are kept up to date whenever a patient is saved, so no patient has
+	 * to be compared with every other one. Keys shared by more patients than the
+	 * {@link org.openmrs.util.OpenmrsConstants#GP_DUPLICATE_PATIENT_MAX_KEY_MEMBERS} global property
+	 * allows are ignored. <br>
+	 * <br>
+	 * The pairs are read in chunks of patients: a chunk holds the pairs of the next patients, by id,
+	 * after the given patient which are paired with a patient with a higher id. The id of the first
+	 * patient of the last pair of a chunk is the lastPatientId of the next chunk, an empty chunk
+	 * means that there are no more pairs.
+	 * 
+	 * @param minimumScore the minimum score of the returned pairs
+	 * @param lastPatientId the id of the patient after which the chunk starts, null to start with the
+	 *            first patient
+	 * @param maxPatients the maximum number of patients whose pairs are returned, null or 0 for all
+	 * @return the pairs ordered by the ids of their patients
+	 * @throws APIException
+	 * @see org.openmrs.util.DuplicatePatientKeyUtil
+	 * @since 2.2.0
+	 * @should return pairs of patients sharing keys with their score
+	 * @should not return pairs with a lower score than the minimum
+	 * @should not return voided patients
+	 * @should return the pairs of the next patients after the given patient
+	 * @should ignore keys shared by more patients than allowed
+	 */
+	@Authorized( { PrivilegeConstants.GET_PATIENTS })
+	public List<DuplicatePatientCandidate> getDuplicatePatientCandidates(int minimumScore, Integer lastPatientId,
+	        Integer maxPatients) throws APIException;
+	
 	/**
 	 * Convenience method to join two patients' information into one record.
 	 * <ol>
@@ -671,6 +701,7 @@ public interface PatientService extends OpenmrsService {
 	 * @should throw an APIException if the reason is null
 	 * @should throw an APIException if the reason is an empty string
 	 * @should throw an APIException if the reason is a white space character
+	 * @should remove the duplicate key of the identifier
 	 */
 	@Authorized( { PrivilegeConstants.DELETE_PATIENT_IDENTIFIERS })
 	public PatientIdentifier voidPatientIdentifier(PatientIdentifier patientIdentifier, String reason) throws APIException;
@@ -687,6 +718,7 @@ public interface PatientService extends OpenmrsService {
 	 * @should throw an APIException when one of the required fields is null
 	 * @should throw an APIException if the patientIdentifier string is a white space
 	 * @should throw an APIException if the patientIdentifier string is an empty string
+	 * @should update the duplicate keys of the patient
 	 */
 	@Authorized( { PrivilegeConstants.ADD_PATIENT_IDENTIFIERS, PrivilegeConstants.EDIT_PATIENT_IDENTIFIERS })
 	public PatientIdentifier savePatientIdentifier(PatientIdentifier patientIdentifier) throws APIException;
@@ -687,6 +687,7 @@ public interface PersonService extends OpenmrsService {
 	 * @return the newly saved personName
 	 * @throws APIException
 	 * @should void personName with the given reason
+	 * @should remove the duplicate keys of the name from the patient
 	 */
 	@Authorized( { PrivilegeConstants.EDIT_PERSONS })
 	public PersonName voidPersonName(PersonName personName, String voidReason);
@@ -709,6 +710,7 @@ public interface PersonService extends OpenmrsService {
 	 * @return personName that was created or updated
 	 * @throws APIException
 	 * @should fail if you try to void the last non voided name
+	 * @should update the duplicate keys of the patient
 	 */
 	@Authorized( { PrivilegeConstants.EDIT_PERSONS })
 	public PersonName savePersonName(PersonName personName);
@@ -379,4 +379,23 @@ public interface VisitService extends OpenmrsService {
 	 */
 	@Authorized(PrivilegeConstants.EDIT_VISITS)
 	public void stopVisits(Date maximumStartDate);
+	
+	/**
+	 * Stops all active visits started before or on the specified date which match any of the visit
+	 * types specified by the {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE} global property.
+	 * The visits are looked up and stopped in batches of the given size. The visits are saved one at
+	 * a time unless the {@link OpenmrsConstants#GP_AUTO_CLOSE_VISITS_IN_BULK} global property is
+	 * true, then each batch is stopped with a single database update which no Hibernate interceptor
+	 * or event listener sees.
+	 * 
+	 * @param maximumStartDate Visits started on or before this date time value will get stopped
+	 * @param batchSize the number of visits to stop at a time
+	 * @return the number of visits that were stopped
+	 * @since 2.2.0
+	 * @should close all unvoided active visit matching the specified visit types in batches
+	 * @should close visits one at a time if bulk updates are disabled
+	 * @should close visits with bulk updates if they are enabled
+	 */
+	@Authorized(PrivilegeConstants.EDIT_VISITS)
+	public int stopVisits(Date maximumStartDate, int batchSize);
 }
@@ -0,0 +1,199 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.GlobalPropertyListener;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches global property values by property name in the {@link #CACHE_NAME} region configured in
+ * ehcache-api.xml, missing properties are cached as well. Entries are invalidated through the
+ * {@link GlobalPropertyListener} mechanism whenever a global property is saved or purged. <br>
+ * <br>
+ * A property changed in the current transaction is read from the database for the rest of that
+ * transaction and evicted again once the transaction completes, so neither uncommitted nor rolled
+ * back values are ever served to other threads. A value loaded while any property was evicted is
+ * not kept, since it may have been read before the change and put back after the eviction.
+ *
+ * @since 2.2.0
+ */
+public class GlobalPropertyCache implements GlobalPropertyListener {
+
+	public static final String CACHE_NAME = "globalProperties";
+
+	private Cache cache;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Incremented before every eviction, so that a lookup can tell whether it raced with one
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * @param cacheManager the cache manager providing the {@link #CACHE_NAME} region
+	 */
+	public void setCacheManager(CacheManager cacheManager) {
+		this.cache = cacheManager.getCache(CACHE_NAME);
+	}
+
+	/**
+	 * Gets the value of the global property with the given name, calling the loader on a cache miss
+	 *
+	 * @param propertyName the name of the global property
+	 * @param loader loads the value from the database
+	 * @return the value, may be null
+	 * @should return the cached value without calling the loader
+	 * @should cache null values
+	 * @should not cache values changed in the current transaction
+	 * @should not cache values evicted while they were loaded
+	 */
+	public String get(String propertyName, Supplier<String> loader) {
+		String key = getKey(propertyName);
+		Set<String> changedInTransaction = getChangedInTransaction(false);
+		if (cache == null || (changedInTransaction != null && changedInTransaction.contains(key))) {
+			return loader.get();
+		}
+
+		ValueWrapper cached = cache.get(key);
+		if (cached != null) {
+			hitCount.incrementAndGet();
+			return (String) cached.get();
+		}
+
+		missCount.incrementAndGet();
+		long loadGeneration = generation.get();
+		String value = loader.get();
+		cache.put(key, value);
+		if (generation.get() != loadGeneration) {
+			cache.evict(key);
+		}
+		return value;
+	}
+
+	/**
+	 * Evicts the global property with the given name now and again when the current transaction
+	 * completes
+	 *
+	 * @param propertyName the name of the global property
+	 */
+	public void invalidate(String propertyName) {
+		if (propertyName == null || cache == null) {
+			return;
+		}
+		String key = getKey(propertyName);
+		Set<String> changedInTransaction = getChangedInTransaction(true);
+		if (changedInTransaction != null) {
+			changedInTransaction.add(key);
+		}
+		generation.incrementAndGet();
+		cache.evict(key);
+	}
+
+	/**
+	 * Evicts all cached global properties
+	 */
+	public void clear() {
+		if (cache != null) {
+			generation.incrementAndGet();
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @return the number of lookups served from the cache
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * @return the number of lookups that had to go to the database
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @see GlobalPropertyListener#supportsPropertyName(String)
+	 */
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return true;
+	}
+
+	/**
+	 * @see GlobalPropertyListener#globalPropertyChanged(GlobalProperty)
+	 */
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		invalidate(newValue.getProperty());
+	}
+
+	/**
+	 * @see GlobalPropertyListener#globalPropertyDeleted(String)
+	 */
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		invalidate(propertyName);
+	}
+
+	/**
+	 * Global property names are compared case insensitively by the database
+	 */
+	private String getKey(String propertyName) {
+		return propertyName.toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Gets the names of the global properties changed in the current transaction
+	 *
+	 * @param create whether to start tracking changes if the current transaction has none yet
+	 * @return the names or null if there is no transaction or nothing was changed in it
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<String> getChangedInTransaction(boolean create) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+
+		Set<String> changed = (Set<String>) TransactionSynchronizationManager.getResource(this);
+		if (changed == null && create) {
+			final Set<String> names = new HashSet<String>();
+			TransactionSynchronizationManager.bindResource(this, names);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(GlobalPropertyCache.this);
+					generation.incrementAndGet();
+					for (String name : names) {
+						cache.evict(name);
+					}
+				}
+			});
+			changed = names;
+		}
+		return changed;
+	}
+}
@@ -40,6 +40,7 @@ import org.openmrs.api.DatatypeService;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.FormService;
 import org.openmrs.api.LocationService;
+import org.openmrs.api.MetricsService;
 import org.openmrs.api.ObsService;
 import org.openmrs.api.OpenmrsService;
 import org.openmrs.api.OrderService;
@@ -74,6 +75,7 @@ import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
+import org.openmrs.util.SearchIndexProgress;
 import org.openmrs.validator.ValidateUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -1225,6 +1227,14 @@ public class Context {
 		return getServiceContext().getDatatypeService();
 	}
 
+	/**
+	 * @since 2.2.0
+	 * @see ServiceContext#getMetricsService()
+	 */
+	public static MetricsService getMetricsService() {
+		return getServiceContext().getMetricsService();
+	}
+
 	/**
 	 * Add or replace a property in the config properties list
 	 *
@@ -1287,6 +1297,17 @@ public class Context {
 		return getContextDAO().updateSearchIndexAsync();
 	}
 
+	/**
+	 * Gets the progress of the last search index rebuild started by {@link #updateSearchIndex()} or
+	 * {@link #updateSearchIndexAsync()}. It can be polled while the rebuild is running.
+	 *
+	 * @return the progress or null if the index has not been rebuilt since startup
+	 * @since 2.2.0
+	 */
+	public static SearchIndexProgress getSearchIndexProgress() {
+		return getContextDAO().getSearchIndexProgress();
+	}
+
 	/**
 	 * Updates the search index for objects of the given type.
 	 *
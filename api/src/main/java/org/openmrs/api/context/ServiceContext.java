@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aopalliance.aop.Advice;
 import org.openmrs.api.APIException;
@@ -27,6 +28,7 @@ import org.openmrs.api.DatatypeService;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.FormService;
 import org.openmrs.api.LocationService;
+import org.openmrs.api.MetricsService;
 import org.openmrs.api.ObsService;
 import org.openmrs.api.OpenmrsService;
 import org.openmrs.api.OrderService;
@@ -74,7 +76,11 @@ public class ServiceContext implements ApplicationContextAware {
 
 	private ApplicationContext applicationContext;
 	
-	private static boolean refreshingContext = false;
+	/**
+	 * Read without holding the lock by {@link #getService(Class)} so that service lookups only
+	 * contend on {@link #refreshingContextLock} while a context refresh is actually running
+	 */
+	private static volatile boolean refreshingContext = false;
 	
 	private static final Object refreshingContextLock = new Object();
 	
@@ -85,7 +91,7 @@ public class ServiceContext implements ApplicationContextAware {
 	private boolean useSystemClassLoader = false;
 	
 	// Cached service objects
-	Map<Class, Object> services = new HashMap<Class, Object>();
+	Map<Class, Object> services = new ConcurrentHashMap<Class, Object>();
 	
 	// Advisors added to services by this service
 	Map<Class, Set<Advisor>> addedAdvisors = new HashMap<Class, Set<Advisor>>();
@@ -616,6 +622,24 @@ public class ServiceContext implements ApplicationContextAware {
 		
 		// if the context is refreshing, wait until it is
 		// done -- otherwise a null service might be returned
+		if (refreshingContext) {
+			waitForContextRefresh(cls);
+		}
+		
+		Object service = cls == null ? null : services.get(cls);
+		if (service == null) {
+			throw new APIException("Service not found: " + cls);
+		}
+		
+		return (T) service;
+	}
+	
+	/**
+	 * Blocks the calling thread until the current context refresh has completed
+	 *
+	 * @param cls the service class being looked up, used for logging only
+	 */
+	private void waitForContextRefresh(Class<?> cls) {
 		synchronized (refreshingContextLock) {
 			try {
 				while (refreshingContext) {
@@ -635,13 +659,6 @@ public class ServiceContext implements ApplicationContextAware {
 				log.warn("Refresh lock was interrupted", e);
 			}
 		}
-		
-		Object service = services.get(cls);
-		if (service == null) {
-			throw new APIException("Service not found: " + cls);
-		}
-		
-		return (T) service;
 	}
 	
 	/**
@@ -810,9 +827,7 @@ public class ServiceContext implements ApplicationContextAware {
 	 *         doneRefreshingContext()
 	 */
 	public boolean isRefreshingContext() {
-		synchronized (refreshingContextLock) {
-			return refreshingContext;
-		}
+		return refreshingContext;
 	}
 	
 	/**
@@ -1015,4 +1030,24 @@ public class ServiceContext implements ApplicationContextAware {
 		setService(DatatypeService.class, datatypeService);
 	}
 	
+	/**
+	 * Gets the metrics service
+	 *
+	 * @return metrics service
+	 * @since 2.2.0
+	 */
+	public MetricsService getMetricsService() {
+		return getService(MetricsService.class);
+	}
+	
+	/**
+	 * Sets the metrics service
+	 *
+	 * @param metricsService the metricsService to set
+	 * @since 2.2.0
+	 */
+	public void setMetricsService(MetricsService metricsService) {
+		setService(MetricsService.class, metricsService);
+	}
+	
 }
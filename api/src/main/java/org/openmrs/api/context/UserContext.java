@@ -10,14 +10,17 @@
 package org.openmrs.api.context;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.openmrs.Location;
+import org.openmrs.Privilege;
 import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.APIAuthenticationException;
@@ -46,6 +49,12 @@ public class UserContext implements Serializable {
 	 */
 	private static final Logger log = LoggerFactory.getLogger(UserContext.class);
 	
+	/**
+	 * Incremented whenever roles or privileges change so that all user contexts recompute their
+	 * cached privileges
+	 */
+	private static final AtomicInteger privilegesVersion = new AtomicInteger();
+	
 	/**
 	 * User object containing details about the authenticated user
 	 */
@@ -76,6 +85,11 @@ public class UserContext implements Serializable {
 	 */
 	private Integer locationId;
 	
+	/**
+	 * Flattened privileges of the authenticated user and the Authenticated and Anonymous roles
+	 */
+	private transient volatile PrivilegeCache privilegeCache = null;
+	
 	/**
 	 * Default public constructor
 	 */
@@ -193,6 +207,7 @@ public class UserContext implements Serializable {
 	public void logout() {
 		log.debug("setting user to null on logout");
 		user = null;
+		privilegeCache = null;
 	}
 	
 	/**
@@ -302,39 +317,96 @@ public class UserContext implements Serializable {
 	 * @should not authorize if authenticated role does not have specified privilege
 	 * @should not authorize if proxied user does not have specified privilege
 	 * @should not authorize if anonymous user does not have specified privilege
+	 * @should reflect roles added to or removed from the authenticated user
 	 */
 	public boolean hasPrivilege(String privilege) {
+		PrivilegeCache cache = getPrivilegeCache();
 		
-		// if a user has logged in, check their privileges
-		if (isAuthenticated()
-		        && (getAuthenticatedUser().hasPrivilege(privilege) || getAuthenticatedRole().hasPrivilege(privilege))) {
-			
-			// check user's privileges
-			Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-			return true;
+		// all authenticated users have the "" (empty) privilege and superusers have every privilege
+		boolean hasPrivilege = cache.user != null && (cache.superUser || StringUtils.isEmpty(privilege));
+		if (!hasPrivilege) {
+			hasPrivilege = cache.privileges.contains(privilege);
+		}
+		
+		if (!hasPrivilege) {
+			if (log.isDebugEnabled()) {
+				log.debug("Checking '" + privilege + "' against proxies: " + proxies);
+			}
 			
+			// check proxied privileges
+			hasPrivilege = proxies.contains(privilege);
 		}
 		
-		if (log.isDebugEnabled()) {
-			log.debug("Checking '" + privilege + "' against proxies: " + proxies);
+		Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, hasPrivilege);
+		return hasPrivilege;
+	}
+	
+	/**
+	 * Notifies all user contexts that roles or privileges have changed so that their cached
+	 * privileges are recomputed on the next privilege check
+	 *
+	 * @since 2.2.0
+	 */
+	public static void privilegesChanged() {
+		privilegesVersion.incrementAndGet();
+	}
+	
+	/**
+	 * Gets the privileges of the authenticated user, recomputing them if another user has been
+	 * authenticated, roles have been added to or removed from the authenticated user or roles or
+	 * privileges have changed since they were computed
+	 *
+	 * @return the cached privileges
+	 */
+	private PrivilegeCache getPrivilegeCache() {
+		PrivilegeCache cache = privilegeCache;
+		User authenticatedUser = user;
+		Set<Role> roles = getRoles(authenticatedUser);
+		if (cache != null && cache.user == authenticatedUser && cache.version == privilegesVersion.get()
+		        && cache.roles.equals(roles)) {
+			return cache;
 		}
 		
-		// check proxied privileges
-		for (String s : proxies) {
-			if (s.equals(privilege)) {
-				Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-				return true;
-			}
+		int version = privilegesVersion.get();
+		if (cache != null && cache.version != version) {
+			// the Authenticated and Anonymous roles may have changed as well
+			authenticatedRole = null;
+			anonymousRole = null;
 		}
 		
-		if (getAnonymousRole().hasPrivilege(privilege)) {
-			Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-			return true;
+		Set<String> privileges = new HashSet<String>();
+		addPrivileges(privileges, getAnonymousRole());
+		boolean superUser = false;
+		if (authenticatedUser != null) {
+			superUser = authenticatedUser.isSuperUser();
+			addPrivileges(privileges, getAuthenticatedRole());
+			for (Role role : authenticatedUser.getAllRoles()) {
+				addPrivileges(privileges, role);
+			}
 		}
 		
-		// default return value
-		Context.getUserService().notifyPrivilegeListeners(getAuthenticatedUser(), privilege, false);
-		return false;
+		cache = new PrivilegeCache(version, authenticatedUser, roles, superUser, privileges);
+		privilegeCache = cache;
+		return cache;
+	}
+	
+	/**
+	 * @return the roles the given user has been given directly, the cached privileges are only valid
+	 *         as long as they don't change
+	 */
+	private Set<Role> getRoles(User user) {
+		if (user == null || user.getRoles() == null) {
+			return Collections.emptySet();
+		}
+		return user.getRoles();
+	}
+	
+	private void addPrivileges(Set<String> privileges, Role role) {
+		if (role.getPrivileges() != null) {
+			for (Privilege privilege : role.getPrivileges()) {
+				privileges.add(privilege.getPrivilege());
+			}
+		}
 	}
 	
 	/**
@@ -456,4 +528,28 @@ public class UserContext implements Serializable {
 			}
 		}
 	}
+	
+	/**
+	 * Immutable snapshot of the privileges granted to an authenticated user
+	 */
+	private static final class PrivilegeCache {
+		
+		private final int version;
+		
+		private final User user;
+		
+		private final Set<Role> roles;
+		
+		private final boolean superUser;
+		
+		private final Set<String> privileges;
+		
+		private PrivilegeCache(int version, User user, Set<Role> roles, boolean superUser, Set<String> privileges) {
+			this.version = version;
+			this.user = user;
+			this.roles = new HashSet<Role>(roles);
+			this.superUser = superUser;
+			this.privileges = Collections.unmodifiableSet(privileges);
+		}
+	}
 }
@@ -218,6 +218,17 @@ public interface ConceptDAO {
 	 */
 	public List<ConceptSet> getSetsContainingConcept(Concept concept) throws DAOException;
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#getConceptsByConceptSet(org.openmrs.Concept)
+	 */
+	public List<Concept> getConceptsByConceptSet(Concept concept) throws DAOException;
+	
+	/**
+	 * @see org.openmrs.api.ConceptService#getAllSetsContainingConcept(org.openmrs.Concept)
+	 * @since 2.2.0
+	 */
+	public List<Concept> getAllSetsContainingConcept(Concept concept) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptNumeric(java.lang.Integer)
 	 */
@@ -325,6 +336,13 @@ public interface ConceptDAO {
 	 */
 	public List<Concept> getConceptsByMapping(String code, String sourceName, boolean includeRetired);
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#getConceptsByMappings(java.util.Collection, java.lang.String)
+	 * @since 2.2.0
+	 */
+	public Map<String, List<Concept>> getConceptsByMappings(Collection<String> codes, String sourceName,
+	        boolean includeRetired);
+	
 	/**
 	 * @param uuid
 	 * @return concept or null
@@ -16,6 +16,7 @@ import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.SearchIndexProgress;
 
 /**
  * Defines the functions that the Context needs to access the database
@@ -141,6 +142,11 @@ public interface ContextDAO {
 	 */
 	public Future<?> updateSearchIndexAsync();
 	
+	/**
+	 * @see Context#getSearchIndexProgress()
+	 */
+	public SearchIndexProgress getSearchIndexProgress();
+	
 	/**
 	 * @see Context#updateSearchIndexForObject(Object)
 	 */
@@ -21,6 +21,7 @@ import org.openmrs.Location;
 import org.openmrs.Patient;
 import org.openmrs.Visit;
 import org.openmrs.api.EncounterService;
+import org.openmrs.api.PatientEncountersCallback;
 import org.openmrs.parameter.EncounterSearchCriteria;
 
 /**
@@ -168,6 +169,11 @@ public interface EncounterDAO {
 	 */
 	public Map<Integer, List<Encounter>> getAllEncounters(Cohort patients);
 	
+	/**
+	 * @see EncounterService#getAllEncounters(Cohort, PatientEncountersCallback)
+	 */
+	public void getAllEncounters(Cohort patients, PatientEncountersCallback callback);
+	
 	/**
 	 * Return the number of encounters matching a patient name or patient identifier
 	 * 
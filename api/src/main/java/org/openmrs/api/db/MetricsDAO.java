@@ -0,0 +1,28 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db;
+
+import org.openmrs.api.metrics.MetricsSnapshot;
+
+/**
+ * Reads the statistics of the persistence layer for {@link org.openmrs.api.MetricsService}
+ *
+ * @since 2.2.0
+ */
+public interface MetricsDAO {
+
+	/**
+	 * Fills the given snapshot with the statistics of the session factory, its second level cache
+	 * regions and its connection pool
+	 *
+	 * @param snapshot the snapshot to fill
+	 */
+	void addPersistenceMetrics(MetricsSnapshot snapshot);
+}
@@ -9,9 +9,11 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Encounter;
@@ -19,6 +21,7 @@ import org.openmrs.Location;
 import org.openmrs.Obs;
 import org.openmrs.Person;
 import org.openmrs.api.ObsService;
+import org.openmrs.api.PatientObsCallback;
 import org.openmrs.util.OpenmrsConstants.PERSON_TYPE;
 
 /**
@@ -38,6 +41,14 @@ public interface ObsDAO {
 	 */
 	public Obs getObs(Integer obsId) throws DAOException;
 	
+	/**
+	 * @param obsIds the ids of the obs to get
+	 * @return the obs with the given ids in no particular order
+	 * @see org.openmrs.api.ObsService#saveObs(java.util.Collection, String)
+	 * @since 2.2.0
+	 */
+	public List<Obs> getObs(Collection<Integer> obsIds) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.ObsService#purgeObs(Obs)
 	 */
@@ -54,6 +65,12 @@ public interface ObsDAO {
 	        Integer mostRecentN, Integer obsGroupId, Date fromDate, Date toDate, boolean includeVoidedObs,
 	        String accessionNumber) throws DAOException;
 	
+	/**
+	 * @see ObsService#getObservationsPerPatient(Cohort, List, int, boolean, PatientObsCallback)
+	 */
+	public void getObservationsPerPatient(Cohort patients, List<Concept> questions, int maxObsPerQuestion,
+	        boolean mostRecent, PatientObsCallback callback) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.ObsService#getObservationCount(java.util.List, java.util.List,
 	 *      java.util.List, java.util.List, java.util.List, java.util.List, java.lang.Integer,
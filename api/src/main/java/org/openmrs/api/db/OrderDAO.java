@@ -95,6 +95,15 @@ public interface OrderDAO {
 	 */
 	public Long getNextOrderNumberSeedSequenceValue();
 	
+	/**
+	 * Reserves a block of consecutive order number seeds
+	 * 
+	 * @param count the number of seeds to reserve
+	 * @return the first seed in the reserved block
+	 * @since 2.2.0
+	 */
+	public Long reserveOrderNumberSeedSequenceValues(int count);
+	
 	/**
 	 * @see org.openmrs.api.OrderService#getActiveOrders(org.openmrs.Patient, org.openmrs.OrderType,
 	 *      org.openmrs.CareSetting, java.util.Date)
@@ -17,6 +17,7 @@ import org.openmrs.Location;
 import org.openmrs.Patient;
 import org.openmrs.PatientIdentifier;
 import org.openmrs.PatientIdentifierType;
+import org.openmrs.api.DuplicatePatientCandidate;
 
 /**
  * Database methods for the PatientService
@@ -176,6 +177,13 @@ public interface PatientDAO {
 	 */
 	public List<Patient> getDuplicatePatientsByAttributes(List<String> attributes) throws DAOException;
 	
+	/**
+	 * @param maxKeyMembers the maximum number of patients sharing a blocking key for it to pair them
+	 * @see org.openmrs.api.PatientService#getDuplicatePatientCandidates(int, Integer, Integer)
+	 */
+	public List<DuplicatePatientCandidate> getDuplicatePatientCandidates(int minimumScore, Integer lastPatientId,
+	        Integer maxPatients, int maxKeyMembers) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.PatientService#isIdentifierInUseByAnotherPatient(PatientIdentifier)
 	 */
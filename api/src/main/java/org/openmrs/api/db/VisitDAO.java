@@ -17,6 +17,7 @@ import java.util.Map;
 import org.openmrs.Concept;
 import org.openmrs.Location;
 import org.openmrs.Patient;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
 import org.openmrs.VisitAttributeType;
@@ -156,4 +157,33 @@ public interface VisitDAO {
 	 */
 	public Visit getNextVisit(Visit previousVisit, Collection<VisitType> visitTypes, Date maximumStartDate);
 	
+	/**
+	 * Gets the ids of the active visits which match the specified visit types, in ascending order
+	 * 
+	 * @param afterVisitId only ids greater than this one are returned, null to start from the first
+	 * @param visitTypes a collection of visit types to match against
+	 * @param maximumStartDate the visits should have been created before or at this date time
+	 * @param maxResults the maximum number of ids to return
+	 * @return the ids of the visits
+	 * @since 2.2.0
+	 * @should return the ids of unvoided active visits matching the specified types and startDate
+	 * @should return the ids after the given id up to the maximum number of results
+	 */
+	public List<Integer> getActiveVisitIds(Integer afterVisitId, Collection<VisitType> visitTypes, Date maximumStartDate,
+	        int maxResults);
+	
+	/**
+	 * Stops the visits with the given ids which are still active in a single update, without loading
+	 * them
+	 * 
+	 * @param visitIds the ids of the visits to stop
+	 * @param stopDatetime the stop date time to set
+	 * @param changedBy the user to record as having changed the visits
+	 * @param dateChanged the date to record as the visits' change date
+	 * @return the number of visits that were stopped
+	 * @since 2.2.0
+	 * @should stop the active visits with the given ids
+	 */
+	public int stopVisits(Collection<Integer> visitIds, Date stopDatetime, User changedBy, Date dateChanged);
+	
 }
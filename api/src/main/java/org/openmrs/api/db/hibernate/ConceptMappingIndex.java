@@ -0,0 +1,307 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.metrics.CacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers the concepts mapped to reference term codes of concept sources, so that concepts are
+ * looked up by mapping without joining the concept map, reference term and source tables every
+ * time. The index is keyed by the lower case source name or hl7 code and the lower case code, as
+ * mappings are looked up ignoring case. It is filled as mappings are looked up, misses included,
+ * and is cleared when it holds {@link #MAX_CACHED_MAPPINGS} mappings. <br>
+ * <br>
+ * The index holds the concept ids of all mapped concepts, retired or not, since whether a concept is
+ * retired is checked when it is loaded. Any change to a concept map, reference term or source
+ * clears the index once the transaction completes, until then {@link #isChangedInTransaction()}
+ * tells that transaction to bypass the index. Mappings are looked up in the session of the
+ * transaction which needs them, which keeps using what it looked up, and they are only remembered
+ * once that transaction is committed, so that the index never holds mappings which were rolled
+ * back.
+ *
+ * @see HibernateConceptDAO#getConceptsByMappings(Collection, String, boolean)
+ * @see ConceptMappingIndexInterceptor
+ * @since 2.2.0
+ */
+public class ConceptMappingIndex {
+	
+	/**
+	 * The name of the index in the metrics
+	 */
+	public static final String NAME = "conceptMappingIndex";
+	
+	/**
+	 * The number of mappings that are remembered, the index is cleared when it grows larger
+	 */
+	public static final int MAX_CACHED_MAPPINGS = 10000;
+	
+	private static final int MAX_CODES_PER_QUERY = 1000;
+	
+	private final Map<List<String>, List<Integer>> conceptIdsByMapping = new ConcurrentHashMap<List<String>, List<Integer>>();
+	
+	/**
+	 * The key of the mappings looked up by the current transaction, which are not remembered yet
+	 */
+	private final Object lookedUpInTransaction = new Object();
+	
+	private final AtomicLong generation = new AtomicLong();
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	
+	private final AtomicLong missCount = new AtomicLong();
+	
+	private final AtomicLong putCount = new AtomicLong();
+	
+	/**
+	 * Gets the ids of the concepts mapped to the given codes of the given source
+	 *
+	 * @param codes the reference term codes
+	 * @param sourceName the name or hl7 code of the concept source
+	 * @param session the session used to look up the mappings which are not in the index
+	 * @return the concept ids by code, in the order of the codes, empty for codes which are not
+	 *         mapped, null codes are left out
+	 * @should return the concept ids mapped to the codes ignoring case
+	 * @should remember mappings which were looked up
+	 * @should remember codes which are not mapped
+	 * @should not remember mappings looked up after a change in the current transaction
+	 * @should not remember mappings looked up while the index was cleared
+	 * @should only remember mappings once the transaction is committed
+	 */
+	public Map<String, List<Integer>> getConceptIds(Collection<String> codes, String sourceName, Session session) {
+		Map<String, List<Integer>> result = new LinkedHashMap<String, List<Integer>>();
+		Set<String> missingCodes = new LinkedHashSet<String>();
+		String source = sourceName == null ? null : normalize(sourceName);
+		boolean bypass = isChangedInTransaction();
+		LookedUp lookedUp = (source == null || bypass) ? null : getLookedUpInTransaction();
+		for (String code : codes) {
+			if (code == null) {
+				continue;
+			}
+			List<Integer> conceptIds = null;
+			if (source != null && !bypass) {
+				conceptIds = conceptIdsByMapping.get(key(source, code));
+				if (conceptIds == null && lookedUp != null) {
+					conceptIds = lookedUp.mappings.get(key(source, code));
+				}
+			}
+			if (conceptIds != null) {
+				hitCount.incrementAndGet();
+			} else if (source != null) {
+				missingCodes.add(normalize(code));
+			}
+			result.put(code, conceptIds);
+		}
+		
+		Map<String, List<Integer>> loaded = Collections.emptyMap();
+		if (!missingCodes.isEmpty()) {
+			long loadGeneration = generation.get();
+			loaded = load(session, missingCodes, source);
+			if (!bypass) {
+				missCount.addAndGet(missingCodes.size());
+				Map<List<String>, List<Integer>> mappings = toMappings(source, missingCodes, loaded);
+				if (lookedUp == null) {
+					put(mappings, loadGeneration);
+				} else {
+					lookedUp.mappings.putAll(mappings);
+				}
+			}
+		}
+		
+		for (Map.Entry<String, List<Integer>> entry : result.entrySet()) {
+			if (entry.getValue() == null) {
+				List<Integer> conceptIds = loaded.get(normalize(entry.getKey()));
+				entry.setValue(conceptIds == null ? Collections.<Integer> emptyList() : conceptIds);
+			}
+		}
+		return result;
+	}
+	
+	private Map<String, List<Integer>> load(Session session, Set<String> codes, String source) {
+		Map<String, List<Integer>> conceptIdsByCode = new HashMap<String, List<Integer>>();
+		List<String> codeList = new ArrayList<String>(codes);
+		for (int i = 0; i < codeList.size(); i += MAX_CODES_PER_QUERY) {
+			List<String> chunk = codeList.subList(i, Math.min(i + MAX_CODES_PER_QUERY, codeList.size()));
+			for (Object[] row : loadMappings(session, chunk, source)) {
+				List<Integer> conceptIds = conceptIdsByCode.computeIfAbsent(normalize((String) row[0]),
+				    code -> new ArrayList<Integer>());
+				if (!conceptIds.contains(row[1])) {
+					conceptIds.add((Integer) row[1]);
+				}
+			}
+		}
+		return conceptIdsByCode;
+	}
+	
+	private Map<List<String>, List<Integer>> toMappings(String source, Set<String> codes,
+	        Map<String, List<Integer>> conceptIdsByCode) {
+		Map<List<String>, List<Integer>> mappings = new HashMap<List<String>, List<Integer>>();
+		for (String code : codes) {
+			List<Integer> conceptIds = conceptIdsByCode.get(code);
+			mappings.put(key(source, code), conceptIds == null ? Collections.<Integer> emptyList() : Collections
+			        .unmodifiableList(conceptIds));
+		}
+		return mappings;
+	}
+	
+	/**
+	 * @return the mappings looked up by the current transaction, which are remembered once it is
+	 *         committed, or null if there is no transaction
+	 */
+	private LookedUp getLookedUpInTransaction() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		
+		LookedUp lookedUp = (LookedUp) TransactionSynchronizationManager.getResource(lookedUpInTransaction);
+		if (lookedUp == null) {
+			final LookedUp lookedUpMappings = new LookedUp(generation.get());
+			TransactionSynchronizationManager.bindResource(lookedUpInTransaction, lookedUpMappings);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(lookedUpInTransaction);
+					if (status == STATUS_COMMITTED && !lookedUpMappings.mappings.isEmpty()) {
+						put(lookedUpMappings.mappings, lookedUpMappings.generation);
+					}
+				}
+			});
+			lookedUp = lookedUpMappings;
+		}
+		return lookedUp;
+	}
+	
+	private void put(Map<List<String>, List<Integer>> mappings, long loadGeneration) {
+		if (conceptIdsByMapping.size() + mappings.size() > MAX_CACHED_MAPPINGS) {
+			conceptIdsByMapping.clear();
+		}
+		conceptIdsByMapping.putAll(mappings);
+		putCount.addAndGet(mappings.size());
+		// a mapping which changed while it was looked up is not remembered
+		if (generation.get() != loadGeneration) {
+			conceptIdsByMapping.clear();
+		}
+	}
+	
+	private List<String> key(String source, String code) {
+		return Arrays.asList(source, normalize(code));
+	}
+	
+	private String normalize(String value) {
+		return value.toLowerCase(Locale.ENGLISH);
+	}
+	
+	/**
+	 * Records that a concept map, reference term or source was changed in the current transaction.
+	 * The index is cleared once the transaction completes.
+	 *
+	 * @should clear the index after the transaction completes
+	 */
+	public void mappingsChanged() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			clear();
+			return;
+		}
+		
+		if (!TransactionSynchronizationManager.hasResource(this)) {
+			TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(ConceptMappingIndex.this);
+					clear();
+				}
+			});
+		}
+	}
+	
+	/**
+	 * @return true if mappings were changed in the current transaction, which the index does not
+	 *         reflect yet
+	 */
+	public boolean isChangedInTransaction() {
+		return TransactionSynchronizationManager.isSynchronizationActive()
+		        && TransactionSynchronizationManager.hasResource(this);
+	}
+	
+	/**
+	 * Empties the index
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		conceptIdsByMapping.clear();
+	}
+	
+	/**
+	 * @return the hits, misses and puts of the index and the number of mappings it holds
+	 * @should count hits and misses
+	 */
+	public CacheMetrics getMetrics() {
+		return new CacheMetrics(NAME, hitCount.get(), missCount.get(), putCount.get(), conceptIdsByMapping.size());
+	}
+	
+	/**
+	 * Looks up the concepts mapped to the given codes in the database
+	 *
+	 * @param session the session to look up with
+	 * @param codes the lower case codes
+	 * @param source the lower case name or hl7 code of the source
+	 * @return the code of the reference term and the id of the concept of the mappings
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<Object[]> loadMappings(Session session, Collection<String> codes, String source) {
+		String hql = "select distinct t.code, cm.concept.conceptId from ConceptMap cm"
+		        + " join cm.conceptReferenceTerm t join t.conceptSource cs";
+		if (Context.getAdministrationService().isDatabaseStringComparisonCaseSensitive()) {
+			hql += " where lower(t.code) in (:codes) and (lower(cs.name) = :source or lower(cs.hl7Code) = :source)";
+		} else {
+			hql += " where t.code in (:codes) and (cs.name = :source or cs.hl7Code = :source)";
+		}
+		Query query = session.createQuery(hql);
+		query.setParameterList("codes", codes);
+		query.setParameter("source", source);
+		return query.list();
+	}
+	
+	/**
+	 * The mappings looked up by a transaction and the generation of the index when it first looked
+	 * mappings up
+	 */
+	private static class LookedUp {
+		
+		private final long generation;
+		
+		private final Map<List<String>, List<Integer>> mappings = new HashMap<List<String>, List<Integer>>();
+		
+		private LookedUp(long generation) {
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,495 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.hibernate.type.StandardBasicTypes;
+import org.openmrs.Concept;
+import org.openmrs.ConceptSet;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * An in-memory index of the concept_set table, so that the concepts in a set, including those in
+ * nested sets, and the sets containing a concept, including through nested sets, are found
+ * without querying the database level by level. <br>
+ * <br>
+ * The whole table is read with one query in the session of the transaction which first uses the
+ * index. That transaction keeps using what it read, and the index only starts to share it with
+ * other transactions once that transaction is committed, and only if no concept sets were changed in
+ * the meantime. <br>
+ * <br>
+ * The index is then kept up to date from the concept sets and concepts saved or deleted through
+ * Hibernate: their state is applied to the index once the transaction changing them is committed,
+ * without reading the database again. Until then the changes are only visible to the transaction
+ * that made them, so {@link #isChangedInTransaction()} tells that transaction to query the database
+ * instead. Changes made directly in the database, bypassing Hibernate, require
+ * {@link #setsChanged()} in the transaction making them, or {@link #clear()} once they are
+ * committed.
+ *
+ * @see HibernateConceptDAO#getConceptsByConceptSet(org.openmrs.Concept)
+ * @see ConceptSetIndexInterceptor
+ * @since 2.2.0
+ */
+public class ConceptSetIndex {
+	
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	
+	/**
+	 * The key of the members loaded by the current transaction, which are not shared yet
+	 */
+	private final Object loadedInTransaction = new Object();
+	
+	/**
+	 * The shared members or null if they have to be loaded, guarded by the lock
+	 */
+	private Members members;
+	
+	/**
+	 * Incremented whenever concept sets change, so that members loaded before are not shared,
+	 * guarded by the lock
+	 */
+	private long generation = 0;
+	
+	/**
+	 * Gets the ids of the concepts in the given set and in the sets nested in it, in the order of
+	 * their sort weights. A nested set is followed by its own members, a concept is listed once for
+	 * each set it is a member of but every set is only expanded once.
+	 *
+	 * @param setId the concept id of the set
+	 * @param session the session used to load the index if necessary
+	 * @return the concept ids
+	 * @should return the members of nested sets in sort order
+	 * @should not expand members which are not sets
+	 * @should expand every set only once
+	 * @should only share the index loaded in a transaction once the transaction is committed
+	 */
+	public List<Integer> getConceptIdsInSet(Integer setId, Session session) {
+		Members members = getMembers(session);
+		lock.readLock().lock();
+		try {
+			List<Integer> result = new ArrayList<Integer>();
+			members.addMembers(setId, result, new HashSet<Integer>());
+			return result;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Gets the ids of the sets which contain the given concept, either directly or as a member of a
+	 * nested set, the sets containing the concept directly first
+	 *
+	 * @param conceptId the concept id
+	 * @param session the session used to load the index if necessary
+	 * @return the concept ids of the sets
+	 * @should return the sets containing the concept through nested sets
+	 * @should not return sets containing the concept through members which are not sets
+	 */
+	public List<Integer> getSetIdsContaining(Integer conceptId, Session session) {
+		Members members = getMembers(session);
+		lock.readLock().lock();
+		try {
+			Set<Integer> result = new LinkedHashSet<Integer>();
+			Deque<Integer> queue = new ArrayDeque<Integer>();
+			queue.add(conceptId);
+			while (!queue.isEmpty()) {
+				for (Integer setId : members.setsByMember.getOrDefault(queue.poll(), Collections.<Integer> emptySet())) {
+					if (result.add(setId) && members.sets.contains(setId)) {
+						queue.add(setId);
+					}
+				}
+			}
+			return new ArrayList<Integer>(result);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Gets the shared members, or loads them in the given session. Members loaded in a transaction
+	 * are used for the rest of that transaction and are only shared once it is committed, so that
+	 * the index never holds sets which are rolled back.
+	 */
+	private Members getMembers(Session session) {
+		final long loadGeneration;
+		lock.readLock().lock();
+		try {
+			if (members != null) {
+				return members;
+			}
+			loadGeneration = generation;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			Members loaded = new Members(loadMembers(session));
+			share(loaded, loadGeneration);
+			return loaded;
+		}
+		
+		Members loaded = (Members) TransactionSynchronizationManager.getResource(loadedInTransaction);
+		if (loaded == null) {
+			final Members loadedMembers = new Members(loadMembers(session));
+			TransactionSynchronizationManager.bindResource(loadedInTransaction, loadedMembers);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(loadedInTransaction);
+					if (status == STATUS_COMMITTED) {
+						share(loadedMembers, loadGeneration);
+					}
+				}
+			});
+			loaded = loadedMembers;
+		}
+		return loaded;
+	}
+	
+	private void share(Members loaded, long loadGeneration) {
+		lock.writeLock().lock();
+		try {
+			// members loaded before a change are not shared, the next transaction loads them again
+			if (members == null && generation == loadGeneration) {
+				members = loaded;
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Records that the given concept set was saved in the current transaction. Its state is applied
+	 * to the index once the transaction is committed.
+	 *
+	 * @param conceptSet the saved concept set
+	 * @should report changes in the current transaction
+	 * @should update the index once the transaction is committed
+	 * @should not update the index if the transaction is rolled back
+	 */
+	public void conceptSetSaved(final ConceptSet conceptSet) {
+		changed(members -> members.save(conceptSet));
+	}
+	
+	/**
+	 * Records that the given concept set was deleted in the current transaction. It is removed from
+	 * the index once the transaction is committed.
+	 *
+	 * @param conceptSet the deleted concept set
+	 * @should update the index once the transaction is committed
+	 */
+	public void conceptSetDeleted(final ConceptSet conceptSet) {
+		changed(members -> members.delete(conceptSet));
+	}
+	
+	/**
+	 * Records that the given concept, whether it is a set or its members, may have been changed in
+	 * the current transaction. Whether it is a set is applied to the index once the transaction is
+	 * committed, its members are applied as the concept sets are saved or deleted.
+	 *
+	 * @param concept the saved concept
+	 * @should update whether the concept is a set once the transaction is committed
+	 */
+	public void conceptChanged(final Concept concept) {
+		changed(members -> members.save(concept));
+	}
+	
+	/**
+	 * Records that the given concept was deleted in the current transaction
+	 *
+	 * @param concept the deleted concept
+	 */
+	public void conceptDeleted(final Concept concept) {
+		changed(members -> members.delete(concept));
+	}
+	
+	/**
+	 * Records that concept sets were changed in the current transaction without telling which, for
+	 * example by writing to the database directly. The whole index is loaded again once the
+	 * transaction completes.
+	 *
+	 * @should load the index again after the transaction completes
+	 */
+	public void setsChanged() {
+		changed(members -> false);
+	}
+	
+	private void changed(Change change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(Collections.singletonList(change));
+			return;
+		}
+		
+		getChangesInTransaction().add(change);
+	}
+	
+	/**
+	 * @return the changes made in the current transaction, which are applied once it is committed
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Change> getChangesInTransaction() {
+		List<Change> changes = (List<Change>) TransactionSynchronizationManager.getResource(this);
+		if (changes == null) {
+			final List<Change> changesInTransaction = new ArrayList<Change>();
+			TransactionSynchronizationManager.bindResource(this, changesInTransaction);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(ConceptSetIndex.this);
+					if (status == STATUS_COMMITTED) {
+						apply(changesInTransaction);
+					} else if (status == STATUS_UNKNOWN) {
+						clear();
+					}
+				}
+			});
+			changes = changesInTransaction;
+		}
+		return changes;
+	}
+	
+	private void apply(List<Change> changes) {
+		lock.writeLock().lock();
+		try {
+			generation++;
+			if (members != null) {
+				for (Change change : changes) {
+					if (!change.applyTo(members)) {
+						// the change cannot be applied without reading the database
+						members = null;
+						return;
+					}
+				}
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * @return true if concept sets were changed in the current transaction, which the index does
+	 *         not reflect yet
+	 */
+	public boolean isChangedInTransaction() {
+		return TransactionSynchronizationManager.isSynchronizationActive()
+		        && TransactionSynchronizationManager.hasResource(this);
+	}
+	
+	/**
+	 * Empties the index, it is loaded again the next time it is used
+	 *
+	 * @should load the index again
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			generation++;
+			members = null;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Reads all concept sets from the database
+	 *
+	 * @param session the session to read with
+	 * @return the concept set id, set id, member id, sort weight and whether the member is a set of
+	 *         every concept set
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<Object[]> loadMembers(Session session) {
+		String sql = "select cs.concept_set_id, cs.concept_set, cs.concept_id, cs.sort_weight, c.is_set"
+		        + " from concept_set cs inner join concept c on c.concept_id = cs.concept_id";
+		SQLQuery query = session.createSQLQuery(sql);
+		query.addScalar("concept_set_id", StandardBasicTypes.INTEGER);
+		query.addScalar("concept_set", StandardBasicTypes.INTEGER);
+		query.addScalar("concept_id", StandardBasicTypes.INTEGER);
+		query.addScalar("sort_weight", StandardBasicTypes.DOUBLE);
+		query.addScalar("is_set", StandardBasicTypes.BOOLEAN);
+		return query.list();
+	}
+	
+	/**
+	 * A change to apply to the members once the transaction making it is committed
+	 */
+	private interface Change {
+		
+		/**
+		 * @return false if the change cannot be applied and the members have to be loaded again
+		 */
+		boolean applyTo(Members members);
+	}
+	
+	/**
+	 * A row of the concept_set table
+	 */
+	private static class Member {
+		
+		private static final Comparator<Member> SORT_ORDER = Comparator.comparing((Member m) -> m.sortWeight,
+		    Comparator.nullsFirst(Comparator.<Double> naturalOrder())).thenComparing(m -> m.conceptSetId);
+		
+		private final Integer conceptSetId;
+		
+		private final Integer setId;
+		
+		private final Integer conceptId;
+		
+		private final Double sortWeight;
+		
+		private Member(Integer conceptSetId, Integer setId, Integer conceptId, Double sortWeight) {
+			this.conceptSetId = conceptSetId;
+			this.setId = setId;
+			this.conceptId = conceptId;
+			this.sortWeight = sortWeight;
+		}
+	}
+	
+	/**
+	 * The concept sets, guarded by the lock once they are shared
+	 */
+	private static class Members {
+		
+		private final Map<Integer, Member> membersById = new HashMap<Integer, Member>();
+		
+		/**
+		 * The members of each set ordered by sort weight
+		 */
+		private final Map<Integer, List<Member>> membersBySet = new HashMap<Integer, List<Member>>();
+		
+		/**
+		 * The sets each concept is a member of
+		 */
+		private final Map<Integer, Set<Integer>> setsByMember = new HashMap<Integer, Set<Integer>>();
+		
+		/**
+		 * The concepts which are sets and are therefore expanded as members
+		 */
+		private final Set<Integer> sets = new HashSet<Integer>();
+		
+		private Members(List<Object[]> rows) {
+			for (Object[] row : rows) {
+				add(new Member((Integer) row[0], (Integer) row[1], (Integer) row[2], (Double) row[3]));
+				if (Boolean.TRUE.equals(row[4])) {
+					sets.add((Integer) row[2]);
+				}
+			}
+		}
+		
+		private void addMembers(Integer setId, List<Integer> result, Set<Integer> expandedSets) {
+			if (!expandedSets.add(setId)) {
+				return;
+			}
+			for (Member member : membersBySet.getOrDefault(setId, Collections.<Member> emptyList())) {
+				result.add(member.conceptId);
+				if (sets.contains(member.conceptId)) {
+					addMembers(member.conceptId, result, expandedSets);
+				}
+			}
+		}
+		
+		private void add(Member member) {
+			membersById.put(member.conceptSetId, member);
+			List<Member> setMembers = membersBySet.computeIfAbsent(member.setId, id -> new ArrayList<Member>());
+			int index = Collections.binarySearch(setMembers, member, Member.SORT_ORDER);
+			setMembers.add(index < 0 ? -index - 1 : index, member);
+			setsByMember.computeIfAbsent(member.conceptId, id -> new HashSet<Integer>()).add(member.setId);
+		}
+		
+		private void remove(Integer conceptSetId) {
+			Member member = membersById.remove(conceptSetId);
+			if (member == null) {
+				return;
+			}
+			List<Member> setMembers = membersBySet.get(member.setId);
+			setMembers.remove(member);
+			for (Member other : setMembers) {
+				if (other.conceptId.equals(member.conceptId)) {
+					return;
+				}
+			}
+			if (setMembers.isEmpty()) {
+				membersBySet.remove(member.setId);
+			}
+			Set<Integer> memberSets = setsByMember.get(member.conceptId);
+			memberSets.remove(member.setId);
+			if (memberSets.isEmpty()) {
+				setsByMember.remove(member.conceptId);
+			}
+		}
+		
+		private boolean save(ConceptSet conceptSet) {
+			Concept set = conceptSet.getConceptSet();
+			Concept concept = conceptSet.getConcept();
+			// whether the member is a set is only known without a query if it was loaded
+			if (conceptSet.getConceptSetId() == null || set == null || set.getConceptId() == null || concept == null
+			        || concept.getConceptId() == null || !Hibernate.isInitialized(concept)) {
+				return false;
+			}
+			remove(conceptSet.getConceptSetId());
+			add(new Member(conceptSet.getConceptSetId(), set.getConceptId(), concept.getConceptId(), conceptSet
+			        .getSortWeight()));
+			return save(concept);
+		}
+		
+		private boolean delete(ConceptSet conceptSet) {
+			if (conceptSet.getConceptSetId() == null) {
+				return false;
+			}
+			remove(conceptSet.getConceptSetId());
+			return true;
+		}
+		
+		private boolean save(Concept concept) {
+			if (concept.getConceptId() == null || !Hibernate.isInitialized(concept)) {
+				return false;
+			}
+			if (Boolean.TRUE.equals(concept.getSet())) {
+				sets.add(concept.getConceptId());
+			} else {
+				sets.remove(concept.getConceptId());
+			}
+			return true;
+		}
+		
+		private boolean delete(Concept concept) {
+			if (concept.getConceptId() == null) {
+				return false;
+			}
+			sets.remove(concept.getConceptId());
+			return true;
+		}
+	}
+}
@@ -9,8 +9,12 @@
  */
 package org.openmrs.api.db.hibernate;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.hibernate.Criteria;
 import org.hibernate.FlushMode;
@@ -39,6 +43,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
@@ -49,7 +55,8 @@ import org.springframework.validation.Validator;
  * @see org.openmrs.api.db.AdministrationDAO
  * @see org.openmrs.api.AdministrationService
  */
-public class HibernateAdministrationDAO implements AdministrationDAO, ApplicationContextAware {
+public class HibernateAdministrationDAO implements AdministrationDAO, ApplicationContextAware,
+        ApplicationListener<ContextRefreshedEvent> {
 	
 	protected Logger log = LoggerFactory.getLogger(getClass());
 	
@@ -62,6 +69,20 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 	
 	private ApplicationContext applicationContext;
 	
+	/**
+	 * What has to be checked to validate objects of each class
+	 */
+	private final Map<Class<?>, ValidationPlan> validationPlans = new ConcurrentHashMap<>();
+	
+	/**
+	 * The column lengths of properties by class and property name
+	 */
+	private final Map<String, Integer> maximumPropertyLengths = new ConcurrentHashMap<>();
+	
+	private ConceptSetIndex conceptSetIndex;
+	
+	private ConceptMappingIndex conceptMappingIndex;
+	
 	public HibernateAdministrationDAO() {
 	}
 	
@@ -74,6 +95,24 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 		this.sessionFactory = sessionFactory;
 	}
 	
+	/**
+	 * @param conceptSetIndex the index of concept set members, which is loaded again after SQL
+	 *            statements that might change concept sets
+	 * @since 2.2.0
+	 */
+	public void setConceptSetIndex(ConceptSetIndex conceptSetIndex) {
+		this.conceptSetIndex = conceptSetIndex;
+	}
+	
+	/**
+	 * @param conceptMappingIndex the index of concept mappings, which is cleared after SQL
+	 *            statements that might change concept mappings
+	 * @since 2.2.0
+	 */
+	public void setConceptMappingIndex(ConceptMappingIndex conceptMappingIndex) {
+		this.conceptMappingIndex = conceptMappingIndex;
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.AdministrationDAO#getGlobalProperty(java.lang.String)
 	 */
@@ -179,11 +218,25 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 		if (HibernateUtil.isHSQLDialect(sessionFactory)) {
 			sql = sql.replace("`", "");
 		}
+		if (!selectOnly && conceptSetIndex != null) {
+			// the statement might have changed concept sets
+			conceptSetIndex.setsChanged();
+		}
+		if (!selectOnly && conceptMappingIndex != null) {
+			// the statement might have changed concept mappings
+			conceptMappingIndex.mappingsChanged();
+		}
 		return DatabaseUtil.executeSQL(sessionFactory.getCurrentSession(), sql, selectOnly);
 	}
 	
 	@Override
 	public int getMaximumPropertyLength(Class<? extends OpenmrsObject> aClass, String fieldName) {
+		String key = aClass.getName() + "." + fieldName;
+		Integer cachedLength = maximumPropertyLengths.get(key);
+		if (cachedLength != null) {
+			return cachedLength;
+		}
+		
 		if (configuration == null) {
 			HibernateSessionFactoryBean sessionFactoryBean = (HibernateSessionFactoryBean) applicationContext
 			        .getBean("&sessionFactory");
@@ -199,9 +252,11 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 				fieldLength = ((Column) persistentClass.getProperty(fieldName).getColumnIterator().next()).getLength();
 			}
 			catch (Exception e) {
+				// not cached, the lookup is repeated once the mappings may have changed
 				log.debug("Could not determine maximum length", e);
 				return -1;
 			}
+			maximumPropertyLengths.put(key, fieldLength);
 			return fieldLength;
 		}
 	}
@@ -211,55 +266,46 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 		this.applicationContext = applicationContext;
 	}
 	
+	/**
+	 * Drops the cached validation plans and column lengths since validators may have been added or
+	 * removed and the mappings may have changed
+	 *
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		validationPlans.clear();
+		maximumPropertyLengths.clear();
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.AdministrationDAO#validate(java.lang.Object, Errors)
 	 * @should Pass validation if field lengths are correct
 	 * @should Fail validation if field lengths are not correct
 	 * @should Fail validation for location class if field lengths are not correct
 	 * @should Pass validation for location class if field lengths are correct
+	 * @should reuse the validation plan of a class
 	 */
-	
-	//@SuppressWarnings({ "deprecation", "unchecked", "rawtypes" })
 	@Override
 	public void validate(Object object, Errors errors) throws DAOException {
-		Class entityClass = object.getClass();
-		ClassMetadata metadata = sessionFactory.getClassMetadata(entityClass);
-		if (metadata != null) {
-			String[] propNames = metadata.getPropertyNames();
-			Object IdentifierTpye = metadata.getIdentifierType();
-			String identifierName = metadata.getIdentifierPropertyName();
-			if (IdentifierTpye instanceof StringType || IdentifierTpye instanceof TextType) {
-				int maxLength = getMaximumPropertyLength(entityClass, identifierName);
-				String identifierValue = (String) metadata.getIdentifier(object,
-				    (SessionImplementor) sessionFactory.getCurrentSession());
-				if (identifierValue != null) {
-					int identifierLength = identifierValue.length();
-					if (identifierLength > maxLength) {
-						
-						errors.rejectValue(identifierName, "error.exceededMaxLengthOfField", new Object[] { maxLength },
-						    null);
-					}
-				}
-			}
-			for (int i = 0; i < propNames.length; i++) {
-				Type propType = metadata.getPropertyType(propNames[i]);
-				if (propType instanceof StringType || propType instanceof TextType) {
-					String propertyValue = (String) metadata.getPropertyValue(object, propNames[i]);
-					if (propertyValue != null) {
-						int maxLength = getMaximumPropertyLength(entityClass, propNames[i]);
-						int propertyValueLength = propertyValue.length();
-						if (propertyValueLength > maxLength) {
-							errors.rejectValue(propNames[i], "error.exceededMaxLengthOfField", new Object[] { maxLength },
-							    null);
-						}
-					}
-				}
-			}
+		ValidationPlan plan = getValidationPlan(object);
+		
+		if (plan.identifier != null) {
+			String identifierValue = (String) plan.metadata.getIdentifier(object, (SessionImplementor) sessionFactory
+			        .getCurrentSession());
+			plan.identifier.validate(identifierValue, errors);
+		}
+		for (StringProperty property : plan.properties) {
+			property.validate((String) plan.metadata.getPropertyValue(object, property.name), errors);
+		}
+		
+		if (plan.validators.isEmpty()) {
+			return;
 		}
 		FlushMode previousFlushMode = sessionFactory.getCurrentSession().getFlushMode();
 		sessionFactory.getCurrentSession().setFlushMode(FlushMode.MANUAL);
 		try {
-			for (Validator validator : getValidators(object)) {
+			for (Validator validator : plan.validators) {
 				validator.validate(object, errors);
 			}
 			
@@ -271,6 +317,46 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 		
 	}
 	
+	/**
+	 * Gets the validation plan for the class of the given object, working it out the first time an
+	 * object of the class is validated
+	 *
+	 * @param object the object to validate
+	 * @return the plan for its class
+	 */
+	@SuppressWarnings("unchecked")
+	private ValidationPlan getValidationPlan(Object object) {
+		Class<?> objectClass = object.getClass();
+		ValidationPlan plan = validationPlans.get(objectClass);
+		if (plan != null) {
+			return plan;
+		}
+		
+		ClassMetadata metadata = sessionFactory.getClassMetadata(objectClass);
+		StringProperty identifier = null;
+		List<StringProperty> properties = new ArrayList<StringProperty>();
+		if (metadata != null) {
+			Class<? extends OpenmrsObject> entityClass = (Class<? extends OpenmrsObject>) objectClass;
+			if (isStringType(metadata.getIdentifierType())) {
+				String identifierName = metadata.getIdentifierPropertyName();
+				identifier = new StringProperty(identifierName, getMaximumPropertyLength(entityClass, identifierName));
+			}
+			for (String propertyName : metadata.getPropertyNames()) {
+				if (isStringType(metadata.getPropertyType(propertyName))) {
+					properties.add(new StringProperty(propertyName, getMaximumPropertyLength(entityClass, propertyName)));
+				}
+			}
+		}
+		
+		plan = new ValidationPlan(metadata, identifier, properties, getValidators(object));
+		validationPlans.put(objectClass, plan);
+		return plan;
+	}
+	
+	private static boolean isStringType(Type type) {
+		return type instanceof StringType || type instanceof TextType;
+	}
+	
 	/**
 	 * Fetches all validators that are registered
 	 *
@@ -291,6 +377,50 @@ public class HibernateAdministrationDAO implements AdministrationDAO, Applicatio
 		return matchingValidators;
 	}
 	
+	/**
+	 * What has to be checked to validate objects of a class: its string properties with the length
+	 * of their columns and the validators supporting the class, in order
+	 */
+	private static class ValidationPlan {
+		
+		private final ClassMetadata metadata;
+		
+		private final StringProperty identifier;
+		
+		private final List<StringProperty> properties;
+		
+		private final List<Validator> validators;
+		
+		private ValidationPlan(ClassMetadata metadata, StringProperty identifier, List<StringProperty> properties,
+		    List<Validator> validators) {
+			this.metadata = metadata;
+			this.identifier = identifier;
+			this.properties = Collections.unmodifiableList(properties);
+			this.validators = Collections.unmodifiableList(new ArrayList<Validator>(validators));
+		}
+	}
+	
+	/**
+	 * A string property and the length of its column
+	 */
+	private static class StringProperty {
+		
+		private final String name;
+		
+		private final int maxLength;
+		
+		private StringProperty(String name, int maxLength) {
+			this.name = name;
+			this.maxLength = maxLength;
+		}
+		
+		private void validate(String value, Errors errors) {
+			if (value != null && value.length() > maxLength) {
+				errors.rejectValue(name, "error.exceededMaxLengthOfField", new Object[] { maxLength }, null);
+			}
+		}
+	}
+	
 	@Override
 	public boolean isDatabaseStringComparisonCaseSensitive() {
 		GlobalProperty gp = (GlobalProperty) sessionFactory.getCurrentSession().get(GlobalProperty.class,
@@ -16,6 +16,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -36,7 +38,6 @@ import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.criterion.SimpleExpression;
-import org.hibernate.transform.DistinctRootEntityResultTransformer;
 import org.openmrs.Concept;
 import org.openmrs.ConceptAnswer;
 import org.openmrs.ConceptAttribute;
@@ -83,8 +84,14 @@ public class HibernateConceptDAO implements ConceptDAO {
 	
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 	
+	private static final int MAX_IDS_PER_QUERY = 1000;
+	
 	private SessionFactory sessionFactory;
 	
+	private ConceptSetIndex conceptSetIndex;
+	
+	private ConceptMappingIndex conceptMappingIndex;
+	
 	/**
 	 * Sets the session factory
 	 * 
@@ -94,6 +101,26 @@ public class HibernateConceptDAO implements ConceptDAO {
 		this.sessionFactory = sessionFactory;
 	}
 	
+	/**
+	 * Sets the index of concept set members
+	 * 
+	 * @param conceptSetIndex
+	 * @since 2.2.0
+	 */
+	public void setConceptSetIndex(ConceptSetIndex conceptSetIndex) {
+		this.conceptSetIndex = conceptSetIndex;
+	}
+	
+	/**
+	 * Sets the index of concept mappings
+	 * 
+	 * @param conceptMappingIndex
+	 * @since 2.2.0
+	 */
+	public void setConceptMappingIndex(ConceptMappingIndex conceptMappingIndex) {
+		this.conceptMappingIndex = conceptMappingIndex;
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.ConceptDAO#getConceptComplex(java.lang.Integer)
 	 */
@@ -131,6 +158,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 		}
 		
 		sessionFactory.getCurrentSession().saveOrUpdate(concept);
+		conceptSetIndex.conceptChanged(concept);
 		return concept;
 	}
 	
@@ -237,6 +265,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 	 */
 	@Override
 	public void purgeConcept(Concept concept) throws DAOException {
+		conceptSetIndex.conceptChanged(concept);
 		sessionFactory.getCurrentSession().delete(concept);
 	}
 	
@@ -418,6 +447,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 	@SuppressWarnings("unchecked")
 	public List<ConceptClass> getAllConceptClasses(boolean includeRetired) throws DAOException {
 		Criteria crit = sessionFactory.getCurrentSession().createCriteria(ConceptClass.class);
+		crit.setCacheable(true);
 		
 		// Minor bug - was assigning includeRetired instead of evaluating
 		if (!includeRetired) {
@@ -467,6 +497,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 	@SuppressWarnings("unchecked")
 	public List<ConceptDatatype> getAllConceptDatatypes(boolean includeRetired) throws DAOException {
 		Criteria crit = sessionFactory.getCurrentSession().createCriteria(ConceptDatatype.class);
+		crit.setCacheable(true);
 		
 		if (!includeRetired) {
 			crit.add(Restrictions.eq("retired", false));
@@ -822,6 +853,99 @@ public class HibernateConceptDAO implements ConceptDAO {
 		        .list();
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptsByConceptSet(org.openmrs.Concept)
+	 */
+	@Override
+	public List<Concept> getConceptsByConceptSet(Concept concept) throws DAOException {
+		if (concept.getConceptId() == null || conceptSetIndex.isChangedInTransaction()) {
+			// the index does not know about the changes made in this transaction yet
+			List<Concept> concepts = new ArrayList<Concept>();
+			explodeConceptSet(concept, concepts, new HashSet<Integer>());
+			return concepts;
+		}
+		
+		return getConceptsByIds(conceptSetIndex.getConceptIdsInSet(concept.getConceptId(), sessionFactory
+		        .getCurrentSession()));
+	}
+	
+	private void explodeConceptSet(Concept concept, List<Concept> concepts, Set<Integer> alreadySeen) {
+		if (!alreadySeen.add(concept.getConceptId())) {
+			return;
+		}
+		for (ConceptSet conceptSet : getConceptSetsByConcept(concept)) {
+			Concept member = conceptSet.getConcept();
+			concepts.add(member);
+			if (member.getSet()) {
+				explodeConceptSet(member, concepts, alreadySeen);
+			}
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getAllSetsContainingConcept(org.openmrs.Concept)
+	 */
+	@Override
+	public List<Concept> getAllSetsContainingConcept(Concept concept) throws DAOException {
+		if (concept.getConceptId() == null || conceptSetIndex.isChangedInTransaction()) {
+			// the index does not know about the changes made in this transaction yet
+			Set<Concept> sets = new LinkedHashSet<Concept>();
+			List<Concept> queue = new ArrayList<Concept>();
+			queue.add(concept);
+			for (int i = 0; i < queue.size(); i++) {
+				for (ConceptSet conceptSet : getSetsContainingConcept(queue.get(i))) {
+					Concept set = conceptSet.getConceptSet();
+					if (sets.add(set) && set.getSet()) {
+						queue.add(set);
+					}
+				}
+			}
+			return new ArrayList<Concept>(sets);
+		}
+		
+		return getConceptsByIds(conceptSetIndex.getSetIdsContaining(concept.getConceptId(), sessionFactory
+		        .getCurrentSession()));
+	}
+	
+	/**
+	 * Loads the concepts with the given ids in as few queries as possible
+	 * 
+	 * @param conceptIds the concept ids, which may contain duplicates
+	 * @return the concepts in the order of the ids
+	 */
+	private List<Concept> getConceptsByIds(List<Integer> conceptIds) {
+		Map<Integer, Concept> conceptsById = getConceptMap(conceptIds);
+		List<Concept> result = new ArrayList<Concept>(conceptIds.size());
+		for (Integer conceptId : conceptIds) {
+			Concept concept = conceptsById.get(conceptId);
+			if (concept != null) {
+				result.add(concept);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Loads the concepts with the given ids with one query per {@link #MAX_IDS_PER_QUERY} ids
+	 * 
+	 * @param conceptIds the concept ids, which may contain duplicates
+	 * @return the concepts by id, concepts which do not exist are left out
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<Integer, Concept> getConceptMap(Collection<Integer> conceptIds) {
+		Map<Integer, Concept> conceptsById = new HashMap<Integer, Concept>();
+		List<Integer> distinctIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(conceptIds));
+		for (int i = 0; i < distinctIds.size(); i += MAX_IDS_PER_QUERY) {
+			List<Concept> concepts = sessionFactory.getCurrentSession().createCriteria(Concept.class).add(
+			    Restrictions.in("conceptId", distinctIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, distinctIds.size()))))
+			        .list();
+			for (Concept concept : concepts) {
+				conceptsById.put(concept.getConceptId(), concept);
+			}
+		}
+		return conceptsById;
+	}
+	
 	/**
 	 * returns a list of n-generations of parents of a concept in a concept set
 	 * 
@@ -914,6 +1038,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 	@SuppressWarnings("unchecked")
 	public List<ConceptSource> getAllConceptSources(boolean includeRetired) throws DAOException {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ConceptSource.class);
+		criteria.setCacheable(true);
 		
 		if (!includeRetired) {
 			criteria.add(Restrictions.eq("retired", false));
@@ -1029,47 +1154,47 @@ public class HibernateConceptDAO implements ConceptDAO {
 	 * @see org.openmrs.api.db.ConceptDAO#getConceptsByMapping(String, String, boolean)
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public List<Concept> getConceptsByMapping(String code, String sourceName, boolean includeRetired) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ConceptMap.class);
-		
-		// make this criteria return a list of concepts
-		criteria.setProjection(Projections.property("concept"));
-		
-		//join to the conceptReferenceTerm table
-		criteria.createAlias("conceptReferenceTerm", "term");
-		
-		// match the source code to the passed code
-		if (Context.getAdministrationService().isDatabaseStringComparisonCaseSensitive()) {
-			criteria.add(Restrictions.eq("term.code", code).ignoreCase());
-		} else {
-			criteria.add(Restrictions.eq("term.code", code));
-		}
+		List<Concept> concepts = getConceptsByMappings(Collections.singletonList(code), sourceName, includeRetired).get(
+		    code);
+		return concepts == null ? new ArrayList<Concept>() : concepts;
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptsByMappings(Collection, String, boolean)
+	 */
+	@Override
+	public Map<String, List<Concept>> getConceptsByMappings(Collection<String> codes, String sourceName,
+	        boolean includeRetired) {
+		Map<String, List<Integer>> conceptIdsByCode = conceptMappingIndex.getConceptIds(codes, sourceName, sessionFactory
+		        .getCurrentSession());
 		
-		// join to concept reference source and match to the h17Code or source name
-		criteria.createAlias("term.conceptSource", "source");
-		if (Context.getAdministrationService().isDatabaseStringComparisonCaseSensitive()) {
-			criteria.add(Restrictions.or(Restrictions.eq("source.name", sourceName).ignoreCase(), Restrictions.eq(
-			    "source.hl7Code", sourceName).ignoreCase()));
-		} else {
-			criteria.add(Restrictions.or(Restrictions.eq("source.name", sourceName), Restrictions.eq("source.hl7Code",
-			    sourceName)));
+		List<Integer> conceptIds = new ArrayList<Integer>();
+		for (List<Integer> ids : conceptIdsByCode.values()) {
+			conceptIds.addAll(ids);
 		}
+		Map<Integer, Concept> conceptsById = getConceptMap(conceptIds);
 		
-		criteria.createAlias("concept", "concept");
-		
-		if (!includeRetired) {
-			// ignore retired concepts
-			criteria.add(Restrictions.eq("concept.retired", false));
-		} else {
-			// sort retired concepts to the end of the list
-			criteria.addOrder(Order.asc("concept.retired"));
+		Map<String, List<Concept>> conceptsByCode = new LinkedHashMap<String, List<Concept>>();
+		for (Map.Entry<String, List<Integer>> entry : conceptIdsByCode.entrySet()) {
+			List<Concept> concepts = new ArrayList<Concept>(entry.getValue().size());
+			List<Concept> retiredConcepts = new ArrayList<Concept>();
+			for (Integer conceptId : entry.getValue()) {
+				Concept concept = conceptsById.get(conceptId);
+				if (concept == null) {
+					continue;
+				}
+				if (!concept.getRetired()) {
+					concepts.add(concept);
+				} else if (includeRetired) {
+					// sort retired concepts to the end of the list
+					retiredConcepts.add(concept);
+				}
+			}
+			concepts.addAll(retiredConcepts);
+			conceptsByCode.put(entry.getKey(), concepts);
 		}
-		
-		// we only want distinct concepts
-		criteria.setResultTransformer(DistinctRootEntityResultTransformer.INSTANCE);
-		
-		return (List<Concept>) criteria.list();
+		return conceptsByCode;
 	}
 	
 	/**
@@ -1502,6 +1627,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 	@Override
 	public List<ConceptMapType> getConceptMapTypes(boolean includeRetired, boolean includeHidden) throws DAOException {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ConceptMapType.class);
+		criteria.setCacheable(true);
 		if (!includeRetired) {
 			criteria.add(Restrictions.eq("retired", false));
 		}
@@ -11,10 +11,13 @@ package org.openmrs.api.db.hibernate;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.CacheMode;
@@ -34,8 +37,10 @@ import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.db.ContextDAO;
+import org.openmrs.api.db.hibernate.search.SearchIndexRebuilder;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.SearchIndexProgress;
 import org.openmrs.util.Security;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +65,15 @@ public class HibernateContextDAO implements ContextDAO {
 	 */
 	private SessionFactory sessionFactory;
 	
+	private static final int DEFAULT_INDEXER_THREADS = 4;
+	
+	private static final int DEFAULT_INDEXER_BATCH_SIZE = 1000;
+	
+	/**
+	 * The progress of the last search index rebuild
+	 */
+	private volatile SearchIndexProgress searchIndexProgress;
+	
 	/**
 	 * Session factory to use for this DAO. This is usually injected by spring and its application
 	 * context.
@@ -441,6 +455,9 @@ public class HibernateContextDAO implements ContextDAO {
 		session.flush();
 		session.clear();
 		
+		int fetchSize = getIndexerSetting(OpenmrsConstants.GP_SEARCH_INDEXER_FETCH_SIZE, DEFAULT_INDEXER_BATCH_SIZE);
+		int batchSize = Math.max(1, getIndexerSetting(OpenmrsConstants.GP_SEARCH_INDEXER_BATCH_SIZE,
+		    DEFAULT_INDEXER_BATCH_SIZE));
 		FlushMode flushMode = session.getFlushMode();
 		CacheMode cacheMode = session.getCacheMode();
 		try {
@@ -448,13 +465,13 @@ public class HibernateContextDAO implements ContextDAO {
 			session.setCacheMode(CacheMode.IGNORE);
 			
 			//Scrollable results will avoid loading too many objects in memory
-			ScrollableResults results = session.createCriteria(type).setFetchSize(1000).scroll(ScrollMode.FORWARD_ONLY);
+			ScrollableResults results = session.createCriteria(type).setFetchSize(fetchSize).scroll(ScrollMode.FORWARD_ONLY);
 			int index = 0;
 			while (results.next()) {
 				index++;
 				//index each element
 				session.index(results.get(0));
-				if (index % 1000 == 0) {
+				if (index % batchSize == 0) {
 					//apply changes to indexes
 					session.flushToIndexes();
 					//free memory since the queue is processed
@@ -488,7 +505,7 @@ public class HibernateContextDAO implements ContextDAO {
 	public void setupSearchIndex() {
 		String gp = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GP_SEARCH_INDEX_VERSION, "");
 		
-		if (!OpenmrsConstants.SEARCH_INDEX_VERSION.toString().equals(gp)) {
+		if (!OpenmrsConstants.SEARCH_INDEX_VERSION.toString().equals(gp) || getSearchIndexCheckpointFile().exists()) {
 			updateSearchIndex();
 		}
 	}
@@ -500,7 +517,7 @@ public class HibernateContextDAO implements ContextDAO {
 	public void updateSearchIndex() {
 		try {
 			log.info("Updating the search index... It may take a few minutes.");
-			Search.getFullTextSession(sessionFactory.getCurrentSession()).createIndexer().startAndWait();
+			createSearchIndexRebuild().call();
 			GlobalProperty gp = Context.getAdministrationService().getGlobalPropertyObject(
 					OpenmrsConstants.GP_SEARCH_INDEX_VERSION);
 			if (gp == null) {
@@ -522,11 +539,54 @@ public class HibernateContextDAO implements ContextDAO {
 	public Future<?> updateSearchIndexAsync() {
 		try {
 			log.info("Started asynchronously updating the search index...");
-			return Search.getFullTextSession(sessionFactory.getCurrentSession()).createIndexer().start();
+			FutureTask<Void> task = new FutureTask<Void>(createSearchIndexRebuild());
+			Thread thread = new Thread(task, "OpenMRS search index rebuild");
+			thread.setDaemon(true);
+			thread.start();
+			return task;
 		}
 		catch (Exception e) {
 			throw new RuntimeException("Failed to start asynchronous search index update", e);
 		}
 	}
+	
+	/**
+	 * @see ContextDAO#getSearchIndexProgress()
+	 */
+	@Override
+	public SearchIndexProgress getSearchIndexProgress() {
+		return searchIndexProgress;
+	}
+	
+	/**
+	 * Prepares a rebuild of the whole search index. The settings are read from the global properties
+	 * in the calling thread so the returned task does not need an open context to run.
+	 * 
+	 * @return the task rebuilding the index
+	 */
+	private Callable<Void> createSearchIndexRebuild() {
+		final SearchIndexRebuilder rebuilder = new SearchIndexRebuilder(sessionFactory, getIndexerSetting(
+		    OpenmrsConstants.GP_SEARCH_INDEXER_THREADS, DEFAULT_INDEXER_THREADS), getIndexerSetting(
+		    OpenmrsConstants.GP_SEARCH_INDEXER_FETCH_SIZE, DEFAULT_INDEXER_BATCH_SIZE), getIndexerSetting(
+		    OpenmrsConstants.GP_SEARCH_INDEXER_BATCH_SIZE, DEFAULT_INDEXER_BATCH_SIZE), getSearchIndexCheckpointFile(),
+		        OpenmrsConstants.SEARCH_INDEX_VERSION.toString());
+		final Collection<Class<?>> types = Search.getFullTextSession(sessionFactory.getCurrentSession())
+		        .getSearchFactory().getIndexedTypes();
+		final SearchIndexProgress progress = new SearchIndexProgress();
+		searchIndexProgress = progress;
+		
+		return () -> {
+			rebuilder.rebuild(types, progress);
+			return null;
+		};
+	}
+	
+	private int getIndexerSetting(String propertyName, int defaultValue) {
+		return Context.getAdministrationService().getGlobalPropertyValue(propertyName, defaultValue);
+	}
+	
+	private File getSearchIndexCheckpointFile() {
+		return new File(new File(OpenmrsUtil.getApplicationDataDirectory(), "lucene"), "reindex-checkpoint.properties");
+	}
 
 }
@@ -18,9 +18,12 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
 import org.hibernate.FlushMode;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Conjunction;
@@ -39,6 +42,7 @@ import org.openmrs.Patient;
 import org.openmrs.PatientIdentifierType;
 import org.openmrs.Visit;
 import org.openmrs.api.EncounterService;
+import org.openmrs.api.PatientEncountersCallback;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.EncounterDAO;
@@ -57,6 +61,11 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 	
+	/**
+	 * The number of cohort members queried at a time when streaming encounters
+	 */
+	private static final int COHORT_CHUNK_SIZE = 1000;
+	
 	/**
 	 * Hibernate session factory
 	 */
@@ -210,6 +219,7 @@ public class HibernateEncounterDAO implements EncounterDAO {
 	public List<EncounterType> getAllEncounterTypes(Boolean includeRetired) throws DAOException {
 		
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(EncounterType.class);
+		criteria.setCacheable(true);
 		
 		criteria.addOrder(Order.asc("name"));
 		
@@ -339,6 +349,79 @@ public class HibernateEncounterDAO implements EncounterDAO {
 		return encountersBypatient;
 	}
 	
+	/**
+	 * @see EncounterDAO#getAllEncounters(Cohort, PatientEncountersCallback)
+	 */
+	@Override
+	public void getAllEncounters(Cohort patients, PatientEncountersCallback callback) {
+		// pending changes would be lost when the handled encounters are evicted
+		sessionFactory.getCurrentSession().flush();
+		
+		if (patients == null) {
+			scrollEncounters(null, callback);
+			return;
+		}
+		
+		List<Integer> patientIds = new ArrayList<Integer>(patients.getMemberIds());
+		for (int i = 0; i < patientIds.size(); i += COHORT_CHUNK_SIZE) {
+			scrollEncounters(patientIds.subList(i, Math.min(i + COHORT_CHUNK_SIZE, patientIds.size())), callback);
+		}
+	}
+	
+	/**
+	 * Scrolls over the non voided encounters of the given patients ordered by patient, passing the
+	 * encounters of each patient to the callback and evicting them afterwards
+	 *
+	 * @param patientIds the ids of the patients, null for all patients
+	 * @param callback the callback to pass the encounters of each patient to
+	 */
+	private void scrollEncounters(List<Integer> patientIds, PatientEncountersCallback callback) {
+		Session session = sessionFactory.getCurrentSession();
+		Criteria criteria = session.createCriteria(Encounter.class);
+		criteria.setCacheMode(CacheMode.IGNORE);
+		criteria.setFetchSize(COHORT_CHUNK_SIZE);
+		if (patientIds != null) {
+			criteria.add(Restrictions.in("patient.personId", patientIds));
+		}
+		criteria.add(Restrictions.eq("voided", false));
+		criteria.addOrder(Order.asc("patient.personId"));
+		criteria.addOrder(Order.desc("encounterDatetime"));
+		
+		ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			Integer currentPatientId = null;
+			List<Encounter> encounters = new ArrayList<Encounter>();
+			while (results.next()) {
+				Encounter encounter = (Encounter) results.get(0);
+				Integer patientId = encounter.getPatient().getPersonId();
+				if (!patientId.equals(currentPatientId)) {
+					handlePatientEncounters(session, currentPatientId, encounters, callback);
+					encounters = new ArrayList<Encounter>();
+					currentPatientId = patientId;
+				}
+				encounters.add(encounter);
+			}
+			handlePatientEncounters(session, currentPatientId, encounters, callback);
+		}
+		finally {
+			results.close();
+		}
+	}
+	
+	private void handlePatientEncounters(Session session, Integer patientId, List<Encounter> encounters,
+	        PatientEncountersCallback callback) {
+		if (encounters.isEmpty()) {
+			return;
+		}
+		
+		callback.handle(patientId, encounters);
+		
+		for (Encounter encounter : encounters) {
+			session.evict(encounter);
+		}
+		session.evict(encounters.get(0).getPatient());
+	}
+	
 	/**
 	 * Create the criteria for fetching all encounters based on cohort
 	 *
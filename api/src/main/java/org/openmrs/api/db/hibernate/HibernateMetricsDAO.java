@@ -0,0 +1,134 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.sql.SQLException;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.openmrs.api.db.MetricsDAO;
+import org.openmrs.api.metrics.CacheMetrics;
+import org.openmrs.api.metrics.ConnectionPoolMetrics;
+import org.openmrs.api.metrics.EntityMetrics;
+import org.openmrs.api.metrics.MetricsSnapshot;
+import org.openmrs.api.metrics.QueryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+
+/**
+ * Reads the metrics of the persistence layer from the {@link Statistics} of the session factory
+ * and from the c3p0 connection pool. This class should not be used directly. All calls should go
+ * through the {@link org.openmrs.api.MetricsService} methods.
+ * 
+ * @see org.openmrs.api.db.MetricsDAO
+ * @see org.openmrs.api.MetricsService
+ * @since 2.2.0
+ */
+public class HibernateMetricsDAO implements MetricsDAO {
+	
+	private static final Logger log = LoggerFactory.getLogger(HibernateMetricsDAO.class);
+	
+	private SessionFactory sessionFactory;
+	
+	/**
+	 * Set session factory
+	 * 
+	 * @param sessionFactory
+	 */
+	public void setSessionFactory(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.MetricsDAO#addPersistenceMetrics(org.openmrs.api.metrics.MetricsSnapshot)
+	 */
+	@Override
+	public void addPersistenceMetrics(MetricsSnapshot snapshot) {
+		Statistics statistics = sessionFactory.getStatistics();
+		snapshot.setStartTime(new Date(statistics.getStartTime()));
+		snapshot.setStatisticsEnabled(statistics.isStatisticsEnabled());
+		snapshot.setSessionOpenCount(statistics.getSessionOpenCount());
+		snapshot.setTransactionCount(statistics.getTransactionCount());
+		snapshot.setConnectCount(statistics.getConnectCount());
+		snapshot.setPrepareStatementCount(statistics.getPrepareStatementCount());
+		snapshot.setEntityLoadCount(statistics.getEntityLoadCount());
+		snapshot.setEntityFetchCount(statistics.getEntityFetchCount());
+		snapshot.setCollectionLoadCount(statistics.getCollectionLoadCount());
+		snapshot.setCollectionFetchCount(statistics.getCollectionFetchCount());
+		snapshot.setQueryExecutionCount(statistics.getQueryExecutionCount());
+		snapshot.setQueryExecutionMaxTime(statistics.getQueryExecutionMaxTime());
+		snapshot.setQueryExecutionMaxTimeQueryString(statistics.getQueryExecutionMaxTimeQueryString());
+		
+		for (String entityName : statistics.getEntityNames()) {
+			EntityStatistics entity = statistics.getEntityStatistics(entityName);
+			snapshot.getEntities().add(
+			    new EntityMetrics(entityName, entity.getLoadCount(), entity.getFetchCount(), entity.getInsertCount(),
+			            entity.getUpdateCount(), entity.getDeleteCount()));
+		}
+		
+		for (String query : statistics.getQueries()) {
+			QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+			long executionCount = queryStatistics.getExecutionCount();
+			snapshot.getQueries().add(
+			    new QueryMetrics(query, executionCount, queryStatistics.getExecutionRowCount(), executionCount
+			            * queryStatistics.getExecutionAvgTime(), queryStatistics.getExecutionMaxTime()));
+		}
+		
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+			SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+			if (region != null) {
+				snapshot.getSecondLevelCacheRegions().add(
+				    new CacheMetrics(regionName, region.getHitCount(), region.getMissCount(), region.getPutCount(), region
+				            .getElementCountInMemory()));
+			}
+		}
+		
+		snapshot.setConnectionPool(getConnectionPoolMetrics());
+	}
+	
+	/**
+	 * @return the usage of the connection pool or null if connections are not pooled by c3p0
+	 */
+	private ConnectionPoolMetrics getConnectionPoolMetrics() {
+		if (!(sessionFactory instanceof SessionFactoryImplementor)) {
+			return null;
+		}
+		ConnectionProvider connectionProvider = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+		        .getService(ConnectionProvider.class);
+		if (connectionProvider == null || !connectionProvider.isUnwrappableAs(DataSource.class)) {
+			return null;
+		}
+		
+		DataSource dataSource = connectionProvider.unwrap(DataSource.class);
+		if (!(dataSource instanceof PooledDataSource)) {
+			return null;
+		}
+		
+		PooledDataSource pool = (PooledDataSource) dataSource;
+		try {
+			return new ConnectionPoolMetrics(pool.getNumConnectionsDefaultUser(), pool.getNumBusyConnectionsDefaultUser(),
+			        pool.getNumIdleConnectionsDefaultUser(), pool.getNumThreadsAwaitingCheckoutDefaultUser());
+		}
+		catch (SQLException e) {
+			log.warn("Unable to read the usage of the connection pool", e);
+			return null;
+		}
+	}
+}
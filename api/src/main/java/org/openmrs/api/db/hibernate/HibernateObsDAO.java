@@ -9,12 +9,18 @@
  */
 package org.openmrs.api.db.hibernate;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.Criteria;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Order;
@@ -22,6 +28,8 @@ import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Property;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.criterion.Subqueries;
+import org.hibernate.type.StandardBasicTypes;
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Encounter;
@@ -30,6 +38,7 @@ import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Person;
 import org.openmrs.User;
+import org.openmrs.api.PatientObsCallback;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.ObsDAO;
 import org.openmrs.util.OpenmrsConstants.PERSON_TYPE;
@@ -47,6 +56,12 @@ public class HibernateObsDAO implements ObsDAO {
 	
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 	
+	/**
+	 * The number of cohort members, and of observations, queried at a time when streaming
+	 * observations
+	 */
+	private static final int COHORT_CHUNK_SIZE = 1000;
+	
 	protected SessionFactory sessionFactory;
 	
 	/**
@@ -74,6 +89,18 @@ public class HibernateObsDAO implements ObsDAO {
 		return (Obs) sessionFactory.getCurrentSession().get(Obs.class, obsId);
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.ObsDAO#getObs(java.util.Collection)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Obs> getObs(Collection<Integer> obsIds) throws DAOException {
+		if (obsIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return sessionFactory.getCurrentSession().createCriteria(Obs.class).add(Restrictions.in("obsId", obsIds)).list();
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.ObsDAO#saveObs(org.openmrs.Obs)
 	 */
@@ -112,6 +139,132 @@ public class HibernateObsDAO implements ObsDAO {
 		return criteria.list();
 	}
 	
+	/**
+	 * @see ObsDAO#getObservationsPerPatient(Cohort, List, int, boolean, PatientObsCallback)
+	 */
+	@Override
+	public void getObservationsPerPatient(Cohort patients, List<Concept> questions, int maxObsPerQuestion,
+	        boolean mostRecent, PatientObsCallback callback) throws DAOException {
+		if (questions == null || questions.isEmpty() || maxObsPerQuestion < 1) {
+			return;
+		}
+		
+		Session session = sessionFactory.getCurrentSession();
+		// pending changes would be lost when the handled observations are evicted
+		session.flush();
+		
+		Set<Integer> conceptIds = new TreeSet<Integer>();
+		for (Concept question : questions) {
+			conceptIds.add(question.getConceptId());
+		}
+		List<Integer> patientIds = new ArrayList<Integer>(patients == null ? getPersonIdsWithObs(session, conceptIds)
+		        : new TreeSet<Integer>(patients.getMemberIds()));
+		boolean useWindowFunctions = HibernateUtil.supportsWindowFunctions(HibernateUtil.getDialect(sessionFactory));
+		
+		for (int i = 0; i < patientIds.size(); i += COHORT_CHUNK_SIZE) {
+			List<Object[]> rows = getObsIdsPerPatient(session, patientIds.subList(i, Math.min(i + COHORT_CHUNK_SIZE,
+			    patientIds.size())), conceptIds, maxObsPerQuestion, mostRecent, useWindowFunctions);
+			
+			// load the observations in batches, without splitting the observations of a patient
+			List<Integer> obsIds = new ArrayList<Integer>();
+			Integer previousPersonId = null;
+			for (Object[] row : rows) {
+				if (!row[0].equals(previousPersonId) && obsIds.size() >= COHORT_CHUNK_SIZE) {
+					handleObservations(session, obsIds, mostRecent, callback);
+					obsIds = new ArrayList<Integer>();
+				}
+				previousPersonId = (Integer) row[0];
+				obsIds.add((Integer) row[1]);
+			}
+			handleObservations(session, obsIds, mostRecent, callback);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<Integer> getPersonIdsWithObs(Session session, Collection<Integer> conceptIds) {
+		SQLQuery query = session.createSQLQuery("select distinct o.person_id from obs o"
+		        + " where o.voided = :voided and o.concept_id in (:conceptIds) order by o.person_id");
+		query.addScalar("person_id", StandardBasicTypes.INTEGER);
+		query.setBoolean("voided", false);
+		query.setParameterList("conceptIds", conceptIds);
+		return query.list();
+	}
+	
+	/**
+	 * Selects the most recent or earliest non voided observations of each of the given persons and
+	 * concepts with a single query. With window functions the observations are ranked within each
+	 * person and concept, otherwise the observations ranked before each observation are counted by
+	 * a correlated subquery, which the index on person, concept and date keeps cheap.
+	 *
+	 * @return the person id and obs id of the selected observations ordered by person id
+	 */
+	@SuppressWarnings("unchecked")
+	List<Object[]> getObsIdsPerPatient(Session session, Collection<Integer> personIds, Collection<Integer> conceptIds,
+	        int maxObsPerQuestion, boolean mostRecent, boolean useWindowFunctions) {
+		String sql;
+		if (useWindowFunctions) {
+			String order = mostRecent ? "desc" : "asc";
+			sql = "select ranked.person_id, ranked.obs_id from (select o.person_id, o.obs_id, row_number() over"
+			        + " (partition by o.person_id, o.concept_id order by o.obs_datetime " + order + ", o.obs_id " + order
+			        + ") as obs_rank from obs o where o.voided = :voided and o.concept_id in (:conceptIds)"
+			        + " and o.person_id in (:personIds)) ranked where ranked.obs_rank <= :maxObs order by ranked.person_id";
+		} else {
+			String before = mostRecent ? ">" : "<";
+			sql = "select o.person_id, o.obs_id from obs o where o.voided = :voided and o.concept_id in (:conceptIds)"
+			        + " and o.person_id in (:personIds) and (select count(*) from obs ranked"
+			        + " where ranked.person_id = o.person_id and ranked.concept_id = o.concept_id"
+			        + " and ranked.voided = :voided and (ranked.obs_datetime " + before + " o.obs_datetime"
+			        + " or (ranked.obs_datetime = o.obs_datetime and ranked.obs_id " + before + " o.obs_id)))"
+			        + " < :maxObs order by o.person_id";
+		}
+		
+		SQLQuery query = sessionFactory.getCurrentSession().createSQLQuery(sql);
+		query.addScalar("person_id", StandardBasicTypes.INTEGER);
+		query.addScalar("obs_id", StandardBasicTypes.INTEGER);
+		query.setBoolean("voided", false);
+		query.setParameterList("conceptIds", conceptIds);
+		query.setParameterList("personIds", personIds);
+		query.setInteger("maxObs", maxObsPerQuestion);
+		return query.list();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void handleObservations(Session session, List<Integer> obsIds, boolean mostRecent,
+	        PatientObsCallback callback) {
+		if (obsIds.isEmpty()) {
+			return;
+		}
+		
+		String order = mostRecent ? "desc" : "asc";
+		List<Obs> observations = session.createQuery(
+		    "from Obs o where o.obsId in (:obsIds) order by o.personId, o.concept.conceptId, o.obsDatetime "
+		            + order + ", o.obsId " + order).setParameterList("obsIds", obsIds).list();
+		
+		List<Obs> patientObservations = new ArrayList<Obs>();
+		for (Obs obs : observations) {
+			if (!patientObservations.isEmpty()
+			        && !obs.getPersonId().equals(patientObservations.get(0).getPersonId())) {
+				handlePatientObservations(session, patientObservations, callback);
+				patientObservations = new ArrayList<Obs>();
+			}
+			patientObservations.add(obs);
+		}
+		handlePatientObservations(session, patientObservations, callback);
+	}
+	
+	private void handlePatientObservations(Session session, List<Obs> observations, PatientObsCallback callback) {
+		if (observations.isEmpty()) {
+			return;
+		}
+		
+		callback.handle(observations.get(0).getPersonId(), observations);
+		
+		for (Obs obs : observations) {
+			session.evict(obs);
+		}
+		session.evict(observations.get(0).getPerson());
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.ObsDAO#getObservationCount(List, List, List, List, List, List, Integer, Date, Date, List, boolean, String)
 	 */
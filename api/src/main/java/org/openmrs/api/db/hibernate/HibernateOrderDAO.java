@@ -259,6 +259,18 @@ public class HibernateOrderDAO implements OrderDAO {
 	 */
 	@Override
 	public Long getNextOrderNumberSeedSequenceValue() {
+		return reserveOrderNumberSeedSequenceValues(1);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.OrderDAO#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Override
+	public Long reserveOrderNumberSeedSequenceValues(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("count must be greater than zero");
+		}
+		
 		GlobalProperty globalProperty = (GlobalProperty) sessionFactory.getCurrentSession().get(GlobalProperty.class,
 		    OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED, LockOptions.UPGRADE);
 		
@@ -281,7 +293,7 @@ public class HibernateOrderDAO implements OrderDAO {
 			        new Object[] { OpenmrsConstants.GP_NEXT_ORDER_NUMBER_SEED });
 		}
 		
-		globalProperty.setPropertyValue(String.valueOf(gpNumericValue + 1));
+		globalProperty.setPropertyValue(String.valueOf(gpNumericValue + count));
 		
 		sessionFactory.getCurrentSession().save(globalProperty);
 		
@@ -378,6 +390,7 @@ public class HibernateOrderDAO implements OrderDAO {
 	@Override
 	public List<CareSetting> getCareSettings(boolean includeRetired) {
 		Criteria c = sessionFactory.getCurrentSession().createCriteria(CareSetting.class);
+		c.setCacheable(true);
 		if (!includeRetired) {
 			c.add(Restrictions.eq("retired", false));
 		}
@@ -417,6 +430,7 @@ public class HibernateOrderDAO implements OrderDAO {
 	@Override
 	public List<OrderFrequency> getOrderFrequencies(boolean includeRetired) {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(OrderFrequency.class);
+		criteria.setCacheable(true);
 		if (!includeRetired) {
 			criteria.add(Restrictions.eq("retired", false));
 		}
@@ -542,6 +556,7 @@ public class HibernateOrderDAO implements OrderDAO {
 	@Override
 	public List<OrderType> getOrderTypes(boolean includeRetired) {
 		Criteria c = sessionFactory.getCurrentSession().createCriteria(OrderType.class);
+		c.setCacheable(true);
 		if (!includeRetired) {
 			c.add(Restrictions.eq("retired", false));
 		}
@@ -26,10 +26,12 @@ import org.apache.commons.lang.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.StandardBasicTypes;
 import org.openmrs.Allergies;
 import org.openmrs.Allergy;
 import org.openmrs.Location;
@@ -40,11 +42,13 @@ import org.openmrs.PatientIdentifierType.UniquenessBehavior;
 import org.openmrs.Person;
 import org.openmrs.PersonAttribute;
 import org.openmrs.PersonName;
+import org.openmrs.api.DuplicatePatientCandidate;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.PatientDAO;
 import org.openmrs.api.db.hibernate.search.LuceneQuery;
 import org.openmrs.collection.ListPart;
+import org.openmrs.util.DuplicatePatientKeyUtil;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
@@ -315,6 +319,7 @@ public class HibernatePatientDAO implements PatientDAO {
         @Override
 	public List<PatientIdentifierType> getAllPatientIdentifierTypes(boolean includeRetired) throws DAOException {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PatientIdentifierType.class);
+		criteria.setCacheable(true);
 		
 		if (!includeRetired) {
 			criteria.add(Restrictions.eq("retired", false));
@@ -413,6 +418,79 @@ public class HibernatePatientDAO implements PatientDAO {
 		return patients;
 	}
 
+	/**
+	 * Each query only pairs the keys of one range of patients, the range ending with the last of the
+	 * next patients having keys, so no query recomputes the pairs of earlier ranges. Ranges without
+	 * pairs are skipped until pairs are found or no patients are left.
+	 * 
+	 * @see org.openmrs.api.db.PatientDAO#getDuplicatePatientCandidates(int, Integer, Integer, int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<DuplicatePatientCandidate> getDuplicatePatientCandidates(int minimumScore, Integer lastPatientId,
+	        Integer maxPatients, int maxKeyMembers) {
+		Session session = sessionFactory.getCurrentSession();
+		String score = "sum(case substring(k1.blocking_key, 1, 1)"
+		        + getKeyWeightCase(DuplicatePatientKeyUtil.IDENTIFIER_KEY)
+		        + getKeyWeightCase(DuplicatePatientKeyUtil.BIRTH_KEY) + " else "
+		        + DuplicatePatientKeyUtil.getWeight(DuplicatePatientKeyUtil.NAME_KEY) + " end)";
+		
+		int afterPatientId = lastPatientId == null ? 0 : lastPatientId;
+		List<DuplicatePatientCandidate> candidates = new ArrayList<>();
+		while (candidates.isEmpty()) {
+			Integer rangeEnd = null;
+			if (maxPatients != null && maxPatients > 0) {
+				List<Integer> patientIds = session.createSQLQuery(
+				    "select distinct patient_id from patient_duplicate_key where patient_id > :afterPatientId"
+				            + " order by patient_id").addScalar("patient_id", StandardBasicTypes.INTEGER).setInteger(
+				    "afterPatientId", afterPatientId).setMaxResults(maxPatients).list();
+				if (patientIds.isEmpty()) {
+					break;
+				}
+				rangeEnd = patientIds.get(patientIds.size() - 1);
+			}
+			
+			// the self join only pairs patients sharing a key and is served by the index on the keys,
+			// keys shared by too many patients are skipped since they pair everyone with everyone
+			SQLQuery query = session.createSQLQuery("select k1.patient_id as patient_id, k2.patient_id as other_patient_id, "
+			        + score + " as score"
+			        + " from patient_duplicate_key k1"
+			        + " inner join patient_duplicate_key k2 on k2.blocking_key = k1.blocking_key"
+			        + " and k2.patient_id > k1.patient_id"
+			        + " inner join patient p1 on p1.patient_id = k1.patient_id"
+			        + " inner join patient p2 on p2.patient_id = k2.patient_id"
+			        + " where k1.patient_id > :afterPatientId" + (rangeEnd == null ? "" : " and k1.patient_id <= :rangeEnd")
+			        + " and p1.voided = :voided and p2.voided = :voided"
+			        + " and (select count(*) from patient_duplicate_key k3 where k3.blocking_key = k1.blocking_key)"
+			        + " <= :maxKeyMembers"
+			        + " group by k1.patient_id, k2.patient_id having " + score + " >= :minimumScore"
+			        + " order by k1.patient_id, k2.patient_id");
+			query.addScalar("patient_id", StandardBasicTypes.INTEGER);
+			query.addScalar("other_patient_id", StandardBasicTypes.INTEGER);
+			query.addScalar("score", StandardBasicTypes.INTEGER);
+			query.setInteger("afterPatientId", afterPatientId);
+			if (rangeEnd != null) {
+				query.setInteger("rangeEnd", rangeEnd);
+			}
+			query.setBoolean("voided", false);
+			query.setInteger("maxKeyMembers", maxKeyMembers);
+			query.setInteger("minimumScore", minimumScore);
+			
+			for (Object[] row : (List<Object[]>) query.list()) {
+				candidates.add(new DuplicatePatientCandidate((Integer) row[0], (Integer) row[1], (Integer) row[2]));
+			}
+			if (rangeEnd == null) {
+				break;
+			}
+			afterPatientId = rangeEnd;
+		}
+		return candidates;
+	}
+	
+	private String getKeyWeightCase(char kind) {
+		return " when '" + kind + "' then " + DuplicatePatientKeyUtil.getWeight(kind);
+	}
+	
 	private String getDuplicatePatientsSQLString(List<String> attributes) {
 		String outerSelect = "select distinct t1.patient_id from patient t1 ";
 		final String t5 = " = t5.";
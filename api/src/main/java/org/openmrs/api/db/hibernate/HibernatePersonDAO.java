@@ -10,6 +10,8 @@
 package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -37,6 +39,7 @@ import org.openmrs.api.db.hibernate.search.LuceneQuery;
 import org.openmrs.collection.ListPart;
 import org.openmrs.person.PersonMergeLog;
 import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.SoundexUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -85,83 +88,32 @@ public class HibernatePersonDAO implements PersonDAO {
 			birthyear = 0;
 		}
 		
-		Set<Person> people = new LinkedHashSet<Person>();
-		
 		name = name.replaceAll("  ", " ");
 		name = name.replace(", ", " ");
 		String[] names = name.split(" ");
 		
-		StringBuilder q = new StringBuilder(
-		        "select p from Person p left join p.names as pname where p.personVoided = false and pname.voided = false and ");
-		
-		if (names.length == 1) {
-			q.append("(").append(" soundex(pname.givenName) = soundex(:n1)").append(
-			    " or soundex(pname.middleName) = soundex(:n1)").append(" or soundex(pname.familyName) = soundex(:n1) ")
-			        .append(" or soundex(pname.familyName2) = soundex(:n1) ").append(")");
-		} else if (names.length == 2) {
-			q.append("(").append(" case").append("  when pname.givenName is null then 1").append(
-			    "  when pname.givenName = '' then 1").append("  when soundex(pname.givenName) = soundex(:n1) then 4")
-			        .append("  when soundex(pname.givenName) = soundex(:n2) then 3").append("  else 0 ").append(" end")
-			        .append(" + ").append(" case").append("  when pname.middleName is null then 1").append(
-			            "  when pname.middleName = '' then 1").append(
-			            "  when soundex(pname.middleName) = soundex(:n1) then 3").append(
-			            "  when soundex(pname.middleName) = soundex(:n2) then 4").append("  else 0 ").append(" end").append(
-			            " + ").append(" case").append("  when pname.familyName is null then 1").append(
-			            "  when pname.familyName = '' then 1").append(
-			            "  when soundex(pname.familyName) = soundex(:n1) then 3").append(
-			            "  when soundex(pname.familyName) = soundex(:n2) then 4").append("  else 0 ").append(" end").append(
-			            " +").append(" case").append("  when pname.familyName2 is null then 1").append(
-			            "  when pname.familyName2 = '' then 1").append(
-			            "  when soundex(pname.familyName2) = soundex(:n1) then 3").append(
-			            "  when soundex(pname.familyName2) = soundex(:n2) then 4").append("  else 0 ").append(" end")
-			        .append(") > 6");
-		} else if (names.length == 3) {
-			q.append("(").append(" case").append("  when pname.givenName is null then 0").append(
-			    "  when soundex(pname.givenName) = soundex(:n1) then 3").append(
-			    "  when soundex(pname.givenName) = soundex(:n2) then 2").append(
-			    "  when soundex(pname.givenName) = soundex(:n3) then 1").append("  else 0 ").append(" end").append(" + ")
-			        .append(" case").append("  when pname.middleName is null then 0").append(
-			            "  when soundex(pname.middleName) = soundex(:n1) then 2").append(
-			            "  when soundex(pname.middleName) = soundex(:n2) then 3").append(
-			            "  when soundex(pname.middleName) = soundex(:n3) then 1").append("  else 0").append(" end").append(
-			            " + ").append(" case").append("  when pname.familyName is null then 0").append(
-			            "  when soundex(pname.familyName) = soundex(:n1) then 1").append(
-			            "  when soundex(pname.familyName) = soundex(:n2) then 2").append(
-			            "  when soundex(pname.familyName) = soundex(:n3) then 3").append("  else 0").append(" end").append(
-			            " +").append(" case").append("  when pname.familyName2 is null then 0").append(
-			            "  when soundex(pname.familyName2) = soundex(:n1) then 1").append(
-			            "  when soundex(pname.familyName2) = soundex(:n2) then 2").append(
-			            "  when soundex(pname.familyName2) = soundex(:n3) then 3").append("  else 0").append(" end").append(
-			            ") >= 5");
-		} else {
-			
-			// This is simply an alternative method of name matching which scales better
-			// for large names, although it is hard to imagine getting names with more than
-			// six or so tokens.  This can be easily updated to attain more desirable
-			// results; it is just a working alternative to throwing an exception.
-			
-			q.append("(").append(" case").append("  when pname.givenName is null then 0");
-			for (int i = 0; i < names.length; i++) {
-				q.append("  when soundex(pname.givenName) = soundex(:n").append(i + 1).append(") then 1");
-			}
-			q.append("  else 0").append(" end").append(")").append("+").append("(").append(" case").append(
-			    "  when pname.middleName is null then 0");
-			for (int i = 0; i < names.length; i++) {
-				q.append("  when soundex(pname.middleName) = soundex(:n").append(i + 1).append(") then 1");
-			}
-			q.append("  else 0").append(" end").append(")").append("+").append("(").append(" case").append(
-			    "  when pname.familyName is null then 0");
-			for (int i = 0; i < names.length; i++) {
-				q.append("  when soundex(pname.familyName) = soundex(:n").append(i + 1).append(") then 1");
+		String[] soundexes = new String[names.length];
+		Set<String> keys = new LinkedHashSet<String>();
+		for (int i = 0; i < names.length; i++) {
+			soundexes[i] = SoundexUtil.encode(names[i]);
+			if (soundexes[i] != null) {
+				keys.add(soundexes[i]);
 			}
-			q.append("  else 0").append(" end").append(")").append("+").append("(").append(" case").append(
-			    "  when pname.familyName2 is null then 0");
-			for (int i = 0; i < names.length; i++) {
-				q.append("  when soundex(pname.familyName2) = soundex(:n").append(i + 1).append(") then 1");
-			}
-			// if most of the names have at least a hit somewhere
-			q.append("  else 0").append(" end").append(") >= ").append((int) (names.length * .75)); 
 		}
+		if (keys.isEmpty()) {
+			return new LinkedHashSet<Person>();
+		}
+		
+		// the candidates share at least one soundex code with the search, the codes are indexed so this
+		// does not scan the whole table like applying soundex() to every name did, names without any
+		// code yet (e.g. inserted by sql after the backfill) are included since their parts are encoded
+		// when they are scored below
+		StringBuilder q = new StringBuilder(
+		        "select pname from PersonName pname join fetch pname.person p where p.personVoided = false and pname.voided = false")
+		        .append(" and (pname.givenNameSoundex in (:keys) or pname.middleNameSoundex in (:keys)")
+		        .append(" or pname.familyNameSoundex in (:keys) or pname.familyName2Soundex in (:keys)")
+		        .append(" or (pname.givenNameSoundex is null and pname.middleNameSoundex is null")
+		        .append(" and pname.familyNameSoundex is null and pname.familyName2Soundex is null))");
 		
 		String birthdayMatch = " (year(p.birthdate) between " + (birthyear - 1) + " and " + (birthyear + 1)
 		        + " or p.birthdate is null) ";
@@ -176,25 +128,100 @@ public class HibernatePersonDAO implements PersonDAO {
 			q.append(" and " + genderMatch);
 		}
 		
-		q.append(" order by pname.givenName asc,").append(" pname.middleName asc,").append(" pname.familyName asc,").append(
-		    " pname.familyName2 asc");
-		
 		String qStr = q.toString();
 		Query query = sessionFactory.getCurrentSession().createQuery(qStr);
-		
-		for (int nameIndex = 0; nameIndex < names.length; nameIndex++) {
-			query.setString("n" + (nameIndex + 1), names[nameIndex]);
-		}
+		query.setParameterList("keys", keys);
 		
 		if (qStr.contains(":gender")) {
 			query.setString("gender", gender);
 		}
 		
-		people.addAll(query.list());
+		List<PersonName> matches = new ArrayList<PersonName>();
+		for (PersonName personName : (List<PersonName>) query.list()) {
+			if (isSimilarName(personName, soundexes)) {
+				matches.add(personName);
+			}
+		}
+		
+		Comparator<String> nullsFirst = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+		matches.sort(Comparator.comparing(PersonName::getGivenName, nullsFirst).thenComparing(PersonName::getMiddleName,
+		    nullsFirst).thenComparing(PersonName::getFamilyName, nullsFirst).thenComparing(PersonName::getFamilyName2,
+		    nullsFirst));
+		
+		Set<Person> people = new LinkedHashSet<Person>();
+		for (PersonName personName : matches) {
+			people.add(personName.getPerson());
+		}
 		
 		return people;
 	}
 	
+	/**
+	 * Scores how well the parts of a name match the soundex codes of the words searched for
+	 * 
+	 * @param personName the name to score
+	 * @param soundexes the soundex codes of the words searched for in order, null for words without
+	 *            letters
+	 * @return true if the name is similar enough
+	 */
+	private boolean isSimilarName(PersonName personName, String[] soundexes) {
+		String[] parts = { personName.getGivenName(), personName.getMiddleName(), personName.getFamilyName(),
+		        personName.getFamilyName2() };
+		
+		if (soundexes.length == 1) {
+			for (String part : parts) {
+				if (soundexes[0] != null && soundexes[0].equals(SoundexUtil.encode(part))) {
+					return true;
+				}
+			}
+			return false;
+		} else if (soundexes.length == 2) {
+			// the first word is most likely the given name, the second one any of the other parts
+			int[][] scores = { { 4, 3 }, { 3, 4 }, { 3, 4 }, { 3, 4 } };
+			int total = 0;
+			for (int i = 0; i < parts.length; i++) {
+				total += StringUtils.isEmpty(parts[i]) ? 1 : score(parts[i], soundexes, scores[i]);
+			}
+			return total > 6;
+		} else if (soundexes.length == 3) {
+			// given, middle and family name in this order score the most
+			int[][] scores = { { 3, 2, 1 }, { 2, 3, 1 }, { 1, 2, 3 }, { 1, 2, 3 } };
+			int total = 0;
+			for (int i = 0; i < parts.length; i++) {
+				total += parts[i] == null ? 0 : score(parts[i], soundexes, scores[i]);
+			}
+			return total >= 5;
+		}
+		
+		// This is simply an alternative method of name matching which scales better
+		// for large names, although it is hard to imagine getting names with more than
+		// six or so tokens.  This can be easily updated to attain more desirable
+		// results; it is just a working alternative to throwing an exception.
+		int[] scores = new int[soundexes.length];
+		Arrays.fill(scores, 1);
+		int total = 0;
+		for (String part : parts) {
+			total += part == null ? 0 : score(part, soundexes, scores);
+		}
+		// if most of the names have at least a hit somewhere
+		return total >= (int) (soundexes.length * .75);
+	}
+	
+	/**
+	 * @return the score of the first word matching the given name part or 0 if none does
+	 */
+	private int score(String part, String[] soundexes, int[] scores) {
+		String soundex = SoundexUtil.encode(part);
+		if (soundex != null) {
+			for (int i = 0; i < soundexes.length; i++) {
+				if (soundex.equals(soundexes[i])) {
+					return scores[i];
+				}
+			}
+		}
+		return 0;
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.PersonDAO#getPeople(java.lang.String, java.lang.Boolean)
 	 * @should get no one by null
@@ -359,6 +386,7 @@ public class HibernatePersonDAO implements PersonDAO {
 	@SuppressWarnings("unchecked")
 	public List<PersonAttributeType> getAllPersonAttributeTypes(boolean includeRetired) throws DAOException {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PersonAttributeType.class, "r");
+		criteria.setCacheable(true);
 		
 		if (!includeRetired) {
 			criteria.add(Restrictions.eq("retired", false));
@@ -193,7 +193,8 @@ public class HibernateUserDAO implements UserDAO {
 	@Override
 	@SuppressWarnings("unchecked")
 	public List<Privilege> getAllPrivileges() throws DAOException {
-		return sessionFactory.getCurrentSession().createQuery("from Privilege p order by p.privilege").list();
+		return sessionFactory.getCurrentSession().createQuery("from Privilege p order by p.privilege").setCacheable(true)
+		        .list();
 	}
 	
 	/**
@@ -22,8 +22,12 @@ import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Property;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.DB2Dialect;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.dialect.SQLServer2005Dialect;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.jdbc.ReturningWork;
 import org.hibernate.proxy.HibernateProxy;
@@ -83,6 +87,22 @@ public class HibernateUtil {
 		return dialect;
 	}
 	
+	/**
+	 * Checks whether the given dialect supports window functions such as row_number() over (...),
+	 * which Hibernate has no notion of. MySQL only supports them from version 8, which the MySQL
+	 * dialects do not tell apart, so they are assumed not to.
+	 *
+	 * @param dialect the dialect to check
+	 * @return true if window functions can be used in native queries
+	 * @should return true for databases supporting window functions
+	 * @should return false for databases not supporting window functions
+	 * @since 2.2.0
+	 */
+	public static boolean supportsWindowFunctions(Dialect dialect) {
+		return dialect instanceof PostgreSQL81Dialect || dialect instanceof Oracle8iDialect
+		        || dialect instanceof SQLServer2005Dialect || dialect instanceof DB2Dialect;
+	}
+	
 	/**
 	 * @see HibernateUtil#escapeSqlWildcards(String, Connection)
 	 */
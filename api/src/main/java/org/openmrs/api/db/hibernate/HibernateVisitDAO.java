@@ -20,10 +20,12 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.openmrs.Concept;
 import org.openmrs.Location;
 import org.openmrs.Patient;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
 import org.openmrs.VisitAttributeType;
@@ -58,7 +60,7 @@ public class HibernateVisitDAO implements VisitDAO {
 	@SuppressWarnings("unchecked")
 	@Transactional(readOnly = true)
 	public List<VisitType> getAllVisitTypes() throws APIException {
-		return getCurrentSession().createCriteria(VisitType.class).list();
+		return getCurrentSession().createCriteria(VisitType.class).setCacheable(true).list();
 	}
 	
 	/**
@@ -67,6 +69,7 @@ public class HibernateVisitDAO implements VisitDAO {
 	@Override
 	public List<VisitType> getAllVisitTypes(boolean includeRetired) throws DAOException {
 		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(VisitType.class);
+		criteria.setCacheable(true);
 		return includeRetired ? criteria.list() : criteria.add(Restrictions.eq("retired", includeRetired)).list();
 	}
 	
@@ -302,4 +305,44 @@ public class HibernateVisitDAO implements VisitDAO {
 		
 		return (Visit) criteria.uniqueResult();
 	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getActiveVisitIds(Integer, Collection, Date, int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Integer> getActiveVisitIds(Integer afterVisitId, Collection<VisitType> visitTypes, Date maximumStartDate,
+	        int maxResults) {
+		Criteria criteria = getCurrentSession().createCriteria(Visit.class);
+		criteria.setProjection(Projections.property("visitId"));
+		criteria.add(Restrictions.eq("voided", false)).add(Restrictions.isNull("stopDatetime")).addOrder(
+		    Order.asc("visitId")).setMaxResults(maxResults);
+		if (afterVisitId != null) {
+			criteria.add(Restrictions.gt("visitId", afterVisitId));
+		}
+		if (maximumStartDate != null) {
+			criteria.add(Restrictions.le("startDatetime", maximumStartDate));
+		}
+		
+		if (CollectionUtils.isNotEmpty(visitTypes)) {
+			criteria.add(Restrictions.in("visitType", visitTypes));
+		}
+		
+		return criteria.list();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#stopVisits(Collection, Date, User, Date)
+	 */
+	@Override
+	public int stopVisits(Collection<Integer> visitIds, Date stopDatetime, User changedBy, Date dateChanged) {
+		if (visitIds.isEmpty()) {
+			return 0;
+		}
+		return getCurrentSession().createQuery(
+		    "update Visit set stopDatetime = :stopDatetime, changedBy = :changedBy, dateChanged = :dateChanged"
+		            + " where visitId in (:visitIds) and stopDatetime is null").setTimestamp("stopDatetime",
+		    stopDatetime).setParameter("changedBy", changedBy).setTimestamp("dateChanged", dateChanged).setParameterList(
+		    "visitIds", visitIds).executeUpdate();
+	}
 }
@@ -0,0 +1,160 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Counts the statements Hibernate prepares and the entities and collections it loads on the current
+ * thread between {@link #start(int, int, int)} and {@link #stop()}. The counts are incremented by
+ * the {@link QueryCountingInterceptor} and the {@link QueryCountingCollectionListener}, which do
+ * nothing but a thread local lookup while no counter is started. <br>
+ * <br>
+ * The first time a count exceeds its threshold the stack of the current thread is captured, so the
+ * stack fragment shows the code whose statement or lazy load pushed the counts over, which is
+ * usually the loop causing a series of N+1 selects.
+ *
+ * @since 2.2.0
+ */
+public class QueryCounter {
+
+	/**
+	 * The maximum number of frames kept in a stack fragment
+	 */
+	public static final int MAX_STACK_FRAMES = 10;
+
+	private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<QueryCounter>();
+
+	private static final Set<String> COUNTING_CLASSES = new HashSet<String>(Arrays.asList(QueryCounter.class.getName(),
+	    QueryCountingInterceptor.class.getName(), QueryCountingCollectionListener.class.getName()));
+
+	private final int statementThreshold;
+
+	private final int entityLoadThreshold;
+
+	private final int collectionLoadThreshold;
+
+	private int statementCount;
+
+	private int entityLoadCount;
+
+	private int collectionLoadCount;
+
+	private List<String> stackFragment;
+
+	private QueryCounter(int statementThreshold, int entityLoadThreshold, int collectionLoadThreshold) {
+		this.statementThreshold = statementThreshold;
+		this.entityLoadThreshold = entityLoadThreshold;
+		this.collectionLoadThreshold = collectionLoadThreshold;
+	}
+
+	/**
+	 * Starts counting on the current thread unless a counter is already started on it, in which case
+	 * the statements and loads are counted by that counter
+	 *
+	 * @param statementThreshold the number of statements that may be prepared
+	 * @param entityLoadThreshold the number of entities that may be loaded
+	 * @param collectionLoadThreshold the number of collections that may be initialized
+	 * @return the started counter or null if a counter was already started
+	 * @should return null if a counter is already started on the current thread
+	 */
+	public static QueryCounter start(int statementThreshold, int entityLoadThreshold, int collectionLoadThreshold) {
+		if (CURRENT.get() != null) {
+			return null;
+		}
+		QueryCounter counter = new QueryCounter(statementThreshold, entityLoadThreshold, collectionLoadThreshold);
+		CURRENT.set(counter);
+		return counter;
+	}
+
+	/**
+	 * Stops counting on the current thread
+	 *
+	 * @should stop counting
+	 */
+	public void stop() {
+		if (CURRENT.get() == this) {
+			CURRENT.remove();
+		}
+	}
+
+	static void statementPrepared() {
+		QueryCounter counter = CURRENT.get();
+		if (counter != null && ++counter.statementCount > counter.statementThreshold) {
+			counter.captureStackFragment();
+		}
+	}
+
+	static void entityLoaded() {
+		QueryCounter counter = CURRENT.get();
+		if (counter != null && ++counter.entityLoadCount > counter.entityLoadThreshold) {
+			counter.captureStackFragment();
+		}
+	}
+
+	static void collectionLoaded() {
+		QueryCounter counter = CURRENT.get();
+		if (counter != null && ++counter.collectionLoadCount > counter.collectionLoadThreshold) {
+			counter.captureStackFragment();
+		}
+	}
+
+	private void captureStackFragment() {
+		if (stackFragment != null) {
+			return;
+		}
+
+		List<String> frames = new ArrayList<String>(MAX_STACK_FRAMES);
+		for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+			String className = element.getClassName();
+			if (className.startsWith("org.openmrs.") && !COUNTING_CLASSES.contains(className)) {
+				frames.add(element.toString());
+				if (frames.size() == MAX_STACK_FRAMES) {
+					break;
+				}
+			}
+		}
+		stackFragment = Collections.unmodifiableList(frames);
+	}
+
+	public int getStatementCount() {
+		return statementCount;
+	}
+
+	public int getEntityLoadCount() {
+		return entityLoadCount;
+	}
+
+	public int getCollectionLoadCount() {
+		return collectionLoadCount;
+	}
+
+	/**
+	 * @return true if any of the counts exceeded its threshold
+	 * @should return true if a count exceeded its threshold
+	 */
+	public boolean isThresholdExceeded() {
+		return stackFragment != null;
+	}
+
+	/**
+	 * @return the OpenMRS frames of the stack at the time a threshold was first exceeded, empty if
+	 *         no threshold was exceeded
+	 * @should capture the stack when a threshold is first exceeded
+	 */
+	public List<String> getStackFragment() {
+		return stackFragment == null ? Collections.<String> emptyList() : stackFragment;
+	}
+}
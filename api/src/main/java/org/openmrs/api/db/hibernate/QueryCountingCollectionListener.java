@@ -0,0 +1,53 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import javax.annotation.PostConstruct;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the lazy collections initialized by Hibernate for the {@link QueryCounter} started on the
+ * current thread, if any. Hibernate interceptors are not told about collection loads, so this
+ * listener is appended to the collection initialization listeners of the session factory the same
+ * way as {@link org.openmrs.ObsPostLoadEventListener}, after the default listener which does the
+ * loading.
+ *
+ * @see org.openmrs.aop.QueryCountingAdvice
+ * @since 2.2.0
+ */
+@Component
+public class QueryCountingCollectionListener implements InitializeCollectionEventListener {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@PostConstruct
+	public void registerListener() {
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry().getService(
+		    EventListenerRegistry.class);
+		registry.getEventListenerGroup(EventType.INIT_COLLECTION).appendListener(this);
+	}
+	
+	/**
+	 * @see org.hibernate.event.spi.InitializeCollectionEventListener#onInitializeCollection(org.hibernate.event.spi.InitializeCollectionEvent)
+	 */
+	@Override
+	public void onInitializeCollection(InitializeCollectionEvent event) {
+		QueryCounter.collectionLoaded();
+	}
+}
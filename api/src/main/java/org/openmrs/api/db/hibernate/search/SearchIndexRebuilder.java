@@ -0,0 +1,343 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Criteria;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.openmrs.api.db.DAOException;
+import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.SearchIndexProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the search index of several types in parallel, one thread per type up to the configured
+ * number of threads. Each type is read in batches ordered by primary key and the last indexed key
+ * of every type is written to a checkpoint file after each batch, so a rebuild that was
+ * interrupted continues where it stopped instead of starting over. The checkpoint file is deleted
+ * once all types have been indexed.
+ *
+ * @since 2.2.0
+ */
+public class SearchIndexRebuilder {
+
+	private static final Logger log = LoggerFactory.getLogger(SearchIndexRebuilder.class);
+
+	private static final String VERSION_KEY = "version";
+
+	private static final String COMPLETED_SUFFIX = ".completed";
+
+	/**
+	 * Only one rebuild may run at a time since they would overwrite each other's checkpoints
+	 */
+	private static final ReentrantLock rebuildLock = new ReentrantLock();
+
+	private final SessionFactory sessionFactory;
+
+	private final int threads;
+
+	private final int fetchSize;
+
+	private final int batchSize;
+
+	private final File checkpointFile;
+
+	private final String version;
+
+	/**
+	 * @param sessionFactory the session factory to open the sessions used for indexing from
+	 * @param threads the maximum number of types to index in parallel
+	 * @param fetchSize the JDBC fetch size to use when reading objects
+	 * @param batchSize the number of objects to index between checkpoints
+	 * @param checkpointFile the file to keep the progress of an interrupted rebuild in
+	 * @param version the version of the index being built, checkpoints of other versions are
+	 *            ignored
+	 */
+	public SearchIndexRebuilder(SessionFactory sessionFactory, int threads, int fetchSize, int batchSize,
+	    File checkpointFile, String version) {
+		this.sessionFactory = sessionFactory;
+		this.threads = Math.max(1, threads);
+		this.fetchSize = Math.max(1, fetchSize);
+		this.batchSize = Math.max(1, batchSize);
+		this.checkpointFile = checkpointFile;
+		this.version = version;
+	}
+
+	/**
+	 * Rebuilds the index of the given types, resuming from the checkpoint file if it exists and
+	 * belongs to the same index version. Types are purged first unless a rebuild of them is resumed.
+	 *
+	 * @param types the indexed types to rebuild
+	 * @param progress receives the progress of the rebuild
+	 * @throws DAOException if indexing any of the types fails
+	 * @should index all objects of the given types and delete the checkpoint
+	 * @should resume types from the last checkpointed id
+	 * @should skip types completed by an interrupted rebuild
+	 * @should ignore checkpoints of another index version
+	 */
+	public void rebuild(Collection<Class<?>> types, SearchIndexProgress progress) {
+		rebuildLock.lock();
+		try {
+			Properties checkpoint = loadCheckpoint();
+			boolean resuming = !checkpoint.isEmpty();
+			if (resuming) {
+				log.info("Resuming the interrupted search index rebuild from " + checkpointFile);
+			} else {
+				checkpoint.setProperty(VERSION_KEY, version);
+			}
+
+			List<Class<?>> typesToIndex = new ArrayList<Class<?>>();
+			for (Class<?> type : types) {
+				if (Boolean.parseBoolean(checkpoint.getProperty(type.getName() + COMPLETED_SUFFIX))) {
+					long count = count(type, null);
+					progress.addType(type, count, count);
+					progress.completed(type);
+				} else {
+					String lastId = checkpoint.getProperty(type.getName());
+					if (lastId == null) {
+						purge(type);
+					}
+					progress.addType(type, count(type, null), lastId == null ? 0 : count(type, lastId));
+					typesToIndex.add(type);
+				}
+			}
+			saveCheckpoint(checkpoint);
+
+			indexTypes(typesToIndex, checkpoint, progress);
+
+			deleteCheckpoint();
+			progress.finished(null);
+		}
+		catch (RuntimeException e) {
+			progress.finished(e);
+			throw e;
+		}
+		finally {
+			rebuildLock.unlock();
+		}
+	}
+
+	private void indexTypes(List<Class<?>> types, final Properties checkpoint, final SearchIndexProgress progress) {
+		if (types.isEmpty()) {
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, types.size()));
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final Class<?> type : types) {
+				futures.add(executor.submit(() -> indexType(type, checkpoint, progress)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DAOException("Interrupted while rebuilding the search index", e);
+		}
+		catch (ExecutionException e) {
+			throw new DAOException("Failed to rebuild the search index", e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Indexes all objects of the given type with an id greater than the checkpoint of the type
+	 */
+	private void indexType(Class<?> type, Properties checkpoint, SearchIndexProgress progress) {
+		log.info("Rebuilding the search index for " + type.getName());
+
+		ClassMetadata metadata = sessionFactory.getClassMetadata(type);
+		String idProperty = metadata.getIdentifierPropertyName();
+		Serializable lastId = parseId(type, getCheckpoint(checkpoint, type.getName()));
+
+		Session session = sessionFactory.openSession();
+		try {
+			FullTextSession fullTextSession = Search.getFullTextSession(session);
+			fullTextSession.setFlushMode(FlushMode.MANUAL);
+			fullTextSession.setCacheMode(CacheMode.IGNORE);
+
+			int batchCount;
+			do {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new DAOException("Interrupted while rebuilding the search index for " + type.getName());
+				}
+
+				Transaction transaction = fullTextSession.beginTransaction();
+				Criteria criteria = fullTextSession.createCriteria(type).setFetchSize(fetchSize).setMaxResults(batchSize)
+				        .addOrder(Order.asc(idProperty));
+				if (lastId != null) {
+					criteria.add(Restrictions.gt(idProperty, lastId));
+				}
+				List<?> batch = criteria.list();
+				for (Object object : batch) {
+					fullTextSession.index(object);
+				}
+				fullTextSession.flushToIndexes();
+				transaction.commit();
+
+				batchCount = batch.size();
+				if (batchCount > 0) {
+					lastId = fullTextSession.getIdentifier(batch.get(batchCount - 1));
+					setCheckpoint(checkpoint, type.getName(), lastId.toString());
+				}
+				fullTextSession.clear();
+				progress.indexed(type, batchCount);
+			} while (batchCount == batchSize);
+
+			setCheckpoint(checkpoint, type.getName() + COMPLETED_SUFFIX, Boolean.TRUE.toString());
+			progress.completed(type);
+			log.info("Finished rebuilding the search index for " + type.getName());
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	private void purge(Class<?> type) {
+		Session session = sessionFactory.openSession();
+		try {
+			FullTextSession fullTextSession = Search.getFullTextSession(session);
+			Transaction transaction = fullTextSession.beginTransaction();
+			fullTextSession.purgeAll(type);
+			fullTextSession.flushToIndexes();
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * @param type the indexed type
+	 * @param maxId the checkpoint of the type or null
+	 * @return the number of objects of the type with an id up to the given one, or all if it is null
+	 */
+	private long count(Class<?> type, String maxId) {
+		Session session = sessionFactory.openSession();
+		try {
+			Criteria criteria = session.createCriteria(type).setProjection(Projections.rowCount());
+			if (maxId != null) {
+				criteria.add(Restrictions.le(sessionFactory.getClassMetadata(type).getIdentifierPropertyName(), parseId(
+				    type, maxId)));
+			}
+			return ((Number) criteria.uniqueResult()).longValue();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	private Serializable parseId(Class<?> type, String id) {
+		if (id == null) {
+			return null;
+		}
+		Class<?> idType = sessionFactory.getClassMetadata(type).getIdentifierType().getReturnedClass();
+		if (Integer.class.equals(idType)) {
+			return Integer.valueOf(id);
+		} else if (Long.class.equals(idType)) {
+			return Long.valueOf(id);
+		}
+		return id;
+	}
+
+	private String getCheckpoint(Properties checkpoint, String key) {
+		synchronized (checkpoint) {
+			return checkpoint.getProperty(key);
+		}
+	}
+
+	private void setCheckpoint(Properties checkpoint, String key, String value) {
+		synchronized (checkpoint) {
+			checkpoint.setProperty(key, value);
+			saveCheckpoint(checkpoint);
+		}
+	}
+
+	/**
+	 * @return the checkpoint of an interrupted rebuild of the same version or an empty one
+	 */
+	private Properties loadCheckpoint() {
+		Properties checkpoint = new Properties();
+		if (checkpointFile.exists()) {
+			InputStream in = null;
+			try {
+				in = new FileInputStream(checkpointFile);
+				checkpoint.load(in);
+			}
+			catch (IOException e) {
+				log.warn("Unable to read the search index checkpoint " + checkpointFile + ", starting over", e);
+				checkpoint.clear();
+			}
+			finally {
+				OpenmrsUtil.closeStream(in);
+			}
+			if (!version.equals(checkpoint.getProperty(VERSION_KEY))) {
+				checkpoint.clear();
+			}
+		}
+		return checkpoint;
+	}
+
+	private void saveCheckpoint(Properties checkpoint) {
+		File tempFile = new File(checkpointFile.getPath() + ".tmp");
+		OutputStream out = null;
+		try {
+			checkpointFile.getParentFile().mkdirs();
+			out = new FileOutputStream(tempFile);
+			checkpoint.store(out, "Progress of an interrupted search index rebuild");
+		}
+		catch (IOException e) {
+			throw new DAOException("Unable to write the search index checkpoint " + checkpointFile, e);
+		}
+		finally {
+			OpenmrsUtil.closeStream(out);
+		}
+		if (checkpointFile.exists() && !checkpointFile.delete() || !tempFile.renameTo(checkpointFile)) {
+			throw new DAOException("Unable to write the search index checkpoint " + checkpointFile);
+		}
+	}
+
+	private void deleteCheckpoint() {
+		if (checkpointFile.exists() && !checkpointFile.delete()) {
+			log.warn("Unable to delete the search index checkpoint " + checkpointFile);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.handler;
+
+import java.util.Date;
+
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.User;
+import org.openmrs.annotation.Handler;
+import org.openmrs.aop.RequiredDataAdvice;
+import org.openmrs.api.db.hibernate.HibernateUtil;
+import org.openmrs.util.DuplicatePatientKeyUtil;
+
+/**
+ * This class deals with {@link PatientIdentifier} objects when they are saved via a save* method in
+ * an Openmrs Service. This handler is automatically called by the {@link RequiredDataAdvice} AOP
+ * class. It updates the duplicate keys of the patient the identifier belongs to, voiding an
+ * identifier saves it, so this handler also runs then. <br>
+ *
+ * @see RequiredDataHandler
+ * @see SaveHandler
+ * @see PatientIdentifier
+ * @since 2.2.0
+ */
+@Handler(supports = PatientIdentifier.class)
+public class PatientIdentifierSaveHandler implements SaveHandler<PatientIdentifier> {
+	
+	/**
+	 * @see org.openmrs.api.handler.SaveHandler#handle(org.openmrs.OpenmrsObject, org.openmrs.User,
+	 *      java.util.Date, java.lang.String)
+	 * @should update the duplicate keys of the patient of the identifier
+	 */
+	@Override
+	public void handle(PatientIdentifier patientIdentifier, User creator, Date dateCreated, String other) {
+		Patient patient = HibernateUtil.getRealObjectFromProxy(patientIdentifier.getPatient());
+		if (patient != null) {
+			DuplicatePatientKeyUtil.updateKeys(patient);
+		}
+	}
+}
@@ -16,6 +16,7 @@ import org.openmrs.PatientIdentifier;
 import org.openmrs.User;
 import org.openmrs.annotation.Handler;
 import org.openmrs.aop.RequiredDataAdvice;
+import org.openmrs.util.DuplicatePatientKeyUtil;
 
 /**
  * This class deals with {@link Patient} objects when they are saved via a save* method in an
@@ -33,6 +34,7 @@ public class PatientSaveHandler implements SaveHandler<Patient> {
 	/**
 	 * @see org.openmrs.api.handler.SaveHandler#handle(org.openmrs.OpenmrsObject, org.openmrs.User,
 	 *      java.util.Date, java.lang.String)
+	 * @should update the duplicate keys of the patient
 	 */
 	@Override
 	public void handle(Patient patient, User creator, Date dateCreated, String other) {
@@ -45,5 +47,7 @@ public class PatientSaveHandler implements SaveHandler<Patient> {
 				}
 			}
 		}
+		
+		DuplicatePatientKeyUtil.updateKeys(patient);
 	}
 }
@@ -11,14 +11,21 @@ package org.openmrs.api.handler;
 
 import java.util.Date;
 
+import org.openmrs.Patient;
+import org.openmrs.Person;
 import org.openmrs.PersonName;
 import org.openmrs.User;
 import org.openmrs.annotation.Handler;
+import org.openmrs.api.db.hibernate.HibernateUtil;
+import org.openmrs.util.DuplicatePatientKeyUtil;
+import org.openmrs.util.SoundexUtil;
 
 /**
- * This is called every time a {@link PersonName} object is saved. The current implemention just
- * trims out the whitespace from the beginning and end of the given/middle/familyname/familyName2
- * attributes
+ * This is called every time a {@link PersonName} object is saved. The current implemention trims
+ * out the whitespace from the beginning and end of the given/middle/familyname/familyName2
+ * attributes and updates their Soundex codes which similar names are looked up by as well as the
+ * duplicate keys of the patient the name belongs to. Voiding or unvoiding a name saves it, so this
+ * handler also runs then.
  */
 @Handler(supports = PersonName.class)
 public class PersonNameSaveHandler implements SaveHandler<PersonName> {
@@ -26,6 +33,9 @@ public class PersonNameSaveHandler implements SaveHandler<PersonName> {
 	/**
 	 * @see org.openmrs.api.handler.SaveHandler#handle(org.openmrs.OpenmrsObject, org.openmrs.User,
 	 *      java.util.Date, java.lang.String)
+	 * @should trim the name parts
+	 * @should set the soundex codes of the name parts
+	 * @should update the duplicate keys of the patient of the name
 	 */
 	@Override
 	public void handle(PersonName personName, User creator, Date dateCreated, String other) {
@@ -41,6 +51,16 @@ public class PersonNameSaveHandler implements SaveHandler<PersonName> {
 		if (personName.getFamilyName2() != null) {
 			personName.setFamilyName2(personName.getFamilyName2().trim());
 		}
+		
+		personName.setGivenNameSoundex(SoundexUtil.encode(personName.getGivenName()));
+		personName.setMiddleNameSoundex(SoundexUtil.encode(personName.getMiddleName()));
+		personName.setFamilyNameSoundex(SoundexUtil.encode(personName.getFamilyName()));
+		personName.setFamilyName2Soundex(SoundexUtil.encode(personName.getFamilyName2()));
+		
+		Person person = HibernateUtil.getRealObjectFromProxy(personName.getPerson());
+		if (person instanceof Patient) {
+			DuplicatePatientKeyUtil.updateKeys((Patient) person);
+		}
 	}
 	
 }
@@ -38,6 +38,7 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.EventListeners;
 import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.api.cache.GlobalPropertyCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.AdministrationDAO;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
@@ -77,6 +78,8 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 	
 	private HttpClient implementationIdHttpClient;
 	
+	private GlobalPropertyCache globalPropertyCache;
+	
 	/**
 	 * Default empty constructor
 	 */
@@ -94,6 +97,14 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 	public void setEventListeners(EventListeners eventListeners) {
 		this.eventListeners = eventListeners;
 	}
+	
+	/**
+	 * @param globalPropertyCache the cache used by {@link #getGlobalProperty(String)}
+	 * @since 2.2.0
+	 */
+	public void setGlobalPropertyCache(GlobalPropertyCache globalPropertyCache) {
+		this.globalPropertyCache = globalPropertyCache;
+	}
 		
 	/**
 	 * Static-ish variable used to cache the system variables. This is not static so that every time
@@ -151,7 +162,10 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 			return null;
 		}
 		
-		return dao.getGlobalProperty(propertyName);
+		if (globalPropertyCache == null) {
+			return dao.getGlobalProperty(propertyName);
+		}
+		return globalPropertyCache.get(propertyName, () -> dao.getGlobalProperty(propertyName));
 	}
 	
 	/**
@@ -204,6 +218,9 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 		}
 		gp.setPropertyValue(propertyValue);
 		dao.saveGlobalProperty(gp);
+		if (globalPropertyCache != null) {
+			globalPropertyCache.invalidate(propertyName);
+		}
 	}
 	
 	/**
@@ -313,6 +330,10 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 			return null;
 		}
 		
+		if (!selectOnly && globalPropertyCache != null) {
+			// the statement might have changed global properties
+			globalPropertyCache.clear();
+		}
 		return dao.executeSQL(sql, selectOnly);
 	}
 	
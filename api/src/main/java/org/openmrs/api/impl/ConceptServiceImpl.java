@@ -676,10 +676,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Override
 	@Transactional(readOnly = true)
 	public List<Concept> getConceptsByConceptSet(Concept c) {
-		Set<Integer> alreadySeen = new HashSet<Integer>();
-		List<Concept> ret = new ArrayList<Concept>();
-		explodeConceptSetHelper(c, ret, alreadySeen);
-		return ret;
+		return dao.getConceptsByConceptSet(c);
 	}
 	
 	/**
@@ -695,6 +692,15 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.getSetsContainingConcept(concept);
 	}
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#getAllSetsContainingConcept(org.openmrs.Concept)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Concept> getAllSetsContainingConcept(Concept concept) {
+		return dao.getAllSetsContainingConcept(concept);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptProposal(java.lang.Integer)
 	 */
@@ -884,30 +890,6 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.getMaxConceptId();
 	}
 	
-	/**
-	 * Utility method used by getConceptsInSet(Concept concept)
-	 * 
-	 * @param concept
-	 * @param ret
-	 * @param alreadySeen
-	 */
-	private void explodeConceptSetHelper(Concept concept, Collection<Concept> ret, Collection<Integer> alreadySeen) {
-		if (alreadySeen.contains(concept.getConceptId())) {
-			return;
-		}
-		alreadySeen.add(concept.getConceptId());
-		List<ConceptSet> cs = getConceptSetsByConcept(concept);
-		for (ConceptSet set : cs) {
-			Concept c = set.getConcept();
-			if (c.getSet()) {
-				ret.add(c);
-				explodeConceptSetHelper(c, ret, alreadySeen);
-			} else {
-				ret.add(c);
-			}
-		}
-	}
-	
 	/**
 	 * @see org.openmrs.api.ConceptService#getConceptNameTagByName(java.lang.String)
 	 */
@@ -1161,6 +1143,16 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		return dao.getConceptsByMapping(code, sourceName, includeRetired);
 	}
 	
+	/**
+	 * @see org.openmrs.api.ConceptService#getConceptsByMappings(java.util.Collection, java.lang.String)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Map<String, List<Concept>> getConceptsByMappings(Collection<String> codes, String sourceName)
+	        throws APIException {
+		return dao.getConceptsByMappings(codes, sourceName, true);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ConceptService#getFalseConcept()
 	 */
@@ -40,6 +40,7 @@ import org.openmrs.api.EncounterService;
 import org.openmrs.api.EncounterTypeLockedException;
 import org.openmrs.api.ObsService;
 import org.openmrs.api.OrderService;
+import org.openmrs.api.PatientEncountersCallback;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.EncounterDAO;
 import org.openmrs.api.handler.EncounterVisitHandler;
@@ -198,21 +199,21 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 			}
 		}
 		
-		// save the Obs
+		// save the Obs as one batch
 		String changeMessage = Context.getMessageSourceService().getMessage("Obs.void.reason.default");
-		ObsService os = Context.getObsService();
+		List<Obs> topLevelObs = new ArrayList<>(encounter.getObsAtTopLevel(true));
+		List<Obs> savedObs = Context.getObsService().saveObs(topLevelObs, changeMessage);
 		List<Obs> obsToRemove = new ArrayList<>();
 		List<Obs> obsToAdd = new ArrayList<>();
-		for (Obs o : encounter.getObsAtTopLevel(true)) {
-			if (o.getId() == null) {
-				os.saveObs(o, null);
-			} else {
-				Obs newObs = os.saveObs(o, changeMessage);
+		for (int i = 0; i < topLevelObs.size(); i++) {
+			Obs o = topLevelObs.get(i);
+			Obs newObs = savedObs.get(i);
+			if (newObs != o) {
 				//The logic in saveObs evicts the old obs instance, so we need to update the collection
-				//with the newly loaded and voided instance, apparently reloading the encounter
-				//didn't do the tick
+				//with the voided instance that is now in the session, which is the previous version
+				//of its replacement, apparently reloading the encounter didn't do the tick
 				obsToRemove.add(o);
-				obsToAdd.add(os.getObs(o.getId()));
+				obsToAdd.add(newObs.getPreviousVersion());
 				obsToAdd.add(newObs);
 			}
 		}
@@ -607,6 +608,16 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 		return dao.getAllEncounters(patients);
 	}
 	
+	/**
+	 * @see org.openmrs.api.EncounterService#getAllEncounters(org.openmrs.Cohort,
+	 *      org.openmrs.api.PatientEncountersCallback)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void getAllEncounters(Cohort patients, PatientEncountersCallback callback) {
+		dao.getAllEncounters(patients, callback);
+	}
+	
 	/**
 	 * @see org.openmrs.api.EncounterService#getEncounters(java.lang.String, java.lang.Integer,
 	 *      java.lang.Integer, boolean)
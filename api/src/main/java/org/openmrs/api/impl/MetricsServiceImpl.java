@@ -0,0 +1,117 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.impl;
+
+import java.util.Date;
+
+import org.openmrs.aop.QueryCountingAdvice;
+import org.openmrs.api.MetricsService;
+import org.openmrs.api.db.MetricsDAO;
+import org.openmrs.api.db.hibernate.ConceptMappingIndex;
+import org.openmrs.api.metrics.CacheMetrics;
+import org.openmrs.api.metrics.MetricsSnapshot;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.StatisticsGateway;
+
+/**
+ * Standard implementation of {@link MetricsService}, the statistics are read from the persistence
+ * layer through a {@link MetricsDAO} and from the Ehcache caches behind the API cache manager.
+ *
+ * @since 2.2.0
+ */
+public class MetricsServiceImpl extends BaseOpenmrsService implements MetricsService {
+	
+	/**
+	 * The maximum number of service methods exceeding the query counting thresholds in a snapshot
+	 */
+	private static final int MAX_SERVICE_CALL_OFFENDERS = 20;
+	
+	private MetricsDAO dao;
+	
+	private CacheManager apiCacheManager;
+	
+	private QueryCountingAdvice queryCountingAdvice;
+	
+	private ConceptMappingIndex conceptMappingIndex;
+	
+	/**
+	 * Sets the dao
+	 *
+	 * @param dao the dao to set
+	 */
+	public void setDao(MetricsDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * @param apiCacheManager the cache manager of the API caches
+	 */
+	public void setApiCacheManager(CacheManager apiCacheManager) {
+		this.apiCacheManager = apiCacheManager;
+	}
+	
+	/**
+	 * @param queryCountingAdvice the advice recording the service calls exceeding the query
+	 *            counting thresholds
+	 */
+	public void setQueryCountingAdvice(QueryCountingAdvice queryCountingAdvice) {
+		this.queryCountingAdvice = queryCountingAdvice;
+	}
+	
+	/**
+	 * @param conceptMappingIndex the index of concept mappings, whose metrics are reported with the
+	 *            API caches
+	 */
+	public void setConceptMappingIndex(ConceptMappingIndex conceptMappingIndex) {
+		this.conceptMappingIndex = conceptMappingIndex;
+	}
+	
+	/**
+	 * @see org.openmrs.api.MetricsService#getMetricsSnapshot()
+	 */
+	@Override
+	public MetricsSnapshot getMetricsSnapshot() {
+		MetricsSnapshot snapshot = new MetricsSnapshot();
+		snapshot.setEndTime(new Date());
+		dao.addPersistenceMetrics(snapshot);
+		
+		if (apiCacheManager != null) {
+			for (String cacheName : apiCacheManager.getCacheNames()) {
+				Cache cache = apiCacheManager.getCache(cacheName);
+				if (cache != null && cache.getNativeCache() instanceof Ehcache) {
+					StatisticsGateway statistics = ((Ehcache) cache.getNativeCache()).getStatistics();
+					snapshot.getApiCaches().add(
+					    new CacheMetrics(cacheName, statistics.cacheHitCount(), statistics.cacheMissCount(), statistics
+					            .cachePutCount(), statistics.getLocalHeapSize()));
+				}
+			}
+		}
+		
+		if (conceptMappingIndex != null) {
+			snapshot.getApiCaches().add(conceptMappingIndex.getMetrics());
+		}
+		
+		if (queryCountingAdvice != null) {
+			snapshot.setServiceCallOffenders(queryCountingAdvice.getOffenders(MAX_SERVICE_CALL_OFFENDERS));
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * @see org.openmrs.api.MetricsService#getMetricsDelta(org.openmrs.api.metrics.MetricsSnapshot)
+	 */
+	@Override
+	public MetricsSnapshot getMetricsDelta(MetricsSnapshot since) {
+		return getMetricsSnapshot().delta(since);
+	}
+}
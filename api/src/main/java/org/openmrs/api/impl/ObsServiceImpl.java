@@ -10,12 +10,17 @@
 package org.openmrs.api.impl;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Encounter;
@@ -27,6 +32,7 @@ import org.openmrs.aop.RequiredDataAdvice;
 import org.openmrs.api.APIException;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.ObsService;
+import org.openmrs.api.PatientObsCallback;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ObsDAO;
@@ -38,6 +44,7 @@ import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants.PERSON_TYPE;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
+import org.openmrs.validator.ValidateUtil;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -114,6 +121,164 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 		}
 	}
 
+	/**
+	 * @see org.openmrs.api.ObsService#saveObs(java.util.Collection, String)
+	 */
+	@Override
+	public List<Obs> saveObs(Collection<Obs> obsToSave, String changeMessage) throws APIException {
+		if (obsToSave == null) {
+			throw new APIException("Obs.error.cannot.be.null", (Object[]) null);
+		}
+		
+		Set<String> requiredPrivileges = new HashSet<>();
+		for (Obs obs : obsToSave) {
+			if (obs == null) {
+				throw new APIException("Obs.error.cannot.be.null", (Object[]) null);
+			}
+			if (obs.getId() != null && changeMessage == null) {
+				throw new APIException("Obs.error.ChangeMessage.required", (Object[]) null);
+			}
+			addRequiredPrivileges(obs, requiredPrivileges);
+		}
+		for (String privilege : requiredPrivileges) {
+			Context.requirePrivilege(privilege);
+		}
+		
+		// the validator of an obs also validates its group members
+		for (Obs obs : obsToSave) {
+			ValidateUtil.validate(obs);
+		}
+		
+		ObsBatch batch = new ObsBatch(changeMessage);
+		List<Obs> saved = new ArrayList<>(obsToSave.size());
+		for (Obs obs : obsToSave) {
+			saved.add(saveObsInBatch(obs, batch));
+		}
+		voidReplacedObs(batch);
+		for (Obs obs : batch.obsToRefresh) {
+			Context.refreshEntity(obs);
+		}
+		return saved;
+	}
+	
+	/**
+	 * Adds the privileges needed to save the given obs and its group members, adding obs requires
+	 * {@link PrivilegeConstants#ADD_OBS} while only obs which were changed and are therefore
+	 * replaced require {@link PrivilegeConstants#EDIT_OBS}
+	 */
+	private void addRequiredPrivileges(Obs obs, Set<String> privileges) {
+		if (obs.getObsId() == null) {
+			privileges.add(PrivilegeConstants.ADD_OBS);
+		} else if (obs.isDirty()) {
+			privileges.add(PrivilegeConstants.EDIT_OBS);
+		}
+		if (obs.isObsGrouping()) {
+			for (Obs member : obs.getGroupMembers(true)) {
+				addRequiredPrivileges(member, privileges);
+			}
+		}
+	}
+	
+	/**
+	 * Saves the given obs the same way as {@link #saveObs(Obs, String)} without going through the
+	 * service proxy again for its group members, voiding edited obs is left to
+	 * {@link #voidReplacedObs(ObsBatch)}
+	 */
+	private Obs saveObsInBatch(Obs obs, ObsBatch batch) {
+		handleExistingObsWithComplexConcept(obs);
+		
+		if (obs.getObsId() == null || obs.getVoided()) {
+			dao.saveObs(obs);
+			saveGroupMembersInBatch(obs, batch);
+			return obs;
+		}
+		
+		setPersonFromEncounter(obs);
+		if (!obs.isDirty()) {
+			if (obs.isObsGrouping()) {
+				boolean refreshNeeded = false;
+				for (Obs member : obs.getGroupMembers(true)) {
+					refreshNeeded = saveObsInBatch(member, batch) != member || refreshNeeded;
+				}
+				if (refreshNeeded) {
+					batch.obsToRefresh.add(obs);
+				}
+			}
+			return obs;
+		}
+		
+		Obs newObs = Obs.newInstance(obs);
+		unsetVoidedAndCreationProperties(newObs, obs);
+		RequiredDataAdvice.recursivelyHandle(SaveHandler.class, newObs, batch.changeMessage);
+		dao.saveObs(newObs);
+		saveGroupMembersInBatch(newObs, batch);
+		batch.replacedObs.put(obs.getObsId(), newObs);
+		return newObs;
+	}
+	
+	private void saveGroupMembersInBatch(Obs obs, ObsBatch batch) {
+		if (obs.isObsGrouping()) {
+			for (Obs member : obs.getGroupMembers(true)) {
+				saveObsInBatch(member, batch);
+			}
+		}
+	}
+	
+	/**
+	 * Voids the obs replaced in the given batch. Clean copies of all of them are fetched with a
+	 * single query after evicting the edited instances, so that the edits are not written to the
+	 * original rows, and each replacement is linked to the voided copy now in the session.
+	 */
+	private void voidReplacedObs(ObsBatch batch) {
+		if (batch.replacedObs.isEmpty()) {
+			return;
+		}
+		
+		for (Obs newObs : batch.replacedObs.values()) {
+			evictObsAndChildren(newObs.getPreviousVersion());
+		}
+		
+		try {
+			Context.addProxyPrivilege(PrivilegeConstants.DELETE_OBS);
+			for (Obs obs : dao.getObs(batch.replacedObs.keySet())) {
+				Obs newObs = batch.replacedObs.get(obs.getObsId());
+				//delete the previous file from the appdata/complex_obs folder
+				if (newObs.getPreviousVersion().isComplex()) {
+					File previousFile = AbstractHandler.getComplexDataFile(obs);
+					previousFile.delete();
+				}
+				// calling this via the service so that AOP hooks are called
+				Context.getObsService().voidObs(obs, batch.changeMessage);
+				newObs.setPreviousVersion(obs);
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.DELETE_OBS);
+		}
+	}
+	
+	/**
+	 * The state of one call to {@link ObsServiceImpl#saveObs(Collection, String)}
+	 */
+	private static class ObsBatch {
+		
+		private final String changeMessage;
+		
+		/**
+		 * The new obs replacing edited ones by the id of the edited obs
+		 */
+		private final Map<Integer, Obs> replacedObs = new LinkedHashMap<>();
+		
+		/**
+		 * Groups to reload once their replaced members have been voided
+		 */
+		private final List<Obs> obsToRefresh = new ArrayList<>();
+		
+		private ObsBatch(String changeMessage) {
+			this.changeMessage = changeMessage;
+		}
+	}
+	
 	private void setPersonFromEncounter(Obs obs) {
 		Encounter encounter = obs.getEncounter();
 		if (encounter != null) {
@@ -469,6 +634,17 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 		    null, false);
 	}
 	
+	/**
+	 * @see org.openmrs.api.ObsService#getObservationsPerPatient(org.openmrs.Cohort, java.util.List,
+	 *      int, boolean, org.openmrs.api.PatientObsCallback)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void getObservationsPerPatient(Cohort patients, List<Concept> questions, int maxObsPerQuestion,
+	        boolean mostRecent, PatientObsCallback callback) throws APIException {
+		dao.getObservationsPerPatient(patients, questions, maxObsPerQuestion, mostRecent, callback);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ObsService#getObsByUuid(java.lang.String)
 	 */
@@ -82,8 +82,31 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	protected OrderDAO dao;
 	
 	private static OrderNumberGenerator orderNumberGenerator = null;
+	
+	/**
+	 * The number of stripes used to lock order saving per patient
+	 */
+	private static final int PATIENT_LOCK_STRIPES = 64;
+	
+	/**
+	 * Locks used to serialize the validation and discontinuation checks of orders for the same
+	 * patient while orders for different patients are saved concurrently
+	 */
+	private final Object[] patientLocks = new Object[PATIENT_LOCK_STRIPES];
+	
+	private final Object orderNumberSeedBlockLock = new Object();
+	
+	private volatile Integer orderNumberSeedBlockSize = null;
+	
+	// the next seed to hand out and the end (exclusive) of the currently reserved block
+	private long nextOrderNumberSeed = 0;
+	
+	private long orderNumberSeedBlockEnd = 0;
 
 	public OrderServiceImpl() {
+		for (int i = 0; i < PATIENT_LOCK_STRIPES; i++) {
+			patientLocks[i] = new Object();
+		}
 	}
 	
 	/**
@@ -98,8 +121,10 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveOrder(Order order, OrderContext orderContext) throws APIException {
-		return saveOrder(order, orderContext, false);
+	public Order saveOrder(Order order, OrderContext orderContext) throws APIException {
+		synchronized (getPatientLock(order.getPatient())) {
+			return saveOrder(order, orderContext, false);
+		}
 	}
 	
 	/**
@@ -123,8 +148,30 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
-		return saveOrder(order, orderContext, true);
+	public Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
+		synchronized (getPatientLock(order.getPatient())) {
+			return saveOrder(order, orderContext, true);
+		}
+	}
+	
+	/**
+	 * Gets the lock to hold while saving an order for the specified patient, orders for the same
+	 * patient always map to the same lock
+	 * 
+	 * @param patient the patient the order belongs to
+	 * @return the lock object
+	 */
+	private Object getPatientLock(Patient patient) {
+		Object key = null;
+		if (patient != null) {
+			key = patient.getPatientId() != null ? patient.getPatientId() : patient.getUuid();
+		}
+		if (key == null) {
+			return patientLocks[0];
+		}
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return patientLocks[(hash & Integer.MAX_VALUE) % PATIENT_LOCK_STRIPES];
 	}
 
 	private Order saveOrder(Order order, OrderContext orderContext, boolean isRetrospective) {
@@ -558,7 +605,55 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public String getNewOrderNumber(OrderContext orderContext) throws APIException {
-		return ORDER_NUMBER_PREFIX + Context.getOrderService().getNextOrderNumberSeedSequenceValue();
+		int blockSize = getOrderNumberSeedBlockSize();
+		if (blockSize <= 1) {
+			return ORDER_NUMBER_PREFIX + Context.getOrderService().getNextOrderNumberSeedSequenceValue();
+		}
+		
+		synchronized (orderNumberSeedBlockLock) {
+			if (nextOrderNumberSeed >= orderNumberSeedBlockEnd) {
+				nextOrderNumberSeed = Context.getOrderService().reserveOrderNumberSeedSequenceValues(blockSize);
+				orderNumberSeedBlockEnd = nextOrderNumberSeed + blockSize;
+			}
+			return ORDER_NUMBER_PREFIX + nextOrderNumberSeed++;
+		}
+	}
+	
+	/**
+	 * Gets the configured number of order number seeds to reserve at a time, the value is cached
+	 * until the global property changes
+	 * 
+	 * @return the block size
+	 */
+	private int getOrderNumberSeedBlockSize() {
+		Integer blockSize = orderNumberSeedBlockSize;
+		if (blockSize == null) {
+			String value = Context.getAdministrationService().getGlobalProperty(
+			    OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE);
+			blockSize = 1;
+			if (StringUtils.hasText(value)) {
+				try {
+					blockSize = Integer.valueOf(value.trim());
+				}
+				catch (NumberFormatException e) {
+					log.warn("Invalid value for global property {}: {}", OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE,
+					    value);
+				}
+			}
+			orderNumberSeedBlockSize = blockSize;
+		}
+		return blockSize;
+	}
+	
+	/**
+	 * Discards the cached block size and any seeds that were reserved but not yet handed out
+	 */
+	private void resetOrderNumberSeedBlock() {
+		synchronized (orderNumberSeedBlockLock) {
+			orderNumberSeedBlockSize = null;
+			nextOrderNumberSeed = 0;
+			orderNumberSeedBlockEnd = 0;
+		}
 	}
 	
 	/**
@@ -598,6 +693,15 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 		return dao.getNextOrderNumberSeedSequenceValue();
 	}
 	
+	/**
+	 * @see org.openmrs.api.OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public synchronized Long reserveOrderNumberSeedSequenceValues(int count) {
+		return dao.reserveOrderNumberSeedSequenceValues(count);
+	}
+	
 	/**
 	 * @see org.openmrs.api.OrderService#getOrderHistoryByOrderNumber(java.lang.String)
 	 */
@@ -842,7 +946,8 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public boolean supportsPropertyName(String propertyName) {
-		return OpenmrsConstants.GP_ORDER_NUMBER_GENERATOR_BEAN_ID.equals(propertyName);
+		return OpenmrsConstants.GP_ORDER_NUMBER_GENERATOR_BEAN_ID.equals(propertyName)
+		        || OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE.equals(propertyName);
 	}
 	
 	/**
@@ -850,7 +955,7 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public void globalPropertyChanged(GlobalProperty newValue) {
-		setOrderNumberGenerator(null);
+		globalPropertyDeleted(newValue.getProperty());
 	}
 	
 	/**
@@ -858,7 +963,11 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	public void globalPropertyDeleted(String propertyName) {
-		setOrderNumberGenerator(null);
+		if (OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE.equals(propertyName)) {
+			resetOrderNumberSeedBlock();
+		} else {
+			setOrderNumberGenerator(null);
+		}
 	}
 	
 	/**
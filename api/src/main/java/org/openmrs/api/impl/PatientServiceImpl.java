@@ -44,6 +44,7 @@ import org.openmrs.Visit;
 import org.openmrs.api.APIException;
 import org.openmrs.api.BlankIdentifierException;
 import org.openmrs.api.DuplicateIdentifierException;
+import org.openmrs.api.DuplicatePatientCandidate;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.InsufficientIdentifiersException;
 import org.openmrs.api.MissingRequiredIdentifierException;
@@ -86,6 +87,8 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 	
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 	
+	private static final int DEFAULT_DUPLICATE_PATIENT_MAX_KEY_MEMBERS = 100;
+	
 	private PatientDAO dao;
 	
 	/**
@@ -533,6 +536,18 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		return dao.getDuplicatePatientsByAttributes(attributes);
 	}
 	
+	/**
+	 * @see org.openmrs.api.PatientService#getDuplicatePatientCandidates(int, Integer, Integer)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<DuplicatePatientCandidate> getDuplicatePatientCandidates(int minimumScore, Integer lastPatientId,
+	        Integer maxPatients) throws APIException {
+		int maxKeyMembers = Context.getAdministrationService().getGlobalPropertyValue(
+		    OpenmrsConstants.GP_DUPLICATE_PATIENT_MAX_KEY_MEMBERS, DEFAULT_DUPLICATE_PATIENT_MAX_KEY_MEMBERS);
+		return dao.getDuplicatePatientCandidates(minimumScore, lastPatientId, maxPatients, maxKeyMembers);
+	}
+	
 	/**
 	 * generate a relationship hash for use in mergePatients; follows the convention:
 	 * [relationshipType][A|B][relativeId]
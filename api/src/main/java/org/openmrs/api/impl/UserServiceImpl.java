@@ -30,6 +30,7 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.CannotDeleteRoleWithChildrenException;
 import org.openmrs.api.UserService;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.LoginCredential;
 import org.openmrs.api.db.UserDAO;
@@ -154,7 +155,9 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 			        + " is already in use.");
 		}
 		
-		return dao.saveUser(user, null);
+		User savedUser = dao.saveUser(user, null);
+		UserContext.privilegesChanged();
+		return savedUser;
 	}
 	
 	/**
@@ -234,6 +237,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		}
 		
 		dao.deletePrivilege(privilege);
+		UserContext.privilegesChanged();
 	}
 	
 	/**
@@ -280,6 +284,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		}
 		
 		dao.deleteRole(role);
+		UserContext.privilegesChanged();
 	}
 	
 	/**
@@ -295,7 +300,9 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		
 		checkPrivileges(role);
 		
-		return dao.saveRole(role);
+		Role savedRole = dao.saveRole(role);
+		UserContext.privilegesChanged();
+		return savedRole;
 	}
 	
 	/**
@@ -611,7 +618,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	@Override
 	@Transactional(readOnly = true)
 	public void notifyPrivilegeListeners(User user, String privilege, boolean hasPrivilege) {
-		if (privilegeListeners != null) {
+		if (privilegeListeners != null && !privilegeListeners.isEmpty()) {
 			for (PrivilegeListener privilegeListener : privilegeListeners) {
 				try {
 					privilegeListener.privilegeChecked(user, privilege, hasPrivilege);
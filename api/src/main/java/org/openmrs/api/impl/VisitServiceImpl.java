@@ -44,6 +44,11 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class VisitServiceImpl extends BaseOpenmrsService implements VisitService {
 	
+	/**
+	 * The number of visits stopped at a time by {@link #stopVisits(Date)}
+	 */
+	private static final int STOP_VISITS_BATCH_SIZE = 1000;
+	
 	private VisitDAO dao;
 	
 	/**
@@ -351,8 +356,17 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 	 */
 	@Override
 	public void stopVisits(Date maximumStartDate) {
+		Context.getVisitService().stopVisits(maximumStartDate, STOP_VISITS_BATCH_SIZE);
+	}
+	
+	/**
+	 * @see org.openmrs.api.VisitService#stopVisits(Date, int)
+	 */
+	@Override
+	public int stopVisits(Date maximumStartDate, int batchSize) {
 		String gpValue = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GP_VISIT_TYPES_TO_AUTO_CLOSE);
 		VisitService vs = Context.getVisitService();
+		int stoppedCount = 0;
 		if (StringUtils.isNotBlank(gpValue)) {
 			if (maximumStartDate == null) {
 				maximumStartDate = new Date();
@@ -373,22 +387,36 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 			}
 			
 			if (!visitTypesToStop.isEmpty()) {
-				int counter = 0;
+				boolean inBulk = Boolean.valueOf(Context.getAdministrationService().getGlobalProperty(
+				    OpenmrsConstants.GP_AUTO_CLOSE_VISITS_IN_BULK, "false"));
+				batchSize = Math.max(1, batchSize);
 				Date stopDate = new Date();
-				Visit nextVisit = dao.getNextVisit(null, visitTypesToStop, maximumStartDate);
-				while (nextVisit != null) {
-					nextVisit.setStopDatetime(stopDate);
-					dao.saveVisit(nextVisit);
-					if (counter++ > 50) {
+				Integer lastVisitId = null;
+				List<Integer> visitIds;
+				do {
+					visitIds = dao.getActiveVisitIds(lastVisitId, visitTypesToStop, maximumStartDate, batchSize);
+					if (visitIds.isEmpty()) {
+						break;
+					}
+					lastVisitId = visitIds.get(visitIds.size() - 1);
+					
+					if (inBulk) {
+						stoppedCount += dao.stopVisits(visitIds, stopDate, Context.getAuthenticatedUser(), stopDate);
+					} else {
+						// modules listening to hibernate events need to see every visit being saved
+						for (Integer visitId : visitIds) {
+							Visit visit = dao.getVisit(visitId);
+							visit.setStopDatetime(stopDate);
+							dao.saveVisit(visit);
+							stoppedCount++;
+						}
 						//ensure changes are persisted to DB before reclaiming memory
 						Context.flushSession();
 						Context.clearSession();
-						counter = 0;
 					}
-					
-					nextVisit = dao.getNextVisit(nextVisit, visitTypesToStop, maximumStartDate);
-				}
+				} while (visitIds.size() == batchSize);
 			}
 		}
+		return stoppedCount;
 	}
 }
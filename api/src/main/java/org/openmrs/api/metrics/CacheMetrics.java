@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import java.io.Serializable;
+
+/**
+ * The hits, misses and puts of a cache region and the number of elements it holds.
+ *
+ * @since 2.2.0
+ */
+public class CacheMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long putCount;
+
+	private final long elementCount;
+
+	public CacheMetrics(String name, long hitCount, long missCount, long putCount, long elementCount) {
+		this.name = name;
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.putCount = putCount;
+		this.elementCount = elementCount;
+	}
+
+	/**
+	 * @return the name of the cache region
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getPutCount() {
+		return putCount;
+	}
+
+	/**
+	 * @return the number of elements in memory, a delta keeps the count of the later metrics
+	 */
+	public long getElementCount() {
+		return elementCount;
+	}
+
+	/**
+	 * @return the share of lookups which were hits between 0 and 1, or 0 if there were no lookups
+	 */
+	public double getHitRatio() {
+		long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+	/**
+	 * @param earlier the metrics of the same region taken earlier, may be null
+	 * @return the metrics of what happened since the earlier metrics were taken
+	 */
+	CacheMetrics delta(CacheMetrics earlier) {
+		if (earlier == null) {
+			return this;
+		}
+		return new CacheMetrics(name, hitCount - earlier.hitCount, missCount - earlier.missCount, putCount
+		        - earlier.putCount, elementCount);
+	}
+}
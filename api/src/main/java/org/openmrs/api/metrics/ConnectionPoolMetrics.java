@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import java.io.Serializable;
+
+/**
+ * The usage of the database connection pool at the time the metrics were taken.
+ *
+ * @since 2.2.0
+ */
+public class ConnectionPoolMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int connectionCount;
+
+	private final int busyConnectionCount;
+
+	private final int idleConnectionCount;
+
+	private final int threadsAwaitingConnectionCount;
+
+	public ConnectionPoolMetrics(int connectionCount, int busyConnectionCount, int idleConnectionCount,
+	    int threadsAwaitingConnectionCount) {
+		this.connectionCount = connectionCount;
+		this.busyConnectionCount = busyConnectionCount;
+		this.idleConnectionCount = idleConnectionCount;
+		this.threadsAwaitingConnectionCount = threadsAwaitingConnectionCount;
+	}
+
+	public int getConnectionCount() {
+		return connectionCount;
+	}
+
+	public int getBusyConnectionCount() {
+		return busyConnectionCount;
+	}
+
+	public int getIdleConnectionCount() {
+		return idleConnectionCount;
+	}
+
+	/**
+	 * @return the number of threads waiting for a connection because all connections are busy
+	 */
+	public int getThreadsAwaitingConnectionCount() {
+		return threadsAwaitingConnectionCount;
+	}
+}
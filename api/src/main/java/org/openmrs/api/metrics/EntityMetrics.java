@@ -0,0 +1,89 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import java.io.Serializable;
+
+/**
+ * The number of times instances of an entity were loaded, fetched and written by Hibernate. A
+ * fetch is a load which needed a separate query, so a fetch count growing with the load count of
+ * another entity points to an N+1 select pattern.
+ *
+ * @since 2.2.0
+ */
+public class EntityMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+
+	private final long loadCount;
+
+	private final long fetchCount;
+
+	private final long insertCount;
+
+	private final long updateCount;
+
+	private final long deleteCount;
+
+	public EntityMetrics(String name, long loadCount, long fetchCount, long insertCount, long updateCount,
+	    long deleteCount) {
+		this.name = name;
+		this.loadCount = loadCount;
+		this.fetchCount = fetchCount;
+		this.insertCount = insertCount;
+		this.updateCount = updateCount;
+		this.deleteCount = deleteCount;
+	}
+
+	/**
+	 * @return the name of the entity
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public long getLoadCount() {
+		return loadCount;
+	}
+
+	public long getFetchCount() {
+		return fetchCount;
+	}
+
+	public long getInsertCount() {
+		return insertCount;
+	}
+
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	public long getDeleteCount() {
+		return deleteCount;
+	}
+
+	/**
+	 * @param earlier the metrics of the same entity taken earlier, may be null
+	 * @return the metrics of what happened since the earlier metrics were taken
+	 */
+	EntityMetrics delta(EntityMetrics earlier) {
+		if (earlier == null) {
+			return this;
+		}
+		return new EntityMetrics(name, loadCount - earlier.loadCount, fetchCount - earlier.fetchCount, insertCount
+		        - earlier.insertCount, updateCount - earlier.updateCount, deleteCount - earlier.deleteCount);
+	}
+
+	boolean isEmpty() {
+		return loadCount == 0 && fetchCount == 0 && insertCount == 0 && updateCount == 0 && deleteCount == 0;
+	}
+}
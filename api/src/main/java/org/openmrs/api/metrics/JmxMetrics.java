@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import org.openmrs.api.MetricsService;
+
+/**
+ * The {@link MetricsMXBean} registered with the platform MBean server. It is given the target of
+ * the metrics service rather than the proxy, so that JMX clients, which are authenticated by the
+ * MBean server, do not need an OpenMRS user.
+ *
+ * @since 2.2.0
+ */
+public class JmxMetrics implements MetricsMXBean {
+
+	private MetricsService metricsService;
+
+	private MetricsSnapshot previousSnapshot;
+
+	public void setMetricsService(MetricsService metricsService) {
+		this.metricsService = metricsService;
+	}
+
+	/**
+	 * @see MetricsMXBean#getSnapshot()
+	 */
+	@Override
+	public MetricsSnapshot getSnapshot() {
+		return metricsService.getMetricsSnapshot();
+	}
+
+	/**
+	 * @see MetricsMXBean#readDelta()
+	 */
+	@Override
+	public synchronized MetricsSnapshot readDelta() {
+		MetricsSnapshot snapshot = metricsService.getMetricsSnapshot();
+		MetricsSnapshot delta = previousSnapshot == null ? snapshot : snapshot.delta(previousSnapshot);
+		previousSnapshot = snapshot;
+		return delta;
+	}
+}
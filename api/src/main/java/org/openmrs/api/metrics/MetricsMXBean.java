@@ -0,0 +1,34 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+/**
+ * Exposes the metrics of {@link org.openmrs.api.MetricsService} over JMX under the name
+ * {@value #OBJECT_NAME}.
+ *
+ * @since 2.2.0
+ */
+public interface MetricsMXBean {
+
+	String OBJECT_NAME = "org.openmrs:type=Metrics";
+
+	/**
+	 * @return the metrics since the statistics were started
+	 */
+	MetricsSnapshot getSnapshot();
+
+	/**
+	 * Gets the metrics since the previous call of this operation, or since the statistics were
+	 * started on the first call
+	 *
+	 * @return the metrics since the previous call
+	 */
+	MetricsSnapshot readDelta();
+}
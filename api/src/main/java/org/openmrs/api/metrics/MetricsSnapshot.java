@@ -0,0 +1,329 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Hibernate statistics, cache statistics and connection pool usage at a point in time. A
+ * snapshot holds the counts since the statistics were started, {@link #delta(MetricsSnapshot)}
+ * gives the counts between two snapshots.
+ *
+ * @see org.openmrs.api.MetricsService
+ * @since 2.2.0
+ */
+public class MetricsSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Date startTime;
+
+	private Date endTime;
+
+	private boolean statisticsEnabled;
+
+	private long sessionOpenCount;
+
+	private long transactionCount;
+
+	private long connectCount;
+
+	private long prepareStatementCount;
+
+	private long entityLoadCount;
+
+	private long entityFetchCount;
+
+	private long collectionLoadCount;
+
+	private long collectionFetchCount;
+
+	private long queryExecutionCount;
+
+	private long queryExecutionMaxTime;
+
+	private String queryExecutionMaxTimeQueryString;
+
+	private List<EntityMetrics> entities = new ArrayList<EntityMetrics>();
+
+	private List<QueryMetrics> queries = new ArrayList<QueryMetrics>();
+
+	private List<CacheMetrics> secondLevelCacheRegions = new ArrayList<CacheMetrics>();
+
+	private List<CacheMetrics> apiCaches = new ArrayList<CacheMetrics>();
+
+	private ConnectionPoolMetrics connectionPool;
+
+	private List<ServiceCallMetrics> serviceCallOffenders = new ArrayList<ServiceCallMetrics>();
+
+	/**
+	 * Gets the counts between the given snapshot and this one. Entities and queries without any
+	 * activity in between are left out, the maximum query time, the element counts of caches and
+	 * the connection pool usage and the service call offenders are those of this snapshot.
+	 *
+	 * @param earlier a snapshot taken before this one
+	 * @return the metrics of what happened since the earlier snapshot was taken
+	 * @should subtract the counts of the earlier snapshot
+	 * @should leave out entities and queries without activity
+	 */
+	public MetricsSnapshot delta(MetricsSnapshot earlier) {
+		MetricsSnapshot delta = new MetricsSnapshot();
+		delta.setStartTime(earlier.getEndTime());
+		delta.setEndTime(endTime);
+		delta.setStatisticsEnabled(statisticsEnabled);
+		delta.setSessionOpenCount(sessionOpenCount - earlier.getSessionOpenCount());
+		delta.setTransactionCount(transactionCount - earlier.getTransactionCount());
+		delta.setConnectCount(connectCount - earlier.getConnectCount());
+		delta.setPrepareStatementCount(prepareStatementCount - earlier.getPrepareStatementCount());
+		delta.setEntityLoadCount(entityLoadCount - earlier.getEntityLoadCount());
+		delta.setEntityFetchCount(entityFetchCount - earlier.getEntityFetchCount());
+		delta.setCollectionLoadCount(collectionLoadCount - earlier.getCollectionLoadCount());
+		delta.setCollectionFetchCount(collectionFetchCount - earlier.getCollectionFetchCount());
+		delta.setQueryExecutionCount(queryExecutionCount - earlier.getQueryExecutionCount());
+		delta.setQueryExecutionMaxTime(queryExecutionMaxTime);
+		delta.setQueryExecutionMaxTimeQueryString(queryExecutionMaxTimeQueryString);
+		delta.setConnectionPool(connectionPool);
+		delta.setServiceCallOffenders(serviceCallOffenders);
+
+		Map<String, EntityMetrics> earlierEntities = new HashMap<String, EntityMetrics>();
+		for (EntityMetrics entity : earlier.getEntities()) {
+			earlierEntities.put(entity.getName(), entity);
+		}
+		for (EntityMetrics entity : entities) {
+			EntityMetrics entityDelta = entity.delta(earlierEntities.get(entity.getName()));
+			if (!entityDelta.isEmpty()) {
+				delta.getEntities().add(entityDelta);
+			}
+		}
+
+		Map<String, QueryMetrics> earlierQueries = new HashMap<String, QueryMetrics>();
+		for (QueryMetrics query : earlier.getQueries()) {
+			earlierQueries.put(query.getQuery(), query);
+		}
+		for (QueryMetrics query : queries) {
+			QueryMetrics queryDelta = query.delta(earlierQueries.get(query.getQuery()));
+			if (!queryDelta.isEmpty()) {
+				delta.getQueries().add(queryDelta);
+			}
+		}
+
+		delta.setSecondLevelCacheRegions(delta(secondLevelCacheRegions, earlier.getSecondLevelCacheRegions()));
+		delta.setApiCaches(delta(apiCaches, earlier.getApiCaches()));
+		return delta;
+	}
+
+	private List<CacheMetrics> delta(List<CacheMetrics> caches, List<CacheMetrics> earlierCaches) {
+		Map<String, CacheMetrics> earlierByName = new HashMap<String, CacheMetrics>();
+		for (CacheMetrics cache : earlierCaches) {
+			earlierByName.put(cache.getName(), cache);
+		}
+		List<CacheMetrics> result = new ArrayList<CacheMetrics>(caches.size());
+		for (CacheMetrics cache : caches) {
+			result.add(cache.delta(earlierByName.get(cache.getName())));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the time the statistics were started or, for a delta, the time the earlier snapshot
+	 *         was taken
+	 */
+	public Date getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(Date startTime) {
+		this.startTime = startTime;
+	}
+
+	/**
+	 * @return the time the snapshot was taken
+	 */
+	public Date getEndTime() {
+		return endTime;
+	}
+
+	public void setEndTime(Date endTime) {
+		this.endTime = endTime;
+	}
+
+	/**
+	 * @return whether Hibernate collects statistics, the Hibernate counts are all 0 if it does not
+	 */
+	public boolean isStatisticsEnabled() {
+		return statisticsEnabled;
+	}
+
+	public void setStatisticsEnabled(boolean statisticsEnabled) {
+		this.statisticsEnabled = statisticsEnabled;
+	}
+
+	public long getSessionOpenCount() {
+		return sessionOpenCount;
+	}
+
+	public void setSessionOpenCount(long sessionOpenCount) {
+		this.sessionOpenCount = sessionOpenCount;
+	}
+
+	public long getTransactionCount() {
+		return transactionCount;
+	}
+
+	public void setTransactionCount(long transactionCount) {
+		this.transactionCount = transactionCount;
+	}
+
+	public long getConnectCount() {
+		return connectCount;
+	}
+
+	public void setConnectCount(long connectCount) {
+		this.connectCount = connectCount;
+	}
+
+	public long getPrepareStatementCount() {
+		return prepareStatementCount;
+	}
+
+	public void setPrepareStatementCount(long prepareStatementCount) {
+		this.prepareStatementCount = prepareStatementCount;
+	}
+
+	public long getEntityLoadCount() {
+		return entityLoadCount;
+	}
+
+	public void setEntityLoadCount(long entityLoadCount) {
+		this.entityLoadCount = entityLoadCount;
+	}
+
+	public long getEntityFetchCount() {
+		return entityFetchCount;
+	}
+
+	public void setEntityFetchCount(long entityFetchCount) {
+		this.entityFetchCount = entityFetchCount;
+	}
+
+	public long getCollectionLoadCount() {
+		return collectionLoadCount;
+	}
+
+	public void setCollectionLoadCount(long collectionLoadCount) {
+		this.collectionLoadCount = collectionLoadCount;
+	}
+
+	public long getCollectionFetchCount() {
+		return collectionFetchCount;
+	}
+
+	public void setCollectionFetchCount(long collectionFetchCount) {
+		this.collectionFetchCount = collectionFetchCount;
+	}
+
+	public long getQueryExecutionCount() {
+		return queryExecutionCount;
+	}
+
+	public void setQueryExecutionCount(long queryExecutionCount) {
+		this.queryExecutionCount = queryExecutionCount;
+	}
+
+	/**
+	 * @return the longest query execution time in milliseconds since the statistics were started
+	 */
+	public long getQueryExecutionMaxTime() {
+		return queryExecutionMaxTime;
+	}
+
+	public void setQueryExecutionMaxTime(long queryExecutionMaxTime) {
+		this.queryExecutionMaxTime = queryExecutionMaxTime;
+	}
+
+	/**
+	 * @return the query which took the longest to execute
+	 */
+	public String getQueryExecutionMaxTimeQueryString() {
+		return queryExecutionMaxTimeQueryString;
+	}
+
+	public void setQueryExecutionMaxTimeQueryString(String queryExecutionMaxTimeQueryString) {
+		this.queryExecutionMaxTimeQueryString = queryExecutionMaxTimeQueryString;
+	}
+
+	public List<EntityMetrics> getEntities() {
+		return entities;
+	}
+
+	public void setEntities(List<EntityMetrics> entities) {
+		this.entities = entities;
+	}
+
+	public List<QueryMetrics> getQueries() {
+		return queries;
+	}
+
+	public void setQueries(List<QueryMetrics> queries) {
+		this.queries = queries;
+	}
+
+	/**
+	 * @return the Hibernate second level cache regions
+	 */
+	public List<CacheMetrics> getSecondLevelCacheRegions() {
+		return secondLevelCacheRegions;
+	}
+
+	public void setSecondLevelCacheRegions(List<CacheMetrics> secondLevelCacheRegions) {
+		this.secondLevelCacheRegions = secondLevelCacheRegions;
+	}
+
+	/**
+	 * @return the caches of the API configured in ehcache-api.xml and apiCacheConfig.properties
+	 *         files
+	 */
+	public List<CacheMetrics> getApiCaches() {
+		return apiCaches;
+	}
+
+	public void setApiCaches(List<CacheMetrics> apiCaches) {
+		this.apiCaches = apiCaches;
+	}
+
+	/**
+	 * @return the usage of the connection pool or null if the connection provider is not a pool
+	 */
+	public ConnectionPoolMetrics getConnectionPool() {
+		return connectionPool;
+	}
+
+	public void setConnectionPool(ConnectionPoolMetrics connectionPool) {
+		this.connectionPool = connectionPool;
+	}
+
+	/**
+	 * @return the service methods whose calls exceeded the query counting thresholds, the worst
+	 *         first
+	 * @see org.openmrs.aop.QueryCountingAdvice
+	 */
+	public List<ServiceCallMetrics> getServiceCallOffenders() {
+		return serviceCallOffenders;
+	}
+
+	public void setServiceCallOffenders(List<ServiceCallMetrics> serviceCallOffenders) {
+		this.serviceCallOffenders = serviceCallOffenders;
+	}
+}
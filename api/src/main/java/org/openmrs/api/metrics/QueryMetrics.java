@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import java.io.Serializable;
+
+/**
+ * The executions of a query by Hibernate. Hibernate only keeps the average execution time, so the
+ * total time is derived from it and the average of a delta is an approximation.
+ *
+ * @since 2.2.0
+ */
+public class QueryMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String query;
+
+	private final long executionCount;
+
+	private final long executionRowCount;
+
+	private final long executionTotalTime;
+
+	private final long executionMaxTime;
+
+	public QueryMetrics(String query, long executionCount, long executionRowCount, long executionTotalTime,
+	    long executionMaxTime) {
+		this.query = query;
+		this.executionCount = executionCount;
+		this.executionRowCount = executionRowCount;
+		this.executionTotalTime = executionTotalTime;
+		this.executionMaxTime = executionMaxTime;
+	}
+
+	/**
+	 * @return the HQL or SQL of the query
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	public long getExecutionCount() {
+		return executionCount;
+	}
+
+	public long getExecutionRowCount() {
+		return executionRowCount;
+	}
+
+	/**
+	 * @return the time spent executing the query in milliseconds
+	 */
+	public long getExecutionTotalTime() {
+		return executionTotalTime;
+	}
+
+	/**
+	 * @return the average execution time in milliseconds
+	 */
+	public long getExecutionAvgTime() {
+		return executionCount == 0 ? 0 : executionTotalTime / executionCount;
+	}
+
+	/**
+	 * @return the longest execution time in milliseconds since the statistics were started, a delta
+	 *         keeps the maximum of the later metrics
+	 */
+	public long getExecutionMaxTime() {
+		return executionMaxTime;
+	}
+
+	/**
+	 * @param earlier the metrics of the same query taken earlier, may be null
+	 * @return the metrics of what happened since the earlier metrics were taken
+	 */
+	QueryMetrics delta(QueryMetrics earlier) {
+		if (earlier == null) {
+			return this;
+		}
+		return new QueryMetrics(query, executionCount - earlier.executionCount, executionRowCount
+		        - earlier.executionRowCount, executionTotalTime - earlier.executionTotalTime, executionMaxTime);
+	}
+
+	boolean isEmpty() {
+		return executionCount == 0;
+	}
+}
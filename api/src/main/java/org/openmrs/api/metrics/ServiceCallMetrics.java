@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The calls of a service method which prepared more statements or loaded more entities or
+ * collections than allowed by the query counting thresholds, with the stack fragment of the call
+ * that prepared the most statements.
+ *
+ * @see org.openmrs.aop.QueryCountingAdvice
+ * @since 2.2.0
+ */
+public class ServiceCallMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String method;
+
+	private final long flaggedCallCount;
+
+	private final int maxStatementCount;
+
+	private final int maxEntityLoadCount;
+
+	private final int maxCollectionLoadCount;
+
+	private final List<String> stackFragment;
+
+	public ServiceCallMetrics(String method, long flaggedCallCount, int maxStatementCount, int maxEntityLoadCount,
+	    int maxCollectionLoadCount, List<String> stackFragment) {
+		this.method = method;
+		this.flaggedCallCount = flaggedCallCount;
+		this.maxStatementCount = maxStatementCount;
+		this.maxEntityLoadCount = maxEntityLoadCount;
+		this.maxCollectionLoadCount = maxCollectionLoadCount;
+		this.stackFragment = Collections.unmodifiableList(new ArrayList<String>(stackFragment));
+	}
+
+	/**
+	 * @return the service interface and method name, e.g. ConceptService.getConceptsByClass
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the number of calls which exceeded a threshold
+	 */
+	public long getFlaggedCallCount() {
+		return flaggedCallCount;
+	}
+
+	public int getMaxStatementCount() {
+		return maxStatementCount;
+	}
+
+	public int getMaxEntityLoadCount() {
+		return maxEntityLoadCount;
+	}
+
+	public int getMaxCollectionLoadCount() {
+		return maxCollectionLoadCount;
+	}
+
+	/**
+	 * @return the OpenMRS frames of the stack at the time a threshold was first exceeded
+	 */
+	public List<String> getStackFragment() {
+		return stackFragment;
+	}
+
+	/**
+	 * Combines the flagged calls of the same method
+	 *
+	 * @param other later flagged calls of the same method
+	 * @return the metrics of the calls of both
+	 * @should add the call counts and keep the maximum counts
+	 * @should keep the stack fragment of the call with the most statements
+	 */
+	public ServiceCallMetrics add(ServiceCallMetrics other) {
+		List<String> fragment = other.maxStatementCount > maxStatementCount ? other.stackFragment : stackFragment;
+		return new ServiceCallMetrics(method, flaggedCallCount + other.flaggedCallCount, Math.max(maxStatementCount,
+		    other.maxStatementCount), Math.max(maxEntityLoadCount, other.maxEntityLoadCount), Math.max(
+		    maxCollectionLoadCount, other.maxCollectionLoadCount), fragment);
+	}
+}
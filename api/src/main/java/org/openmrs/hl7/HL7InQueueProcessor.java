@@ -9,7 +9,15 @@
  */
 package org.openmrs.hl7;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,7 +28,13 @@ import ca.uhn.hl7v2.HL7Exception;
  * Processes message in the HL7 inbound queue. Messages are moved into either the archive or error
  * table depending on success or failure of the processing. You may, however, set a global property
  * that causes the processor to ignore messages regarding unknown patients from a non-local HL7
- * source. (i.e. those messages neither go to the archive or the error table.)
+ * source. (i.e. those messages neither go to the archive or the error table.) <br>
+ * <br>
+ * When the {@link OpenmrsConstants#GLOBAL_PROPERTY_HL7_PROCESSOR_WORKER_COUNT} global property is
+ * greater than 1, pending queue entries are claimed in batches and handed to a fixed number of
+ * daemon worker threads by patient identifier, each with its own queue and session. Messages for
+ * the same patient always go to the same worker so they are still processed in the order they were
+ * queued.
  *
  * @version 1.0
  */
@@ -33,6 +47,17 @@ public class HL7InQueueProcessor /* implements Runnable */{
 	
 	private static Integer count = 0;
 	
+	private static final int DEFAULT_BATCH_SIZE = 25;
+	
+	private static volatile int lastRunMessageCount = 0;
+	
+	private static volatile long lastRunDuration = 0;
+	
+	/**
+	 * Added to the queue of each worker once all entries are claimed
+	 */
+	private static final HL7InQueue END_OF_QUEUE = new HL7InQueue();
+	
 	// processor per JVM
 	
 	/**
@@ -65,9 +90,10 @@ public class HL7InQueueProcessor /* implements Runnable */{
 			log.error("Unable to process hl7 in queue", e);
 		}
 		setCount(count + 1);
-		if (count > 25) {
-			// clean up memory after processing each queue entry (otherwise, the
+		if (count > DEFAULT_BATCH_SIZE) {
+			// clean up memory after processing each batch of queue entries (otherwise, the
 			// memory-intensive process may crash or eat up all our memory)
+			setCount(0);
 			try {
 				Context.getHL7Service().garbageCollect();
 			}
@@ -108,9 +134,20 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		}
 		try {
 			log.debug("Start processing hl7 in queue");
-			while (processNextHL7InQueue()) {
-				// loop until queue is empty
+			long start = System.currentTimeMillis();
+			int processed = 0;
+			int workerCount = getGlobalPropertyValue(OpenmrsConstants.GLOBAL_PROPERTY_HL7_PROCESSOR_WORKER_COUNT, 1);
+			if (workerCount > 1 && Daemon.isDaemonThread()) {
+				int batchSize = getGlobalPropertyValue(OpenmrsConstants.GLOBAL_PROPERTY_HL7_PROCESSOR_BATCH_SIZE,
+				    DEFAULT_BATCH_SIZE);
+				processed = processHL7InQueueInParallel(workerCount, batchSize);
+			} else {
+				while (processNextHL7InQueue()) {
+					// loop until queue is empty
+					processed++;
+				}
 			}
+			recordThroughput(processed, System.currentTimeMillis() - start);
 			log.debug("Done processing hl7 in queue");
 		}
 		finally {
@@ -118,4 +155,215 @@ public class HL7InQueueProcessor /* implements Runnable */{
 		}
 	}
 	
+	/**
+	 * Processes pending queue entries with the given number of worker threads until the queue is
+	 * empty. The calling thread claims the entries a batch at a time and hands each one to the worker
+	 * for its patient, so messages for the same patient are processed by one worker in the order
+	 * they were queued. Each worker takes up to a batch of entries from its own queue at a time, so
+	 * no worker waits for the others and a new batch is claimed as soon as there is room for it.
+	 *
+	 * @param workerCount the number of worker threads
+	 * @param batchSize the number of queue entries claimed and processed at a time
+	 * @return the number of queue entries that were claimed for processing
+	 * @should process the entries of each patient in the order they were queued
+	 * @should process all claimed entries before returning
+	 * @should keep processing entries when a batch fails
+	 */
+	protected int processHL7InQueueInParallel(int workerCount, int batchSize) {
+		// claimed entries which are not processed yet, bounded so that the queues don't take up all
+		// the memory if the workers are slower than the claiming
+		Semaphore room = new Semaphore(workerCount * batchSize);
+		List<BlockingQueue<HL7InQueue>> queues = new ArrayList<BlockingQueue<HL7InQueue>>(workerCount);
+		List<Thread> workers = new ArrayList<Thread>(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			BlockingQueue<HL7InQueue> queue = new LinkedBlockingQueue<HL7InQueue>();
+			queues.add(queue);
+			workers.add(startWorker(new Worker(queue, room, batchSize)));
+		}
+		
+		int claimed = 0;
+		try {
+			while (true) {
+				room.acquire(batchSize);
+				List<HL7InQueue> hl7InQueues = claimHL7InQueues(batchSize);
+				room.release(batchSize - hl7InQueues.size());
+				if (hl7InQueues.isEmpty()) {
+					break;
+				}
+				for (HL7InQueue hl7InQueue : hl7InQueues) {
+					queues.get(getWorkerIndex(hl7InQueue, workerCount)).add(hl7InQueue);
+				}
+				claimed += hl7InQueues.size();
+			}
+		}
+		catch (InterruptedException e) {
+			log.warn("Interrupted while claiming hl7 in queue entries", e);
+			Thread.currentThread().interrupt();
+		}
+		catch (RuntimeException e) {
+			log.error("Unable to claim hl7 in queue entries", e);
+		}
+		finally {
+			// the workers finish the entries they were given before they stop
+			for (BlockingQueue<HL7InQueue> queue : queues) {
+				queue.add(END_OF_QUEUE);
+			}
+		}
+		
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				log.warn("Interrupted while waiting for the hl7 processor threads to finish", e);
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		
+		return claimed;
+	}
+	
+	/**
+	 * Gets the index of the worker to process the given queue entry with, entries with the same
+	 * patient identifier always get the same worker
+	 *
+	 * @param hl7InQueue the queue entry
+	 * @param workerCount the number of workers
+	 * @return the index of the worker
+	 */
+	private int getWorkerIndex(HL7InQueue hl7InQueue, int workerCount) {
+		Object key = HL7Util.getPatientIdentifierField(hl7InQueue.getHL7Data());
+		if (key == null) {
+			// no patient to keep in order with, any worker will do
+			key = hl7InQueue.getHL7InQueueId();
+		}
+		return (key.hashCode() & Integer.MAX_VALUE) % workerCount;
+	}
+	
+	/**
+	 * Claims up to the given number of pending queue entries for processing
+	 *
+	 * @param maxResults the maximum number of entries to claim
+	 * @return the claimed entries ordered by id
+	 * @see HL7Service#claimNextHL7InQueues(int)
+	 */
+	protected List<HL7InQueue> claimHL7InQueues(int maxResults) {
+		return Context.getHL7Service().claimNextHL7InQueues(maxResults);
+	}
+	
+	/**
+	 * Processes the given claimed queue entries in order, called by the worker threads
+	 *
+	 * @param hl7InQueues the claimed entries
+	 * @throws HL7Exception
+	 * @see HL7Service#processClaimedHL7InQueues(List)
+	 */
+	protected void processHL7InQueues(List<HL7InQueue> hl7InQueues) throws HL7Exception {
+		Context.getHL7Service().processClaimedHL7InQueues(hl7InQueues);
+		// clean up memory after each batch, the worker keeps its session until the run is over
+		Context.clearSession();
+	}
+	
+	/**
+	 * Starts a thread running the given worker
+	 *
+	 * @param worker the worker
+	 * @return the started thread
+	 */
+	protected Thread startWorker(Runnable worker) {
+		return Daemon.runInNewDaemonThread(worker);
+	}
+	
+	/**
+	 * Processes the queue entries handed to it in batches until it takes the end of its queue
+	 */
+	private class Worker implements Runnable {
+		
+		private final BlockingQueue<HL7InQueue> queue;
+		
+		private final Semaphore room;
+		
+		private final int batchSize;
+		
+		public Worker(BlockingQueue<HL7InQueue> queue, Semaphore room, int batchSize) {
+			this.queue = queue;
+			this.room = room;
+			this.batchSize = batchSize;
+		}
+		
+		@Override
+		public void run() {
+			List<HL7InQueue> batch = new ArrayList<HL7InQueue>(batchSize);
+			boolean ended = false;
+			while (!ended) {
+				try {
+					batch.add(queue.take());
+				}
+				catch (InterruptedException e) {
+					log.warn("Interrupted while waiting for hl7 in queue entries", e);
+					Thread.currentThread().interrupt();
+					return;
+				}
+				queue.drainTo(batch, batchSize - 1);
+				// the end of the queue is added last, so it can only be the last entry of a batch
+				if (batch.get(batch.size() - 1) == END_OF_QUEUE) {
+					batch.remove(batch.size() - 1);
+					ended = true;
+				}
+				if (!batch.isEmpty()) {
+					try {
+						processHL7InQueues(batch);
+					}
+					catch (Exception e) {
+						log.error("Unable to process hl7 in queue", e);
+					}
+					finally {
+						room.release(batch.size());
+						batch.clear();
+					}
+				}
+			}
+		}
+	}
+	
+	private int getGlobalPropertyValue(String propertyName, int defaultValue) {
+		Integer value = Context.getAdministrationService().getGlobalPropertyValue(propertyName, defaultValue);
+		return value < 1 ? defaultValue : value;
+	}
+	
+	private void recordThroughput(int messageCount, long duration) {
+		lastRunMessageCount = messageCount;
+		lastRunDuration = duration;
+		if (messageCount > 0 && log.isInfoEnabled()) {
+			log.info("Processed " + messageCount + " hl7 in queue entries in " + duration + " ms ("
+			        + getLastRunMessagesPerSecond() + " messages/sec)");
+		}
+	}
+	
+	/**
+	 * @return the number of queue entries processed by the last completed run
+	 * @since 2.2.0
+	 */
+	public static int getLastRunMessageCount() {
+		return lastRunMessageCount;
+	}
+	
+	/**
+	 * @return the duration of the last completed run in milliseconds
+	 * @since 2.2.0
+	 */
+	public static long getLastRunDuration() {
+		return lastRunDuration;
+	}
+	
+	/**
+	 * @return the throughput of the last completed run in messages per second
+	 * @since 2.2.0
+	 */
+	public static double getLastRunMessagesPerSecond() {
+		long duration = lastRunDuration;
+		return duration > 0 ? lastRunMessageCount * 1000.0 / duration : lastRunMessageCount;
+	}
+	
 }
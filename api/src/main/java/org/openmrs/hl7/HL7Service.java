@@ -218,6 +218,23 @@ public interface HL7Service extends OpenmrsService {
 	@Authorized(PrivilegeConstants.GET_HL7_IN_QUEUE)
 	public HL7InQueue getNextHL7InQueue() throws APIException;
 	
+	/**
+	 * Get the first pending queue items in the database in the order they were queued, starting
+	 * after the given queue item so that the queue can be walked through without returning items
+	 * which are still pending after an attempt to process them
+	 * 
+	 * @param afterHL7InQueueId the id of the last queue item already returned or null to start with
+	 *            the first pending queue item
+	 * @param maxResults the maximum number of queue items to return
+	 * @return the pending queue items
+	 * @since 2.2.0
+	 * @should return pending queue items ordered by id
+	 * @should not return more than the given number of queue items
+	 * @should only return queue items after the given queue item
+	 */
+	@Authorized(PrivilegeConstants.GET_HL7_IN_QUEUE)
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) throws APIException;
+	
 	/**
 	 * Completely delete the hl7 in queue item from the database.
 	 * 
@@ -421,6 +438,67 @@ public interface HL7Service extends OpenmrsService {
 	 */
 	public HL7InQueue processHL7InQueue(HL7InQueue inQueue) throws HL7Exception;
 	
+	/**
+	 * Claims up to the given number of pending {@link HL7InQueue} items with
+	 * {@link #claimNextHL7InQueues(int)} and processes each of them in its own transaction with
+	 * {@link #processClaimedHL7InQueue(Integer)}, so a message whose processing fails rolls back
+	 * nothing but its own changes. Successfully processed items are archived and removed from the
+	 * queue in the transaction processing them, failed items are moved to the error table the same
+	 * way as {@link #processHL7InQueue(HL7InQueue)} does, together at the end of the batch.
+	 * 
+	 * @param batchSize the maximum number of queue items to process
+	 * @return the queue items that were processed, an empty list if the queue was empty
+	 * @since 2.2.0
+	 * @should archive successfully processed queue items
+	 * @should create HL7InError for queue items that fail parsing
+	 * @should remove processed queue items from the queue
+	 * @should return an empty list if there are no pending queue items
+	 * @should keep the processed queue items if another item fails
+	 */
+	public List<HL7InQueue> processHL7InQueueBatch(int batchSize) throws HL7Exception;
+	
+	/**
+	 * Processes the given {@link HL7InQueue} items claimed with {@link #claimNextHL7InQueues(int)}
+	 * in the given order the same way as {@link #processHL7InQueueBatch(int)} does, each of them in
+	 * its own transaction with {@link #processClaimedHL7InQueue(Integer)} and failed items are moved
+	 * to the error table together at the end.
+	 * 
+	 * @param hl7InQueues the claimed queue items
+	 * @throws HL7Exception
+	 * @since 2.2.0
+	 * @should archive successfully processed queue items
+	 * @should create hl7 in error for queue items that fail parsing
+	 */
+	public void processClaimedHL7InQueues(List<HL7InQueue> hl7InQueues) throws HL7Exception;
+	
+	/**
+	 * Claims up to the given number of the first pending {@link HL7InQueue} items in the order they
+	 * were queued by marking them as processing in a new transaction, which is committed before
+	 * this method returns. An item is only claimed if it is still pending once any other
+	 * transaction claiming it has completed, so concurrent runs never process the same item.
+	 * 
+	 * @param maxResults the maximum number of queue items to claim
+	 * @return the claimed queue items ordered by id
+	 * @since 2.2.0
+	 * @should claim pending queue items ordered by id
+	 * @should not claim queue items which were claimed before
+	 */
+	public List<HL7InQueue> claimNextHL7InQueues(int maxResults);
+	
+	/**
+	 * Processes the claimed {@link HL7InQueue} item with the given id in a new transaction, which
+	 * is committed once the item is archived and removed from the queue. If processing fails the
+	 * transaction is rolled back and the exception thrown, leaving the item claimed and it to the
+	 * caller to record the error.
+	 * 
+	 * @param hl7InQueueId the id of the queue item
+	 * @return true if the item was processed, false if there is no claimed item with the id
+	 * @throws HL7Exception if the message cannot be parsed or processed
+	 * @since 2.2.0
+	 * @see #claimNextHL7InQueues(int)
+	 */
+	public boolean processClaimedHL7InQueue(Integer hl7InQueueId) throws HL7Exception;
+	
 	/**
 	 * Parses the given string and returns the resulting {@link Message}
 	 * 
@@ -297,4 +297,34 @@ public class HL7Util {
 		
 		return OpenmrsUtil.getDirectoryInApplicationDataDirectory(archiveDir);
 	}
+	
+	/**
+	 * Extracts the raw patient identifier list (PID-3) from an ER7 encoded HL7 message without
+	 * parsing the whole message, the field separator is read from the MSH segment
+	 *
+	 * @param hl7Message the ER7 encoded message
+	 * @return the PID-3 field value or null if the message has no PID segment or the field is empty
+	 * @since 2.2.0
+	 * @should return the patient identifier field of the PID segment
+	 * @should return null if the message has no PID segment
+	 * @should return null for a blank message
+	 */
+	public static String getPatientIdentifierField(String hl7Message) {
+		if (StringUtils.isBlank(hl7Message) || !hl7Message.startsWith("MSH") || hl7Message.length() < 4) {
+			return null;
+		}
+		
+		char fieldSeparator = hl7Message.charAt(3);
+		for (String segment : hl7Message.split("[\\r\\n]+")) {
+			if (segment.startsWith("PID" + fieldSeparator)) {
+				String[] fields = StringUtils.splitPreserveAllTokens(segment, fieldSeparator);
+				if (fields.length > 3 && StringUtils.isNotBlank(fields[3])) {
+					return fields[3].trim();
+				}
+				return null;
+			}
+		}
+		
+		return null;
+	}
 }
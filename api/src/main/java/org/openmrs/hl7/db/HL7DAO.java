@@ -80,11 +80,32 @@ public interface HL7DAO {
 	 */
 	public HL7InQueue getNextHL7InQueue() throws DAOException;
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#getNextHL7InQueues(Integer, int)
+	 */
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#deleteHL7InQueue(org.openmrs.hl7.HL7InQueue)
 	 */
 	public void deleteHL7InQueue(HL7InQueue hl7InQueue) throws DAOException;
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#claimNextHL7InQueues(int)
+	 */
+	public List<HL7InQueue> claimNextHL7InQueues(int maxResults) throws DAOException;
+	
+	/**
+	 * Saves the error items and deletes the queue items which failed in a processed batch
+	 * 
+	 * @param hl7InErrors the error items to save
+	 * @param hl7InQueues the queue items to delete
+	 * @see org.openmrs.hl7.HL7Service#processHL7InQueueBatch(int)
+	 * @since 2.2.0
+	 */
+	public void saveHL7InQueueBatchErrors(List<HL7InError> hl7InErrors, List<HL7InQueue> hl7InQueues)
+	        throws DAOException;
+	
 	/**
 	 * Returns hl7s based on batch settings and filtered by a query
 	 * 
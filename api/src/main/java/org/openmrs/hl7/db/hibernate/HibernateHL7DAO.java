@@ -9,11 +9,13 @@
  */
 package org.openmrs.hl7.db.hibernate;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
 import org.hibernate.Criteria;
 import org.hibernate.Query;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
@@ -48,6 +50,11 @@ public class HibernateHL7DAO implements HL7DAO {
 	 */
 	private SessionFactory sessionFactory;
 	
+	/**
+	 * The maximum number of ids in a single bulk delete statement
+	 */
+	private static final int DELETE_CHUNK_SIZE = 500;
+	
 	public HibernateHL7DAO() {
 	}
 	
@@ -209,6 +216,22 @@ public class HibernateHL7DAO implements HL7DAO {
 		return (HL7InQueue) query.uniqueResult();
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#getNextHL7InQueues(Integer, int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) throws DAOException {
+		Query query = sessionFactory.getCurrentSession().createQuery(
+		    "from HL7InQueue as hiq where hiq.messageState = :state"
+		            + (afterHL7InQueueId == null ? "" : " and hiq.HL7InQueueId > :afterId") + " order by HL7InQueueId");
+		query.setParameter("state", HL7Constants.HL7_STATUS_PENDING, StandardBasicTypes.INTEGER);
+		if (afterHL7InQueueId != null) {
+			query.setInteger("afterId", afterHL7InQueueId);
+		}
+		return query.setMaxResults(maxResults).list();
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.db.HL7DAO#deleteHL7InQueue(org.openmrs.hl7.HL7InQueue)
 	 */
@@ -217,6 +240,68 @@ public class HibernateHL7DAO implements HL7DAO {
 		sessionFactory.getCurrentSession().delete(hl7InQueue);
 	}
 	
+	/**
+	 * Each queue row is claimed with its own conditional update, which only succeeds if the row is
+	 * still pending once any other transaction claiming it has completed.
+	 * 
+	 * @see org.openmrs.hl7.db.HL7DAO#claimNextHL7InQueues(int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<HL7InQueue> claimNextHL7InQueues(int maxResults) throws DAOException {
+		Session session = sessionFactory.getCurrentSession();
+		List<Integer> pendingIds = session.createQuery(
+		    "select hiq.HL7InQueueId from HL7InQueue as hiq where hiq.messageState = :state order by hiq.HL7InQueueId")
+		        .setParameter("state", HL7Constants.HL7_STATUS_PENDING, StandardBasicTypes.INTEGER).setMaxResults(
+		            maxResults).list();
+		
+		List<Integer> claimedIds = new ArrayList<Integer>(pendingIds.size());
+		Query claim = session.createQuery("update HL7InQueue set messageState = :processing"
+		        + " where HL7InQueueId = :id and messageState = :pending");
+		claim.setParameter("processing", HL7Constants.HL7_STATUS_PROCESSING, StandardBasicTypes.INTEGER);
+		claim.setParameter("pending", HL7Constants.HL7_STATUS_PENDING, StandardBasicTypes.INTEGER);
+		for (Integer id : pendingIds) {
+			if (claim.setInteger("id", id).executeUpdate() == 1) {
+				claimedIds.add(id);
+			}
+		}
+		if (claimedIds.isEmpty()) {
+			return new ArrayList<HL7InQueue>();
+		}
+		
+		return session.createQuery("from HL7InQueue as hiq where hiq.HL7InQueueId in (:ids) order by hiq.HL7InQueueId")
+		        .setParameterList("ids", claimedIds).list();
+	}
+	
+	/**
+	 * Error rows are inserted with a single flush so they are sent in JDBC batches wherever the id
+	 * generator of the dialect allows it, the queue rows are removed with one bulk delete per chunk
+	 * of ids.
+	 * 
+	 * @see org.openmrs.hl7.db.HL7DAO#saveHL7InQueueBatchErrors(List, List)
+	 */
+	@Override
+	public void saveHL7InQueueBatchErrors(List<HL7InError> hl7InErrors, List<HL7InQueue> hl7InQueues)
+	        throws DAOException {
+		Session session = sessionFactory.getCurrentSession();
+		for (HL7InError hl7InError : hl7InErrors) {
+			session.save(hl7InError);
+		}
+		session.flush();
+		
+		List<Integer> hl7InQueueIds = new ArrayList<Integer>(hl7InQueues.size());
+		for (HL7InQueue hl7InQueue : hl7InQueues) {
+			// the rows are removed with a bulk delete, so the session must not flush them later
+			session.evict(hl7InQueue);
+			hl7InQueueIds.add(hl7InQueue.getHL7InQueueId());
+		}
+		for (int i = 0; i < hl7InQueueIds.size(); i += DELETE_CHUNK_SIZE) {
+			List<Integer> chunk = hl7InQueueIds.subList(i, Math.min(i + DELETE_CHUNK_SIZE, hl7InQueueIds.size()));
+			session.createQuery("delete from HL7InQueue where HL7InQueueId in (:ids)").setParameterList("ids", chunk)
+			        .executeUpdate();
+		}
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.db.HL7DAO#saveHL7InArchive(org.openmrs.hl7.HL7InArchive)
 	 */
@@ -55,6 +55,7 @@ import org.openmrs.util.PrivilegeConstants;
 import org.openmrs.validator.PatientIdentifierValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import ca.uhn.hl7v2.HL7Exception;
@@ -308,6 +309,15 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 		return dao.getNextHL7InQueue();
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#getNextHL7InQueues(Integer, int)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<HL7InQueue> getNextHL7InQueues(Integer afterHL7InQueueId, int maxResults) {
+		return dao.getNextHL7InQueues(afterHL7InQueueId, maxResults);
+	}
+	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#getHL7InArchiveByState(java.lang.Integer)
 	 */
@@ -757,20 +767,7 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 			Context.getHL7Service().purgeHL7InQueue(hl7InQueue);
 		}
 		catch (HL7Exception e) {
-			boolean skipError = false;
-			log.debug("Unable to process hl7inqueue: " + hl7InQueue.getHL7InQueueId(), e);
-			log.debug("Hl7inqueue source: " + hl7InQueue.getHL7Source());
-			log.debug("hl7_processor.ignore_missing_patient_non_local? "
-			        + Context.getAdministrationService().getGlobalProperty(
-			            OpenmrsConstants.GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS, "false"));
-			if (e.getCause() != null
-			        && "Could not resolve patient".equals(e.getCause().getMessage())
-			        && !"local".equals(hl7InQueue.getHL7Source().getName())
-			        && "true".equals(Context.getAdministrationService().getGlobalProperty(
-			            OpenmrsConstants.GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS, "false"))) {
-				skipError = true;
-			}
-			if (!skipError) {
+			if (!isIgnorableError(hl7InQueue, e)) {
 				setFatalError(hl7InQueue, "Trouble parsing HL7 message (" + hl7InQueue.getHL7SourceKey() + ")", e);
 			}
 			
@@ -783,22 +780,125 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service {
 		return hl7InQueue;
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#processHL7InQueueBatch(int)
+	 */
+	@Override
+	public List<HL7InQueue> processHL7InQueueBatch(int batchSize) throws HL7Exception {
+		// NOT making a direct call here so that the items are claimed in their own transaction
+		HL7Service hl7Service = Context.getHL7Service();
+		List<HL7InQueue> claimed = hl7Service.claimNextHL7InQueues(batchSize);
+		if (!claimed.isEmpty()) {
+			processClaimedHL7InQueues(claimed);
+		}
+		return claimed;
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#processClaimedHL7InQueues(List)
+	 */
+	@Override
+	public void processClaimedHL7InQueues(List<HL7InQueue> hl7InQueues) throws HL7Exception {
+		HL7Service hl7Service = Context.getHL7Service();
+		List<HL7InError> hl7InErrors = new ArrayList<HL7InError>();
+		List<HL7InQueue> failed = new ArrayList<HL7InQueue>();
+		Date dateCreated = new Date();
+		
+		for (HL7InQueue hl7InQueue : hl7InQueues) {
+			try {
+				// NOT making a direct call here so that the item is processed in its own transaction
+				hl7Service.processClaimedHL7InQueue(hl7InQueue.getHL7InQueueId());
+			}
+			catch (HL7Exception e) {
+				// an ignorable error leaves the entry in the queue, still claimed so that it is not
+				// processed again
+				if (!isIgnorableError(hl7InQueue, e)) {
+					hl7InErrors.add(createHL7InError(hl7InQueue, "Trouble parsing HL7 message ("
+					        + hl7InQueue.getHL7SourceKey() + ")", e, dateCreated));
+					failed.add(hl7InQueue);
+				}
+			}
+			catch (Exception e) {
+				hl7InErrors.add(createHL7InError(hl7InQueue, "Exception while attempting to process HL7 In Queue ("
+				        + hl7InQueue.getHL7SourceKey() + ")", e, dateCreated));
+				failed.add(hl7InQueue);
+			}
+		}
+		
+		dao.saveHL7InQueueBatchErrors(hl7InErrors, failed);
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#claimNextHL7InQueues(int)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public List<HL7InQueue> claimNextHL7InQueues(int maxResults) {
+		return dao.claimNextHL7InQueues(maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#processClaimedHL7InQueue(Integer)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+	public boolean processClaimedHL7InQueue(Integer hl7InQueueId) throws HL7Exception {
+		HL7InQueue hl7InQueue = dao.getHL7InQueue(hl7InQueueId);
+		if (hl7InQueue == null
+		        || !OpenmrsUtil.nullSafeEquals(HL7Constants.HL7_STATUS_PROCESSING, hl7InQueue.getMessageState())) {
+			return false;
+		}
+		
+		// NOT making direct calls here so that AOP can happen around these methods
+		HL7Service hl7Service = Context.getHL7Service();
+		Message parsedMessage = hl7Service.parseHL7String(hl7InQueue.getHL7Data());
+		hl7Service.processHL7Message(parsedMessage);
+		
+		dao.saveHL7InArchive(new HL7InArchive(hl7InQueue));
+		dao.deleteHL7InQueue(hl7InQueue);
+		return true;
+	}
+	
+	/**
+	 * Checks whether a processing error should leave the queue entry alone instead of moving it to
+	 * the error table, this is the case for messages about unknown patients from a non-local source
+	 * when the {@link OpenmrsConstants#GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS} global
+	 * property is true
+	 */
+	private boolean isIgnorableError(HL7InQueue hl7InQueue, HL7Exception e) {
+		log.debug("Unable to process hl7inqueue: " + hl7InQueue.getHL7InQueueId(), e);
+		log.debug("Hl7inqueue source: " + hl7InQueue.getHL7Source());
+		log.debug("hl7_processor.ignore_missing_patient_non_local? "
+		        + Context.getAdministrationService().getGlobalProperty(
+		            OpenmrsConstants.GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS, "false"));
+		return e.getCause() != null
+		        && "Could not resolve patient".equals(e.getCause().getMessage())
+		        && !"local".equals(hl7InQueue.getHL7Source().getName())
+		        && "true".equals(Context.getAdministrationService().getGlobalProperty(
+		            OpenmrsConstants.GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS, "false"));
+	}
+	
 	/**
 	 * Convenience method to respond to fatal errors by moving the queue entry into an error bin
 	 * prior to aborting
 	 */
 	private void setFatalError(HL7InQueue hl7InQueue, String error, Throwable cause) {
+		Context.getHL7Service().saveHL7InError(createHL7InError(hl7InQueue, error, cause, null));
+		Context.getHL7Service().purgeHL7InQueue(hl7InQueue);
+		log.info(error, cause);
+	}
+	
+	private HL7InError createHL7InError(HL7InQueue hl7InQueue, String error, Throwable cause, Date dateCreated) {
 		HL7InError hl7InError = new HL7InError(hl7InQueue);
 		hl7InError.setError(error);
+		hl7InError.setDateCreated(dateCreated);
 		if (cause == null) {
 			hl7InError.setErrorDetails("");
 		} else {
 			log.error("Fatal error", cause);
 			hl7InError.setErrorDetails(ExceptionUtils.getStackTrace(cause));
 		}
-		Context.getHL7Service().saveHL7InError(hl7InError);
-		Context.getHL7Service().purgeHL7InQueue(hl7InQueue);
-		log.info(error, cause);
+		return hl7InError;
 	}
 	
 	/**
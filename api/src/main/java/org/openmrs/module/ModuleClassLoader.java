@@ -52,16 +52,28 @@ import org.slf4j.LoggerFactory;
  * Standard implementation of module class loader. <br>
  * Code adapted from the Java Plug-in Framework (JPF) - LGPL - Copyright (C)<br>
  * 2004-2006 Dmitry Olshansky
+ * <p>
+ * The class loader is parallel capable, classes are loaded under a lock per class name instead of
+ * a lock on the class loader.
  */
 public class ModuleClassLoader extends URLClassLoader {
 	
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+	
 	static Logger log = LoggerFactory.getLogger(ModuleClassLoader.class);
 	
+	/**
+	 * The maximum number of class names which could not be found in modules to remember
+	 */
+	private static final int MAX_MISSED_CLASSES = 10000;
+	
 	private final Module module;
 	
-	private Module[] requiredModules;
+	private volatile Module[] requiredModules;
 	
-	private Module[] awareOfModules;
+	private volatile Module[] awareOfModules;
 	
 	private Map<URI, File> libraryCache;
 	
@@ -69,7 +81,11 @@ public class ModuleClassLoader extends URLClassLoader {
 	
 	private Set<String> providedPackages = new LinkedHashSet<String>();
 	
-	private boolean disposed = false;
+	private volatile boolean providedPackagesComplete = false;
+	
+	private volatile boolean disposed = false;
+	
+	private final NegativeLookupCache missedClasses = new NegativeLookupCache(MAX_MISSED_CLASSES);
 
 	
 	/**
@@ -122,9 +138,23 @@ public class ModuleClassLoader extends URLClassLoader {
 				}
 			}
 		} else {
+			boolean complete = true;
 			for (URL url : urls) {
-				providedPackages.addAll(ModuleUtil.getPackagesFromFile(OpenmrsUtil.url2file(url)));
+				File file = OpenmrsUtil.url2file(url);
+				if (file == null || !file.getName().endsWith(".jar")) {
+					complete = false;
+					continue;
+				}
+				try {
+					providedPackages.addAll(ModuleUtil.getPackagesFromJar(file));
+				}
+				catch (IOException e) {
+					// classes may still be loaded from the jar, so its packages must not be ruled out
+					log.error("Error while reading file: " + file.getAbsolutePath(), e);
+					complete = false;
+				}
 			}
+			providedPackagesComplete = complete;
 		}
 	}
 	
@@ -491,6 +521,10 @@ public class ModuleClassLoader extends URLClassLoader {
 		for (URL u : newUrls) {
 			addURL(u);
 		}
+		if (!newUrls.isEmpty()) {
+			// the packages of the added urls are not indexed
+			providedPackagesComplete = false;
+		}
 		
 		if (log.isDebugEnabled()) {
 			StringBuilder buf = new StringBuilder();
@@ -504,6 +538,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		}
 		requiredModules = collectRequiredModuleImports(getModule());
 		awareOfModules = collectAwareOfModuleImports(getModule());
+		NegativeLookupCache.invalidateAll();
 		for (Iterator<Map.Entry<URI, File>> it = libraryCache.entrySet().iterator(); it.hasNext();) {
 			if (it.next().getValue() == null) {
 				it.remove();
@@ -523,6 +558,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		}
 		
 		libraryCache.clear();
+		missedClasses.clear();
 		requiredModules = null;
 		awareOfModules = null;
 		disposed = true;
@@ -548,7 +584,7 @@ public class ModuleClassLoader extends URLClassLoader {
 		if (result == null) {
 			if (probeParentLoaderLast) {
 				try {
-					result = loadClass(name, resolve, this, null);
+					result = loadModuleClass(name, resolve);
 				}
 				catch (ClassNotFoundException cnfe) {
 					// Continue trying...
@@ -568,7 +604,7 @@ public class ModuleClassLoader extends URLClassLoader {
 				}
 				
 				if (result == null) {
-					result = loadClass(name, resolve, this, null);
+					result = loadModuleClass(name, resolve);
 				}
 			}
 		}
@@ -580,9 +616,35 @@ public class ModuleClassLoader extends URLClassLoader {
 		return result;
 	}
 	
+	/**
+	 * Loads the class from this module or the modules it imports, remembering the names which
+	 * could not be found until a module is started or stopped
+	 * 
+	 * @param name String path and name of the class to load
+	 * @param resolve boolean whether or not to resolve this class before returning
+	 * @return Class that has been loaded
+	 * @throws ClassNotFoundException if no class found
+	 */
+	private Class<?> loadModuleClass(final String name, final boolean resolve) throws ClassNotFoundException {
+		if (missedClasses.contains(name)) {
+			throw new ClassNotFoundException(name);
+		}
+		
+		long generation = NegativeLookupCache.getGeneration();
+		try {
+			return loadClass(name, resolve, this, null);
+		}
+		catch (ClassNotFoundException e) {
+			missedClasses.add(name, generation);
+			throw e;
+		}
+	}
+	
 	/**
 	 * Custom loadClass implementation to allow for loading from a given ModuleClassLoader and skip
-	 * the modules that have been tried already
+	 * the modules that have been tried already. Only the lookup in this class loader holds the class
+	 * loading lock of the name, so threads loading different classes do not block each other and
+	 * no lock is held while the imported modules are searched.
 	 * 
 	 * @param name String path and name of the class to load
 	 * @param resolve boolean whether or not to resolve this class before returning
@@ -591,7 +653,7 @@ public class ModuleClassLoader extends URLClassLoader {
 	 * @return Class that has been loaded
 	 * @throws ClassNotFoundException if no class found
 	 */
-	protected synchronized Class<?> loadClass(final String name, final boolean resolve, final ModuleClassLoader requestor,
+	protected Class<?> loadClass(final String name, final boolean resolve, final ModuleClassLoader requestor,
 	        Set<String> seenModules) throws ClassNotFoundException {
 		
 		if (log.isTraceEnabled()) {
@@ -623,16 +685,19 @@ public class ModuleClassLoader extends URLClassLoader {
 			throw new ClassNotFoundException(msg);
 		}
 		
-		// Check if the class has already been loaded by this class loader
-		Class<?> result = findLoadedClass(name);
-		
-		// Try loading the class with this class loader 
-		if (result == null) {
-			try {
-				result = findClass(name);
-			}
-			catch (ClassNotFoundException e) {
-				// Continue trying...
+		Class<?> result;
+		synchronized (getClassLoadingLock(name)) {
+			// Check if the class has already been loaded by this class loader
+			result = findLoadedClass(name);
+			
+			// Try loading the class with this class loader unless it does not provide the package
+			if (result == null && mayProvideClass(name)) {
+				try {
+					result = findClass(name);
+				}
+				catch (ClassNotFoundException e) {
+					// Continue trying...
+				}
 			}
 		}
 		
@@ -654,11 +719,13 @@ public class ModuleClassLoader extends URLClassLoader {
 		seenModules.add(getModule().getModuleId());
 		
 		List<Module> importedModules = new ArrayList<Module>();
-		if (requiredModules != null) {
-			Collections.addAll(importedModules, requiredModules);
+		Module[] required = requiredModules;
+		if (required != null) {
+			Collections.addAll(importedModules, required);
 		}
-		if (awareOfModules != null) {
-			Collections.addAll(importedModules, awareOfModules);
+		Module[] awareOf = awareOfModules;
+		if (awareOf != null) {
+			Collections.addAll(importedModules, awareOf);
 		}
 		
 		for (Module importedModule : importedModules) {
@@ -684,6 +751,35 @@ public class ModuleClassLoader extends URLClassLoader {
 		throw new ClassNotFoundException(name);
 	}
 	
+	/**
+	 * @param name the class name
+	 * @return false if the packages of this class loader are known and do not include the package
+	 *         of the class
+	 * @should return false for classes in packages not provided by the jars
+	 * @should return true for classes at the root of the jars
+	 * @should return true for any class if a jar cannot be read
+	 */
+	boolean mayProvideClass(String name) {
+		String path = name.replace('.', '/');
+		if (!providedPackagesComplete || !isIndexedPath(path)) {
+			return true;
+		}
+		return providedPackages.contains(name.substring(0, name.lastIndexOf('.')));
+	}
+	
+	/**
+	 * Tells whether the directory of the given path is collected by
+	 * {@link ModuleUtil#getPackagesFromFile(File)}, which skips the files at the root of jars and
+	 * in the lib, META-INF and web/module directories
+	 * 
+	 * @param path the path of a file within a jar
+	 * @return true if the directory of the path is collected into the provided packages
+	 */
+	static boolean isIndexedPath(String path) {
+		return path.lastIndexOf('/') > 0 && !path.startsWith("lib") && !path.startsWith("META-INF")
+		        && !path.startsWith("web/module");
+	}
+	
 	/**
 	 * Checking the given class's visibility in this module
 	 *
@@ -1087,6 +1183,20 @@ public class ModuleClassLoader extends URLClassLoader {
 		return providedPackages;
 	}
 	
+	/**
+	 * The provided packages are complete if they were read from the jars of the module, they then
+	 * include the directories of all resources except those at the root of the jars and in the
+	 * lib, META-INF and web/module directories. They are incomplete in development mode, where only
+	 * class packages are collected, and once urls were added by {@link #modulesSetChanged()}.
+	 * 
+	 * @return true if the provided packages include the directories of all resources of the module
+	 * @see ModuleFactory#getModuleClassLoadersForResource(String)
+	 * @since 2.2.0
+	 */
+	public boolean isProvidedPackagesComplete() {
+		return providedPackagesComplete;
+	}
+	
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -855,7 +855,7 @@ public class ModuleFactory {
 		return module;
 	}
 	
-	private static void registerProvidedPackages(ModuleClassLoader moduleClassLoader) {
+	static void registerProvidedPackages(ModuleClassLoader moduleClassLoader) {
 		for (String providedPackage : moduleClassLoader.getProvidedPackages()) {
 			Set<ModuleClassLoader> newSet = new HashSet<ModuleClassLoader>();
 			
@@ -867,9 +867,10 @@ public class ModuleFactory {
 			newSet.add(moduleClassLoader);
 			providedPackages.put(providedPackage, newSet);
 		}
+		NegativeLookupCache.invalidateAll();
 	}
 	
-	private static void unregisterProvidedPackages(ModuleClassLoader moduleClassLoader) {
+	static void unregisterProvidedPackages(ModuleClassLoader moduleClassLoader) {
 		for (String providedPackage : moduleClassLoader.getProvidedPackages()) {
 			Set<ModuleClassLoader> newSet = new HashSet<ModuleClassLoader>();
 			
@@ -881,6 +882,7 @@ public class ModuleFactory {
 			
 			providedPackages.put(providedPackage, newSet);
 		}
+		NegativeLookupCache.invalidateAll();
 	}
 	
 	public static Set<ModuleClassLoader> getModuleClassLoadersForPackage(String packageName) {
@@ -892,6 +894,40 @@ public class ModuleFactory {
 		}
 	}
 	
+	/**
+	 * Gets the module class loaders which may contain the given resource, in the order of
+	 * {@link #getModuleClassLoaders()}. Resources in a directory which is collected into the
+	 * provided packages are only looked up in the class loaders providing that package and in those
+	 * whose provided packages are incomplete, other resources are looked up in all class loaders.
+	 * Names without an extension are treated as directories, which may be parents of provided
+	 * packages.
+	 * 
+	 * @param name the name of the resource
+	 * @return the module class loaders to look the resource up in
+	 * @see ModuleClassLoader#isProvidedPackagesComplete()
+	 * @since 2.2.0
+	 * @should only return the class loaders providing the directory of the resource
+	 * @should return all class loaders for resources outside of provided packages
+	 * @should return class loaders whose provided packages are incomplete
+	 */
+	public static List<ModuleClassLoader> getModuleClassLoadersForResource(String name) {
+		List<ModuleClassLoader> classLoaders = new ArrayList<ModuleClassLoader>(getModuleClassLoaders());
+		String path = name.startsWith("/") ? name.substring(1) : name;
+		int lastSlash = path.lastIndexOf('/');
+		if (!ModuleClassLoader.isIndexedPath(path) || path.indexOf('.', lastSlash) < 0) {
+			return classLoaders;
+		}
+		
+		Set<ModuleClassLoader> providers = providedPackages.get(path.substring(0, lastSlash).replace('/', '.'));
+		List<ModuleClassLoader> result = new ArrayList<ModuleClassLoader>();
+		for (ModuleClassLoader classLoader : classLoaders) {
+			if (!classLoader.isProvidedPackagesComplete() || (providers != null && providers.contains(classLoader))) {
+				result.add(classLoader);
+			}
+		}
+		return result;
+	}
+	
 	/**
 	 * Gets the error message of a module which fails to start.
 	 * 
@@ -1119,7 +1119,7 @@ public class ModuleUtil {
 	 * directory in this jar it is not returned as a providedPackage.
 	 *
 	 * @param file jar file to look into
-	 * @return list of strings of package names in this jar
+	 * @return list of strings of package names in this jar, empty if the jar cannot be read
 	 */
 	public static Collection<String> getPackagesFromFile(File file) {
 		
@@ -1128,12 +1128,28 @@ public class ModuleUtil {
 			return Collections.<String> emptySet();
 		}
 		
+		try {
+			return getPackagesFromJar(file);
+		}
+		catch (IOException e) {
+			log.error("Error while reading file: " + file.getAbsolutePath(), e);
+			return Collections.<String> emptySet();
+		}
+	}
+	
+	/**
+	 * Gets the package names of the files in the given jar the same way as
+	 * {@link #getPackagesFromFile(File)} does, but fails if the jar cannot be read
+	 *
+	 * @param file jar file to look into
+	 * @return the package names in this jar
+	 * @throws IOException if the jar cannot be read
+	 */
+	static Set<String> getPackagesFromJar(File file) throws IOException {
 		Set<String> packagesProvided = new HashSet<String>();
 		
-		JarFile jar = null;
+		JarFile jar = new JarFile(file);
 		try {
-			jar = new JarFile(file);
-			
 			Enumeration<JarEntry> jarEntries = jar.entries();
 			while (jarEntries.hasMoreElements()) {
 				JarEntry jarEntry = jarEntries.nextElement();
@@ -1162,20 +1178,13 @@ public class ModuleUtil {
 					}
 				}
 			}
-			
-			jar.close();
-		}
-		catch (IOException e) {
-			log.error("Error while reading file: " + file.getAbsolutePath(), e);
 		}
 		finally {
-			if (jar != null) {
-				try {
-					jar.close();
-				}
-				catch (IOException e) {
-					// Ignore quietly
-				}
+			try {
+				jar.close();
+			}
+			catch (IOException e) {
+				// Ignore quietly
 			}
 		}
 		
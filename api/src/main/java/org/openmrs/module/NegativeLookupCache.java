@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the names of classes a class loader failed to find so that repeated lookups of missing
+ * classes do not search all module class loaders again. All caches are invalidated together by
+ * {@link #invalidateAll()} whenever a module is started or stopped, since that changes which
+ * classes can be found. A cache which reaches its maximum size is cleared.
+ * <p>
+ * A lookup must read the generation with {@link #getGeneration()} before it starts and pass it to
+ * {@link #add(String, long)}, so that a miss which raced with a module being started is not
+ * remembered.
+ *
+ * @since 2.2.0
+ */
+public class NegativeLookupCache {
+
+	private static final AtomicLong GENERATION = new AtomicLong();
+
+	private final int maxSize;
+
+	private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+	private volatile long namesGeneration = GENERATION.get();
+
+	/**
+	 * @param maxSize the number of names after which the cache is cleared
+	 */
+	public NegativeLookupCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Invalidates the misses remembered by all caches
+	 */
+	public static void invalidateAll() {
+		GENERATION.incrementAndGet();
+	}
+
+	/**
+	 * @return the current generation, to be passed to {@link #add(String, long)}
+	 */
+	public static long getGeneration() {
+		return GENERATION.get();
+	}
+
+	/**
+	 * @param name the class name
+	 * @return true if a lookup of the name failed since the caches were last invalidated
+	 * @should return true for added names
+	 * @should return false for names added before the caches were invalidated
+	 */
+	public boolean contains(String name) {
+		return namesGeneration == GENERATION.get() && names.contains(name);
+	}
+
+	/**
+	 * Remembers that the lookup of the given name failed, unless the caches were invalidated since
+	 * the lookup started
+	 *
+	 * @param name the class name
+	 * @param lookupGeneration the generation read before the lookup started
+	 * @should not add names looked up before the caches were invalidated
+	 * @should clear the cache when it is full
+	 */
+	public synchronized void add(String name, long lookupGeneration) {
+		long generation = GENERATION.get();
+		if (lookupGeneration != generation) {
+			return;
+		}
+		if (namesGeneration != generation || names.size() >= maxSize) {
+			names.clear();
+			namesGeneration = generation;
+		}
+		names.add(name);
+	}
+
+	/**
+	 * Forgets all misses of this cache
+	 */
+	public synchronized void clear() {
+		names.clear();
+	}
+}
@@ -11,6 +11,7 @@ package org.openmrs.scheduler.tasks;
 
 import java.util.Date;
 
+import org.apache.commons.lang.StringUtils;
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
@@ -19,7 +20,8 @@ import org.slf4j.LoggerFactory;
 /**
  * A scheduled task that automatically closes all unvoided active visits that match the visit
  * type(s) set as the value of the global property
- * {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE}
+ * {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE}, the number of visits stopped at a time
+ * can be set with the {@value #BATCH_SIZE_PROPERTY} property of the task
  *
  * @since 1.9
  */
@@ -27,6 +29,13 @@ public class AutoCloseVisitsTask extends AbstractTask {
 	
 	private static final Logger log = LoggerFactory.getLogger(AutoCloseVisitsTask.class);
 	
+	/**
+	 * The name of the task property that sets how many visits are stopped at a time
+	 */
+	public static final String BATCH_SIZE_PROPERTY = "batchSize";
+	
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+	
 	/**
 	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
 	 */
@@ -39,7 +48,9 @@ public class AutoCloseVisitsTask extends AbstractTask {
 			
 			startExecuting();
 			try {
-				Context.getVisitService().stopVisits(new Date());
+				long start = System.currentTimeMillis();
+				int stoppedCount = Context.getVisitService().stopVisits(new Date(), getBatchSize());
+				log.info("Auto closed " + stoppedCount + " visits in " + (System.currentTimeMillis() - start) + " ms");
 			}
 			catch (Exception e) {
 				log.error("Error while auto closing visits:", e);
@@ -49,4 +60,20 @@ public class AutoCloseVisitsTask extends AbstractTask {
 			}
 		}
 	}
+	
+	/**
+	 * @return the value of the batchSize property of the task or the default if it is not set
+	 */
+	private int getBatchSize() {
+		String batchSize = taskDefinition == null ? null : taskDefinition.getProperty(BATCH_SIZE_PROPERTY);
+		if (StringUtils.isNotBlank(batchSize)) {
+			try {
+				return Integer.parseInt(batchSize.trim());
+			}
+			catch (NumberFormatException e) {
+				log.warn("Ignoring the invalid " + BATCH_SIZE_PROPERTY + " property of the task: " + batchSize);
+			}
+		}
+		return DEFAULT_BATCH_SIZE;
+	}
 }
@@ -0,0 +1,156 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DateFormatUtils;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
+
+/**
+ * Computes the blocking keys of patients which are used to find possible duplicate patients. Two
+ * patients are only compared if they share at least one key, so that the candidates can be looked
+ * up through an index instead of comparing every patient with every other one. A key is made of a
+ * letter telling its kind followed by the normalized values it is computed from:
+ * <ul>
+ * <li>{@value #NAME_KEY}: the Soundex codes of the given and family name of a name</li>
+ * <li>{@value #BIRTH_KEY}: the birthdate and the Soundex code of the family name of a name</li>
+ * <li>{@value #IDENTIFIER_KEY}: an identifier in upper case without anything but letters and digits</li>
+ * </ul>
+ *
+ * @see org.openmrs.api.PatientService#getDuplicatePatientCandidates(int, Integer, Integer)
+ * @since 2.2.0
+ */
+public class DuplicatePatientKeyUtil {
+
+	public static final char NAME_KEY = 'N';
+
+	public static final char BIRTH_KEY = 'B';
+
+	public static final char IDENTIFIER_KEY = 'I';
+
+	/**
+	 * The maximum length of a key
+	 */
+	public static final int MAX_LENGTH = 100;
+
+	private DuplicatePatientKeyUtil() {
+	}
+
+	/**
+	 * Gets the keys of the non voided names and identifiers of the given patient
+	 *
+	 * @param patient the patient to get the keys of
+	 * @return the keys
+	 * @should return the keys of non voided names and identifiers
+	 * @should skip names and identifiers without keys
+	 */
+	public static Set<String> getKeys(Patient patient) {
+		Set<String> keys = new LinkedHashSet<String>();
+		for (PersonName name : patient.getNames()) {
+			if (!name.getVoided()) {
+				addKey(keys, getNameKey(name.getGivenName(), name.getFamilyName()));
+				addKey(keys, getBirthKey(patient.getBirthdate(), name.getFamilyName()));
+			}
+		}
+		for (PatientIdentifier identifier : patient.getIdentifiers()) {
+			if (!identifier.getVoided()) {
+				addKey(keys, getIdentifierKey(identifier.getIdentifier()));
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Updates the duplicate keys of the given patient to the keys of its current names and
+	 * identifiers, only the keys that changed are removed or added so that the rows of the others
+	 * are kept
+	 *
+	 * @param patient the patient to update the keys of
+	 * @should add new keys and remove keys which are no longer computed
+	 */
+	public static void updateKeys(Patient patient) {
+		Set<String> keys = getKeys(patient);
+		patient.getDuplicateKeys().retainAll(keys);
+		patient.getDuplicateKeys().addAll(keys);
+	}
+
+	/**
+	 * @param givenName the given name of a name
+	 * @param familyName the family name of the same name
+	 * @return the key or null if either name has no letters
+	 */
+	public static String getNameKey(String givenName, String familyName) {
+		String givenNameSoundex = SoundexUtil.encode(givenName);
+		String familyNameSoundex = SoundexUtil.encode(familyName);
+		if (givenNameSoundex == null || familyNameSoundex == null) {
+			return null;
+		}
+		return NAME_KEY + givenNameSoundex + familyNameSoundex;
+	}
+
+	/**
+	 * @param birthdate the birthdate of a patient
+	 * @param familyName a family name of the patient
+	 * @return the key or null if the birthdate is null or the family name has no letters
+	 */
+	public static String getBirthKey(Date birthdate, String familyName) {
+		String familyNameSoundex = SoundexUtil.encode(familyName);
+		if (birthdate == null || familyNameSoundex == null) {
+			return null;
+		}
+		return BIRTH_KEY + DateFormatUtils.format(birthdate, "yyyyMMdd") + familyNameSoundex;
+	}
+
+	/**
+	 * @param identifier an identifier of a patient
+	 * @return the key or null if the identifier has no letters or digits
+	 * @should ignore case and characters other than letters and digits
+	 */
+	public static String getIdentifierKey(String identifier) {
+		if (identifier == null) {
+			return null;
+		}
+		String normalized = identifier.replaceAll("[^\\p{L}\\p{N}]", "").toUpperCase(Locale.ENGLISH);
+		if (normalized.isEmpty()) {
+			return null;
+		}
+		return StringUtils.left(IDENTIFIER_KEY + normalized, MAX_LENGTH);
+	}
+
+	/**
+	 * Gets how much sharing a key of the given kind adds to the score of two patients
+	 *
+	 * @param kind the first letter of a key
+	 * @return the weight of the kind of key
+	 */
+	public static int getWeight(char kind) {
+		switch (kind) {
+			case IDENTIFIER_KEY:
+				return 3;
+			case BIRTH_KEY:
+				return 2;
+			default:
+				return 1;
+		}
+	}
+
+	private static void addKey(Set<String> keys, String key) {
+		if (key != null) {
+			keys.add(key);
+		}
+	}
+}
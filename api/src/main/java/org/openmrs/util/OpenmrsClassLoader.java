@@ -39,6 +39,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.ModuleClassLoader;
 import org.openmrs.module.ModuleFactory;
 import org.openmrs.module.ModuleUtil;
+import org.openmrs.module.NegativeLookupCache;
 import org.openmrs.scheduler.SchedulerException;
 import org.openmrs.scheduler.SchedulerService;
 import org.slf4j.Logger;
@@ -48,10 +49,14 @@ import net.sf.ehcache.CacheManager;
 
 /**
  * This classloader knows about the current ModuleClassLoaders and will attempt to load classes from
- * them if needed
+ * them if needed. It is parallel capable, classes are loaded under a lock per class name.
  */
 public class OpenmrsClassLoader extends URLClassLoader {
 	
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+	
 	private static Logger log = LoggerFactory.getLogger(OpenmrsClassLoader.class);
 	
 	private static File libCacheFolder;
@@ -67,6 +72,17 @@ public class OpenmrsClassLoader extends URLClassLoader {
 	 */
 	private Map<String, WeakReference<Class<?>>> cachedClasses = new ConcurrentHashMap<String, WeakReference<Class<?>>>();
 	
+	/**
+	 * The maximum number of class names which could not be found to remember
+	 */
+	private static final int MAX_MISSED_CLASSES = 10000;
+	
+	/**
+	 * Holds the names of classes that could neither be loaded by modules nor by the parent until a
+	 * module is started or stopped
+	 */
+	private final NegativeLookupCache missedClasses = new NegativeLookupCache(MAX_MISSED_CLASSES);
+	
 	// suffix of the OpenMRS required library cache folder
 	private static final String LIBCACHESUFFIX = ".openmrs-lib-cache";
 	
@@ -138,35 +154,21 @@ public class OpenmrsClassLoader extends URLClassLoader {
 	 * @should load class if two module class loaders have same packages
 	 */
 	@Override
-	public synchronized Class<?> loadClass(String name, final boolean resolve) throws ClassNotFoundException {
+	public Class<?> loadClass(String name, final boolean resolve) throws ClassNotFoundException {
 		// Check if the class has already been requested from this class loader
 		Class<?> c = getCachedClass(name);
 		if (c == null) {
-			// We do not try to load classes using this.findClass on purpose.
-			// All classes are loaded by web container or by module class loaders.
-			
-			// First try loading from modules such that we allow modules to load
-			// different versions of the same libraries that may already be used
-			// by core or the web container. An example is the chartsearch module
-			// which uses different versions of lucene and solr from core
-			String packageName = StringUtils.substringBeforeLast(name, ".");
-			Set<ModuleClassLoader> moduleClassLoaders = ModuleFactory.getModuleClassLoadersForPackage(packageName);
-			for (ModuleClassLoader moduleClassLoader : moduleClassLoaders) {
-				try {
-					c = moduleClassLoader.loadClass(name);
-					break;
-				}
-				catch (ClassNotFoundException e) {
-					// Continue trying...
-				}
+			if (missedClasses.contains(name)) {
+				throw new ClassNotFoundException(name);
 			}
 			
-			if (c == null) {
-				// Finally try loading from web container
-				c = getParent().loadClass(name);
+			synchronized (getClassLoadingLock(name)) {
+				c = getCachedClass(name);
+				if (c == null) {
+					c = loadUncachedClass(name);
+					cacheClass(name, c);
+				}
 			}
-			
-			cacheClass(name, c);
 		}
 		
 		if (resolve) {
@@ -176,6 +178,37 @@ public class OpenmrsClassLoader extends URLClassLoader {
 		return c;
 	}
 	
+	private Class<?> loadUncachedClass(String name) throws ClassNotFoundException {
+		long generation = NegativeLookupCache.getGeneration();
+		
+		// We do not try to load classes using this.findClass on purpose.
+		// All classes are loaded by web container or by module class loaders.
+		
+		// First try loading from modules such that we allow modules to load
+		// different versions of the same libraries that may already be used
+		// by core or the web container. An example is the chartsearch module
+		// which uses different versions of lucene and solr from core
+		String packageName = StringUtils.substringBeforeLast(name, ".");
+		Set<ModuleClassLoader> moduleClassLoaders = ModuleFactory.getModuleClassLoadersForPackage(packageName);
+		for (ModuleClassLoader moduleClassLoader : moduleClassLoaders) {
+			try {
+				return moduleClassLoader.loadClass(name);
+			}
+			catch (ClassNotFoundException e) {
+				// Continue trying...
+			}
+		}
+		
+		// Finally try loading from web container
+		try {
+			return getParent().loadClass(name);
+		}
+		catch (ClassNotFoundException e) {
+			missedClasses.add(name, generation);
+			throw e;
+		}
+	}
+	
 	private Class<?> getCachedClass(String name) {
 		WeakReference<Class<?>> ref = cachedClasses.get(name);
 		if (ref != null) {
@@ -212,7 +245,7 @@ public class OpenmrsClassLoader extends URLClassLoader {
 		}
 		
 		URL result;
-		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoaders()) {
+		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoadersForResource(name)) {
 			result = classLoader.findResource(name);
 			if (result != null) {
 				return result;
@@ -236,7 +269,7 @@ public class OpenmrsClassLoader extends URLClassLoader {
 	@Override
 	public Enumeration<URL> findResources(final String name) throws IOException {
 		Set<URI> results = new HashSet<URI>();
-		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoaders()) {
+		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoadersForResource(name)) {
 			Enumeration<URL> urls = classLoader.findResources(name);
 			while (urls.hasMoreElements()) {
 				URL result = urls.nextElement();
@@ -274,13 +307,13 @@ public class OpenmrsClassLoader extends URLClassLoader {
 	}
 	
 	/**
-	 * Searches all known module classloaders first, then parent classloaders
+	 * Searches the module classloaders which may contain the resource first, then parent classloaders
 	 *
 	 * @see java.lang.ClassLoader#getResourceAsStream(java.lang.String)
 	 */
 	@Override
 	public InputStream getResourceAsStream(String file) {
-		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoaders()) {
+		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoadersForResource(file)) {
 			InputStream result = classLoader.getResourceAsStream(file);
 			if (result != null) {
 				return result;
@@ -291,14 +324,14 @@ public class OpenmrsClassLoader extends URLClassLoader {
 	}
 	
 	/**
-	 * Searches all known module classloaders first, then parent classloaders
+	 * Searches the module classloaders which may contain the resource first, then parent classloaders
 	 *
 	 * @see java.lang.ClassLoader#getResources(java.lang.String)
 	 */
 	@Override
 	public Enumeration<URL> getResources(String packageName) throws IOException {
 		Set<URI> results = new HashSet<URI>();
-		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoaders()) {
+		for (ModuleClassLoader classLoader : ModuleFactory.getModuleClassLoadersForResource(packageName)) {
 			Enumeration<URL> urls = classLoader.getResources(packageName);
 			while (urls.hasMoreElements()) {
 				URL result = urls.nextElement();
@@ -330,6 +330,16 @@ public final class OpenmrsConstants {
 	
 	public static final String GLOBAL_PROPERTY_IGNORE_MISSING_NONLOCAL_PATIENTS = "hl7_processor.ignore_missing_patient_non_local";
 	
+	/**
+	 * @since 2.2.0
+	 */
+	public static final String GLOBAL_PROPERTY_HL7_PROCESSOR_WORKER_COUNT = "hl7_processor.worker_count";
+	
+	/**
+	 * @since 2.2.0
+	 */
+	public static final String GLOBAL_PROPERTY_HL7_PROCESSOR_BATCH_SIZE = "hl7_processor.batch_size";
+	
 	public static final String GLOBAL_PROPERTY_TRUE_CONCEPT = "concept.true";
 	
 	public static final String GLOBAL_PROPERTY_FALSE_CONCEPT = "concept.false";
@@ -541,6 +551,14 @@ public final class OpenmrsConstants {
 	 */
 	public static final String AUTO_CLOSE_VISITS_TASK_NAME = "Auto Close Visits Task";
 	
+	/**
+	 * Global property name for whether visits are automatically closed with bulk updates rather
+	 * than saved one at a time
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_AUTO_CLOSE_VISITS_IN_BULK = "visits.autoCloseInBulk";
+	
 	public static final String GP_ALLOWED_FAILED_LOGINS_BEFORE_LOCKOUT = "security.allowedFailedLoginsBeforeLockout";
 	
 	/**
@@ -556,6 +574,22 @@ public final class OpenmrsConstants {
 	
 	public static final String GP_ORDER_NUMBER_GENERATOR_BEAN_ID = "order.orderNumberGeneratorBeanId";
 	
+	/**
+	 * Specifies how many order number seeds the default order number generator reserves from the
+	 * database at a time
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_ORDER_NUMBER_SEED_BLOCK_SIZE = "order.orderNumberSeedBlockSize";
+	
+	/**
+	 * Specifies the maximum number of patients sharing a blocking key for the key to be used to find
+	 * duplicate patient candidates
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_DUPLICATE_PATIENT_MAX_KEY_MEMBERS = "patient.duplicateCandidatesMaxKeyMembers";
+	
 	/**
 	 * Specifies the uuid of the concept set where its members represent the possible drug routes
 	 */
@@ -582,6 +616,55 @@ public final class OpenmrsConstants {
 	 * @since 1.11
 	 */
 	public static final Integer SEARCH_INDEX_VERSION = 7;
+	
+	/**
+	 * The maximum number of types whose search index is rebuilt in parallel
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_SEARCH_INDEXER_THREADS = "search.indexer.threads";
+	
+	/**
+	 * The JDBC fetch size used when reading objects to rebuild the search index
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_SEARCH_INDEXER_FETCH_SIZE = "search.indexer.fetchSize";
+	
+	/**
+	 * The number of objects indexed between two checkpoints of a search index rebuild
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_SEARCH_INDEXER_BATCH_SIZE = "search.indexer.batchSize";
+	
+	/**
+	 * Global property name for whether the statements and loads of service calls are counted
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_QUERY_COUNTING_ENABLED = "queryCounting.enabled";
+	
+	/**
+	 * The number of statements a service call may prepare before it is flagged
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_QUERY_COUNTING_STATEMENT_THRESHOLD = "queryCounting.statementThreshold";
+	
+	/**
+	 * The number of entities a service call may load before it is flagged
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_QUERY_COUNTING_ENTITY_LOAD_THRESHOLD = "queryCounting.entityLoadThreshold";
+	
+	/**
+	 * The number of collections a service call may initialize before it is flagged
+	 * 
+	 * @since 2.2.0
+	 */
+	public static final String GP_QUERY_COUNTING_COLLECTION_LOAD_THRESHOLD = "queryCounting.collectionLoadThreshold";
 
 	/**
 	 * @since 1.12
@@ -865,6 +948,13 @@ public final class OpenmrsConstants {
 		        "If true, hl7 messages for patients that are not found and are non-local will silently be dropped/ignored",
 		        BooleanDatatype.class, null));
 		
+		props.add(new GlobalProperty(GLOBAL_PROPERTY_HL7_PROCESSOR_WORKER_COUNT, "1",
+		        "The number of threads used to process the hl7 inbound queue, messages for the same patient are always "
+		                + "processed by the same thread in the order they were received"));
+		
+		props.add(new GlobalProperty(GLOBAL_PROPERTY_HL7_PROCESSOR_BATCH_SIZE, "25",
+		        "The number of hl7 inbound queue entries claimed at a time and processed together by an hl7 processor thread"));
+		
 		props
 		        .add(new GlobalProperty(
 		                GLOBAL_PROPERTY_SHOW_PATIENT_NAME,
@@ -952,6 +1042,11 @@ public final class OpenmrsConstants {
 		props.add(new GlobalProperty(GP_VISIT_TYPES_TO_AUTO_CLOSE, "",
 		        "comma-separated list of the visit type(s) to automatically close"));
 		
+		props.add(new GlobalProperty(GP_AUTO_CLOSE_VISITS_IN_BULK, "false",
+		        "true/false whether visits are automatically closed with bulk database updates, these bypass the "
+		                + "Hibernate interceptors and event listeners so only set it to true if no module relies on them "
+		                + "for closed visits", BooleanDatatype.class, null));
+		
 		props.add(new GlobalProperty(GP_ALLOWED_FAILED_LOGINS_BEFORE_LOCKOUT, "7",
 		        "Maximum number of failed logins allowed after which username is locked out"));
 		
@@ -989,6 +1084,30 @@ public final class OpenmrsConstants {
 		props.add(new GlobalProperty(GP_SEARCH_INDEX_VERSION, "",
 		        "Indicates the index version. If it is blank, the index needs to be rebuilt."));
 		
+		props.add(new GlobalProperty(GP_SEARCH_INDEXER_THREADS, "4",
+		        "The maximum number of types whose search index is rebuilt in parallel"));
+		
+		props.add(new GlobalProperty(GP_SEARCH_INDEXER_FETCH_SIZE, "1000",
+		        "The JDBC fetch size used when reading objects to rebuild the search index"));
+		
+		props.add(new GlobalProperty(GP_SEARCH_INDEXER_BATCH_SIZE, "1000",
+		        "The number of objects indexed between two checkpoints of a search index rebuild, "
+		                + "an interrupted rebuild continues from the last checkpoint"));
+		
+		props.add(new GlobalProperty(GP_QUERY_COUNTING_ENABLED, "true",
+		    "true/false whether the statements prepared and the entities and collections loaded by each service call "
+		            + "are counted so that calls exceeding the queryCounting thresholds are logged", BooleanDatatype.class,
+		    null));
+		
+		props.add(new GlobalProperty(GP_QUERY_COUNTING_STATEMENT_THRESHOLD, "100",
+		        "The number of SQL statements a service call may prepare before it is logged as an offender"));
+		
+		props.add(new GlobalProperty(GP_QUERY_COUNTING_ENTITY_LOAD_THRESHOLD, "1000",
+		        "The number of entities a service call may load before it is logged as an offender"));
+		
+		props.add(new GlobalProperty(GP_QUERY_COUNTING_COLLECTION_LOAD_THRESHOLD, "50",
+		        "The number of lazy collections a service call may initialize before it is logged as an offender"));
+		
 		props.add(new GlobalProperty(GLOBAL_PROPERTY_ALLOW_OVERLAPPING_VISITS, "true",
 		        "true/false whether or not to allow visits of a given patient to overlap", BooleanDatatype.class, null));
 		
@@ -1009,6 +1128,15 @@ public final class OpenmrsConstants {
 		props.add(new GlobalProperty(GP_ORDER_NUMBER_GENERATOR_BEAN_ID, "",
 		        "Specifies spring bean id of the order generator to use when assigning order numbers"));
 		
+		props.add(new GlobalProperty(GP_DUPLICATE_PATIENT_MAX_KEY_MEMBERS, "100",
+		        "The maximum number of patients sharing a blocking key, such as a common name or birthdate, for the key "
+		                + "to pair them as duplicate candidates, keys shared by more patients pair too many to be useful"));
+		
+		props.add(new GlobalProperty(GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "1",
+		        "The number of order number seeds the default order number generator reserves from the database at a "
+		                + "time and hands out from memory, a value greater than 1 reduces contention when many orders are "
+		                + "placed concurrently but unused seeds are skipped after a restart"));
+		
 		props.add(new GlobalProperty(GP_DRUG_ROUTES_CONCEPT_UUID, "",
 		        "Specifies the uuid of the concept set where its members represent the possible drug routes"));
 		
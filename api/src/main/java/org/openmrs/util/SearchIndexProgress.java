@@ -0,0 +1,173 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports the progress of a search index rebuild. It is updated by the threads doing the work and
+ * can be polled from any other thread.
+ *
+ * @see org.openmrs.api.context.Context#getSearchIndexProgress()
+ * @since 2.2.0
+ */
+public class SearchIndexProgress {
+
+	private final Date startDate = new Date();
+
+	private final Map<Class<?>, Long> totalCounts = new ConcurrentHashMap<Class<?>, Long>();
+
+	private final Map<Class<?>, AtomicLong> indexedCounts = new ConcurrentHashMap<Class<?>, AtomicLong>();
+
+	private final Map<Class<?>, Boolean> completedTypes = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	private volatile Date endDate;
+
+	private volatile Throwable failure;
+
+	/**
+	 * Registers a type to be indexed
+	 *
+	 * @param type the indexed type
+	 * @param totalCount the number of objects of the type
+	 * @param alreadyIndexed the number of objects indexed by an earlier, interrupted run
+	 */
+	public void addType(Class<?> type, long totalCount, long alreadyIndexed) {
+		totalCounts.put(type, totalCount);
+		indexedCounts.put(type, new AtomicLong(alreadyIndexed));
+	}
+
+	/**
+	 * @param type the indexed type
+	 * @param count the number of objects of the type that were just indexed
+	 */
+	public void indexed(Class<?> type, long count) {
+		AtomicLong indexed = indexedCounts.get(type);
+		if (indexed != null) {
+			indexed.addAndGet(count);
+		}
+	}
+
+	/**
+	 * @param type the indexed type that is done
+	 */
+	public void completed(Class<?> type) {
+		completedTypes.put(type, Boolean.TRUE);
+	}
+
+	/**
+	 * Marks the rebuild as finished
+	 *
+	 * @param failure the reason the rebuild failed or null if it succeeded
+	 */
+	public void finished(Throwable failure) {
+		this.failure = failure;
+		this.endDate = new Date();
+	}
+
+	/**
+	 * @return the types being indexed
+	 */
+	public List<Class<?>> getTypes() {
+		return new ArrayList<Class<?>>(totalCounts.keySet());
+	}
+
+	/**
+	 * @param type an indexed type
+	 * @return the number of objects of the given type to index
+	 */
+	public long getTotalCount(Class<?> type) {
+		Long total = totalCounts.get(type);
+		return total == null ? 0 : total;
+	}
+
+	/**
+	 * @param type an indexed type
+	 * @return the number of objects of the given type indexed so far
+	 */
+	public long getIndexedCount(Class<?> type) {
+		AtomicLong indexed = indexedCounts.get(type);
+		return indexed == null ? 0 : indexed.get();
+	}
+
+	/**
+	 * @param type an indexed type
+	 * @return true if all objects of the given type have been indexed
+	 */
+	public boolean isCompleted(Class<?> type) {
+		return completedTypes.containsKey(type);
+	}
+
+	/**
+	 * @return the number of objects of all types to index
+	 */
+	public long getTotalCount() {
+		long total = 0;
+		for (Long count : totalCounts.values()) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * @return the number of objects of all types indexed so far
+	 */
+	public long getIndexedCount() {
+		long indexed = 0;
+		for (AtomicLong count : indexedCounts.values()) {
+			indexed += count.get();
+		}
+		return indexed;
+	}
+
+	/**
+	 * @return the percentage of objects indexed so far, between 0 and 100
+	 */
+	public int getPercentComplete() {
+		long total = getTotalCount();
+		if (total == 0) {
+			return isFinished() ? 100 : 0;
+		}
+		return (int) Math.min(100, getIndexedCount() * 100 / total);
+	}
+
+	/**
+	 * @return the date the rebuild was started
+	 */
+	public Date getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * @return the date the rebuild finished or null if it is still running
+	 */
+	public Date getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * @return true if the rebuild has finished, whether it succeeded or not
+	 */
+	public boolean isFinished() {
+		return endDate != null;
+	}
+
+	/**
+	 * @return the reason the rebuild failed or null
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+}
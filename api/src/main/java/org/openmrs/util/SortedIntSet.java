@@ -0,0 +1,243 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable set of ints backed by a sorted array without duplicates. It is meant for large sets
+ * of ids, like the members of a computed cohort, that are combined with each other many times.
+ * Union, intersection and difference are linear merges of the two arrays and lookups are binary
+ * searches, no boxing is involved in either.
+ *
+ * @since 2.2.0
+ */
+public final class SortedIntSet implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final SortedIntSet EMPTY = new SortedIntSet(new int[0]);
+
+	private final int[] values;
+
+	/**
+	 * @param values sorted values without duplicates, not copied
+	 */
+	private SortedIntSet(int[] values) {
+		this.values = values;
+	}
+
+	/**
+	 * Creates a set of the given values
+	 *
+	 * @param values the values in any order, may contain duplicates
+	 * @return the set
+	 * @should sort the values and remove duplicates
+	 */
+	public static SortedIntSet of(int... values) {
+		if (values == null || values.length == 0) {
+			return EMPTY;
+		}
+		int[] sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+		int size = 1;
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i] != sorted[size - 1]) {
+				sorted[size++] = sorted[i];
+			}
+		}
+		return new SortedIntSet(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+	}
+
+	/**
+	 * Creates a set of the given values
+	 *
+	 * @param values the values in any order, may contain duplicates and nulls which are ignored
+	 * @return the set
+	 * @should ignore null values
+	 */
+	public static SortedIntSet of(Collection<Integer> values) {
+		if (values == null || values.isEmpty()) {
+			return EMPTY;
+		}
+		return of(values.stream().filter(value -> value != null).mapToInt(Integer::intValue).toArray());
+	}
+
+	/**
+	 * @return the number of values in this set
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * @return true if this set has no values
+	 */
+	public boolean isEmpty() {
+		return values.length == 0;
+	}
+
+	/**
+	 * @param value the value to look for
+	 * @return true if this set contains the given value
+	 * @should return true only for values in the set
+	 */
+	public boolean contains(int value) {
+		return Arrays.binarySearch(values, value) >= 0;
+	}
+
+	/**
+	 * @param other the set to add
+	 * @return a set of the values that are in either of the sets
+	 * @should return the values in either set
+	 */
+	public SortedIntSet union(SortedIntSet other) {
+		if (other == null || other.isEmpty()) {
+			return this;
+		}
+		if (isEmpty()) {
+			return other;
+		}
+
+		int[] a = values;
+		int[] b = other.values;
+		int[] result = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				result[size++] = a[i++];
+			} else if (a[i] > b[j]) {
+				result[size++] = b[j++];
+			} else {
+				result[size++] = a[i++];
+				j++;
+			}
+		}
+		while (i < a.length) {
+			result[size++] = a[i++];
+		}
+		while (j < b.length) {
+			result[size++] = b[j++];
+		}
+		return new SortedIntSet(trim(result, size));
+	}
+
+	/**
+	 * @param other the set to intersect with
+	 * @return a set of the values that are in both sets
+	 * @should return the values in both sets
+	 */
+	public SortedIntSet intersect(SortedIntSet other) {
+		if (other == null || other.isEmpty() || isEmpty()) {
+			return EMPTY;
+		}
+
+		int[] a = values;
+		int[] b = other.values;
+		int[] result = new int[Math.min(a.length, b.length)];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				result[size++] = a[i++];
+				j++;
+			}
+		}
+		return size == 0 ? EMPTY : new SortedIntSet(trim(result, size));
+	}
+
+	/**
+	 * @param other the set to subtract
+	 * @return a set of the values in this set that are not in the other set
+	 * @should return the values that are not in the other set
+	 */
+	public SortedIntSet subtract(SortedIntSet other) {
+		if (other == null || other.isEmpty() || isEmpty()) {
+			return this;
+		}
+
+		int[] a = values;
+		int[] b = other.values;
+		int[] result = new int[a.length];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				result[size++] = a[i++];
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				i++;
+				j++;
+			}
+		}
+		while (i < a.length) {
+			result[size++] = a[i++];
+		}
+		return size == 0 ? EMPTY : new SortedIntSet(trim(result, size));
+	}
+
+	/**
+	 * @return the values in ascending order
+	 */
+	public IntStream stream() {
+		return Arrays.stream(values);
+	}
+
+	/**
+	 * @return a copy of the values in ascending order
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, values.length);
+	}
+
+	/**
+	 * @return the values as a new, modifiable set
+	 */
+	public Set<Integer> toSet() {
+		Set<Integer> set = new TreeSet<Integer>();
+		for (int value : values) {
+			set.add(value);
+		}
+		return set;
+	}
+
+	private static int[] trim(int[] values, int size) {
+		return size == values.length ? values : Arrays.copyOf(values, size);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof SortedIntSet && Arrays.equals(values, ((SortedIntSet) obj).values);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(values);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(values);
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.util.Locale;
+
+/**
+ * Computes American Soundex codes, the phonetic keys stored for each part of a person name so that
+ * similar names can be looked up through an index. Unlike the SOUNDEX() function of MySQL, which
+ * does not truncate its result, the codes are always four characters long, so long names which only
+ * differ after their first sounds are treated as similar.
+ *
+ * @see org.openmrs.PersonName#getGivenNameSoundex()
+ * @since 2.2.0
+ */
+public class SoundexUtil {
+
+	/**
+	 * The codes of the letters A to Z, 0 for vowels which separate equal codes and - for H and W
+	 * which do not
+	 */
+	private static final String CODES = "0123012-02245501262301-202";
+
+	private static final int LENGTH = 4;
+
+	private SoundexUtil() {
+	}
+
+	/**
+	 * Gets the Soundex code of the given text, characters other than the letters A to Z are ignored
+	 *
+	 * @param text the text to encode
+	 * @return the code made of the first letter and three digits or null if the text has no letters
+	 * @should return the code of the given text
+	 * @should ignore case and characters other than letters
+	 * @should not separate equal codes by h or w
+	 * @should separate equal codes by vowels
+	 * @should pad short codes with zeros
+	 * @should return null if the text has no letters
+	 */
+	public static String encode(String text) {
+		if (text == null) {
+			return null;
+		}
+
+		String upperCase = text.toUpperCase(Locale.ENGLISH);
+		StringBuilder code = new StringBuilder(LENGTH);
+		char previous = 0;
+		for (int i = 0; i < upperCase.length() && code.length() < LENGTH; i++) {
+			char c = upperCase.charAt(i);
+			if (c < 'A' || c > 'Z') {
+				continue;
+			}
+			char digit = CODES.charAt(c - 'A');
+			if (code.length() == 0) {
+				code.append(c);
+			} else if (digit != '0' && digit != '-' && digit != previous) {
+				code.append(digit);
+			}
+			if (digit != '-') {
+				previous = digit;
+			}
+		}
+
+		if (code.length() == 0) {
+			return null;
+		}
+		while (code.length() < LENGTH) {
+			code.append('0');
+		}
+		return code.toString();
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.databasechange;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.openmrs.util.DuplicatePatientKeyUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * This change set is run to compute the blocking keys of existing patients, the same way
+ * {@link DuplicatePatientKeyUtil#getKeys(org.openmrs.Patient)} does when a patient is saved. The
+ * patients are read in pages ordered by id so that large tables are not loaded into memory at once.
+ */
+public class ComputePatientDuplicateKeysChangeSet implements CustomTaskChange {
+
+	private final static Logger log = LoggerFactory.getLogger(ComputePatientDuplicateKeysChangeSet.class);
+
+	private static final int PAGE_SIZE = 1000;
+
+	private int patientCount = 0;
+
+	/**
+	 * @see CustomTaskChange#execute(Database)
+	 */
+	@Override
+	public void execute(Database database) throws CustomChangeException {
+		JdbcConnection connection = (JdbcConnection) database.getConnection();
+		PreparedStatement patientStmt = null;
+		PreparedStatement nameStmt = null;
+		PreparedStatement identifierStmt = null;
+		PreparedStatement insertStmt = null;
+
+		try {
+			patientStmt = connection.prepareStatement("SELECT p.patient_id, pe.birthdate FROM patient p"
+			        + " INNER JOIN person pe ON pe.person_id = p.patient_id WHERE p.patient_id > ? ORDER BY p.patient_id");
+			patientStmt.setMaxRows(PAGE_SIZE);
+			nameStmt = connection.prepareStatement("SELECT person_id, given_name, family_name FROM person_name"
+			        + " WHERE voided = ? AND person_id BETWEEN ? AND ?");
+			identifierStmt = connection.prepareStatement("SELECT patient_id, identifier FROM patient_identifier"
+			        + " WHERE voided = ? AND patient_id BETWEEN ? AND ?");
+			insertStmt = connection.prepareStatement("INSERT INTO patient_duplicate_key (patient_id, blocking_key)"
+			        + " VALUES (?, ?)");
+
+			int lastId = 0;
+			Map<Integer, Date> birthdates;
+			do {
+				birthdates = new LinkedHashMap<Integer, Date>();
+				patientStmt.setInt(1, lastId);
+				ResultSet rs = patientStmt.executeQuery();
+				try {
+					while (rs.next()) {
+						lastId = rs.getInt(1);
+						birthdates.put(lastId, rs.getDate(2));
+					}
+				}
+				finally {
+					rs.close();
+				}
+				if (birthdates.isEmpty()) {
+					break;
+				}
+
+				int firstId = birthdates.keySet().iterator().next();
+				Map<Integer, Set<String>> keys = new LinkedHashMap<Integer, Set<String>>();
+				rs = executeRange(nameStmt, firstId, lastId);
+				try {
+					while (rs.next()) {
+						Integer patientId = rs.getInt(1);
+						if (birthdates.containsKey(patientId)) {
+							String familyName = rs.getString(3);
+							addKey(keys, patientId, DuplicatePatientKeyUtil.getNameKey(rs.getString(2), familyName));
+							addKey(keys, patientId, DuplicatePatientKeyUtil.getBirthKey(birthdates.get(patientId),
+							    familyName));
+						}
+					}
+				}
+				finally {
+					rs.close();
+				}
+				rs = executeRange(identifierStmt, firstId, lastId);
+				try {
+					while (rs.next()) {
+						addKey(keys, rs.getInt(1), DuplicatePatientKeyUtil.getIdentifierKey(rs.getString(2)));
+					}
+				}
+				finally {
+					rs.close();
+				}
+
+				for (Map.Entry<Integer, Set<String>> entry : keys.entrySet()) {
+					for (String key : entry.getValue()) {
+						insertStmt.setInt(1, entry.getKey());
+						insertStmt.setString(2, key);
+						insertStmt.addBatch();
+					}
+				}
+				insertStmt.executeBatch();
+				patientCount += birthdates.size();
+			} while (birthdates.size() == PAGE_SIZE);
+		}
+		catch (DatabaseException | SQLException e) {
+			throw new CustomChangeException("Failed to compute the blocking keys of patients", e);
+		}
+		finally {
+			close(patientStmt);
+			close(nameStmt);
+			close(identifierStmt);
+			close(insertStmt);
+		}
+	}
+
+	private ResultSet executeRange(PreparedStatement stmt, int firstId, int lastId) throws SQLException {
+		stmt.setBoolean(1, false);
+		stmt.setInt(2, firstId);
+		stmt.setInt(3, lastId);
+		return stmt.executeQuery();
+	}
+
+	private void addKey(Map<Integer, Set<String>> keys, Integer patientId, String key) {
+		if (key != null) {
+			keys.computeIfAbsent(patientId, id -> new LinkedHashSet<String>()).add(key);
+		}
+	}
+
+	private void close(PreparedStatement stmt) {
+		if (stmt != null) {
+			try {
+				stmt.close();
+			}
+			catch (SQLException e) {
+				log.warn("Failed to close the prepared statement object");
+			}
+		}
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#getConfirmationMessage()
+	 */
+	@Override
+	public String getConfirmationMessage() {
+		return "Finished computing the blocking keys of " + patientCount + " patients";
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#setUp()
+	 */
+	@Override
+	public void setUp() throws SetupException {
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#setFileOpener(ResourceAccessor)
+	 */
+	@Override
+	public void setFileOpener(ResourceAccessor resourceAccessor) {
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#validate(Database)
+	 */
+	@Override
+	public ValidationErrors validate(Database database) {
+		return null;
+	}
+}
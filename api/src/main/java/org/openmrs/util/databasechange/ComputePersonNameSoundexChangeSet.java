@@ -0,0 +1,148 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.databasechange;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.openmrs.util.SoundexUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * This change set is run to compute the soundex codes of the parts of existing person names. The
+ * names are read in pages ordered by id so that large tables are not loaded into memory at once.
+ */
+public class ComputePersonNameSoundexChangeSet implements CustomTaskChange {
+
+	private final static Logger log = LoggerFactory.getLogger(ComputePersonNameSoundexChangeSet.class);
+
+	private static final int PAGE_SIZE = 1000;
+
+	private int updatedCount = 0;
+
+	/**
+	 * @see CustomTaskChange#execute(Database)
+	 */
+	@Override
+	public void execute(Database database) throws CustomChangeException {
+		JdbcConnection connection = (JdbcConnection) database.getConnection();
+		PreparedStatement selectStmt = null;
+		PreparedStatement updateStmt = null;
+
+		try {
+			selectStmt = connection.prepareStatement("SELECT person_name_id, given_name, middle_name, family_name,"
+			        + " family_name2 FROM person_name WHERE person_name_id > ? ORDER BY person_name_id");
+			selectStmt.setMaxRows(PAGE_SIZE);
+			updateStmt = connection.prepareStatement("UPDATE person_name SET given_name_soundex = ?,"
+			        + " middle_name_soundex = ?, family_name_soundex = ?, family_name2_soundex = ?"
+			        + " WHERE person_name_id = ?");
+
+			int lastId = 0;
+			int pageCount;
+			do {
+				pageCount = 0;
+				selectStmt.setInt(1, lastId);
+				ResultSet rs = selectStmt.executeQuery();
+				try {
+					while (rs.next()) {
+						lastId = rs.getInt("person_name_id");
+						setSoundex(updateStmt, 1, rs.getString("given_name"));
+						setSoundex(updateStmt, 2, rs.getString("middle_name"));
+						setSoundex(updateStmt, 3, rs.getString("family_name"));
+						setSoundex(updateStmt, 4, rs.getString("family_name2"));
+						updateStmt.setInt(5, lastId);
+						updateStmt.addBatch();
+						pageCount++;
+					}
+				}
+				finally {
+					rs.close();
+				}
+				if (pageCount > 0) {
+					updateStmt.executeBatch();
+					updatedCount += pageCount;
+				}
+			} while (pageCount == PAGE_SIZE);
+		}
+		catch (DatabaseException | SQLException e) {
+			throw new CustomChangeException("Failed to compute the soundex codes of person names", e);
+		}
+		finally {
+			if (selectStmt != null) {
+				try {
+					selectStmt.close();
+				}
+				catch (SQLException e) {
+					log.warn("Failed to close the select statement object");
+				}
+			}
+
+			if (updateStmt != null) {
+				try {
+					updateStmt.close();
+				}
+				catch (SQLException e) {
+					log.warn("Failed to close the update statement object");
+				}
+			}
+		}
+	}
+
+	private void setSoundex(PreparedStatement stmt, int index, String name) throws SQLException {
+		String soundex = SoundexUtil.encode(name);
+		if (soundex == null) {
+			stmt.setNull(index, Types.VARCHAR);
+		} else {
+			stmt.setString(index, soundex);
+		}
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#getConfirmationMessage()
+	 */
+	@Override
+	public String getConfirmationMessage() {
+		return "Finished computing the soundex codes of " + updatedCount + " person names";
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#setUp()
+	 */
+	@Override
+	public void setUp() throws SetupException {
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#setFileOpener(ResourceAccessor)
+	 */
+	@Override
+	public void setFileOpener(ResourceAccessor resourceAccessor) {
+	}
+
+	/**
+	 * @see liquibase.change.custom.CustomChange#validate(Database)
+	 */
+	@Override
+	public ValidationErrors validate(Database database) {
+		return null;
+	}
+}
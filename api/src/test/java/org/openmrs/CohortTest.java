@@ -9,6 +9,8 @@
  */
 package org.openmrs;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -18,6 +20,7 @@ import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.util.SortedIntSet;
 
 /**
  * Behavior-driven tests of the Cohort class.
@@ -66,4 +69,67 @@ public class CohortTest extends BaseContextSensitiveTest {
 		
 	}
 	
+	/**
+	 * @see Cohort#Cohort(SortedIntSet)
+	 */
+	@Test
+	public void constructorWithSortedIntSet_shouldNotCreateMembershipsUntilTheyAreNeeded() {
+		
+		Cohort cohort = new Cohort(SortedIntSet.of(3, 1, 2));
+		assertTrue(cohort.isComputed());
+		assertEquals(3, cohort.size());
+		Arrays.stream(ids).forEach(id -> assertTrue(cohort.contains(id)));
+		assertFalse(cohort.contains(4));
+		assertTrue(cohort.isComputed());
+		
+		assertEquals(3, cohort.getMembers().size());
+		assertFalse(cohort.isComputed());
+		cohort.getMembers().forEach(m -> assertEquals(cohort, m.getCohort()));
+		Arrays.stream(ids).forEach(id -> assertTrue(cohort.contains(id)));
+	}
+	
+	@Test
+	public void union_shouldCombineComputedCohortsWithoutCreatingMemberships() {
+		
+		Cohort union = Cohort.union(new Cohort(SortedIntSet.of(1, 2)), new Cohort(SortedIntSet.of(2, 3)));
+		assertTrue(union.isComputed());
+		assertEquals(SortedIntSet.of(1, 2, 3), union.getActiveMemberIdSet());
+	}
+	
+	@Test
+	public void intersect_shouldCombineComputedCohortsWithoutCreatingMemberships() {
+		
+		Cohort intersection = Cohort.intersect(new Cohort(SortedIntSet.of(1, 2)), new Cohort(SortedIntSet.of(2, 3)));
+		assertTrue(intersection.isComputed());
+		assertEquals(SortedIntSet.of(2), intersection.getActiveMemberIdSet());
+	}
+	
+	@Test
+	public void subtract_shouldCombineComputedCohortsWithoutCreatingMemberships() {
+		
+		Cohort difference = Cohort.subtract(new Cohort(SortedIntSet.of(1, 2)), new Cohort(SortedIntSet.of(2, 3)));
+		assertTrue(difference.isComputed());
+		assertEquals(SortedIntSet.of(1), difference.getActiveMemberIdSet());
+	}
+	
+	@Test
+	public void union_shouldReturnTheSameMembersForComputedAndMaterializedCohorts() {
+		
+		Cohort computed = Cohort.union(new Cohort(SortedIntSet.of(1, 2)), new Cohort(SortedIntSet.of(2, 3)));
+		Cohort materialized = Cohort.union(new Cohort("1,2"), new Cohort("2,3"));
+		assertFalse(materialized.isComputed());
+		assertEquals(materialized.getMemberIds(), computed.getMemberIds());
+	}
+	
+	/**
+	 * @see Cohort#getActiveMemberIdSet()
+	 */
+	@Test
+	public void getActiveMemberIdSet_shouldReturnTheIdsOfActiveMembersOnly() {
+		
+		Cohort cohort = new Cohort("name", "description", ids);
+		cohort.removeMember(2);
+		assertEquals(SortedIntSet.of(1, 3), cohort.getActiveMemberIdSet());
+	}
+	
 }
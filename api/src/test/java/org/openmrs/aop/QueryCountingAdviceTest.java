@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.metrics.ServiceCallMetrics;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.util.OpenmrsConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link QueryCountingAdvice}
+ */
+public class QueryCountingAdviceTest extends BaseContextSensitiveTest {
+	
+	@Autowired
+	private QueryCountingAdvice queryCountingAdvice;
+	
+	@After
+	public void resetAdvice() {
+		// the transaction is rolled back, so the settings have to be read again
+		queryCountingAdvice.globalPropertyDeleted(OpenmrsConstants.GP_QUERY_COUNTING_ENABLED);
+		queryCountingAdvice.clearOffenders();
+	}
+	
+	/**
+	 * @see QueryCountingAdvice#invoke(org.aopalliance.intercept.MethodInvocation)
+	 */
+	@Test
+	public void invoke_shouldRecordCallsExceedingAThreshold() {
+		setSettings("true", "0");
+		
+		Context.getPatientService().getAllPatients();
+		
+		List<ServiceCallMetrics> offenders = queryCountingAdvice.getOffenders(10);
+		assertEquals(1, offenders.size());
+		ServiceCallMetrics offender = offenders.get(0);
+		assertEquals("PatientService.getAllPatients", offender.getMethod());
+		assertEquals(1, offender.getFlaggedCallCount());
+		assertTrue(offender.getMaxStatementCount() > 0);
+		assertTrue(offender.getMaxEntityLoadCount() > 0);
+		assertFalse(offender.getStackFragment().isEmpty());
+	}
+	
+	/**
+	 * @see QueryCountingAdvice#invoke(org.aopalliance.intercept.MethodInvocation)
+	 */
+	@Test
+	public void invoke_shouldNotRecordCallsWithinTheThresholds() {
+		setSettings("true", "1000000");
+		
+		Context.getPatientService().getAllPatients();
+		
+		assertTrue(queryCountingAdvice.getOffenders(10).isEmpty());
+	}
+	
+	/**
+	 * @see QueryCountingAdvice#invoke(org.aopalliance.intercept.MethodInvocation)
+	 */
+	@Test
+	public void invoke_shouldNotCountCallsIfDisabled() {
+		setSettings("false", "0");
+		
+		Context.getPatientService().getAllPatients();
+		
+		assertTrue(queryCountingAdvice.getOffenders(10).isEmpty());
+	}
+	
+	private void setSettings(String enabled, String threshold) {
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_QUERY_COUNTING_ENABLED, enabled));
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_QUERY_COUNTING_STATEMENT_THRESHOLD, threshold));
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_QUERY_COUNTING_ENTITY_LOAD_THRESHOLD, threshold));
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_QUERY_COUNTING_COLLECTION_LOAD_THRESHOLD, threshold));
+		Context.flushSession();
+		Context.clearSession();
+		queryCountingAdvice.clearOffenders();
+	}
+}
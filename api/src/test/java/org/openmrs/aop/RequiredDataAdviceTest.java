@@ -657,6 +657,43 @@ public class RequiredDataAdviceTest extends BaseContextMockTest {
 		
 	}
 	
+	@Test
+	public void before_shouldCallHandlerOnEveryCallToTheSameMethod() throws Throwable {
+		
+		Method m = WithAppropriatelyNamedMethod.class.getMethod("saveSomeOpenmrsData", SomeOpenmrsData.class);
+		SomeOpenmrsData first = new SomeOpenmrsData();
+		SomeOpenmrsData second = new SomeOpenmrsDataSubClass();
+		requiredDataAdvice.before(m, new Object[] { first }, new WithAppropriatelyNamedMethod());
+		requiredDataAdvice.before(m, new Object[] { second }, new WithAppropriatelyNamedMethod());
+		verify(saveHandler, times(1)).handle(eq(first), Matchers.<User> anyObject(), Matchers.<Date> anyObject(),
+		    anyString());
+		verify(saveHandler, times(1)).handle(eq(second), Matchers.<User> anyObject(), Matchers.<Date> anyObject(),
+		    anyString());
+	}
+	
+	@Test
+	public void before_shouldCallHandlersOnChildCollectionsOfEveryObjectOfTheSameClass() throws Throwable {
+		
+		Method m = WithAppropriatelyNamedMethod.class.getMethod("voidClassWithDisableHandlersAnnotation",
+		    ClassWithDisableHandlersAnnotation.class);
+		
+		Person firstPerson = new Person();
+		ClassWithDisableHandlersAnnotation first = new ClassWithDisableHandlersAnnotation();
+		first.setNotAnnotatedPersons(new ArrayList<Person>(Arrays.asList(firstPerson)));
+		
+		Person secondPerson = new Person();
+		ClassWithDisableHandlersAnnotation second = new ClassWithDisableHandlersAnnotation();
+		second.setNotAnnotatedPersons(new ArrayList<Person>(Arrays.asList(secondPerson)));
+		
+		requiredDataAdvice.before(m, new Object[] { first, "void reason" }, new WithAppropriatelyNamedMethod());
+		requiredDataAdvice.before(m, new Object[] { second, "void reason" }, new WithAppropriatelyNamedMethod());
+		
+		verify(voidHandler, times(1)).handle(eq(firstPerson), Matchers.<User> anyObject(), Matchers.<Date> anyObject(),
+		    anyString());
+		verify(voidHandler, times(1)).handle(eq(secondPerson), Matchers.<User> anyObject(), Matchers.<Date> anyObject(),
+		    anyString());
+	}
+	
 	class SomeOpenmrsData extends BaseOpenmrsData {
 		
 		@Override
@@ -35,6 +35,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -711,6 +712,64 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(5089, concept.getId().intValue());
 	}
 	
+	/**
+	 * @see ConceptService#getConceptsByMappings(Collection,String)
+	 */
+	@Test
+	public void getConceptsByMappings_shouldGetConceptsWithTheGivenCodesAndSourceName() {
+		Map<String, List<Concept>> concepts = conceptService.getConceptsByMappings(Arrays.asList("WGT234", "766554"),
+		    "Some Standardized Terminology");
+		
+		assertThat(concepts.keySet(), contains("WGT234", "766554"));
+		assertThat(concepts.get("WGT234"), contains(hasId(5089)));
+		assertThat(concepts.get("766554"), contains(hasId(16), hasId(24)));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptsByMappings(Collection,String)
+	 */
+	@Test
+	public void getConceptsByMappings_shouldGetConceptsWithTheGivenCodesAndSourceHl7Code() {
+		Map<String, List<Concept>> concepts = conceptService.getConceptsByMappings(Arrays.asList("127689", "wgt234"),
+		    "SSTRM");
+		
+		assertThat(concepts.get("127689"), containsInAnyOrder(hasId(16), hasId(6)));
+		assertThat(concepts.get("wgt234"), contains(hasId(5089)));
+		// the second lookup is answered by the mapping index
+		assertThat(conceptService.getConceptsByMappings(Arrays.asList("127689", "wgt234"), "SSTRM"), is(concepts));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptsByMappings(Collection,String)
+	 */
+	@Test
+	public void getConceptsByMappings_shouldReturnEmptyListsForCodesWhichAreNotMapped() {
+		Map<String, List<Concept>> concepts = conceptService.getConceptsByMappings(Arrays.asList("A random concept code",
+		    "WGT234"), "SSTRM");
+		
+		assertThat(concepts.get("A random concept code"), is(empty()));
+		assertThat(concepts.get("WGT234"), contains(hasId(5089)));
+		assertThat(conceptService.getConceptsByMappings(Collections.singletonList("WGT234"), "A random source code").get(
+		    "WGT234"), is(empty()));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptsByMappings(Collection,String)
+	 */
+	@Test
+	public void getConceptsByMappings_shouldReturnConceptsMappedInTheCurrentTransaction() {
+		List<String> codes = Collections.singletonList("127cd4689");
+		assertThat(conceptService.getConceptsByMappings(codes, "SSTRM").get("127cd4689"), contains(hasId(16)));
+		
+		Concept concept = conceptService.getConcept(5089);
+		concept.addConceptMapping(new ConceptMap(conceptService.getConceptReferenceTerm(9), conceptService
+		        .getConceptMapType(2)));
+		conceptService.saveConcept(concept);
+		
+		assertThat(conceptService.getConceptsByMappings(codes, "SSTRM").get("127cd4689"), containsInAnyOrder(hasId(16),
+		    hasId(5089)));
+	}
+	
 	/**
 	 * @see ConceptService#getConceptAnswerByUuid(String)
 	 */
@@ -1539,6 +1598,68 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		assertThat(conceptSet, containsInAnyOrder(hasId(2), hasId(3), hasId(4), hasId(5), hasId(6)));
 	}
 	
+	/**
+	 * @see ConceptService#getConceptsByConceptSet(Concept)
+	 */
+	@Test
+	public void getConceptsByConceptSet_shouldReturnTheConceptsInTheOrderOfTheirSortWeights() {
+		List<Concept> conceptSet = conceptService.getConceptsByConceptSet(conceptService.getConcept(23));
+		
+		assertThat(conceptSet, contains(hasId(18), hasId(20), hasId(19)));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptsByConceptSet(Concept)
+	 */
+	@Test
+	public void getConceptsByConceptSet_shouldReturnConceptsAddedInTheCurrentTransaction() {
+		Concept set = conceptService.getConcept(23);
+		assertThat(conceptService.getConceptsByConceptSet(set), contains(hasId(18), hasId(20), hasId(19)));
+		
+		set.addSetMember(conceptService.getConcept(5089));
+		conceptService.saveConcept(set);
+		
+		assertThat(conceptService.getConceptsByConceptSet(set), contains(hasId(18), hasId(20), hasId(19), hasId(5089)));
+	}
+	
+	/**
+	 * @see ConceptService#getAllSetsContainingConcept(Concept)
+	 */
+	@Test
+	public void getAllSetsContainingConcept_shouldReturnTheSetsContainingTheConceptDirectlyAndThroughNestedSets() {
+		executeDataSet(GET_CONCEPTS_BY_SET_XML);
+		
+		List<Concept> sets = conceptService.getAllSetsContainingConcept(conceptService.getConcept(6));
+		
+		assertThat(sets, contains(hasId(4), hasId(3), hasId(1)));
+	}
+	
+	/**
+	 * @see ConceptService#getAllSetsContainingConcept(Concept)
+	 */
+	@Test
+	public void getAllSetsContainingConcept_shouldReturnAnEmptyListIfTheConceptIsNotInAnySet() {
+		executeDataSet(GET_CONCEPTS_BY_SET_XML);
+		
+		assertThat(conceptService.getAllSetsContainingConcept(conceptService.getConcept(1)), is(empty()));
+		assertThat(conceptService.getAllSetsContainingConcept(new Concept()), is(empty()));
+	}
+	
+	/**
+	 * @see ConceptService#getAllSetsContainingConcept(Concept)
+	 */
+	@Test
+	public void getAllSetsContainingConcept_shouldReturnSetsChangedInTheCurrentTransaction() {
+		Concept concept = conceptService.getConcept(5089);
+		assertThat(conceptService.getAllSetsContainingConcept(concept), is(empty()));
+		
+		Concept set = conceptService.getConcept(23);
+		set.addSetMember(concept);
+		conceptService.saveConcept(set);
+		
+		assertThat(conceptService.getAllSetsContainingConcept(concept), contains(hasId(23)));
+	}
+	
 	/**
 	 * @see ConceptService#saveConceptStopWord(org.openmrs.ConceptStopWord)
 	 */
@@ -1596,6 +1596,76 @@ public class EncounterServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(3, allEncounters.get(7).size());
 	}
 	
+	/**
+	 * @see EncounterService#getAllEncounters(Cohort, PatientEncountersCallback)
+	 */
+	@Test
+	public void getAllEncounters_shouldCallBackOnceForEachPatientWithTheirEncounters() {
+		Cohort cohort = new Cohort();
+		cohort.addMember(2);
+		cohort.addMember(6);
+		cohort.addMember(7);
+		cohort.addMember(8);
+		
+		Map<Integer, Set<Integer>> expected = getEncounterIdsByPatient(Context.getEncounterService().getAllEncounters(
+		    cohort));
+		Map<Integer, Set<Integer>> streamed = streamEncounterIdsByPatient(cohort);
+		
+		Assert.assertFalse(streamed.isEmpty());
+		Assert.assertEquals(expected, streamed);
+	}
+	
+	/**
+	 * @see EncounterService#getAllEncounters(Cohort, PatientEncountersCallback)
+	 */
+	@Test
+	public void getAllEncounters_shouldNotCallBackForPatientsWithoutEncounters() {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		cohort.addMember(999);
+		
+		Map<Integer, Set<Integer>> streamed = streamEncounterIdsByPatient(cohort);
+		
+		Assert.assertEquals(1, streamed.size());
+		Assert.assertEquals(3, streamed.get(7).size());
+	}
+	
+	/**
+	 * @see EncounterService#getAllEncounters(Cohort, PatientEncountersCallback)
+	 */
+	@Test
+	public void getAllEncounters_shouldCallBackForAllPatientsIfTheCohortIsNull() {
+		Map<Integer, Set<Integer>> expected = getEncounterIdsByPatient(Context.getEncounterService().getAllEncounters(
+		    null));
+		
+		Assert.assertEquals(expected, streamEncounterIdsByPatient(null));
+	}
+	
+	private Map<Integer, Set<Integer>> getEncounterIdsByPatient(Map<Integer, List<Encounter>> encountersByPatient) {
+		Map<Integer, Set<Integer>> encounterIdsByPatient = new HashMap<>();
+		for (Map.Entry<Integer, List<Encounter>> entry : encountersByPatient.entrySet()) {
+			Set<Integer> encounterIds = new TreeSet<>();
+			for (Encounter encounter : entry.getValue()) {
+				encounterIds.add(encounter.getEncounterId());
+			}
+			encounterIdsByPatient.put(entry.getKey(), encounterIds);
+		}
+		return encounterIdsByPatient;
+	}
+	
+	private Map<Integer, Set<Integer>> streamEncounterIdsByPatient(Cohort cohort) {
+		final Map<Integer, List<Encounter>> encountersByPatient = new HashMap<>();
+		Context.getEncounterService().getAllEncounters(cohort, new PatientEncountersCallback() {
+			
+			@Override
+			public void handle(Integer patientId, List<Encounter> encounters) {
+				Assert.assertFalse(encountersByPatient.containsKey(patientId));
+				encountersByPatient.put(patientId, encounters);
+			}
+		});
+		return getEncounterIdsByPatient(encountersByPatient);
+	}
+	
 	/**
 	 * @see EncounterService#getEncounters(Patient, Location, Date, Date, java.util.Collection,
 	 *      java.util.Collection, java.util.Collection, java.util.Collection, java.util.Collection,
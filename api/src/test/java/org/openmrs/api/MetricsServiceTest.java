@@ -0,0 +1,124 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.ConceptMappingIndex;
+import org.openmrs.api.metrics.CacheMetrics;
+import org.openmrs.api.metrics.EntityMetrics;
+import org.openmrs.api.metrics.MetricsSnapshot;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link MetricsService}
+ */
+public class MetricsServiceTest extends BaseContextSensitiveTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	private boolean statisticsEnabled;
+
+	@Before
+	public void enableStatistics() {
+		statisticsEnabled = sessionFactory.getStatistics().isStatisticsEnabled();
+		sessionFactory.getStatistics().setStatisticsEnabled(true);
+	}
+
+	@After
+	public void restoreStatistics() {
+		sessionFactory.getStatistics().setStatisticsEnabled(statisticsEnabled);
+	}
+
+	/**
+	 * @see MetricsService#getMetricsSnapshot()
+	 */
+	@Test
+	public void getMetricsSnapshot_shouldReturnTheLoadCountsOfEntities() {
+		Context.clearSession();
+		Context.getPatientService().getPatient(2);
+
+		MetricsSnapshot snapshot = Context.getMetricsService().getMetricsSnapshot();
+
+		assertTrue(snapshot.isStatisticsEnabled());
+		assertNotNull(snapshot.getEndTime());
+		assertTrue(getEntity(snapshot, Patient.class).getLoadCount() >= 1);
+		assertTrue(snapshot.getEntityLoadCount() >= 1);
+	}
+
+	/**
+	 * @see MetricsService#getMetricsSnapshot()
+	 */
+	@Test
+	public void getMetricsSnapshot_shouldReturnTheStatisticsOfTheApiCaches() {
+		MetricsSnapshot snapshot = Context.getMetricsService().getMetricsSnapshot();
+
+		boolean found = false;
+		for (CacheMetrics cache : snapshot.getApiCaches()) {
+			found |= "userSearchLocales".equals(cache.getName());
+		}
+		assertTrue(found);
+	}
+
+	/**
+	 * @see MetricsService#getMetricsSnapshot()
+	 */
+	@Test
+	public void getMetricsSnapshot_shouldReturnTheStatisticsOfTheConceptMappingIndex() {
+		Context.getConceptService().getConceptsByMapping("WGT234", "SSTRM");
+		Context.getConceptService().getConceptsByMapping("WGT234", "SSTRM");
+
+		MetricsSnapshot snapshot = Context.getMetricsService().getMetricsSnapshot();
+
+		CacheMetrics index = null;
+		for (CacheMetrics cache : snapshot.getApiCaches()) {
+			if (ConceptMappingIndex.NAME.equals(cache.getName())) {
+				index = cache;
+			}
+		}
+		assertNotNull(index);
+		assertTrue(index.getHitCount() >= 1);
+		assertTrue(index.getMissCount() >= 1);
+	}
+
+	/**
+	 * @see MetricsService#getMetricsDelta(MetricsSnapshot)
+	 */
+	@Test
+	public void getMetricsDelta_shouldReturnTheCountsSinceTheGivenSnapshot() {
+		Context.clearSession();
+		MetricsSnapshot since = Context.getMetricsService().getMetricsSnapshot();
+		Context.getPatientService().getPatient(2);
+
+		MetricsSnapshot delta = Context.getMetricsService().getMetricsDelta(since);
+
+		assertEquals(since.getEndTime(), delta.getStartTime());
+		assertEquals(1, getEntity(delta, Patient.class).getLoadCount());
+	}
+
+	private EntityMetrics getEntity(MetricsSnapshot snapshot, Class<?> entityClass) {
+		for (EntityMetrics entity : snapshot.getEntities()) {
+			if (entity.getName().equals(entityClass.getName())) {
+				return entity;
+			}
+		}
+		throw new AssertionError("No metrics for " + entityClass.getName());
+	}
+}
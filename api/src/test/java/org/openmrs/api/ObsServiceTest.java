@@ -42,6 +42,7 @@ import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.ConceptProposal;
@@ -52,6 +53,7 @@ import org.openmrs.Order;
 import org.openmrs.Patient;
 import org.openmrs.Person;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.impl.ObsServiceImpl;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.obs.ComplexObsHandler;
@@ -63,6 +65,7 @@ import org.openmrs.util.DateUtil;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsConstants.PERSON_TYPE;
 import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.PrivilegeConstants;
 
 /**
  * TODO clean up and add tests for all methods in ObsService
@@ -1302,6 +1305,81 @@ public class ObsServiceTest extends BaseContextSensitiveTest {
 		obsService.getObservationsByPersonAndConcept(null, new Concept(7));
 	}
 	
+	/**
+	 * @see ObsService#getObservationsPerPatient(Cohort,List,int,boolean,PatientObsCallback)
+	 */
+	@Test
+	public void getObservationsPerPatient_shouldCallBackWithTheMostRecentObservationsOfEachPatientAndQuestion() {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		
+		Map<Integer, List<Integer>> obsIds = getObsIdsPerPatient(cohort, Arrays.asList(new Concept(5497), new Concept(
+		        5089)), 2, true);
+		
+		assertEquals(1, obsIds.size());
+		assertEquals(Arrays.asList(16, 10, 11, 9), obsIds.get(7));
+	}
+	
+	/**
+	 * @see ObsService#getObservationsPerPatient(Cohort,List,int,boolean,PatientObsCallback)
+	 */
+	@Test
+	public void getObservationsPerPatient_shouldCallBackWithTheEarliestObservationsOfEachPatientAndQuestion() {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		
+		Map<Integer, List<Integer>> obsIds = getObsIdsPerPatient(cohort, Arrays.asList(new Concept(5089), new Concept(
+		        5497)), 1, false);
+		
+		assertEquals(Arrays.asList(7, 9), obsIds.get(7));
+	}
+	
+	/**
+	 * @see ObsService#getObservationsPerPatient(Cohort,List,int,boolean,PatientObsCallback)
+	 */
+	@Test
+	public void getObservationsPerPatient_shouldNotCallBackForPatientsWithoutObservations() {
+		Cohort cohort = new Cohort();
+		cohort.addMember(7);
+		cohort.addMember(999);
+		
+		Map<Integer, List<Integer>> obsIds = getObsIdsPerPatient(cohort, Collections.singletonList(new Concept(5089)), 5,
+		    true);
+		
+		assertEquals(Collections.singleton(7), obsIds.keySet());
+		assertEquals(Arrays.asList(16, 10, 7), obsIds.get(7));
+	}
+	
+	/**
+	 * @see ObsService#getObservationsPerPatient(Cohort,List,int,boolean,PatientObsCallback)
+	 */
+	@Test
+	public void getObservationsPerPatient_shouldCallBackForAllPatientsIfTheCohortIsNull() {
+		Map<Integer, List<Integer>> obsIds = getObsIdsPerPatient(null, Collections.singletonList(new Concept(5089)), 1,
+		    true);
+		
+		assertEquals(Collections.singletonMap(7, Collections.singletonList(16)), obsIds);
+	}
+	
+	private Map<Integer, List<Integer>> getObsIdsPerPatient(Cohort cohort, List<Concept> questions, int maxObsPerQuestion,
+	        boolean mostRecent) {
+		final Map<Integer, List<Integer>> obsIdsPerPatient = new HashMap<>();
+		PatientObsCallback callback = new PatientObsCallback() {
+			
+			@Override
+			public void handle(Integer patientId, List<Obs> observations) {
+				assertFalse(obsIdsPerPatient.containsKey(patientId));
+				List<Integer> obsIds = new ArrayList<>();
+				for (Obs obs : observations) {
+					obsIds.add(obs.getObsId());
+				}
+				obsIdsPerPatient.put(patientId, obsIds);
+			}
+		};
+		Context.getObsService().getObservationsPerPatient(cohort, questions, maxObsPerQuestion, mostRecent, callback);
+		return obsIdsPerPatient;
+	}
+	
 	/**
 	 * @see ObsService#purgeObs(Obs)
 	 */
@@ -1923,4 +2001,152 @@ public class ObsServiceTest extends BaseContextSensitiveTest {
 			}
 		}
 	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldSaveNewObsAndTheirGroupMembers() {
+		Obs parentObs = newObs(null);
+		Obs groupMember = newObs(1.0);
+		parentObs.addGroupMember(groupMember);
+		Obs otherObs = newObs(2.0);
+		
+		List<Obs> saved = Context.getObsService().saveObs(Arrays.asList(parentObs, otherObs), null);
+		
+		assertEquals(Arrays.asList(parentObs, otherObs), saved);
+		assertNotNull(parentObs.getObsId());
+		assertNotNull(groupMember.getObsId());
+		assertNotNull(otherObs.getObsId());
+		assertNotNull(groupMember.getCreator());
+	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldVoidEditedObsAndReturnTheirReplacements() {
+		executeDataSet(INITIAL_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs obs7 = os.getObs(7);
+		obs7.setValueNumeric(1.0);
+		Obs obs8 = os.getObs(8);
+		obs8.setComment("edited in a batch");
+		Obs newObs = newObs(3.0);
+		
+		List<Obs> saved = os.saveObs(Arrays.asList(obs7, newObs, obs8), "batch edit");
+		
+		assertEquals(3, saved.size());
+		assertEquals(newObs, saved.get(1));
+		assertNotNull(newObs.getObsId());
+		
+		Obs replacement7 = saved.get(0);
+		assertFalse(replacement7.getObsId().equals(7));
+		assertEquals(1.0, replacement7.getValueNumeric(), 0);
+		assertTrue(replacement7.getPreviousVersion().getVoided());
+		assertEquals("batch edit", replacement7.getPreviousVersion().getVoidReason());
+		
+		Obs replacement8 = saved.get(2);
+		assertEquals("edited in a batch", replacement8.getComment());
+		
+		Context.flushSession();
+		Context.clearSession();
+		assertTrue(os.getObs(7).getVoided());
+		assertTrue(os.getObs(8).getVoided());
+		assertFalse(os.getObs(replacement7.getObsId()).getVoided());
+		assertEquals(os.getObs(8), os.getObs(replacement8.getObsId()).getPreviousVersion());
+	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldReturnAnObsWithoutChangesAsItIs() {
+		executeDataSet(ENCOUNTER_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs obs = os.getObs(14);
+		assertFalse(obs.isDirty());
+		
+		List<Obs> saved = os.saveObs(Collections.singletonList(obs), "no change");
+		
+		assertTrue(saved.get(0) == obs);
+		assertFalse(obs.getVoided());
+	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldFailIfAnEditedObsIsGivenWithoutAChangeMessage() {
+		Obs obs = Context.getObsService().getObs(7);
+		obs.setValueNumeric(1.0);
+		
+		expectedException.expect(APIException.class);
+		expectedException.expectMessage(Context.getMessageSourceService().getMessage("Obs.error.ChangeMessage.required"));
+		Context.getObsService().saveObs(Arrays.asList(newObs(1.0), obs), null);
+	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldFailIfAnyObsIsInvalid() {
+		Obs invalidObs = newObs(1.0);
+		invalidObs.setConcept(null);
+		
+		expectedException.expect(ValidationException.class);
+		Context.getObsService().saveObs(Arrays.asList(newObs(1.0), invalidObs), null);
+	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldNotRequireTheEditObsPrivilegeForObsWithoutChanges() {
+		executeDataSet(ENCOUNTER_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs unchangedObs = os.getObs(14);
+		Obs newObs = newObs(1.0);
+		Context.becomeUser(Context.getUserService().getUserByUsername("butch").getSystemId());
+		Context.addProxyPrivilege(PrivilegeConstants.ADD_OBS);
+		try {
+			List<Obs> saved = os.saveObs(Arrays.asList(unchangedObs, newObs), "no change");
+			
+			assertTrue(saved.get(0) == unchangedObs);
+			assertNotNull(newObs.getObsId());
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.ADD_OBS);
+		}
+	}
+	
+	/**
+	 * @see ObsService#saveObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveObs_shouldRequireTheEditObsPrivilegeForChangedObs() {
+		executeDataSet(ENCOUNTER_OBS_XML);
+		ObsService os = Context.getObsService();
+		Obs changedObs = os.getObs(14);
+		changedObs.setComment("changed");
+		Context.becomeUser(Context.getUserService().getUserByUsername("butch").getSystemId());
+		Context.addProxyPrivilege(PrivilegeConstants.ADD_OBS);
+		try {
+			expectedException.expect(ContextAuthenticationException.class);
+			os.saveObs(Collections.singletonList(changedObs), "changed");
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.ADD_OBS);
+		}
+	}
+	
+	private Obs newObs(Double valueNumeric) {
+		Obs obs = new Obs();
+		obs.setConcept(Context.getConceptService().getConcept(3));
+		obs.setObsDatetime(new Date());
+		obs.setPerson(new Patient(2));
+		obs.setLocation(new Location(1));
+		obs.setValueNumeric(valueNumeric);
+		return obs;
+	}
 }
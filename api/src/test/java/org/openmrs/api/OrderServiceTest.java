@@ -256,6 +256,55 @@ public class OrderServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(N, uniqueOrderNumbers.size());
 	}
 	
+	/**
+	 * @see OrderService#reserveOrderNumberSeedSequenceValues(int)
+	 */
+	@Test
+	public void reserveOrderNumberSeedSequenceValues_shouldReserveTheGivenNumberOfConsecutiveSeeds() {
+		Long first = orderService.reserveOrderNumberSeedSequenceValues(10);
+		assertEquals(Long.valueOf(first + 10), orderService.getNextOrderNumberSeedSequenceValue());
+	}
+	
+	/**
+	 * @see OrderNumberGenerator#getNewOrderNumber(OrderContext)
+	 */
+	@Test
+	public void getNewOrderNumber_shouldHandOutConsecutiveNumbersFromAReservedBlock() {
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "5"));
+		OrderNumberGenerator generator = (OrderNumberGenerator) orderService;
+		
+		try {
+			String first = generator.getNewOrderNumber(null);
+			String second = generator.getNewOrderNumber(null);
+			Long firstSeed = Long.valueOf(first.substring(first.indexOf('-') + 1));
+			
+			assertEquals("ORD-" + (firstSeed + 1), second);
+			assertEquals(Long.valueOf(firstSeed + 5), orderService.getNextOrderNumberSeedSequenceValue());
+		}
+		finally {
+			//discard the seeds left in the reserved block
+			Context.getAdministrationService().saveGlobalProperty(
+			    new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "1"));
+		}
+	}
+	
+	/**
+	 * @see OrderNumberGenerator#getNewOrderNumber(OrderContext)
+	 */
+	@Test
+	public void getNewOrderNumber_shouldApplyAChangedBlockSizeImmediately() {
+		AdministrationService as = Context.getAdministrationService();
+		as.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "5"));
+		OrderNumberGenerator generator = (OrderNumberGenerator) orderService;
+		String first = generator.getNewOrderNumber(null);
+		Long firstSeed = Long.valueOf(first.substring(first.indexOf('-') + 1));
+		
+		as.saveGlobalProperty(new GlobalProperty(OpenmrsConstants.GP_ORDER_NUMBER_SEED_BLOCK_SIZE, "1"));
+		
+		assertEquals("ORD-" + (firstSeed + 5), generator.getNewOrderNumber(null));
+	}
+	
 	/**
 	 * @see OrderService#getOrderByOrderNumber(String)
 	 */
@@ -2005,6 +2005,34 @@ public class PatientServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals("NEW-ID", updatedPatientIdentifier.getIdentifier());
 	}
 	
+	/**
+	 * @see PatientService#savePatientIdentifier(PatientIdentifier)
+	 */
+	@Test
+	public void savePatientIdentifier_shouldUpdateTheDuplicateKeysOfThePatient() throws Exception {
+		PatientIdentifier patientIdentifier = patientService.getPatientIdentifier(1);
+		patientIdentifier.setIdentifier("102");
+		
+		patientService.savePatientIdentifier(patientIdentifier);
+		
+		Set<String> duplicateKeys = patientService.getPatient(2).getDuplicateKeys();
+		assertTrue(duplicateKeys.contains("I102"));
+		assertTrue(duplicateKeys.contains("I1016"));
+		assertFalse(duplicateKeys.contains("I101"));
+	}
+	
+	/**
+	 * @see PatientService#voidPatientIdentifier(PatientIdentifier,String)
+	 */
+	@Test
+	public void voidPatientIdentifier_shouldRemoveTheDuplicateKeyOfTheIdentifier() throws Exception {
+		patientService.voidPatientIdentifier(patientService.getPatientIdentifier(1), "wrong");
+		
+		Set<String> duplicateKeys = patientService.getPatient(2).getDuplicateKeys();
+		assertTrue(duplicateKeys.contains("I1016"));
+		assertFalse(duplicateKeys.contains("I101"));
+	}
+	
 	@Test
 	public void purgePatientIdentifier_shouldDeletePatientIdentifierFromDatabase() throws Exception {
 		PatientIdentifier patientIdentifier = patientService.getPatientIdentifier(7);
@@ -3212,5 +3240,105 @@ public class PatientServiceTest extends BaseContextSensitiveTest {
 		assertEquals(1, encounterService.getEncounter(57).getObsAtTopLevel(false).size());
 		assertEquals(2, encounterService.getEncounter(57).getObsAtTopLevel(true).size());
 	}
-
+	
+	/**
+	 * @see PatientService#getDuplicatePatientCandidates(int,Integer,Integer)
+	 */
+	@Test
+	public void getDuplicatePatientCandidates_shouldReturnPairsOfPatientsSharingKeysWithTheirScore() {
+		saveCopiesOfPatient2(6, 7);
+		
+		List<DuplicatePatientCandidate> candidates = patientService.getDuplicatePatientCandidates(1, null, null);
+		
+		assertEquals(3, candidates.size());
+		assertCandidate(candidates.get(0), 2, 6, 3);
+		assertCandidate(candidates.get(1), 2, 7, 3);
+		assertCandidate(candidates.get(2), 6, 7, 3);
+	}
+	
+	/**
+	 * @see PatientService#getDuplicatePatientCandidates(int,Integer,Integer)
+	 */
+	@Test
+	public void getDuplicatePatientCandidates_shouldNotReturnPairsWithALowerScoreThanTheMinimum() {
+		saveCopiesOfPatient2(7);
+		
+		assertEquals(1, patientService.getDuplicatePatientCandidates(3, null, null).size());
+		assertEquals(0, patientService.getDuplicatePatientCandidates(4, null, null).size());
+	}
+	
+	/**
+	 * @see PatientService#getDuplicatePatientCandidates(int,Integer,Integer)
+	 */
+	@Test
+	public void getDuplicatePatientCandidates_shouldNotReturnVoidedPatients() {
+		saveCopiesOfPatient2(6, 7);
+		patientService.voidPatient(patientService.getPatient(6), "duplicate");
+		Context.flushSession();
+		
+		List<DuplicatePatientCandidate> candidates = patientService.getDuplicatePatientCandidates(1, null, null);
+		
+		assertEquals(1, candidates.size());
+		assertCandidate(candidates.get(0), 2, 7, 3);
+	}
+	
+	/**
+	 * @see PatientService#getDuplicatePatientCandidates(int,Integer,Integer)
+	 */
+	@Test
+	public void getDuplicatePatientCandidates_shouldReturnThePairsOfTheNextPatientsAfterTheGivenPatient() {
+		saveCopiesOfPatient2(6, 7);
+		
+		List<DuplicatePatientCandidate> candidates = patientService.getDuplicatePatientCandidates(1, null, 1);
+		
+		assertEquals(2, candidates.size());
+		assertCandidate(candidates.get(0), 2, 6, 3);
+		assertCandidate(candidates.get(1), 2, 7, 3);
+		
+		candidates = patientService.getDuplicatePatientCandidates(1, 2, 1);
+		
+		assertEquals(1, candidates.size());
+		assertCandidate(candidates.get(0), 6, 7, 3);
+		
+		assertEquals(0, patientService.getDuplicatePatientCandidates(1, 6, 1).size());
+	}
+	
+	/**
+	 * @see PatientService#getDuplicatePatientCandidates(int,Integer,Integer)
+	 */
+	@Test
+	public void getDuplicatePatientCandidates_shouldIgnoreKeysSharedByMorePatientsThanAllowed() {
+		saveCopiesOfPatient2(6, 7);
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_DUPLICATE_PATIENT_MAX_KEY_MEMBERS, "2"));
+		
+		assertEquals(0, patientService.getDuplicatePatientCandidates(1, null, null).size());
+		
+		Context.getAdministrationService().saveGlobalProperty(
+		    new GlobalProperty(OpenmrsConstants.GP_DUPLICATE_PATIENT_MAX_KEY_MEMBERS, "3"));
+		
+		assertEquals(3, patientService.getDuplicatePatientCandidates(1, null, null).size());
+	}
+	
+	/**
+	 * Gives the patients with the given ids the preferred name and birthdate of patient 2 and saves
+	 * them all so that their blocking keys are computed
+	 */
+	private void saveCopiesOfPatient2(Integer... patientIds) {
+		Patient original = patientService.savePatient(patientService.getPatient(2));
+		for (Integer patientId : patientIds) {
+			Patient copy = patientService.getPatient(patientId);
+			copy.getPersonName().setGivenName(original.getGivenName());
+			copy.getPersonName().setFamilyName(original.getFamilyName());
+			copy.setBirthdate(original.getBirthdate());
+			patientService.savePatient(copy);
+		}
+		Context.flushSession();
+	}
+	
+	private void assertCandidate(DuplicatePatientCandidate candidate, int patientId, int otherPatientId, int score) {
+		assertEquals(Integer.valueOf(patientId), candidate.getPatientId());
+		assertEquals(Integer.valueOf(otherPatientId), candidate.getOtherPatientId());
+		assertEquals(score, candidate.getScore());
+	}
 }
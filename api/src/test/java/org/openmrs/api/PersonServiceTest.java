@@ -1780,6 +1780,34 @@ public class PersonServiceTest extends BaseContextSensitiveTest {
 		Assert.assertEquals(voidedPersonName.getVoidReason(), "Test Voiding PersonName");
 	}
 	
+	/**
+	 * @see PersonService#voidPersonName(org.openmrs.PersonName, String)
+	 */
+	@Test
+	public void voidPersonName_shouldRemoveTheDuplicateKeysOfTheNameFromThePatient() throws Exception {
+		// John Hornblower3 is the only name of patient 2 with the given name John
+		personService.voidPersonName(personService.getPersonName(22), "wrong");
+		
+		Set<String> duplicateKeys = ps.getPatient(2).getDuplicateKeys();
+		Assert.assertTrue(duplicateKeys.contains("NH630H651"));
+		Assert.assertFalse(duplicateKeys.contains("NJ500H651"));
+	}
+	
+	/**
+	 * @see PersonService#savePersonName(org.openmrs.PersonName)
+	 */
+	@Test
+	public void savePersonName_shouldUpdateTheDuplicateKeysOfThePatient() throws Exception {
+		PersonName personName = personService.getPersonName(22);
+		personName.setFamilyName("Smith");
+		
+		personService.savePersonName(personName);
+		
+		Set<String> duplicateKeys = ps.getPatient(2).getDuplicateKeys();
+		Assert.assertTrue(duplicateKeys.contains("NJ500S530"));
+		Assert.assertFalse(duplicateKeys.contains("NJ500H651"));
+	}
+	
 	/**
 	 * @see PersonService#unvoidPersonName(org.openmrs.PersonName)
 	 */
@@ -843,6 +843,69 @@ public class VisitServiceTest extends BaseContextSensitiveTest {
 		assertTrue("Not all active unvoided vists were closed", activeVisitCount == 0);
 	}
 	
+	/**
+	 * @see VisitService#stopVisits(Date,int)
+	 */
+	@Test
+	public void stopVisits_shouldCloseAllUnvoidedActiveVisitMatchingTheSpecifiedVisitTypesInBatches() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		int activeVisitCount = getActiveVisitsToAutoClose().size();
+		//sanity check
+		assertTrue("There should be more active visits than the batch size for this test to be valid",
+		    activeVisitCount > 2);
+		
+		assertEquals(activeVisitCount, visitService.stopVisits(null, 2));
+		
+		assertEquals(0, getActiveVisitsToAutoClose().size());
+		Context.clearSession();
+		Visit visit = visitService.getVisit(104);
+		assertNotNull(visit.getStopDatetime());
+		assertEquals(Context.getAuthenticatedUser(), visit.getChangedBy());
+		assertNotNull(visit.getDateChanged());
+	}
+	
+	/**
+	 * @see VisitService#stopVisits(Date,int)
+	 */
+	@Test
+	public void stopVisits_shouldCloseVisitsOneAtATimeIfBulkUpdatesAreDisabled() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		globalPropertiesTestHelper.setGlobalProperty(OpenmrsConstants.GP_AUTO_CLOSE_VISITS_IN_BULK, "false");
+		int activeVisitCount = getActiveVisitsToAutoClose().size();
+		
+		assertEquals(activeVisitCount, visitService.stopVisits(null, 2));
+		
+		assertEquals(0, getActiveVisitsToAutoClose().size());
+		assertNotNull(visitService.getVisit(104).getStopDatetime());
+	}
+	
+	/**
+	 * @see VisitService#stopVisits(Date,int)
+	 */
+	@Test
+	public void stopVisits_shouldCloseVisitsWithBulkUpdatesIfTheyAreEnabled() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		globalPropertiesTestHelper.setGlobalProperty(OpenmrsConstants.GP_AUTO_CLOSE_VISITS_IN_BULK, "true");
+		int activeVisitCount = getActiveVisitsToAutoClose().size();
+		
+		assertEquals(activeVisitCount, visitService.stopVisits(null, 2));
+		
+		assertEquals(0, getActiveVisitsToAutoClose().size());
+		Context.clearSession();
+		Visit visit = visitService.getVisit(104);
+		assertNotNull(visit.getStopDatetime());
+		assertEquals(Context.getAuthenticatedUser(), visit.getChangedBy());
+	}
+	
+	private List<List<Object>> getActiveVisitsToAutoClose() {
+		String[] visitTypeNames = StringUtils.stripAll(StringUtils.split(Context.getAdministrationService()
+		        .getGlobalProperty(OpenmrsConstants.GP_VISIT_TYPES_TO_AUTO_CLOSE), ","));
+		return Context.getAdministrationService().executeSQL(
+		    "SELECT visit_id FROM visit WHERE voided = 0 AND date_stopped IS NULL AND visit_type_id IN"
+		            + " (SELECT visit_type_id FROM visit_type WHERE NAME IN ('" + StringUtils.join(visitTypeNames, "','")
+		            + "'))", true);
+	}
+	
 	/**
 	 * @see VisitService#saveVisit(Visit)
 	 */
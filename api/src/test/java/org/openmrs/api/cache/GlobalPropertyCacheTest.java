@@ -0,0 +1,125 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link GlobalPropertyCache}
+ */
+public class GlobalPropertyCacheTest {
+	
+	private GlobalPropertyCache globalPropertyCache;
+	
+	private AtomicInteger loads;
+	
+	@Before
+	public void setUp() {
+		globalPropertyCache = new GlobalPropertyCache();
+		globalPropertyCache.setCacheManager(new ConcurrentMapCacheManager(GlobalPropertyCache.CACHE_NAME));
+		loads = new AtomicInteger();
+	}
+	
+	private Supplier<String> loader(final String value) {
+		return () -> {
+			loads.incrementAndGet();
+			return value;
+		};
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#get(String,Supplier)
+	 */
+	@Test
+	public void get_shouldReturnTheCachedValueWithoutCallingTheLoader() {
+		assertEquals("value", globalPropertyCache.get("some.property", loader("value")));
+		assertEquals("value", globalPropertyCache.get("Some.Property", loader("other value")));
+		
+		assertEquals(1, loads.get());
+		assertEquals(1, globalPropertyCache.getHitCount());
+		assertEquals(1, globalPropertyCache.getMissCount());
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#get(String,Supplier)
+	 */
+	@Test
+	public void get_shouldCacheNullValues() {
+		assertNull(globalPropertyCache.get("some.property", loader(null)));
+		assertNull(globalPropertyCache.get("some.property", loader("value")));
+		
+		assertEquals(1, loads.get());
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#get(String,Supplier)
+	 */
+	@Test
+	public void get_shouldNotCacheValuesChangedInTheCurrentTransaction() {
+		globalPropertyCache.get("some.property", loader("old value"));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			globalPropertyCache.globalPropertyChanged(new GlobalProperty("some.property", "new value"));
+			assertEquals("new value", globalPropertyCache.get("some.property", loader("new value")));
+			assertEquals("new value", globalPropertyCache.get("some.property", loader("new value")));
+			assertEquals(3, loads.get());
+			
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+			}
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertEquals("old value", globalPropertyCache.get("some.property", loader("old value")));
+		assertEquals(4, loads.get());
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#get(String,Supplier)
+	 */
+	@Test
+	public void get_shouldNotCacheValuesEvictedWhileTheyWereLoaded() {
+		assertEquals("old value", globalPropertyCache.get("some.property", () -> {
+			loads.incrementAndGet();
+			// another thread commits a change after the old value was read
+			globalPropertyCache.globalPropertyChanged(new GlobalProperty("some.property", "new value"));
+			return "old value";
+		}));
+		
+		assertEquals("new value", globalPropertyCache.get("some.property", loader("new value")));
+		assertEquals(2, loads.get());
+	}
+	
+	/**
+	 * @see GlobalPropertyCache#globalPropertyDeleted(String)
+	 */
+	@Test
+	public void globalPropertyDeleted_shouldEvictTheProperty() {
+		globalPropertyCache.get("some.property", loader("value"));
+		globalPropertyCache.globalPropertyDeleted("some.property");
+		
+		assertNull(globalPropertyCache.get("some.property", loader(null)));
+		assertEquals(2, loads.get());
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.context;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openmrs.api.APIException;
+import org.openmrs.api.PatientService;
+import org.openmrs.test.BaseContextSensitiveTest;
+
+/**
+ * Tests the {@link ServiceContext} service lookup
+ */
+public class ServiceContextTest extends BaseContextSensitiveTest {
+
+	@After
+	public void finishRefreshing() {
+		Context.getServiceContext().doneRefreshingContext();
+	}
+
+	/**
+	 * @see ServiceContext#getService(Class)
+	 */
+	@Test
+	public void getService_shouldReturnTheServiceWhenNoRefreshIsRunning() {
+		ServiceContext serviceContext = Context.getServiceContext();
+		assertFalse(serviceContext.isRefreshingContext());
+		assertNotNull(serviceContext.getService(PatientService.class));
+	}
+
+	/**
+	 * @see ServiceContext#getService(Class)
+	 */
+	@Test(expected = APIException.class)
+	public void getService_shouldFailForANullClass() {
+		Context.getServiceContext().getService(null);
+	}
+
+	/**
+	 * @see ServiceContext#getService(Class)
+	 */
+	@Test
+	public void getService_shouldWaitUntilTheContextIsDoneRefreshing() throws Exception {
+		final ServiceContext serviceContext = Context.getServiceContext();
+		final AtomicReference<Object> found = new AtomicReference<Object>();
+		final CountDownLatch done = new CountDownLatch(1);
+
+		serviceContext.startRefreshingContext();
+		Thread lookup = new Thread() {
+
+			@Override
+			public void run() {
+				found.set(serviceContext.getService(PatientService.class));
+				done.countDown();
+			}
+		};
+		lookup.start();
+
+		assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+
+		serviceContext.doneRefreshingContext();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertNotNull(found.get());
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.context;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Privilege;
+import org.openmrs.Role;
+import org.openmrs.api.UserService;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.util.PrivilegeConstants;
+
+/**
+ * Tests the cached privileges of the {@link UserContext}
+ */
+public class UserContextTest extends BaseContextSensitiveTest {
+
+	private static final String TEST_PRIVILEGE = "Some Test Privilege";
+
+	private UserService userService;
+
+	@Before
+	public void before() {
+		userService = Context.getUserService();
+		userService.savePrivilege(new Privilege(TEST_PRIVILEGE, "A privilege only used by this test"));
+	}
+
+	/**
+	 * @see UserContext#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldAuthorizeSuperUserForAnyPrivilege() {
+		assertTrue(Context.getAuthenticatedUser().isSuperUser());
+		assertTrue(Context.hasPrivilege(TEST_PRIVILEGE));
+		assertTrue(Context.hasPrivilege("Some privilege nobody has ever defined"));
+	}
+
+	/**
+	 * @see UserContext#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldRecomputePrivilegesWhenAnotherUserIsAuthenticated() {
+		assertTrue(Context.hasPrivilege(TEST_PRIVILEGE));
+
+		Context.becomeUser("butch");
+
+		assertFalse(Context.hasPrivilege(TEST_PRIVILEGE));
+	}
+
+	/**
+	 * @see UserContext#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldReflectPrivilegesGrantedToARoleOfTheAuthenticatedUser() {
+		Role provider = userService.getRole("Provider");
+		Privilege privilege = userService.getPrivilege(TEST_PRIVILEGE);
+
+		Context.becomeUser("butch");
+		assertFalse(Context.hasPrivilege(TEST_PRIVILEGE));
+
+		Context.addProxyPrivilege(PrivilegeConstants.MANAGE_ROLES);
+		Context.addProxyPrivilege(TEST_PRIVILEGE);
+		try {
+			provider.addPrivilege(privilege);
+			userService.saveRole(provider);
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.MANAGE_ROLES);
+			Context.removeProxyPrivilege(TEST_PRIVILEGE);
+		}
+
+		assertTrue(Context.hasPrivilege(TEST_PRIVILEGE));
+	}
+
+	/**
+	 * @see UserContext#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldReflectPrivilegesRevokedFromARoleOfTheAuthenticatedUser() {
+		Role provider = userService.getRole("Provider");
+		Privilege privilege = userService.getPrivilege(TEST_PRIVILEGE);
+		provider.addPrivilege(privilege);
+		userService.saveRole(provider);
+
+		Context.becomeUser("butch");
+		assertTrue(Context.hasPrivilege(TEST_PRIVILEGE));
+
+		provider.removePrivilege(privilege);
+		UserContext.privilegesChanged();
+
+		assertFalse(Context.hasPrivilege(TEST_PRIVILEGE));
+	}
+
+	/**
+	 * @see UserContext#hasPrivilege(String)
+	 */
+	@Test
+	public void hasPrivilege_shouldReflectRolesAddedToOrRemovedFromTheAuthenticatedUser() {
+		Role role = new Role("Test Role", "A role only used by this test");
+		role.addPrivilege(userService.getPrivilege(TEST_PRIVILEGE));
+		userService.saveRole(role);
+
+		Context.becomeUser("butch");
+		assertFalse(Context.hasPrivilege(TEST_PRIVILEGE));
+
+		Context.getAuthenticatedUser().addRole(role);
+		assertTrue(Context.hasPrivilege(TEST_PRIVILEGE));
+
+		Context.getAuthenticatedUser().removeRole(role);
+		assertFalse(Context.hasPrivilege(TEST_PRIVILEGE));
+	}
+}
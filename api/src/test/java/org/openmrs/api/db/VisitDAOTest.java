@@ -10,13 +10,20 @@
 package org.openmrs.api.db;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.openmrs.User;
+import org.openmrs.Visit;
 import org.openmrs.VisitType;
 import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
 import org.openmrs.test.BaseContextSensitiveTest;
 
 /**
@@ -75,4 +82,49 @@ public class VisitDAOTest extends BaseContextSensitiveTest {
 		cal.set(Calendar.MILLISECOND, 999);
 		Assert.assertEquals(105, dao.getNextVisit(dao.getVisit(1), visitTypes, cal.getTime()).getVisitId().intValue());
 	}
+	
+	/**
+	 * @see VisitDAO#getActiveVisitIds(Integer,Collection<VisitType>,Date,int)
+	 */
+	@Test
+	public void getActiveVisitIds_shouldReturnTheIdsOfUnvoidedActiveVisitsMatchingTheSpecifiedTypesAndStartDate() {
+		executeDataSet(VISITS_INCLUDE_VISITS_TO_AUTO_CLOSE_XML);
+		List<VisitType> visitTypes = Collections.singletonList(dao.getVisitType(4));
+		Calendar cal = Calendar.getInstance();
+		cal.set(2005, 0, 4, 23, 59, 59);
+		cal.set(Calendar.MILLISECOND, 999);
+		Assert.assertEquals(Arrays.asList(105, 106), dao.getActiveVisitIds(null, visitTypes, cal.getTime(), 10));
+	}
+	
+	/**
+	 * @see VisitDAO#getActiveVisitIds(Integer,Collection<VisitType>,Date,int)
+	 */
+	@Test
+	public void getActiveVisitIds_shouldReturnTheIdsAfterTheGivenIdUpToTheMaximumNumberOfResults() {
+		executeDataSet(VISITS_INCLUDE_VISITS_TO_AUTO_CLOSE_XML);
+		List<VisitType> visitTypes = Collections.singletonList(dao.getVisitType(4));
+		Assert.assertEquals(Arrays.asList(104), dao.getActiveVisitIds(null, visitTypes, null, 1));
+		Assert.assertEquals(Arrays.asList(105, 106), dao.getActiveVisitIds(104, visitTypes, null, 10));
+	}
+	
+	/**
+	 * @see VisitDAO#stopVisits(Collection<Integer>,Date,User,Date)
+	 */
+	@Test
+	public void stopVisits_shouldStopTheActiveVisitsWithTheGivenIds() {
+		executeDataSet(VISITS_INCLUDE_VISITS_TO_AUTO_CLOSE_XML);
+		Date stopDate = new Date();
+		User user = Context.getAuthenticatedUser();
+		
+		Assert.assertEquals(2, dao.stopVisits(Arrays.asList(102, 104, 105), stopDate, user, stopDate));
+		Context.clearSession();
+		
+		Visit visit = dao.getVisit(104);
+		Assert.assertEquals(stopDate.getTime(), visit.getStopDatetime().getTime());
+		Assert.assertEquals(user, visit.getChangedBy());
+		Assert.assertEquals(stopDate.getTime(), visit.getDateChanged().getTime());
+		Assert.assertNotNull(dao.getVisit(105).getStopDatetime());
+		Assert.assertNull(dao.getVisit(106).getStopDatetime());
+		Assert.assertNull(dao.getVisit(102).getChangedBy());
+	}
 }
@@ -0,0 +1,216 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.metrics.CacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ConceptMappingIndexTest {
+	
+	private static final String SOURCE = "sstrm";
+	
+	private List<Object[]> mappings;
+	
+	private int loadCount;
+	
+	private boolean clearWhileLoading;
+	
+	private ConceptMappingIndex index;
+	
+	@Before
+	public void before() {
+		mappings = new ArrayList<Object[]>();
+		index = new ConceptMappingIndex() {
+			
+			@Override
+			protected List<Object[]> loadMappings(Session session, Collection<String> codes, String source) {
+				loadCount++;
+				if (clearWhileLoading) {
+					clear();
+				}
+				List<Object[]> rows = new ArrayList<Object[]>();
+				for (Object[] mapping : mappings) {
+					if (mapping[0].equals(source) && codes.contains(((String) mapping[1]).toLowerCase())) {
+						rows.add(new Object[] { mapping[1], mapping[2] });
+					}
+				}
+				return rows;
+			}
+		};
+	}
+	
+	@After
+	public void after() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clear();
+		}
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getConceptIds(Collection,String,Session)
+	 */
+	@Test
+	public void getConceptIds_shouldReturnTheConceptIdsMappedToTheCodesIgnoringCase() {
+		addMapping("WGT234", 5089);
+		addMapping("127689", 16);
+		addMapping("127689", 6);
+		
+		Map<String, List<Integer>> conceptIds = index.getConceptIds(Arrays.asList("wgt234", "127689", null), "SSTRM", null);
+		
+		assertEquals(Arrays.asList("wgt234", "127689"), new ArrayList<String>(conceptIds.keySet()));
+		assertEquals(Collections.singletonList(5089), conceptIds.get("wgt234"));
+		assertEquals(Arrays.asList(16, 6), conceptIds.get("127689"));
+		assertEquals(1, loadCount);
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getConceptIds(Collection,String,Session)
+	 */
+	@Test
+	public void getConceptIds_shouldRememberMappingsWhichWereLookedUp() {
+		addMapping("WGT234", 5089);
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		
+		Map<String, List<Integer>> conceptIds = index.getConceptIds(Collections.singletonList("wgt234"), "SSTRM", null);
+		
+		assertEquals(Collections.singletonList(5089), conceptIds.get("wgt234"));
+		assertEquals(1, loadCount);
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getConceptIds(Collection,String,Session)
+	 */
+	@Test
+	public void getConceptIds_shouldRememberCodesWhichAreNotMapped() {
+		index.getConceptIds(Collections.singletonList("unknown"), SOURCE, null);
+		
+		Map<String, List<Integer>> conceptIds = index.getConceptIds(Collections.singletonList("unknown"), SOURCE, null);
+		
+		assertTrue(conceptIds.get("unknown").isEmpty());
+		assertEquals(1, loadCount);
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getConceptIds(Collection,String,Session)
+	 */
+	@Test
+	public void getConceptIds_shouldNotRememberMappingsLookedUpAfterAChangeInTheCurrentTransaction() {
+		TransactionSynchronizationManager.initSynchronization();
+		index.mappingsChanged();
+		addMapping("WGT234", 5089);
+		
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		
+		assertEquals(2, loadCount);
+		assertEquals(0, index.getMetrics().getElementCount());
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getConceptIds(Collection,String,Session)
+	 */
+	@Test
+	public void getConceptIds_shouldNotRememberMappingsLookedUpWhileTheIndexWasCleared() {
+		addMapping("WGT234", 5089);
+		clearWhileLoading = true;
+		
+		assertEquals(Collections.singletonList(5089), index.getConceptIds(Collections.singletonList("WGT234"), SOURCE,
+		    null).get("WGT234"));
+		
+		assertEquals(0, index.getMetrics().getElementCount());
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getConceptIds(Collection,String,Session)
+	 */
+	@Test
+	public void getConceptIds_shouldOnlyRememberMappingsOnceTheTransactionIsCommitted() {
+		addMapping("WGT234", 5089);
+		TransactionSynchronizationManager.initSynchronization();
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		assertEquals(1, loadCount);
+		assertEquals(0, index.getMetrics().getElementCount());
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertEquals(0, index.getMetrics().getElementCount());
+		
+		TransactionSynchronizationManager.initSynchronization();
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertEquals(Collections.singletonList(5089), index.getConceptIds(Collections.singletonList("WGT234"), SOURCE,
+		    null).get("WGT234"));
+		assertEquals(2, loadCount);
+		assertEquals(1, index.getMetrics().getElementCount());
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#mappingsChanged()
+	 */
+	@Test
+	public void mappingsChanged_shouldClearTheIndexAfterTheTransactionCompletes() {
+		index.getConceptIds(Collections.singletonList("WGT234"), SOURCE, null);
+		TransactionSynchronizationManager.initSynchronization();
+		
+		index.mappingsChanged();
+		
+		assertTrue(index.isChangedInTransaction());
+		assertEquals(1, index.getMetrics().getElementCount());
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		assertFalse(index.isChangedInTransaction());
+		assertEquals(0, index.getMetrics().getElementCount());
+	}
+	
+	/**
+	 * @see ConceptMappingIndex#getMetrics()
+	 */
+	@Test
+	public void getMetrics_shouldCountHitsAndMisses() {
+		addMapping("WGT234", 5089);
+		index.getConceptIds(Arrays.asList("WGT234", "unknown"), SOURCE, null);
+		index.getConceptIds(Arrays.asList("WGT234", "unknown", "other"), SOURCE, null);
+		
+		CacheMetrics metrics = index.getMetrics();
+		
+		assertEquals(ConceptMappingIndex.NAME, metrics.getName());
+		assertEquals(2, metrics.getHitCount());
+		assertEquals(3, metrics.getMissCount());
+		assertEquals(3, metrics.getPutCount());
+		assertEquals(3, metrics.getElementCount());
+	}
+	
+	private void addMapping(String code, Integer conceptId) {
+		mappings.add(new Object[] { SOURCE, code, conceptId });
+	}
+	
+	private void completeTransaction(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		for (TransactionSynchronization synchronization : synchronizations) {
+			synchronization.afterCompletion(status);
+		}
+	}
+}
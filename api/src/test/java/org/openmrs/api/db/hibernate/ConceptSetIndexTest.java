@@ -0,0 +1,292 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.ConceptSet;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ConceptSetIndexTest {
+	
+	private List<Object[]> conceptSets;
+	
+	private int loadCount;
+	
+	private ConceptSetIndex index;
+	
+	@Before
+	public void before() {
+		conceptSets = new ArrayList<Object[]>();
+		loadCount = 0;
+		index = new ConceptSetIndex() {
+			
+			@Override
+			protected List<Object[]> loadMembers(Session session) {
+				loadCount++;
+				return new ArrayList<Object[]>(conceptSets);
+			}
+		};
+	}
+	
+	@After
+	public void after() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clear();
+		}
+	}
+	
+	/**
+	 * @see ConceptSetIndex#getConceptIdsInSet(Integer,Session)
+	 */
+	@Test
+	public void getConceptIdsInSet_shouldReturnTheMembersOfNestedSetsInSortOrder() {
+		addMember(1, 5, false, 3.0);
+		addMember(1, 3, true, 2.0);
+		addMember(1, 2, false, 1.0);
+		addMember(3, 4, false, 1.0);
+		
+		assertEquals(Arrays.asList(2, 3, 4, 5), index.getConceptIdsInSet(1, null));
+		assertEquals(Collections.singletonList(4), index.getConceptIdsInSet(3, null));
+		assertTrue(index.getConceptIdsInSet(4, null).isEmpty());
+	}
+	
+	/**
+	 * @see ConceptSetIndex#getConceptIdsInSet(Integer,Session)
+	 */
+	@Test
+	public void getConceptIdsInSet_shouldNotExpandMembersWhichAreNotSets() {
+		addMember(1, 2, false);
+		addMember(2, 3, false);
+		
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+	}
+	
+	/**
+	 * @see ConceptSetIndex#getConceptIdsInSet(Integer,Session)
+	 */
+	@Test
+	public void getConceptIdsInSet_shouldExpandEverySetOnlyOnce() {
+		addMember(1, 2, true);
+		addMember(1, 3, true);
+		addMember(2, 3, true);
+		addMember(3, 1, true);
+		addMember(3, 4, false);
+		
+		assertEquals(Arrays.asList(2, 3, 1, 4, 3), index.getConceptIdsInSet(1, null));
+	}
+	
+	/**
+	 * @see ConceptSetIndex#getConceptIdsInSet(Integer,Session)
+	 */
+	@Test
+	public void getConceptIdsInSet_shouldOnlyShareTheIndexLoadedInATransactionOnceTheTransactionIsCommitted() {
+		addMember(1, 2, false);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertEquals(1, loadCount);
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertEquals(2, loadCount);
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertEquals(2, loadCount);
+	}
+	
+	/**
+	 * @see ConceptSetIndex#getSetIdsContaining(Integer,Session)
+	 */
+	@Test
+	public void getSetIdsContaining_shouldReturnTheSetsContainingTheConceptThroughNestedSets() {
+		addMember(1, 3, true);
+		addMember(2, 4, false);
+		addMember(3, 4, false);
+		addMember(5, 1, true);
+		
+		assertEquals(Arrays.asList(2, 3, 1, 5), index.getSetIdsContaining(4, null));
+		assertTrue(index.getSetIdsContaining(5, null).isEmpty());
+	}
+	
+	/**
+	 * @see ConceptSetIndex#getSetIdsContaining(Integer,Session)
+	 */
+	@Test
+	public void getSetIdsContaining_shouldNotReturnSetsContainingTheConceptThroughMembersWhichAreNotSets() {
+		addMember(1, 2, false);
+		addMember(2, 3, false);
+		
+		assertEquals(Collections.singletonList(2), index.getSetIdsContaining(3, null));
+	}
+	
+	/**
+	 * @see ConceptSetIndex#conceptSetSaved(ConceptSet)
+	 */
+	@Test
+	public void conceptSetSaved_shouldReportChangesInTheCurrentTransaction() {
+		TransactionSynchronizationManager.initSynchronization();
+		assertFalse(index.isChangedInTransaction());
+		
+		index.conceptSetSaved(conceptSet(1, 1, 2, false, 1.0));
+		
+		assertTrue(index.isChangedInTransaction());
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		assertFalse(index.isChangedInTransaction());
+	}
+	
+	/**
+	 * @see ConceptSetIndex#conceptSetSaved(ConceptSet)
+	 */
+	@Test
+	public void conceptSetSaved_shouldUpdateTheIndexOnceTheTransactionIsCommitted() {
+		addMember(1, 2, true, 1.0);
+		addMember(2, 3, false, 1.0);
+		assertEquals(Arrays.asList(2, 3), index.getConceptIdsInSet(1, null));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		index.conceptSetSaved(conceptSet(3, 2, 4, false, 0.5));
+		index.conceptSetSaved(conceptSet(2, 5, 3, false, 1.0));
+		assertEquals(Arrays.asList(2, 3), index.getConceptIdsInSet(1, null));
+		
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertEquals(Arrays.asList(2, 4), index.getConceptIdsInSet(1, null));
+		assertEquals(Collections.singletonList(3), index.getConceptIdsInSet(5, null));
+		assertEquals(Arrays.asList(2, 1), index.getSetIdsContaining(4, null));
+		assertEquals(Collections.singletonList(5), index.getSetIdsContaining(3, null));
+		assertEquals(1, loadCount);
+	}
+	
+	/**
+	 * @see ConceptSetIndex#conceptSetSaved(ConceptSet)
+	 */
+	@Test
+	public void conceptSetSaved_shouldNotUpdateTheIndexIfTheTransactionIsRolledBack() {
+		addMember(1, 2, false);
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		index.conceptSetSaved(conceptSet(2, 1, 3, false, 2.0));
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertEquals(1, loadCount);
+	}
+	
+	/**
+	 * @see ConceptSetIndex#conceptSetDeleted(ConceptSet)
+	 */
+	@Test
+	public void conceptSetDeleted_shouldUpdateTheIndexOnceTheTransactionIsCommitted() {
+		addMember(1, 2, true);
+		addMember(2, 3, false);
+		assertEquals(Arrays.asList(2, 3), index.getConceptIdsInSet(1, null));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		index.conceptSetDeleted(conceptSet(2, 2, 3, false, 1.0));
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertTrue(index.getSetIdsContaining(3, null).isEmpty());
+	}
+	
+	/**
+	 * @see ConceptSetIndex#conceptChanged(Concept)
+	 */
+	@Test
+	public void conceptChanged_shouldUpdateWhetherTheConceptIsASetOnceTheTransactionIsCommitted() {
+		addMember(1, 2, true);
+		addMember(2, 3, false);
+		assertEquals(Arrays.asList(2, 3), index.getConceptIdsInSet(1, null));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		Concept concept = new Concept(2);
+		concept.setSet(false);
+		index.conceptChanged(concept);
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		assertEquals(1, loadCount);
+	}
+	
+	/**
+	 * @see ConceptSetIndex#setsChanged()
+	 */
+	@Test
+	public void setsChanged_shouldLoadTheIndexAgainAfterTheTransactionCompletes() {
+		addMember(1, 2, false);
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		addMember(1, 3, false);
+		index.setsChanged();
+		assertTrue(index.isChangedInTransaction());
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertFalse(index.isChangedInTransaction());
+		assertEquals(Arrays.asList(2, 3), index.getConceptIdsInSet(1, null));
+	}
+	
+	/**
+	 * @see ConceptSetIndex#clear()
+	 */
+	@Test
+	public void clear_shouldLoadTheIndexAgain() {
+		addMember(1, 2, false);
+		assertEquals(Collections.singletonList(2), index.getConceptIdsInSet(1, null));
+		
+		addMember(1, 3, false);
+		index.clear();
+		
+		assertEquals(Arrays.asList(2, 3), index.getConceptIdsInSet(1, null));
+	}
+	
+	private void addMember(Integer setId, Integer conceptId, boolean isSet) {
+		addMember(setId, conceptId, isSet, null);
+	}
+	
+	private void addMember(Integer setId, Integer conceptId, boolean isSet, Double sortWeight) {
+		conceptSets.add(new Object[] { conceptSets.size() + 1, setId, conceptId, sortWeight, isSet });
+	}
+	
+	private ConceptSet conceptSet(Integer conceptSetId, Integer setId, Integer conceptId, boolean isSet, Double sortWeight) {
+		Concept concept = new Concept(conceptId);
+		concept.setSet(isSet);
+		ConceptSet conceptSet = new ConceptSet(concept, sortWeight);
+		conceptSet.setConceptSetId(conceptSetId);
+		conceptSet.setConceptSet(new Concept(setId));
+		return conceptSet;
+	}
+	
+	private void completeTransaction(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		for (TransactionSynchronization synchronization : synchronizations) {
+			synchronization.afterCompletion(status);
+		}
+	}
+}
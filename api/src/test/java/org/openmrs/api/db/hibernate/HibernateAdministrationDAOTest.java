@@ -9,12 +9,19 @@
  */
 package org.openmrs.api.db.hibernate;
 
+import org.apache.commons.lang.StringUtils;
 import org.hibernate.SessionFactory;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
 import org.openmrs.Role;
+import org.openmrs.api.context.Context;
 import org.openmrs.test.BaseContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.BindException;
@@ -146,4 +153,53 @@ public class HibernateAdministrationDAOTest extends BaseContextSensitiveTest {
 		dao.validate(role, errors);
 		Assert.assertFalse(errors.hasFieldErrors("role"));
 	}
+	
+	/**
+	 * Validates a patient with many names, addresses and identifiers over and over, which runs the
+	 * validation plans of all of those classes many times
+	 * 
+	 * @see HibernateAdministrationDAO#validate(Object,Errors)
+	 */
+	@Test
+	public void validate_shouldReuseTheValidationPlanOfAClass() {
+		Patient patient = Context.getPatientService().getPatient(2);
+		PatientIdentifierType identifierType = Context.getPatientService().getPatientIdentifierType(5);
+		for (int i = 0; i < 50; i++) {
+			patient.addName(new PersonName("Given" + i, null, "Family" + i));
+			PersonAddress address = new PersonAddress();
+			address.setAddress1("Address " + i);
+			patient.addAddress(address);
+			patient.addIdentifier(new PatientIdentifier("TEST-ID-" + i, identifierType, new Location(1)));
+		}
+		
+		for (int i = 0; i < 100; i++) {
+			Errors errors = new BindException(patient, "patient");
+			dao.validate(patient, errors);
+			Assert.assertFalse(errors.hasErrors());
+		}
+		
+		patient.getPersonName().setFamilyName(StringUtils.repeat("too long ", 100));
+		Errors errors = new BindException(patient, "patient");
+		dao.validate(patient, errors);
+		Assert.assertTrue(errors.hasErrors());
+	}
+	
+	/**
+	 * @see HibernateAdministrationDAO#getMaximumPropertyLength(Class,String)
+	 */
+	@Test
+	public void getMaximumPropertyLength_shouldReturnTheLengthOfTheColumnOfAProperty() {
+		Assert.assertEquals(255, dao.getMaximumPropertyLength(Role.class, "description"));
+		Assert.assertEquals(255, dao.getMaximumPropertyLength(Role.class, "description"));
+	}
+	
+	/**
+	 * @see HibernateAdministrationDAO#getMaximumPropertyLength(Class,String)
+	 */
+	@Test
+	public void getMaximumPropertyLength_shouldReturnMinusOneIfTheLengthCannotBeDetermined() {
+		Assert.assertEquals(-1, dao.getMaximumPropertyLength(Role.class, "notAProperty"));
+		Assert.assertEquals(-1, dao.getMaximumPropertyLength(Role.class, "notAProperty"));
+		Assert.assertEquals(255, dao.getMaximumPropertyLength(Role.class, "description"));
+	}
 }
@@ -0,0 +1,42 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQL5InnoDBDialect;
+import org.hibernate.dialect.Oracle10gDialect;
+import org.hibernate.dialect.PostgreSQL82Dialect;
+import org.hibernate.dialect.SQLServer2008Dialect;
+import org.junit.Test;
+
+public class HibernateUtilTest {
+	
+	/**
+	 * @see HibernateUtil#supportsWindowFunctions(org.hibernate.dialect.Dialect)
+	 */
+	@Test
+	public void supportsWindowFunctions_shouldReturnTrueForDatabasesSupportingWindowFunctions() {
+		assertTrue(HibernateUtil.supportsWindowFunctions(new PostgreSQL82Dialect()));
+		assertTrue(HibernateUtil.supportsWindowFunctions(new Oracle10gDialect()));
+		assertTrue(HibernateUtil.supportsWindowFunctions(new SQLServer2008Dialect()));
+	}
+	
+	/**
+	 * @see HibernateUtil#supportsWindowFunctions(org.hibernate.dialect.Dialect)
+	 */
+	@Test
+	public void supportsWindowFunctions_shouldReturnFalseForDatabasesNotSupportingWindowFunctions() {
+		assertFalse(HibernateUtil.supportsWindowFunctions(new MySQL5InnoDBDialect()));
+		assertFalse(HibernateUtil.supportsWindowFunctions(new H2Dialect()));
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.CareSetting;
+import org.openmrs.ConceptAnswer;
+import org.openmrs.ConceptMapType;
+import org.openmrs.ConceptName;
+import org.openmrs.ConceptSource;
+import org.openmrs.EncounterType;
+import org.openmrs.OrderFrequency;
+import org.openmrs.OrderType;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.Provider;
+import org.openmrs.VisitType;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests the second level and query caching of metadata configured in the mapping files and
+ * ehcache.xml
+ */
+public class MetadataCacheTest extends BaseContextSensitiveTest {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private boolean statisticsEnabled;
+	
+	@Before
+	public void enableStatistics() {
+		statisticsEnabled = sessionFactory.getStatistics().isStatisticsEnabled();
+		sessionFactory.getStatistics().setStatisticsEnabled(true);
+	}
+	
+	@After
+	public void restoreStatistics() {
+		sessionFactory.getStatistics().setStatisticsEnabled(statisticsEnabled);
+	}
+	
+	@Test
+	public void shouldCacheMetadataEntitiesAndConceptCollections() {
+		SessionFactoryImplementor factory = (SessionFactoryImplementor) sessionFactory;
+		for (Class<?> type : Arrays.asList(EncounterType.class, VisitType.class, OrderType.class, CareSetting.class,
+		    OrderFrequency.class, PatientIdentifierType.class, PersonAttributeType.class, ConceptMapType.class,
+		    ConceptSource.class, Provider.class, ConceptName.class, ConceptAnswer.class)) {
+			assertTrue(type.getName(), factory.getEntityPersister(type.getName()).hasCache());
+		}
+		for (String role : Arrays.asList("org.openmrs.Concept.names", "org.openmrs.Concept.answers",
+		    "org.openmrs.Concept.conceptSets", "org.openmrs.ConceptName.tags", "org.openmrs.OrderType.conceptClasses")) {
+			assertTrue(role, factory.getCollectionPersister(role).hasCache());
+		}
+	}
+	
+	/**
+	 * @see HibernateEncounterDAO#getAllEncounterTypes(Boolean)
+	 */
+	@Test
+	public void getAllEncounterTypes_shouldServeRepeatedCallsFromTheQueryCache() {
+		Statistics statistics = sessionFactory.getStatistics();
+		List<EncounterType> encounterTypes = Context.getEncounterService().getAllEncounterTypes();
+		Context.clearSession();
+		long queryCacheHitCount = statistics.getQueryCacheHitCount();
+		long prepareStatementCount = statistics.getPrepareStatementCount();
+		
+		assertEquals(encounterTypes, Context.getEncounterService().getAllEncounterTypes());
+		assertEquals(queryCacheHitCount + 1, statistics.getQueryCacheHitCount());
+		assertEquals(prepareStatementCount, statistics.getPrepareStatementCount());
+	}
+	
+	/**
+	 * @see HibernateEncounterDAO#getAllEncounterTypes(Boolean)
+	 */
+	@Test
+	public void getAllEncounterTypes_shouldIncludeEncounterTypesSavedAfterTheResultsWereCached() {
+		int count = Context.getEncounterService().getAllEncounterTypes().size();
+		
+		EncounterType encounterType = Context.getEncounterService().saveEncounterType(
+		    new EncounterType("Cached type", "description"));
+		Context.flushSession();
+		
+		List<EncounterType> encounterTypes = Context.getEncounterService().getAllEncounterTypes();
+		assertEquals(count + 1, encounterTypes.size());
+		assertTrue(encounterTypes.contains(encounterType));
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class QueryCounterTest {
+	
+	private QueryCounter counter;
+	
+	@After
+	public void stopCounter() {
+		if (counter != null) {
+			counter.stop();
+		}
+	}
+	
+	/**
+	 * @see QueryCounter#start(int,int,int)
+	 */
+	@Test
+	public void start_shouldReturnNullIfACounterIsAlreadyStartedOnTheCurrentThread() {
+		counter = QueryCounter.start(10, 10, 10);
+		
+		assertNotNull(counter);
+		assertNull(QueryCounter.start(10, 10, 10));
+	}
+	
+	/**
+	 * @see QueryCounter#stop()
+	 */
+	@Test
+	public void stop_shouldStopCounting() {
+		counter = QueryCounter.start(10, 10, 10);
+		QueryCounter.statementPrepared();
+		
+		counter.stop();
+		QueryCounter.statementPrepared();
+		QueryCounter.entityLoaded();
+		
+		assertEquals(1, counter.getStatementCount());
+		assertEquals(0, counter.getEntityLoadCount());
+		assertNotNull(counter = QueryCounter.start(10, 10, 10));
+	}
+	
+	/**
+	 * @see QueryCounter#isThresholdExceeded()
+	 */
+	@Test
+	public void isThresholdExceeded_shouldReturnTrueIfACountExceededItsThreshold() {
+		counter = QueryCounter.start(10, 10, 1);
+		QueryCounter.statementPrepared();
+		QueryCounter.entityLoaded();
+		QueryCounter.collectionLoaded();
+		
+		assertFalse(counter.isThresholdExceeded());
+		
+		QueryCounter.collectionLoaded();
+		
+		assertTrue(counter.isThresholdExceeded());
+		assertEquals(1, counter.getStatementCount());
+		assertEquals(1, counter.getEntityLoadCount());
+		assertEquals(2, counter.getCollectionLoadCount());
+	}
+	
+	/**
+	 * @see QueryCounter#getStackFragment()
+	 */
+	@Test
+	public void getStackFragment_shouldCaptureTheStackWhenAThresholdIsFirstExceeded() {
+		counter = QueryCounter.start(0, 10, 10);
+		
+		assertTrue(counter.getStackFragment().isEmpty());
+		
+		prepareStatement();
+		QueryCounter.statementPrepared();
+		
+		assertTrue(counter.getStackFragment().size() <= QueryCounter.MAX_STACK_FRAMES);
+		assertTrue(counter.getStackFragment().get(0).startsWith(QueryCounterTest.class.getName() + ".prepareStatement("));
+	}
+	
+	private void prepareStatement() {
+		QueryCounter.statementPrepared();
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Drug;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseContextSensitiveTest;
+import org.openmrs.util.SearchIndexProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link SearchIndexRebuilder}. The rebuilder reads the committed standard test data through
+ * its own sessions.
+ */
+public class SearchIndexRebuilderTest extends BaseContextSensitiveTest {
+
+	private static final String VERSION = "1";
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	private File checkpointFile;
+
+	@Before
+	public void before() throws IOException {
+		checkpointFile = File.createTempFile("reindex-checkpoint", ".properties");
+		checkpointFile.delete();
+	}
+
+	@After
+	public void after() {
+		checkpointFile.delete();
+	}
+
+	/**
+	 * @see SearchIndexRebuilder#rebuild(java.util.Collection,SearchIndexProgress)
+	 */
+	@Test
+	public void rebuild_shouldIndexAllObjectsOfTheGivenTypesAndDeleteTheCheckpoint() {
+		SearchIndexProgress progress = new SearchIndexProgress();
+
+		newRebuilder().rebuild(Collections.<Class<?>> singleton(Drug.class), progress);
+
+		long drugCount = Context.getConceptService().getAllDrugs(true).size();
+		assertTrue(progress.isFinished());
+		assertNull(progress.getFailure());
+		assertTrue(progress.isCompleted(Drug.class));
+		assertEquals(drugCount, progress.getTotalCount(Drug.class));
+		assertEquals(drugCount, progress.getIndexedCount(Drug.class));
+		assertEquals(100, progress.getPercentComplete());
+		assertFalse(checkpointFile.exists());
+		assertEquals(1, Context.getConceptService().getDrugs("ASPIRIN").size());
+	}
+
+	/**
+	 * @see SearchIndexRebuilder#rebuild(java.util.Collection,SearchIndexProgress)
+	 */
+	@Test
+	public void rebuild_shouldResumeTypesFromTheLastCheckpointedId() throws IOException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("version", VERSION);
+		checkpoint.setProperty(Drug.class.getName(), "3");
+		saveCheckpoint(checkpoint);
+		SearchIndexProgress progress = new SearchIndexProgress();
+
+		newRebuilder().rebuild(Collections.<Class<?>> singleton(Drug.class), progress);
+
+		long drugCount = Context.getConceptService().getAllDrugs(true).size();
+		assertTrue(progress.isCompleted(Drug.class));
+		assertEquals(drugCount, progress.getIndexedCount(Drug.class));
+		assertFalse(checkpointFile.exists());
+	}
+
+	/**
+	 * @see SearchIndexRebuilder#rebuild(java.util.Collection,SearchIndexProgress)
+	 */
+	@Test
+	public void rebuild_shouldSkipTypesCompletedByAnInterruptedRebuild() throws IOException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("version", VERSION);
+		checkpoint.setProperty(Drug.class.getName() + ".completed", "true");
+		saveCheckpoint(checkpoint);
+		SearchIndexProgress progress = new SearchIndexProgress();
+
+		newRebuilder().rebuild(Collections.<Class<?>> singleton(Drug.class), progress);
+
+		assertTrue(progress.isFinished());
+		assertTrue(progress.isCompleted(Drug.class));
+		assertEquals(progress.getTotalCount(Drug.class), progress.getIndexedCount(Drug.class));
+		assertFalse(checkpointFile.exists());
+	}
+
+	/**
+	 * @see SearchIndexRebuilder#rebuild(java.util.Collection,SearchIndexProgress)
+	 */
+	@Test
+	public void rebuild_shouldIgnoreCheckpointsOfAnotherIndexVersion() throws IOException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("version", "0");
+		checkpoint.setProperty(Drug.class.getName() + ".completed", "true");
+		saveCheckpoint(checkpoint);
+		SearchIndexProgress progress = new SearchIndexProgress();
+
+		newRebuilder().rebuild(Collections.<Class<?>> singleton(Drug.class), progress);
+
+		assertEquals(Context.getConceptService().getAllDrugs(true).size(), progress.getIndexedCount(Drug.class));
+		assertFalse(checkpointFile.exists());
+	}
+
+	/**
+	 * Uses a batch size smaller than the number of drugs so that several checkpoints are written
+	 */
+	private SearchIndexRebuilder newRebuilder() {
+		return new SearchIndexRebuilder(sessionFactory, 2, 2, 2, checkpointFile, VERSION);
+	}
+
+	private void saveCheckpoint(Properties checkpoint) throws IOException {
+		OutputStream out = new FileOutputStream(checkpointFile);
+		try {
+			checkpoint.store(out, null);
+		}
+		finally {
+			out.close();
+		}
+	}
+}
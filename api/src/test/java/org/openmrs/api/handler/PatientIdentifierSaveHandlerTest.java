@@ -0,0 +1,45 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.User;
+
+/**
+ * Tests the {@link PatientIdentifierSaveHandler} class
+ */
+public class PatientIdentifierSaveHandlerTest {
+
+	/**
+	 * @see PatientIdentifierSaveHandler#handle(PatientIdentifier,User,Date,String)
+	 */
+	@Test
+	public void handle_shouldUpdateTheDuplicateKeysOfThePatientOfTheIdentifier() {
+		Patient patient = new Patient();
+		PatientIdentifier identifier = new PatientIdentifier("101-6", null, null);
+		patient.addIdentifier(identifier);
+		PatientIdentifierSaveHandler handler = new PatientIdentifierSaveHandler();
+
+		handler.handle(identifier, null, null, null);
+		assertEquals(Collections.singleton("I1016"), patient.getDuplicateKeys());
+
+		identifier.setVoided(true);
+		handler.handle(identifier, null, null, null);
+		assertTrue(patient.getDuplicateKeys().isEmpty());
+	}
+}
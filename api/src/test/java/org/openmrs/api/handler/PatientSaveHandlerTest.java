@@ -0,0 +1,44 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.User;
+
+/**
+ * Tests the {@link PatientSaveHandler} class
+ */
+public class PatientSaveHandlerTest {
+
+	/**
+	 * @see PatientSaveHandler#handle(Patient,User,Date,String)
+	 */
+	@Test
+	public void handle_shouldUpdateTheDuplicateKeysOfThePatient() {
+		Patient patient = new Patient();
+		PersonName name = new PersonName("Horatio", null, "Hornblower");
+		patient.addName(name);
+		PatientSaveHandler handler = new PatientSaveHandler();
+
+		handler.handle(patient, null, null, null);
+		assertEquals(Collections.singleton("NH630H651"), patient.getDuplicateKeys());
+
+		name.setFamilyName("Smith");
+		handler.handle(patient, null, null, null);
+		assertEquals(Collections.singleton("NH630S530"), patient.getDuplicateKeys());
+	}
+}
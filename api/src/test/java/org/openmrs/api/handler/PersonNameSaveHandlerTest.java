@@ -0,0 +1,78 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.User;
+
+/**
+ * Tests the {@link PersonNameSaveHandler} class
+ */
+public class PersonNameSaveHandlerTest {
+
+	/**
+	 * @see PersonNameSaveHandler#handle(PersonName,User,Date,String)
+	 */
+	@Test
+	public void handle_shouldTrimTheNameParts() {
+		PersonName personName = new PersonName(" Robert ", " Graham", "Smith ");
+		personName.setFamilyName2("  Johnson  ");
+
+		new PersonNameSaveHandler().handle(personName, null, null, null);
+
+		assertEquals("Robert", personName.getGivenName());
+		assertEquals("Graham", personName.getMiddleName());
+		assertEquals("Smith", personName.getFamilyName());
+		assertEquals("Johnson", personName.getFamilyName2());
+	}
+
+	/**
+	 * @see PersonNameSaveHandler#handle(PersonName,User,Date,String)
+	 */
+	@Test
+	public void handle_shouldSetTheSoundexCodesOfTheNameParts() {
+		PersonName personName = new PersonName("Robert", "", "Smith");
+		personName.setGivenNameSoundex("X000");
+		personName.setMiddleNameSoundex("X000");
+
+		new PersonNameSaveHandler().handle(personName, null, null, null);
+
+		assertEquals("R163", personName.getGivenNameSoundex());
+		assertNull(personName.getMiddleNameSoundex());
+		assertEquals("S530", personName.getFamilyNameSoundex());
+		assertNull(personName.getFamilyName2Soundex());
+	}
+
+	/**
+	 * @see PersonNameSaveHandler#handle(PersonName,User,Date,String)
+	 */
+	@Test
+	public void handle_shouldUpdateTheDuplicateKeysOfThePatientOfTheName() {
+		Patient patient = new Patient();
+		PersonName personName = new PersonName("Horatio", null, "Hornblower");
+		patient.addName(personName);
+
+		new PersonNameSaveHandler().handle(personName, null, null, null);
+		assertEquals(Collections.singleton("NH630H651"), patient.getDuplicateKeys());
+
+		personName.setVoided(true);
+		new PersonNameSaveHandler().handle(personName, null, null, null);
+		assertTrue(patient.getDuplicateKeys().isEmpty());
+	}
+}
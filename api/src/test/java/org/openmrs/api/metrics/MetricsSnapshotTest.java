@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+public class MetricsSnapshotTest {
+
+	/**
+	 * @see MetricsSnapshot#delta(MetricsSnapshot)
+	 */
+	@Test
+	public void delta_shouldSubtractTheCountsOfTheEarlierSnapshot() {
+		MetricsSnapshot earlier = new MetricsSnapshot();
+		earlier.setEndTime(new Date(1000));
+		earlier.setEntityLoadCount(5);
+		earlier.getQueries().add(new QueryMetrics("from Patient", 2, 20, 10, 8));
+		earlier.getApiCaches().add(new CacheMetrics("globalProperties", 3, 1, 1, 1));
+		MetricsSnapshot later = new MetricsSnapshot();
+		later.setEndTime(new Date(2000));
+		later.setEntityLoadCount(8);
+		later.getQueries().add(new QueryMetrics("from Patient", 4, 30, 30, 12));
+		later.getApiCaches().add(new CacheMetrics("globalProperties", 9, 3, 3, 2));
+
+		MetricsSnapshot delta = later.delta(earlier);
+
+		assertEquals(new Date(1000), delta.getStartTime());
+		assertEquals(new Date(2000), delta.getEndTime());
+		assertEquals(3, delta.getEntityLoadCount());
+		QueryMetrics query = delta.getQueries().get(0);
+		assertEquals(2, query.getExecutionCount());
+		assertEquals(10, query.getExecutionRowCount());
+		assertEquals(10, query.getExecutionAvgTime());
+		assertEquals(12, query.getExecutionMaxTime());
+		CacheMetrics cache = delta.getApiCaches().get(0);
+		assertEquals(6, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0.75, cache.getHitRatio(), 0.0001);
+		assertEquals(2, cache.getElementCount());
+	}
+
+	/**
+	 * @see MetricsSnapshot#delta(MetricsSnapshot)
+	 */
+	@Test
+	public void delta_shouldLeaveOutEntitiesAndQueriesWithoutActivity() {
+		MetricsSnapshot earlier = new MetricsSnapshot();
+		earlier.getEntities().add(new EntityMetrics("org.openmrs.Patient", 4, 1, 0, 0, 0));
+		earlier.getEntities().add(new EntityMetrics("org.openmrs.Obs", 2, 0, 0, 0, 0));
+		earlier.getQueries().add(new QueryMetrics("from Obs", 1, 1, 1, 1));
+		MetricsSnapshot later = new MetricsSnapshot();
+		later.getEntities().add(new EntityMetrics("org.openmrs.Patient", 4, 1, 0, 0, 0));
+		later.getEntities().add(new EntityMetrics("org.openmrs.Obs", 7, 5, 0, 0, 0));
+		later.getEntities().add(new EntityMetrics("org.openmrs.Concept", 1, 0, 0, 0, 0));
+		later.getQueries().add(new QueryMetrics("from Obs", 1, 1, 1, 1));
+
+		MetricsSnapshot delta = later.delta(earlier);
+
+		assertEquals(2, delta.getEntities().size());
+		assertEquals("org.openmrs.Obs", delta.getEntities().get(0).getName());
+		assertEquals(5, delta.getEntities().get(0).getLoadCount());
+		assertEquals(5, delta.getEntities().get(0).getFetchCount());
+		assertEquals("org.openmrs.Concept", delta.getEntities().get(1).getName());
+		assertEquals(0, delta.getQueries().size());
+	}
+}
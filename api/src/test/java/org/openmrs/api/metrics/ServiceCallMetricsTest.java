@@ -0,0 +1,52 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ServiceCallMetricsTest {
+	
+	/**
+	 * @see ServiceCallMetrics#add(ServiceCallMetrics)
+	 */
+	@Test
+	public void add_shouldAddTheCallCountsAndKeepTheMaximumCounts() {
+		ServiceCallMetrics first = new ServiceCallMetrics("ConceptService.getAllConcepts", 2, 150, 10, 60, Collections
+		        .singletonList("first"));
+		ServiceCallMetrics second = new ServiceCallMetrics("ConceptService.getAllConcepts", 1, 120, 2000, 5, Collections
+		        .singletonList("second"));
+		
+		ServiceCallMetrics sum = first.add(second);
+		
+		assertEquals("ConceptService.getAllConcepts", sum.getMethod());
+		assertEquals(3, sum.getFlaggedCallCount());
+		assertEquals(150, sum.getMaxStatementCount());
+		assertEquals(2000, sum.getMaxEntityLoadCount());
+		assertEquals(60, sum.getMaxCollectionLoadCount());
+	}
+	
+	/**
+	 * @see ServiceCallMetrics#add(ServiceCallMetrics)
+	 */
+	@Test
+	public void add_shouldKeepTheStackFragmentOfTheCallWithTheMostStatements() {
+		ServiceCallMetrics first = new ServiceCallMetrics("ObsService.getObservations", 1, 150, 10, 60, Collections
+		        .singletonList("first"));
+		ServiceCallMetrics second = new ServiceCallMetrics("ObsService.getObservations", 1, 200, 10, 60, Collections
+		        .singletonList("second"));
+		
+		assertEquals(Collections.singletonList("second"), first.add(second).getStackFragment());
+		assertEquals(Collections.singletonList("second"), second.add(first).getStackFragment());
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.hl7;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ca.uhn.hl7v2.HL7Exception;
+
+/**
+ * Tests the parallel processing of the {@link HL7InQueueProcessor} with queue entries which are
+ * claimed and processed in memory
+ */
+public class HL7InQueueProcessorTest {
+	
+	/**
+	 * @see HL7InQueueProcessor#processHL7InQueueInParallel(int,int)
+	 */
+	@Test
+	public void processHL7InQueueInParallel_shouldProcessTheEntriesOfEachPatientInTheOrderTheyWereQueued() {
+		TestProcessor processor = new TestProcessor(createQueue(200, 7));
+		
+		Assert.assertEquals(200, processor.processHL7InQueueInParallel(4, 5));
+		
+		Map<String, List<Integer>> processedByPatient = new HashMap<String, List<Integer>>();
+		for (HL7InQueue hl7InQueue : processor.processed) {
+			String patient = HL7Util.getPatientIdentifierField(hl7InQueue.getHL7Data());
+			if (!processedByPatient.containsKey(patient)) {
+				processedByPatient.put(patient, new ArrayList<Integer>());
+			}
+			processedByPatient.get(patient).add(hl7InQueue.getHL7InQueueId());
+		}
+		Assert.assertEquals(7, processedByPatient.size());
+		for (List<Integer> ids : processedByPatient.values()) {
+			List<Integer> sorted = new ArrayList<Integer>(ids);
+			Collections.sort(sorted);
+			Assert.assertEquals(sorted, ids);
+		}
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#processHL7InQueueInParallel(int,int)
+	 */
+	@Test
+	public void processHL7InQueueInParallel_shouldProcessAllClaimedEntriesBeforeReturning() {
+		TestProcessor processor = new TestProcessor(createQueue(103, 10));
+		
+		int claimed = processor.processHL7InQueueInParallel(3, 10);
+		
+		Assert.assertEquals(103, claimed);
+		Assert.assertEquals(103, processor.processed.size());
+		Assert.assertEquals(3, processor.threads.size());
+		for (Thread thread : processor.threads) {
+			Assert.assertFalse(thread.isAlive());
+		}
+	}
+	
+	/**
+	 * @see HL7InQueueProcessor#processHL7InQueueInParallel(int,int)
+	 */
+	@Test
+	public void processHL7InQueueInParallel_shouldKeepProcessingEntriesWhenABatchFails() {
+		TestProcessor processor = new TestProcessor(createQueue(50, 5));
+		processor.failingId = 1;
+		
+		Assert.assertEquals(50, processor.processHL7InQueueInParallel(2, 4));
+		
+		Assert.assertEquals(50, processor.attempted);
+		for (Thread thread : processor.threads) {
+			Assert.assertFalse(thread.isAlive());
+		}
+	}
+	
+	private List<HL7InQueue> createQueue(int size, int patientCount) {
+		List<HL7InQueue> queue = new ArrayList<HL7InQueue>();
+		for (int id = 1; id <= size; id++) {
+			HL7InQueue hl7InQueue = new HL7InQueue();
+			hl7InQueue.setHL7InQueueId(id);
+			hl7InQueue.setHL7Data("MSH|^~\\&|FORMENTRY|AMRS.ELD|HL7LISTENER|AMRS.ELD|20080226102656||ORU^R01|" + id
+			        + "|P|2.5|1\r" + "PID|||" + (id % patientCount) + "^^^^||John^Doe^||\r");
+			queue.add(hl7InQueue);
+		}
+		return queue;
+	}
+	
+	/**
+	 * Claims the entries from a list and records the order they are processed in
+	 */
+	private class TestProcessor extends HL7InQueueProcessor {
+		
+		private final LinkedList<HL7InQueue> pending;
+		
+		private final List<HL7InQueue> processed = Collections.synchronizedList(new ArrayList<HL7InQueue>());
+		
+		private final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+		
+		private Integer failingId;
+		
+		private int attempted;
+		
+		public TestProcessor(List<HL7InQueue> pending) {
+			this.pending = new LinkedList<HL7InQueue>(pending);
+		}
+		
+		@Override
+		protected List<HL7InQueue> claimHL7InQueues(int maxResults) {
+			List<HL7InQueue> claimed = new ArrayList<HL7InQueue>();
+			while (claimed.size() < maxResults && !pending.isEmpty()) {
+				claimed.add(pending.removeFirst());
+			}
+			return claimed;
+		}
+		
+		@Override
+		protected void processHL7InQueues(List<HL7InQueue> hl7InQueues) throws HL7Exception {
+			synchronized (this) {
+				attempted += hl7InQueues.size();
+			}
+			for (HL7InQueue hl7InQueue : hl7InQueues) {
+				if (hl7InQueue.getHL7InQueueId().equals(failingId)) {
+					throw new HL7Exception("failing on purpose");
+				}
+			}
+			for (HL7InQueue hl7InQueue : hl7InQueues) {
+				processed.add(hl7InQueue);
+				Thread.yield();
+			}
+		}
+		
+		@Override
+		protected Thread startWorker(Runnable worker) {
+			Thread thread = new Thread(worker);
+			threads.add(thread);
+			thread.start();
+			return thread;
+		}
+	}
+}
@@ -135,6 +135,232 @@ public class HL7ServiceTest extends BaseContextSensitiveTest {
 		hl7service.processHL7InQueue(queueItem);
 	}
 	
+	/**
+	 * @see HL7Service#getNextHL7InQueues(Integer,int)
+	 */
+	@Test
+	public void getNextHL7InQueues_shouldReturnPendingQueueItemsOrderedById() {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		
+		List<HL7InQueue> queueItems = Context.getHL7Service().getNextHL7InQueues(null, 10);
+		
+		Assert.assertEquals(2, queueItems.size());
+		Assert.assertEquals(1, queueItems.get(0).getHL7InQueueId().intValue());
+		Assert.assertEquals(2, queueItems.get(1).getHL7InQueueId().intValue());
+	}
+	
+	/**
+	 * @see HL7Service#getNextHL7InQueues(Integer,int)
+	 */
+	@Test
+	public void getNextHL7InQueues_shouldNotReturnMoreThanTheGivenNumberOfQueueItems() {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		
+		List<HL7InQueue> queueItems = Context.getHL7Service().getNextHL7InQueues(null, 1);
+		
+		Assert.assertEquals(1, queueItems.size());
+		Assert.assertEquals(1, queueItems.get(0).getHL7InQueueId().intValue());
+	}
+	
+	/**
+	 * @see HL7Service#getNextHL7InQueues(Integer,int)
+	 */
+	@Test
+	public void getNextHL7InQueues_shouldOnlyReturnQueueItemsAfterTheGivenQueueItem() {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		
+		List<HL7InQueue> queueItems = Context.getHL7Service().getNextHL7InQueues(1, 10);
+		
+		Assert.assertEquals(1, queueItems.size());
+		Assert.assertEquals(2, queueItems.get(0).getHL7InQueueId().intValue());
+		Assert.assertTrue(Context.getHL7Service().getNextHL7InQueues(2, 10).isEmpty());
+	}
+	
+	/**
+	 * @see HL7Service#claimNextHL7InQueues(int)
+	 */
+	@Test
+	public void claimNextHL7InQueues_shouldClaimPendingQueueItemsOrderedById() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			
+			List<HL7InQueue> claimed = hl7service.claimNextHL7InQueues(10);
+			
+			Assert.assertEquals(2, claimed.size());
+			Assert.assertEquals(1, claimed.get(0).getHL7InQueueId().intValue());
+			Assert.assertEquals(2, claimed.get(1).getHL7InQueueId().intValue());
+			for (HL7InQueue hl7InQueue : claimed) {
+				Assert.assertEquals(HL7Constants.HL7_STATUS_PROCESSING, hl7InQueue.getMessageState());
+			}
+			Assert.assertTrue(hl7service.getNextHL7InQueues(null, 10).isEmpty());
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#claimNextHL7InQueues(int)
+	 */
+	@Test
+	public void claimNextHL7InQueues_shouldNotClaimQueueItemsWhichWereClaimedBefore() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			
+			List<HL7InQueue> first = hl7service.claimNextHL7InQueues(1);
+			List<HL7InQueue> second = hl7service.claimNextHL7InQueues(10);
+			
+			Assert.assertEquals(1, first.size());
+			Assert.assertEquals(1, first.get(0).getHL7InQueueId().intValue());
+			Assert.assertEquals(1, second.size());
+			Assert.assertEquals(2, second.get(0).getHL7InQueueId().intValue());
+			Assert.assertTrue(hl7service.claimNextHL7InQueues(10).isEmpty());
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#processHL7InQueueBatch(int)
+	 */
+	@Test
+	public void processHL7InQueueBatch_shouldArchiveSuccessfullyProcessedQueueItems() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			Assert.assertEquals(0, hl7service.getAllHL7InArchives().size());
+			
+			List<HL7InQueue> processed = hl7service.processHL7InQueueBatch(10);
+			
+			Assert.assertEquals(2, processed.size());
+			Assert.assertEquals(1, hl7service.getAllHL7InArchives().size());
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#processHL7InQueueBatch(int)
+	 */
+	@Test
+	public void processHL7InQueueBatch_shouldCreateHL7InErrorForQueueItemsThatFailParsing() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			Assert.assertEquals(0, hl7service.getAllHL7InErrors().size());
+			
+			hl7service.processHL7InQueueBatch(10);
+			
+			Assert.assertEquals(1, hl7service.getAllHL7InErrors().size());
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#processHL7InQueueBatch(int)
+	 */
+	@Test
+	public void processHL7InQueueBatch_shouldRemoveProcessedQueueItemsFromTheQueue() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			
+			hl7service.processHL7InQueueBatch(1);
+			Assert.assertNull(hl7service.getHL7InQueue(1));
+			Assert.assertNotNull(hl7service.getHL7InQueue(2));
+			
+			hl7service.processHL7InQueueBatch(1);
+			Assert.assertEquals(0, hl7service.getAllHL7InQueues().size());
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#processHL7InQueueBatch(int)
+	 */
+	@Test
+	public void processHL7InQueueBatch_shouldReturnAnEmptyListIfThereAreNoPendingQueueItems() throws HL7Exception {
+		Assert.assertTrue(Context.getHL7Service().processHL7InQueueBatch(10).isEmpty());
+	}
+	
+	/**
+	 * @see HL7Service#processHL7InQueueBatch(int)
+	 */
+	@Test
+	public void processHL7InQueueBatch_shouldKeepTheProcessedQueueItemsIfAnotherItemFails() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			
+			hl7service.processHL7InQueueBatch(10);
+			
+			Assert.assertEquals(1, hl7service.getAllHL7InArchives().size());
+			Assert.assertEquals(1, hl7service.getAllHL7InErrors().size());
+			Assert.assertEquals(0, hl7service.getAllHL7InQueues().size());
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#processClaimedHL7InQueues(List)
+	 */
+	@Test
+	public void processClaimedHL7InQueues_shouldArchiveSuccessfullyProcessedQueueItems() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			
+			hl7service.processClaimedHL7InQueues(hl7service.claimNextHL7InQueues(1));
+			
+			Assert.assertEquals(1, hl7service.getAllHL7InArchives().size());
+			Assert.assertNull(hl7service.getHL7InQueue(1));
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * @see HL7Service#processClaimedHL7InQueues(List)
+	 */
+	@Test
+	public void processClaimedHL7InQueues_shouldCreateHL7InErrorForQueueItemsThatFailParsing() throws Exception {
+		executeCommittedQueueDataSet();
+		try {
+			HL7Service hl7service = Context.getHL7Service();
+			List<HL7InQueue> claimed = hl7service.claimNextHL7InQueues(10);
+			
+			hl7service.processClaimedHL7InQueues(claimed.subList(1, 2));
+			
+			Assert.assertEquals(1, hl7service.getAllHL7InErrors().size());
+			Assert.assertNull(hl7service.getHL7InQueue(2));
+			Assert.assertNotNull(hl7service.getHL7InQueue(1));
+		}
+		finally {
+			deleteAllData();
+		}
+	}
+	
+	/**
+	 * Executes the queue data set and commits it, since the queue items of a batch are processed
+	 * in new transactions which only see committed data. The caller has to delete all data
+	 * afterwards.
+	 */
+	private void executeCommittedQueueDataSet() throws Exception {
+		executeDataSet("org/openmrs/hl7/include/ORUTest-initialData.xml");
+		getConnection().commit();
+	}
+	
 	/**
 	 * @throws HL7Exception
 	 * @see HL7Service#processHL7Message(Message)
@@ -96,4 +96,31 @@ public class HL7UtilTest {
 		TimeZone.setDefault(originalTimeZone);
 	}
 	
+	/**
+	 * @see HL7Util#getPatientIdentifierField(String)
+	 */
+	@Test
+	public void getPatientIdentifierField_shouldReturnThePatientIdentifierFieldOfThePIDSegment() {
+		String hl7 = "MSH|^~\\&|FORMENTRY|AMRS.ELD|HL7LISTENER|AMRS.ELD|20080226102656||ORU^R01|JqnfhKKtouEz8kzTk6Zo|P|2.5|1\r"
+		        + "PID|||3^^^^||John3^Doe^||\r" + "PV1||O|1^Unknown Location\r";
+		Assert.assertEquals("3^^^^", HL7Util.getPatientIdentifierField(hl7));
+	}
+	
+	/**
+	 * @see HL7Util#getPatientIdentifierField(String)
+	 */
+	@Test
+	public void getPatientIdentifierField_shouldReturnNullIfTheMessageHasNoPIDSegment() {
+		String hl7 = "MSH|^~\\&|FORMENTRY|AMRS.ELD|HL7LISTENER|AMRS.ELD|20080226102656||ORU^R01|JqnfhKKtouEz8kzTk6Zo|P|2.5|1\r"
+		        + "PV1||O|1^Unknown Location\r";
+		Assert.assertNull(HL7Util.getPatientIdentifierField(hl7));
+	}
+	
+	/**
+	 * @see HL7Util#getPatientIdentifierField(String)
+	 */
+	@Test
+	public void getPatientIdentifierField_shouldReturnNullForABlankMessage() {
+		Assert.assertNull(HL7Util.getPatientIdentifierField(" "));
+	}
 }
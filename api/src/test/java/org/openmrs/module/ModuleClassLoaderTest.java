@@ -12,13 +12,23 @@ package org.openmrs.module;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.openmrs.test.BaseContextSensitiveTest;
 
 public class ModuleClassLoaderTest extends BaseContextSensitiveTest {
@@ -27,6 +37,9 @@ public class ModuleClassLoaderTest extends BaseContextSensitiveTest {
 	
 	Map<String, String> mockModules;
 	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
 	@Before
 	public void before() {
 		mockModule = new Module("mockmodule", "mockmodule", "org.openmrs.module.mockmodule", "author", "description", "1.0");
@@ -214,4 +227,152 @@ public class ModuleClassLoaderTest extends BaseContextSensitiveTest {
 		
 		assertThat(result, is(true));
 	}
+	
+	/**
+	 * @see ModuleClassLoader#mayProvideClass(String)
+	 */
+	@Test
+	public void mayProvideClass_shouldReturnFalseForClassesInPackagesNotProvidedByTheJars() throws IOException {
+		ModuleClassLoader classLoader = createClassLoader(mockModule, createJar("mockmodule.jar",
+		    "org/openmrs/module/mockmodule/MockClass.class"));
+		
+		assertThat(classLoader.isProvidedPackagesComplete(), is(true));
+		assertThat(classLoader.mayProvideClass("org.openmrs.module.mockmodule.OtherClass"), is(true));
+		assertThat(classLoader.mayProvideClass("org.openmrs.module.othermodule.OtherClass"), is(false));
+	}
+	
+	/**
+	 * @see ModuleClassLoader#mayProvideClass(String)
+	 */
+	@Test
+	public void mayProvideClass_shouldReturnTrueForClassesAtTheRootOfTheJars() throws IOException {
+		ModuleClassLoader classLoader = createClassLoader(mockModule, createJar("mockmodule.jar",
+		    "org/openmrs/module/mockmodule/MockClass.class"));
+		
+		assertThat(classLoader.mayProvideClass("RootClass"), is(true));
+	}
+	
+	/**
+	 * @see ModuleClassLoader#mayProvideClass(String)
+	 */
+	@Test
+	public void mayProvideClass_shouldReturnTrueForAnyClassIfAJarCannotBeRead() throws IOException {
+		File brokenJar = temporaryFolder.newFile("broken.jar");
+		FileUtils.writeStringToFile(brokenJar, "not a jar");
+		
+		ModuleClassLoader classLoader = createClassLoader(mockModule, brokenJar);
+		
+		assertThat(classLoader.isProvidedPackagesComplete(), is(false));
+		assertThat(classLoader.mayProvideClass("org.openmrs.module.othermodule.OtherClass"), is(true));
+	}
+	
+	/**
+	 * @see ModuleFactory#getModuleClassLoadersForResource(String)
+	 */
+	@Test
+	public void getModuleClassLoadersForResource_shouldOnlyReturnTheClassLoadersProvidingTheDirectoryOfTheResource()
+	        throws IOException {
+		ModuleClassLoader first = createClassLoader(createModule("first"), createJar("first.jar",
+		    "org/openmrs/module/first/first.xml"));
+		ModuleClassLoader second = createClassLoader(createModule("second"), createJar("second.jar",
+		    "org/openmrs/module/second/second.xml"));
+		registerClassLoaders(first, second);
+		try {
+			List<ModuleClassLoader> classLoaders = ModuleFactory
+			        .getModuleClassLoadersForResource("/org/openmrs/module/first/other.xml");
+			
+			assertThat(classLoaders.contains(first), is(true));
+			assertThat(classLoaders.contains(second), is(false));
+		}
+		finally {
+			unregisterClassLoaders(first, second);
+		}
+	}
+	
+	/**
+	 * @see ModuleFactory#getModuleClassLoadersForResource(String)
+	 */
+	@Test
+	public void getModuleClassLoadersForResource_shouldReturnAllClassLoadersForResourcesOutsideOfProvidedPackages()
+	        throws IOException {
+		ModuleClassLoader first = createClassLoader(createModule("first"), createJar("first.jar",
+		    "org/openmrs/module/first/first.xml"));
+		ModuleClassLoader second = createClassLoader(createModule("second"), createJar("second.jar",
+		    "org/openmrs/module/second/second.xml"));
+		registerClassLoaders(first, second);
+		try {
+			for (String name : new String[] { "messages.properties", "META-INF/spring.handlers",
+			        "web/module/resources/first.css", "org/openmrs/module" }) {
+				List<ModuleClassLoader> classLoaders = ModuleFactory.getModuleClassLoadersForResource(name);
+				
+				assertThat(name, classLoaders.contains(first), is(true));
+				assertThat(name, classLoaders.contains(second), is(true));
+			}
+		}
+		finally {
+			unregisterClassLoaders(first, second);
+		}
+	}
+	
+	/**
+	 * @see ModuleFactory#getModuleClassLoadersForResource(String)
+	 */
+	@Test
+	public void getModuleClassLoadersForResource_shouldReturnClassLoadersWhoseProvidedPackagesAreIncomplete()
+	        throws IOException {
+		File brokenJar = temporaryFolder.newFile("broken.jar");
+		FileUtils.writeStringToFile(brokenJar, "not a jar");
+		ModuleClassLoader first = createClassLoader(createModule("first"), createJar("first.jar",
+		    "org/openmrs/module/first/first.xml"));
+		ModuleClassLoader broken = createClassLoader(createModule("broken"), brokenJar);
+		registerClassLoaders(first, broken);
+		try {
+			List<ModuleClassLoader> classLoaders = ModuleFactory
+			        .getModuleClassLoadersForResource("org/openmrs/module/first/first.xml");
+			
+			assertThat(classLoaders.contains(first), is(true));
+			assertThat(classLoaders.contains(broken), is(true));
+		}
+		finally {
+			unregisterClassLoaders(first, broken);
+		}
+	}
+	
+	private Module createModule(String moduleId) {
+		return new Module(moduleId, moduleId, "org.openmrs.module." + moduleId, "author", "description", "1.0");
+	}
+	
+	private File createJar(String name, String... entries) throws IOException {
+		File jar = temporaryFolder.newFile(name);
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			for (String entry : entries) {
+				out.putNextEntry(new JarEntry(entry));
+				out.closeEntry();
+			}
+		}
+		finally {
+			out.close();
+		}
+		return jar;
+	}
+	
+	private ModuleClassLoader createClassLoader(Module module, File jar) throws MalformedURLException {
+		return new ModuleClassLoader(module, Collections.singletonList(jar.toURI().toURL()), getClass()
+		        .getClassLoader());
+	}
+	
+	private void registerClassLoaders(ModuleClassLoader... classLoaders) {
+		for (ModuleClassLoader classLoader : classLoaders) {
+			ModuleFactory.getModuleClassLoaderMap().put(classLoader.getModule(), classLoader);
+			ModuleFactory.registerProvidedPackages(classLoader);
+		}
+	}
+	
+	private void unregisterClassLoaders(ModuleClassLoader... classLoaders) {
+		for (ModuleClassLoader classLoader : classLoaders) {
+			ModuleFactory.unregisterProvidedPackages(classLoader);
+			ModuleFactory.getModuleClassLoaderMap().remove(classLoader.getModule());
+		}
+	}
 }
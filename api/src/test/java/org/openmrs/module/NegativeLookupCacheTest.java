@@ -0,0 +1,75 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class NegativeLookupCacheTest {
+
+	/**
+	 * @see NegativeLookupCache#contains(String)
+	 */
+	@Test
+	public void contains_shouldReturnTrueForAddedNames() {
+		NegativeLookupCache cache = new NegativeLookupCache(10);
+
+		cache.add("org.openmrs.Missing", NegativeLookupCache.getGeneration());
+
+		assertTrue(cache.contains("org.openmrs.Missing"));
+		assertFalse(cache.contains("org.openmrs.Other"));
+	}
+
+	/**
+	 * @see NegativeLookupCache#contains(String)
+	 */
+	@Test
+	public void contains_shouldReturnFalseForNamesAddedBeforeTheCachesWereInvalidated() {
+		NegativeLookupCache cache = new NegativeLookupCache(10);
+		cache.add("org.openmrs.Missing", NegativeLookupCache.getGeneration());
+
+		NegativeLookupCache.invalidateAll();
+
+		assertFalse(cache.contains("org.openmrs.Missing"));
+	}
+
+	/**
+	 * @see NegativeLookupCache#add(String,long)
+	 */
+	@Test
+	public void add_shouldNotAddNamesLookedUpBeforeTheCachesWereInvalidated() {
+		NegativeLookupCache cache = new NegativeLookupCache(10);
+		long generation = NegativeLookupCache.getGeneration();
+
+		NegativeLookupCache.invalidateAll();
+		cache.add("org.openmrs.Missing", generation);
+
+		assertFalse(cache.contains("org.openmrs.Missing"));
+	}
+
+	/**
+	 * @see NegativeLookupCache#add(String,long)
+	 */
+	@Test
+	public void add_shouldClearTheCacheWhenItIsFull() {
+		NegativeLookupCache cache = new NegativeLookupCache(2);
+		long generation = NegativeLookupCache.getGeneration();
+		cache.add("org.openmrs.Missing1", generation);
+		cache.add("org.openmrs.Missing2", generation);
+
+		cache.add("org.openmrs.Missing3", generation);
+
+		assertFalse(cache.contains("org.openmrs.Missing1"));
+		assertFalse(cache.contains("org.openmrs.Missing2"));
+		assertTrue(cache.contains("org.openmrs.Missing3"));
+	}
+}
@@ -80,6 +80,7 @@ import org.openmrs.PersonAttribute;
 import org.openmrs.PersonName;
 import org.openmrs.User;
 import org.openmrs.annotation.OpenmrsProfileExcludeFilter;
+import org.openmrs.api.cache.GlobalPropertyCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.context.ContextMockHelper;
@@ -793,6 +794,9 @@ public abstract class BaseContextSensitiveTest extends AbstractJUnit4SpringConte
 			//Do the actual update/insert:
 			//insert new rows, update existing rows, and leave others alone
 			DatabaseOperation.REFRESH.execute(dbUnitConn, dataset);
+			
+			//the dataset might contain global properties or cached entities and query results
+			clearHibernateCache();
 		}
 		catch (DatabaseUnitException e) {
 			throw new DatabaseUnitRuntimeException(e);
@@ -869,6 +873,19 @@ public abstract class BaseContextSensitiveTest extends AbstractJUnit4SpringConte
 		SessionFactory sf = (SessionFactory) applicationContext.getBean("sessionFactory");
 		sf.getCache().evictCollectionRegions();
 		sf.getCache().evictEntityRegions();
+		sf.getCache().evictDefaultQueryRegion();
+		sf.getCache().evictQueryRegions();
+		clearGlobalPropertyCache();
+	}
+	
+	/**
+	 * Clears the global property values cached by the administration service, needed whenever
+	 * global properties are changed directly in the database
+	 */
+	public void clearGlobalPropertyCache() {
+		if (applicationContext.containsBean("globalPropertyCache")) {
+			applicationContext.getBean("globalPropertyCache", GlobalPropertyCache.class).clear();
+		}
 	}
 	
 	/**
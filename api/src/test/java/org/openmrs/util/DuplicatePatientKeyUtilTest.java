@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
+
+/**
+ * Tests the {@link DuplicatePatientKeyUtil} class
+ */
+public class DuplicatePatientKeyUtilTest {
+
+	/**
+	 * @see DuplicatePatientKeyUtil#getKeys(Patient)
+	 */
+	@Test
+	public void getKeys_shouldReturnTheKeysOfNonVoidedNamesAndIdentifiers() {
+		Patient patient = new Patient();
+		patient.setBirthdate(new GregorianCalendar(1975, 3, 8).getTime());
+		patient.addName(new PersonName("Horatio", "Test", "Hornblower"));
+		PersonName voidedName = new PersonName("John", null, "Smith");
+		voidedName.setVoided(true);
+		patient.addName(voidedName);
+		patient.addIdentifier(new PatientIdentifier("101-6", null, null));
+
+		assertEquals(new HashSet<String>(Arrays.asList("NH630H651", "B19750408H651", "I1016")), DuplicatePatientKeyUtil
+		        .getKeys(patient));
+	}
+
+	/**
+	 * @see DuplicatePatientKeyUtil#getKeys(Patient)
+	 */
+	@Test
+	public void getKeys_shouldSkipNamesAndIdentifiersWithoutKeys() {
+		Patient patient = new Patient();
+		patient.addName(new PersonName(null, null, "Doe"));
+		patient.addIdentifier(new PatientIdentifier("--", null, null));
+
+		assertTrue(DuplicatePatientKeyUtil.getKeys(patient).isEmpty());
+	}
+
+	/**
+	 * @see DuplicatePatientKeyUtil#updateKeys(Patient)
+	 */
+	@Test
+	public void updateKeys_shouldAddNewKeysAndRemoveKeysWhichAreNoLongerComputed() {
+		Patient patient = new Patient();
+		PatientIdentifier identifier = new PatientIdentifier("101", null, null);
+		patient.addIdentifier(identifier);
+		patient.getDuplicateKeys().add("I999");
+
+		DuplicatePatientKeyUtil.updateKeys(patient);
+		assertEquals(Collections.singleton("I101"), patient.getDuplicateKeys());
+
+		identifier.setVoided(true);
+		DuplicatePatientKeyUtil.updateKeys(patient);
+		assertTrue(patient.getDuplicateKeys().isEmpty());
+	}
+
+	/**
+	 * @see DuplicatePatientKeyUtil#getIdentifierKey(String)
+	 */
+	@Test
+	public void getIdentifierKey_shouldIgnoreCaseAndCharactersOtherThanLettersAndDigits() {
+		assertEquals("IAB123", DuplicatePatientKeyUtil.getIdentifierKey(" ab-12 3"));
+		assertNull(DuplicatePatientKeyUtil.getIdentifierKey(" - "));
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SortedIntSet} class
+ */
+public class SortedIntSetTest {
+
+	/**
+	 * @see SortedIntSet#of(int...)
+	 */
+	@Test
+	public void of_shouldSortTheValuesAndRemoveDuplicates() {
+		assertArrayEquals(new int[] { 1, 2, 5, 9 }, SortedIntSet.of(9, 2, 5, 2, 1, 9).toArray());
+		assertTrue(SortedIntSet.of().isEmpty());
+	}
+
+	/**
+	 * @see SortedIntSet#of(java.util.Collection)
+	 */
+	@Test
+	public void of_shouldIgnoreNullValues() {
+		assertArrayEquals(new int[] { 1, 3 }, SortedIntSet.of(Arrays.asList(3, null, 1)).toArray());
+	}
+
+	/**
+	 * @see SortedIntSet#contains(int)
+	 */
+	@Test
+	public void contains_shouldReturnTrueOnlyForValuesInTheSet() {
+		SortedIntSet set = SortedIntSet.of(4, 8, 15, 16, 23, 42);
+		assertTrue(set.contains(4));
+		assertTrue(set.contains(42));
+		assertFalse(set.contains(5));
+		assertFalse(SortedIntSet.EMPTY.contains(0));
+	}
+
+	/**
+	 * @see SortedIntSet#union(SortedIntSet)
+	 */
+	@Test
+	public void union_shouldReturnTheValuesInEitherSet() {
+		assertArrayEquals(new int[] { 1, 2, 3, 5, 8 }, SortedIntSet.of(1, 3, 5).union(SortedIntSet.of(2, 3, 8)).toArray());
+		assertEquals(SortedIntSet.of(1), SortedIntSet.EMPTY.union(SortedIntSet.of(1)));
+	}
+
+	/**
+	 * @see SortedIntSet#intersect(SortedIntSet)
+	 */
+	@Test
+	public void intersect_shouldReturnTheValuesInBothSets() {
+		assertArrayEquals(new int[] { 3 }, SortedIntSet.of(1, 3, 5).intersect(SortedIntSet.of(2, 3, 8)).toArray());
+		assertTrue(SortedIntSet.of(1).intersect(SortedIntSet.of(2)).isEmpty());
+	}
+
+	/**
+	 * @see SortedIntSet#subtract(SortedIntSet)
+	 */
+	@Test
+	public void subtract_shouldReturnTheValuesThatAreNotInTheOtherSet() {
+		assertArrayEquals(new int[] { 1, 5 }, SortedIntSet.of(1, 3, 5).subtract(SortedIntSet.of(2, 3, 8)).toArray());
+		assertTrue(SortedIntSet.of(1).subtract(SortedIntSet.of(1)).isEmpty());
+	}
+
+	/**
+	 * Compares the set algebra with the boxed TreeSet operations previously used by Cohort
+	 */
+	@Test
+	public void setAlgebra_shouldMatchTreeSetsForLargeRandomSets() {
+		Random random = new Random(42);
+		Set<Integer> a = randomSet(random, 100000);
+		Set<Integer> b = randomSet(random, 100000);
+		SortedIntSet sortedA = SortedIntSet.of(a);
+		SortedIntSet sortedB = SortedIntSet.of(b);
+
+		Set<Integer> union = new TreeSet<Integer>(a);
+		union.addAll(b);
+		assertEquals(union, sortedA.union(sortedB).toSet());
+
+		Set<Integer> intersection = new TreeSet<Integer>(a);
+		intersection.retainAll(b);
+		assertEquals(intersection, sortedA.intersect(sortedB).toSet());
+
+		Set<Integer> difference = new TreeSet<Integer>(a);
+		difference.removeAll(b);
+		assertEquals(difference, sortedA.subtract(sortedB).toSet());
+	}
+
+	private Set<Integer> randomSet(Random random, int size) {
+		Set<Integer> set = new HashSet<Integer>();
+		while (set.size() < size) {
+			set.add(random.nextInt(size * 4));
+		}
+		return set;
+	}
+}
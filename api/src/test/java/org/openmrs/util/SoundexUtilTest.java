@@ -0,0 +1,79 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SoundexUtil} class
+ */
+public class SoundexUtilTest {
+
+	/**
+	 * @see SoundexUtil#encode(String)
+	 */
+	@Test
+	public void encode_shouldReturnTheCodeOfTheGivenText() {
+		assertEquals("R163", SoundexUtil.encode("Robert"));
+		assertEquals("R163", SoundexUtil.encode("Rupert"));
+		assertEquals("R150", SoundexUtil.encode("Rubin"));
+		assertEquals("T522", SoundexUtil.encode("Tymczak"));
+		assertEquals("P236", SoundexUtil.encode("Pfister"));
+	}
+
+	/**
+	 * @see SoundexUtil#encode(String)
+	 */
+	@Test
+	public void encode_shouldIgnoreCaseAndCharactersOtherThanLetters() {
+		assertEquals("R163", SoundexUtil.encode("rObErT"));
+		assertEquals("O220", SoundexUtil.encode(" O'Casey-"));
+	}
+
+	/**
+	 * @see SoundexUtil#encode(String)
+	 */
+	@Test
+	public void encode_shouldNotSeparateEqualCodesByHOrW() {
+		assertEquals("A261", SoundexUtil.encode("Ashcraft"));
+		assertEquals("H155", SoundexUtil.encode("Hoffman"));
+	}
+
+	/**
+	 * @see SoundexUtil#encode(String)
+	 */
+	@Test
+	public void encode_shouldSeparateEqualCodesByVowels() {
+		assertEquals("T522", SoundexUtil.encode("Tymczak"));
+		assertEquals("C532", SoundexUtil.encode("Cantacuzene"));
+	}
+
+	/**
+	 * @see SoundexUtil#encode(String)
+	 */
+	@Test
+	public void encode_shouldPadShortCodesWithZeros() {
+		assertEquals("L000", SoundexUtil.encode("Lee"));
+		assertEquals("A000", SoundexUtil.encode("a"));
+	}
+
+	/**
+	 * @see SoundexUtil#encode(String)
+	 */
+	@Test
+	public void encode_shouldReturnNullIfTheTextHasNoLetters() {
+		assertNull(SoundexUtil.encode(null));
+		assertNull(SoundexUtil.encode(""));
+		assertNull(SoundexUtil.encode("123 -"));
+	}
+}
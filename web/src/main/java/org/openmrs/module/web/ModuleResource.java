@@ -0,0 +1,88 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web;
+
+import java.io.File;
+
+/**
+ * A static resource of a module as it was when it was cached by the {@link ModuleResourceCache}: its
+ * file, length, modification time and strong ETag, its content if it is small enough to be kept in
+ * memory and its precompressed .gz variant if there is one.
+ *
+ * @since 2.2.0
+ */
+public class ModuleResource {
+	
+	private final File file;
+	
+	private final long length;
+	
+	private final long lastModified;
+	
+	private final String etag;
+	
+	private final byte[] content;
+	
+	private final ModuleResource compressed;
+	
+	ModuleResource(File file, long length, long lastModified, String etag, byte[] content, ModuleResource compressed) {
+		this.file = file;
+		this.length = length;
+		this.lastModified = lastModified;
+		this.etag = etag;
+		this.content = content;
+		this.compressed = compressed;
+	}
+	
+	/**
+	 * @return true if neither the file nor its .gz variant were changed since the resource was
+	 *         cached
+	 */
+	public boolean isCurrent() {
+		return file.lastModified() == lastModified && (compressed == null || compressed.isCurrent());
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	public long getLength() {
+		return length;
+	}
+	
+	public long getLastModified() {
+		return lastModified;
+	}
+	
+	/**
+	 * @return the strong ETag of the content, including the quotes
+	 */
+	public String getETag() {
+		return etag;
+	}
+	
+	/**
+	 * @return the content or null if it is not held in memory
+	 */
+	public byte[] getContent() {
+		return content;
+	}
+	
+	/**
+	 * @return the gzip compressed variant of the resource or null if there is none
+	 */
+	public ModuleResource getCompressed() {
+		return compressed;
+	}
+	
+	long getMemoryUsed() {
+		return (content == null ? 0 : content.length) + (compressed == null ? 0 : compressed.getMemoryUsed());
+	}
+}
@@ -0,0 +1,257 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmrs.api.APIException;
+import org.openmrs.module.Module;
+import org.openmrs.util.OpenmrsUtil;
+
+/**
+ * Caches the resolved static resources of the started modules, so that serving a resource neither
+ * probes the file system for it nor computes its ETag again. The resources of a module are kept
+ * for the version of the module they were resolved for and dropped once the module is stopped or
+ * another version is started. A cached resource is only used as long as its file is unchanged, which is what keeps
+ * the resources of modules loaded from their development directory current. <br>
+ * <br>
+ * The content of files of up to {@link #MAX_CONTENT_LENGTH} bytes is held in memory as long as the
+ * memory used by all cached content stays within the size the cache was created with.
+ *
+ * @see ModuleResourcesServlet
+ * @since 2.2.0
+ */
+public class ModuleResourceCache {
+	
+	/**
+	 * The length of the largest file whose content is held in memory
+	 */
+	public static final int MAX_CONTENT_LENGTH = 65536;
+	
+	private static final String GZIP_SUFFIX = ".gz";
+	
+	private final long maxMemory;
+	
+	private final AtomicLong memoryUsed = new AtomicLong();
+	
+	private final Map<String, ModuleResources> resourcesByModule = new ConcurrentHashMap<String, ModuleResources>();
+	
+	/**
+	 * @param maxMemory the number of bytes of file content which may be held in memory, 0 to hold
+	 *            none
+	 */
+	public ModuleResourceCache(long maxMemory) {
+		this.maxMemory = maxMemory;
+	}
+	
+	/**
+	 * Gets a cached resource of the given module
+	 *
+	 * @param module the module
+	 * @param path the path of the resource relative to the resources of the module
+	 * @return the resource or null if it is not cached, or was changed since it was cached
+	 * @should return cached resources
+	 * @should not return resources cached for another version of the module
+	 * @should not return resources which were changed since they were cached
+	 */
+	public ModuleResource get(Module module, String path) {
+		ModuleResources resources = resourcesByModule.get(module.getModuleId());
+		if (resources == null || !resources.isFor(module)) {
+			return null;
+		}
+		
+		ModuleResource resource = resources.byPath.get(path);
+		if (resource != null && !resource.isCurrent()) {
+			remove(resources, path, resource);
+			return null;
+		}
+		return resource;
+	}
+	
+	/**
+	 * Reads the given file of a module and caches it as a resource
+	 *
+	 * @param module the module
+	 * @param path the path of the resource relative to the resources of the module
+	 * @param file the file of the resource
+	 * @return the cached resource
+	 * @throws IOException if the file cannot be read
+	 * @should compute a strong etag from the content
+	 * @should hold small files in memory within the maximum memory
+	 * @should add the precompressed variant of the file
+	 * @should ignore precompressed variants older than the file
+	 */
+	public ModuleResource put(Module module, String path, File file) throws IOException {
+		File gzipFile = new File(file.getPath() + GZIP_SUFFIX);
+		ModuleResource compressed = null;
+		if (gzipFile.isFile() && gzipFile.lastModified() >= file.lastModified()) {
+			compressed = read(gzipFile, null);
+		}
+		ModuleResource resource;
+		try {
+			resource = read(file, compressed);
+		}
+		catch (IOException e) {
+			if (compressed != null) {
+				memoryUsed.addAndGet(-compressed.getMemoryUsed());
+			}
+			throw e;
+		}
+		
+		synchronized (this) {
+			ModuleResources resources = resourcesByModule.get(module.getModuleId());
+			if (resources == null || !resources.isFor(module)) {
+				if (resources != null) {
+					for (ModuleResource replaced : resources.byPath.values()) {
+						memoryUsed.addAndGet(-replaced.getMemoryUsed());
+					}
+					resources.byPath.clear();
+				}
+				resources = new ModuleResources(module.getVersion());
+				resourcesByModule.put(module.getModuleId(), resources);
+			}
+			
+			ModuleResource replaced = resources.byPath.put(path, resource);
+			if (replaced != null) {
+				memoryUsed.addAndGet(-replaced.getMemoryUsed());
+			}
+		}
+		return resource;
+	}
+	
+	/**
+	 * Drops the cached resources of the given module
+	 *
+	 * @param module the module
+	 * @should remove the resources of the module
+	 * @should release the memory of the resources of the module
+	 */
+	public synchronized void remove(Module module) {
+		ModuleResources resources = resourcesByModule.remove(module.getModuleId());
+		if (resources != null) {
+			for (ModuleResource removed : resources.byPath.values()) {
+				memoryUsed.addAndGet(-removed.getMemoryUsed());
+			}
+			resources.byPath.clear();
+		}
+	}
+	
+	private synchronized void remove(ModuleResources resources, String path, ModuleResource resource) {
+		if (resources.byPath.remove(path, resource)) {
+			memoryUsed.addAndGet(-resource.getMemoryUsed());
+		}
+	}
+	
+	/**
+	 * Empties the cache
+	 */
+	public synchronized void clear() {
+		resourcesByModule.clear();
+		memoryUsed.set(0);
+	}
+	
+	/**
+	 * @return the number of bytes of file content held in memory
+	 */
+	public long getMemoryUsed() {
+		return memoryUsed.get();
+	}
+	
+	/**
+	 * Reads the file to compute its ETag, keeping its content if it is small enough and the memory
+	 * allows it
+	 */
+	private ModuleResource read(File file, ModuleResource compressed) throws IOException {
+		long lastModified = file.lastModified();
+		long length = file.length();
+		boolean keepContent = length <= MAX_CONTENT_LENGTH && reserveMemory(length);
+		
+		MessageDigest digest = newDigest();
+		ByteArrayOutputStream content = keepContent ? new ByteArrayOutputStream((int) length) : null;
+		InputStream in = null;
+		boolean read = false;
+		try {
+			in = new FileInputStream(file);
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, count);
+				if (content != null) {
+					content.write(buffer, 0, count);
+				}
+			}
+			read = true;
+		}
+		finally {
+			OpenmrsUtil.closeStream(in);
+			if (!read && keepContent) {
+				memoryUsed.addAndGet(-length);
+			}
+		}
+		
+		byte[] bytes = null;
+		if (content != null) {
+			bytes = content.toByteArray();
+			memoryUsed.addAndGet(bytes.length - length);
+			length = bytes.length;
+		}
+		String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+		return new ModuleResource(file, length, lastModified, etag, bytes, compressed);
+	}
+	
+	private boolean reserveMemory(long length) {
+		while (true) {
+			long used = memoryUsed.get();
+			if (used + length > maxMemory) {
+				return false;
+			}
+			if (memoryUsed.compareAndSet(used, used + length)) {
+				return true;
+			}
+		}
+	}
+	
+	private MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new APIException("SHA-256 is not supported", e);
+		}
+	}
+	
+	/**
+	 * The resources of one version of a module by path
+	 */
+	private static class ModuleResources {
+		
+		private final String version;
+		
+		private final Map<String, ModuleResource> byPath = new ConcurrentHashMap<String, ModuleResource>();
+		
+		private ModuleResources(String version) {
+			this.version = version;
+		}
+		
+		private boolean isFor(Module module) {
+			return version == null ? module.getVersion() == null : version.equals(module.getVersion());
+		}
+	}
+}
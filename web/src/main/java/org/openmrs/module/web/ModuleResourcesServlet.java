@@ -12,40 +12,95 @@ package org.openmrs.module.web;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang.StringUtils;
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleUtil;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Serves the static resources of the started modules. The resolved resources are kept in a
+ * {@link ModuleResourceCache} so that they are validated with one file system call and have a
+ * strong ETag for conditional requests. Small files are served from memory, larger ones are sent
+ * by the container with sendfile where it supports it and with {@link FileChannel#transferTo}
+ * otherwise. A precompressed variant, the file name followed by .gz, is served to clients accepting gzip. <br>
+ * <br>
+ * Resources requested with the version of their module as the v parameter, e.g.
+ * /moduleResources/legacyui/scripts/app.js?v=1.2.0, are cached by clients for a year unless the
+ * module is loaded from its development directory. No Cache-Control header is sent for all others,
+ * so clients keep caching them heuristically and revalidate them with the ETag or Last-Modified. The
+ * init parameter memoryCacheSize sets the number of bytes of file content kept in memory.
+ */
 public class ModuleResourcesServlet extends HttpServlet {
 	
 	private static final String MODULE_PATH = "/WEB-INF/view/module/";
 	
 	private static final long serialVersionUID = 1239820102030344L;
 	
+	/**
+	 * The default number of bytes of file content kept in memory
+	 */
+	public static final long DEFAULT_MEMORY_CACHE_SIZE = 16 * 1024 * 1024;
+	
+	private static final String VERSION_PARAMETER = "v";
+	
+	private static final String CACHE_CONTROL_VERSIONED = "public, max-age=31536000";
+	
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+	
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+	
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+	
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+	
 	private Logger log = LoggerFactory.getLogger(this.getClass());
 	
+	private transient ModuleResourceCache resourceCache = new ModuleResourceCache(DEFAULT_MEMORY_CACHE_SIZE);
+	
+	/**
+	 * @see javax.servlet.GenericServlet#init()
+	 */
+	@Override
+	public void init() throws ServletException {
+		String memoryCacheSize = getInitParameter("memoryCacheSize");
+		if (StringUtils.isNotBlank(memoryCacheSize)) {
+			resourceCache = new ModuleResourceCache(Long.parseLong(memoryCacheSize.trim()));
+		}
+		WebModuleUtil.setModuleResourceCache(resourceCache);
+	}
+	
 	/**
-	 * Used for caching purposes
+	 * Used for caching purposes. Requests with an If-None-Match header are left to
+	 * {@link #doGet(HttpServletRequest, HttpServletResponse)}, since the ETag takes precedence over
+	 * the modification time.
 	 *
 	 * @see javax.servlet.http.HttpServlet#getLastModified(javax.servlet.http.HttpServletRequest)
 	 */
 	@Override
 	protected long getLastModified(HttpServletRequest req) {
-		File f = getFile(req);
+		if (req.getHeader("If-None-Match") != null) {
+			return -1;
+		}
 		
-		if (f == null) {
+		ModuleResource resource = getResource(req);
+		
+		if (resource == null) {
 			return super.getLastModified(req);
 		}
 		
-		return f.lastModified();
+		return resource.getLastModified();
 	}
 	
 	@Override
@@ -53,26 +108,128 @@ public class ModuleResourcesServlet extends HttpServlet {
 		
 		log.debug("In service method for module servlet: " + request.getPathInfo());
 		
-		File f = getFile(request);
-		if (f == null) {
+		Module module = ModuleUtil.getModuleForPath(request.getPathInfo());
+		ModuleResource resource = getResource(module, request.getPathInfo());
+		if (resource == null) {
 			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
 			return;
 		}
 		
-		response.setDateHeader("Last-Modified", f.lastModified());
-		response.setContentLength(Long.valueOf(f.length()).intValue());
-		String mimeType = getServletContext().getMimeType(f.getName());
-		response.setContentType(mimeType);
+		ModuleResource representation = resource;
+		if (resource.getCompressed() != null) {
+			response.addHeader("Vary", "Accept-Encoding");
+			String acceptEncoding = request.getHeader("Accept-Encoding");
+			if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+				representation = resource.getCompressed();
+			}
+		}
+		
+		response.setDateHeader("Last-Modified", resource.getLastModified());
+		response.setHeader("ETag", representation.getETag());
+		if (isVersioned(request, module)) {
+			response.setHeader("Cache-Control", CACHE_CONTROL_VERSIONED);
+		}
 		
-		FileInputStream is = new FileInputStream(f);
+		if (matchesETag(request.getHeader("If-None-Match"), representation.getETag())) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		
+		response.setContentType(getServletContext().getMimeType(resource.getFile().getName()));
+		if (representation != resource) {
+			response.setHeader("Content-Encoding", "gzip");
+		}
+		response.setContentLength((int) representation.getLength());
+		
+		if (representation.getContent() != null) {
+			response.getOutputStream().write(representation.getContent());
+		} else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))
+		        && !(response instanceof ServletResponseWrapper)) {
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, representation.getFile().getAbsolutePath());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, representation.getLength());
+		} else {
+			transferFile(representation, response);
+		}
+	}
+	
+	private void transferFile(ModuleResource resource, HttpServletResponse response) throws IOException {
+		FileInputStream is = new FileInputStream(resource.getFile());
 		try {
-			OpenmrsUtil.copyFile(is, response.getOutputStream());
+			FileChannel channel = is.getChannel();
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < resource.getLength()) {
+				long transferred = channel.transferTo(position, resource.getLength() - position, out);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
 		}
 		finally {
 			OpenmrsUtil.closeStream(is);
 		}
 	}
 	
+	private boolean isVersioned(HttpServletRequest request, Module module) {
+		String version = request.getParameter(VERSION_PARAMETER);
+		return version != null && version.equals(module.getVersion())
+		        && ModuleUtil.getDevelopmentDirectory(module.getModuleId()) == null;
+	}
+	
+	private boolean matchesETag(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if ("*".equals(tag) || etag.equals(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets the requested resource from the cache, resolving and caching it if necessary
+	 *
+	 * @param request the current http request
+	 * @return the resource being requested or null if not found
+	 */
+	protected ModuleResource getResource(HttpServletRequest request) {
+		String path = request.getPathInfo();
+		return getResource(ModuleUtil.getModuleForPath(path), path);
+	}
+	
+	private ModuleResource getResource(Module module, String path) {
+		if (module == null) {
+			log.warn("No module handles the path: " + path);
+			return null;
+		}
+		
+		String relativePath = ModuleUtil.getPathForResource(module, path);
+		ModuleResource resource = resourceCache.get(module, relativePath);
+		if (resource == null) {
+			File f = getFile(module, relativePath);
+			if (f == null) {
+				return null;
+			}
+			try {
+				resource = resourceCache.put(module, relativePath, f);
+			}
+			catch (IOException e) {
+				log.warn("Unable to read the file '" + f.getAbsolutePath() + "' of module '" + module.getModuleId() + "'",
+				    e);
+				return null;
+			}
+		}
+		return resource;
+	}
+	
 	/**
 	 * Turns the given request/path into a File object
 	 *
@@ -89,7 +246,18 @@ public class ModuleResourcesServlet extends HttpServlet {
 			return null;
 		}
 		
-		String relativePath = ModuleUtil.getPathForResource(module, path);
+		return getFile(module, ModuleUtil.getPathForResource(module, path));
+	}
+	
+	/**
+	 * Turns the given path of a resource of a module into a File object
+	 *
+	 * @param module the module
+	 * @param relativePath the path of the resource relative to the resources of the module
+	 * @return the file or null if not found
+	 * @since 2.2.0
+	 */
+	protected File getFile(Module module, String relativePath) {
 		String realPath = getServletContext().getRealPath("") + MODULE_PATH + module.getModuleIdAsPath() + "/resources"
 		        + relativePath;
 		
@@ -102,7 +270,7 @@ public class ModuleResourcesServlet extends HttpServlet {
 		realPath = realPath.replace("/", File.separator);
 		
 		File f = new File(realPath);
-		if (!f.exists()) {
+		if (!f.isFile()) {
 			log.warn("No file with path '" + realPath + "' exists for module '" + module.getModuleId() + "'");
 			return null;
 		}
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -53,6 +54,7 @@ import org.openmrs.module.ModuleFactory;
 import org.openmrs.module.ModuleUtil;
 import org.openmrs.module.web.filter.ModuleFilterConfig;
 import org.openmrs.module.web.filter.ModuleFilterDefinition;
+import org.openmrs.module.web.filter.ModuleFilterIndex;
 import org.openmrs.module.web.filter.ModuleFilterMapping;
 import org.openmrs.scheduler.SchedulerException;
 import org.openmrs.scheduler.SchedulerService;
@@ -82,6 +84,8 @@ public class WebModuleUtil {
 	
 	private static StaticDispatcherServlet staticDispatcherServlet = null;
 	
+	private static ModuleResourceCache moduleResourceCache = null;
+	
 	// caches all of the modules' mapped servlets
 	private static Map<String, HttpServlet> moduleServlets = Collections.synchronizedMap(new HashMap<String, HttpServlet>());
 	
@@ -94,6 +98,10 @@ public class WebModuleUtil {
 	private static List<ModuleFilterMapping> moduleFilterMappings = Collections
 	        .synchronizedList(new Vector<ModuleFilterMapping>());
 	
+	// the filter mappings compiled for dispatching requests, rebuilt when filters are loaded or unloaded
+	private static volatile ModuleFilterIndex moduleFilterIndex = new ModuleFilterIndex(
+	        Collections.<ModuleFilterMapping> emptyList(), Collections.<String, Filter> emptyMap());
+	
 	/**
 	 * Performs the webapp specific startup needs for modules Normal startup is done in
 	 * {@link ModuleFactory#startModule(Module)} If delayContextRefresh is true, the spring context
@@ -558,6 +566,7 @@ public class WebModuleUtil {
 		// Load Filter Mappings
 		List<ModuleFilterMapping> modMappings = ModuleFilterMapping.retrieveFilterMappings(module);
 		moduleFilterMappings.addAll(modMappings);
+		rebuildFilterIndex();
 		log.debug("Module: " + module.getModuleId() + " successfully loaded " + modMappings.size() + " filter mappings.");
 	}
 	
@@ -579,7 +588,20 @@ public class WebModuleUtil {
 		}
 		
 		// unload Filters
-		Collection<Filter> filters = moduleFilters.get(module);
+		Collection<Filter> filters = moduleFilters.remove(module);
+		if (filters != null) {
+			for (Iterator<String> i = moduleFiltersByName.keySet().iterator(); i.hasNext();) {
+				String filterName = i.next();
+				Filter filterVal = moduleFiltersByName.get(filterName);
+				if (filters.contains(filterVal)) {
+					i.remove();
+				}
+			}
+		}
+		
+		// stop dispatching requests to the filters before they are destroyed
+		rebuildFilterIndex();
+		
 		if (filters != null) {
 			try {
 				for (Filter f : filters) {
@@ -590,18 +612,24 @@ public class WebModuleUtil {
 				log.warn("An error occurred while trying to destroy and remove module Filter.", e);
 			}
 			log.debug("Module: " + module.getModuleId() + " successfully unloaded " + filters.size() + " filters.");
-			moduleFilters.remove(module);
-			
-			for (Iterator<String> i = moduleFiltersByName.keySet().iterator(); i.hasNext();) {
-				String filterName = i.next();
-				Filter filterVal = moduleFiltersByName.get(filterName);
-				if (filters.contains(filterVal)) {
-					i.remove();
-				}
-			}
 		}
 	}
 	
+	/**
+	 * Compiles the current filter mappings for dispatching requests
+	 */
+	private static synchronized void rebuildFilterIndex() {
+		List<ModuleFilterMapping> mappings;
+		synchronized (moduleFilterMappings) {
+			mappings = new ArrayList<ModuleFilterMapping>(moduleFilterMappings);
+		}
+		Map<String, Filter> filters;
+		synchronized (moduleFiltersByName) {
+			filters = new HashMap<String, Filter>(moduleFiltersByName);
+		}
+		moduleFilterIndex = new ModuleFilterIndex(mappings, filters);
+	}
+	
 	/**
 	 * This method will return all Filters that have been registered a module
 	 *
@@ -623,14 +651,15 @@ public class WebModuleUtil {
 	
 	/**
 	 * Return List of Filters that have been loaded through Modules that have mappings that pass for
-	 * the passed request
+	 * the passed request. The mappings are looked up in a {@link ModuleFilterIndex} which is rebuilt
+	 * when filters are loaded or unloaded.
 	 *
 	 * @param request - The request to check for matching {@link Filter}s
-	 * @return List of all {@link Filter}s that have filter mappings that match the passed request
+	 * @return immutable List of all {@link Filter}s that have filter mappings that match the passed
+	 *         request
 	 */
 	public static List<Filter> getFiltersForRequest(ServletRequest request) {
 		
-		List<Filter> filters = new Vector<Filter>();
 		if (request != null) {
 			HttpServletRequest httpRequest = (HttpServletRequest) request;
 			String requestPath = httpRequest.getRequestURI();
@@ -639,20 +668,10 @@ public class WebModuleUtil {
 				if (requestPath.startsWith(httpRequest.getContextPath())) {
 					requestPath = requestPath.substring(httpRequest.getContextPath().length());
 				}
-				for (ModuleFilterMapping filterMapping : WebModuleUtil.getFilterMappings()) {
-					if (ModuleFilterMapping.filterMappingPasses(filterMapping, requestPath)) {
-						Filter passedFilter = moduleFiltersByName.get(filterMapping.getFilterName());
-						if (passedFilter != null) {
-							filters.add(passedFilter);
-						} else {
-							log.warn("Unable to retrieve filter that has a name of " + filterMapping.getFilterName()
-							        + " in filter mapping.");
-						}
-					}
-				}
+				return moduleFilterIndex.getFilters(requestPath);
 			}
 		}
-		return filters;
+		return Collections.emptyList();
 	}
 	
 	/**
@@ -766,6 +785,11 @@ public class WebModuleUtil {
 		// stop all tasks associated with mod
 		stopTasks(mod);
 		
+		// drop the cached static resources of the module
+		if (moduleResourceCache != null) {
+			moduleResourceCache.remove(mod);
+		}
+		
 		// remove this module's entries in the dwr xml file
 		InputStream inputStream = null;
 		try {
@@ -904,6 +928,18 @@ public class WebModuleUtil {
 		staticDispatcherServlet = ds;
 	}
 	
+	/**
+	 * Save the cache of the module resources servlet so that the resources of stopped modules are
+	 * dropped from it
+	 *
+	 * @param cache
+	 * @since 2.2.0
+	 */
+	public static void setModuleResourceCache(ModuleResourceCache cache) {
+		log.debug("Setting module resource cache: " + cache);
+		moduleResourceCache = cache;
+	}
+	
 	/**
 	 * Finds the servlet defined by the servlet name
 	 *
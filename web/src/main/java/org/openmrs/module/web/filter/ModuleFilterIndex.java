@@ -0,0 +1,185 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.Filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches request paths to the module filters whose mappings match them without testing every
+ * mapping against every request. The url patterns and servlet names of the mappings are compiled
+ * into a map of exact paths, a map of path prefixes for patterns ending in /* and a map of
+ * extensions for patterns starting with *., which give the same matches as
+ * {@link ModuleFilterMapping#filterMappingPasses(ModuleFilterMapping, String)}. The filters are
+ * returned in the order of the mappings and the immutable list of filters for a path is cached, so
+ * it is built once for each distinct path up to {@link #MAX_CACHED_PATHS} paths.
+ * <p>
+ * An index is a snapshot of the mappings and filters it was built from, a new one has to be built
+ * when modules are started or stopped.
+ *
+ * @see org.openmrs.module.web.WebModuleUtil#getFiltersForRequest(javax.servlet.ServletRequest)
+ * @since 2.2.0
+ */
+public class ModuleFilterIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ModuleFilterIndex.class);
+
+	/**
+	 * The number of paths whose filters are cached, the cache is cleared when it grows larger
+	 */
+	public static final int MAX_CACHED_PATHS = 10000;
+
+	private final List<Filter> filters = new ArrayList<Filter>();
+
+	private final List<Integer> matchAll = new ArrayList<Integer>();
+
+	private final Map<String, List<Integer>> exactPaths = new HashMap<String, List<Integer>>();
+
+	private final Map<String, List<Integer>> pathPrefixes = new HashMap<String, List<Integer>>();
+
+	private final Map<String, List<Integer>> extensions = new HashMap<String, List<Integer>>();
+
+	private final Map<String, List<Filter>> filtersByPath = new ConcurrentHashMap<String, List<Filter>>();
+
+	private final Map<SortedSet<Integer>, List<Filter>> filtersByMatches = new ConcurrentHashMap<SortedSet<Integer>, List<Filter>>();
+
+	/**
+	 * @param mappings the filter mappings in the order the filters are applied
+	 * @param filtersByName the filters of the mappings by name
+	 */
+	public ModuleFilterIndex(List<ModuleFilterMapping> mappings, Map<String, Filter> filtersByName) {
+		for (ModuleFilterMapping mapping : mappings) {
+			Filter filter = filtersByName.get(mapping.getFilterName());
+			if (filter == null) {
+				log.warn("Unable to retrieve filter that has a name of " + mapping.getFilterName() + " in filter mapping.");
+				continue;
+			}
+
+			Integer position = filters.size();
+			filters.add(filter);
+			for (String urlPattern : mapping.getUrlPatterns()) {
+				addUrlPattern(urlPattern, position);
+			}
+			for (String servletName : mapping.getServletNames()) {
+				addServletName(servletName, position);
+			}
+		}
+	}
+
+	private void addUrlPattern(String pattern, Integer position) {
+		if (pattern == null) {
+			return;
+		}
+		if ("*".equals(pattern) || "/*".equals(pattern)) {
+			matchAll.add(position);
+			return;
+		}
+
+		add(exactPaths, pattern, position);
+		if (pattern.endsWith("/*")) {
+			add(pathPrefixes, pattern.substring(0, pattern.length() - 2), position);
+		} else if (pattern.startsWith("*.")) {
+			add(extensions, pattern.substring(2), position);
+		}
+	}
+
+	private void addServletName(String servletName, Integer position) {
+		if ("*".equals(servletName)) {
+			matchAll.add(position);
+		} else if (servletName != null) {
+			add(exactPaths, servletName, position);
+		}
+	}
+
+	private void add(Map<String, List<Integer>> map, String key, Integer position) {
+		List<Integer> positions = map.get(key);
+		if (positions == null) {
+			positions = new ArrayList<Integer>();
+			map.put(key, positions);
+		}
+		positions.add(position);
+	}
+
+	/**
+	 * Gets the filters whose mappings match the given path
+	 *
+	 * @param requestPath the request path relative to the context path
+	 * @return the immutable list of matching filters in the order of their mappings
+	 * @should return filters matching all paths
+	 * @should return filters matching the exact path
+	 * @should return filters matching a prefix of the path
+	 * @should return filters matching the extension of the path
+	 * @should return filters in the order of their mappings
+	 * @should return the same filters as the filter mappings
+	 * @should return an empty list if the path is null
+	 */
+	public List<Filter> getFilters(String requestPath) {
+		if (requestPath == null) {
+			return Collections.emptyList();
+		}
+
+		List<Filter> result = filtersByPath.get(requestPath);
+		if (result == null) {
+			result = findFilters(requestPath);
+			if (filtersByPath.size() >= MAX_CACHED_PATHS) {
+				filtersByPath.clear();
+			}
+			filtersByPath.put(requestPath, result);
+		}
+		return result;
+	}
+
+	private List<Filter> findFilters(String requestPath) {
+		SortedSet<Integer> matches = new TreeSet<Integer>(matchAll);
+		addAll(matches, exactPaths.get(requestPath));
+
+		if (!pathPrefixes.isEmpty()) {
+			for (int i = 0; i <= requestPath.length(); i++) {
+				if (i == requestPath.length() || requestPath.charAt(i) == '/') {
+					addAll(matches, pathPrefixes.get(requestPath.substring(0, i)));
+				}
+			}
+		}
+
+		int slash = requestPath.lastIndexOf('/');
+		int period = requestPath.lastIndexOf('.');
+		if (slash >= 0 && period > slash && period != requestPath.length() - 1) {
+			addAll(matches, extensions.get(requestPath.substring(period + 1)));
+		}
+
+		List<Filter> result = filtersByMatches.get(matches);
+		if (result == null) {
+			List<Filter> matchingFilters = new ArrayList<Filter>(matches.size());
+			for (Integer position : matches) {
+				matchingFilters.add(filters.get(position));
+			}
+			result = Collections.unmodifiableList(matchingFilters);
+			filtersByMatches.put(matches, result);
+		}
+		return result;
+	}
+
+	private void addAll(SortedSet<Integer> matches, List<Integer> positions) {
+		if (positions != null) {
+			matches.addAll(positions);
+		}
+	}
+}
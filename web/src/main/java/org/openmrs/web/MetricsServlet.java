@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openmrs.OpenmrsCharacterEscapes;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.metrics.MetricsSnapshot;
+
+/**
+ * Writes the metrics of {@link org.openmrs.api.MetricsService} as JSON for users with the View
+ * Administration Functions privilege. With the parameter view=delta the metrics since the previous
+ * request of the same session are written, otherwise those since the statistics were started.
+ *
+ * @since 2.2.0
+ */
+public class MetricsServlet extends HttpServlet {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final String PREVIOUS_SNAPSHOT_ATTRIBUTE = MetricsServlet.class.getName() + ".previousSnapshot";
+	
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		if (!Context.isAuthenticated()) {
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			return;
+		}
+		
+		MetricsSnapshot snapshot;
+		try {
+			snapshot = Context.getMetricsService().getMetricsSnapshot();
+		}
+		catch (APIAuthenticationException e) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		
+		Object metrics = snapshot;
+		if ("delta".equals(request.getParameter("view"))) {
+			HttpSession session = request.getSession();
+			MetricsSnapshot previous = (MetricsSnapshot) session.getAttribute(PREVIOUS_SNAPSHOT_ATTRIBUTE);
+			session.setAttribute(PREVIOUS_SNAPSHOT_ATTRIBUTE, snapshot);
+			if (previous != null) {
+				metrics = snapshot.delta(previous);
+			}
+		}
+		
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.getJsonFactory().setCharacterEscapes(new OpenmrsCharacterEscapes());
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		mapper.writeValue(response.getOutputStream(), metrics);
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@link Deflater}s producing raw deflate data, so that compressing a response
+ * does not allocate the native buffers of a new deflater every time. A released deflater is reset
+ * and kept for the next response unless the pool is full, in which case it is ended.
+ *
+ * @see GZIPResponseStream
+ * @since 2.2.0
+ */
+public class DeflaterPool {
+	
+	private final BlockingQueue<Deflater> deflaters;
+	
+	private final int level;
+	
+	/**
+	 * @param size the maximum number of idle deflaters kept
+	 * @param level the compression level of the deflaters
+	 */
+	public DeflaterPool(int size, int level) {
+		this.deflaters = new ArrayBlockingQueue<Deflater>(Math.max(size, 1));
+		this.level = level;
+	}
+	
+	/**
+	 * Takes an idle deflater from the pool or creates a new one if there is none
+	 *
+	 * @return a deflater which has to be handed back with {@link #release(Deflater)}
+	 * @should reuse released deflaters
+	 */
+	public Deflater borrow() {
+		Deflater deflater = deflaters.poll();
+		return deflater != null ? deflater : new Deflater(level, true);
+	}
+	
+	/**
+	 * Resets the given deflater and returns it to the pool, or ends it if the pool is full
+	 *
+	 * @param deflater the deflater to release
+	 * @should end deflaters if the pool is full
+	 */
+	public void release(Deflater deflater) {
+		deflater.reset();
+		if (!deflaters.offer(deflater)) {
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * Ends all idle deflaters
+	 */
+	public void clear() {
+		Deflater deflater;
+		while ((deflater = deflaters.poll()) != null) {
+			deflater.end();
+		}
+	}
+}
@@ -10,12 +10,17 @@
 package org.openmrs.web.filter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang.StringUtils;
 import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsConstants;
@@ -28,15 +33,61 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * href="http://www.onjava.com/pub/a/onjava/2003/11/19/filters.html">
  * http://www.onjava.com/pub/a/onjava/2003/11/19/filters.html</a>. &copy; 2003 Jayson Falkner You
  * may freely use the code both commercially and non-commercially.
+ * <p>
+ * Responses are compressed while they are written, see {@link GZIPResponseStream}. The following
+ * init parameters are supported:
+ * <ul>
+ * <li>minCompressSize: the number of bytes a response must exceed to be compressed, 2048 by
+ * default</li>
+ * <li>excludedContentTypes: a comma separated list of content type prefixes which are not
+ * compressed, by default image, audio and video formats and archives which are compressed
+ * already</li>
+ * <li>deflaterPoolSize: the number of deflaters kept for reuse across requests, 32 by default</li>
+ * </ul>
  */
 public class GZIPFilter extends OncePerRequestFilter {
 	
 	private static final Logger log = LoggerFactory.getLogger(GZIPFilter.class);
 	
+	/**
+	 * The content types which are compressed already and not worth compressing again
+	 */
+	public static final String DEFAULT_EXCLUDED_CONTENT_TYPES = "image/png,image/gif,image/jpeg,image/webp,audio/,video/,"
+	        + "application/zip,application/gzip,application/x-gzip,application/x-compress,application/pdf,"
+	        + "application/font-woff,font/woff";
+	
+	public static final int DEFAULT_DEFLATER_POOL_SIZE = 32;
+	
 	private Boolean cachedGZipEnabledFlag = null;
 	
 	private String cachedGZipCompressedRequestForPathAccepted = null;
 	
+	private int minCompressSize = GZIPResponseStream.DEFAULT_MIN_COMPRESS_SIZE;
+	
+	private List<String> excludedContentTypes = parseContentTypes(DEFAULT_EXCLUDED_CONTENT_TYPES);
+	
+	private int deflaterPoolSize = DEFAULT_DEFLATER_POOL_SIZE;
+	
+	private DeflaterPool deflaterPool = null;
+	
+	/**
+	 * @see org.springframework.web.filter.GenericFilterBean#initFilterBean()
+	 */
+	@Override
+	protected void initFilterBean() throws ServletException {
+		deflaterPool = new DeflaterPool(deflaterPoolSize, Deflater.DEFAULT_COMPRESSION);
+	}
+	
+	/**
+	 * @see org.springframework.web.filter.GenericFilterBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		if (deflaterPool != null) {
+			deflaterPool.clear();
+		}
+	}
+	
 	/**
 	 * @see org.springframework.web.filter.OncePerRequestFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
 	 *      javax.servlet.http.HttpServletResponse, javax.servlet.FilterChain)
@@ -54,10 +105,17 @@ public class GZIPFilter extends OncePerRequestFilter {
 		if (isGZIPSupported(request) && isGZIPEnabled()) {
 			log.debug("GZIP supported and enabled, compressing response");
 			
-			GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response);
+			GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response, minCompressSize, excludedContentTypes,
+			        deflaterPool);
 			
-			chain.doFilter(request, wrappedResponse);
-			wrappedResponse.finishResponse();
+			try {
+				chain.doFilter(request, wrappedResponse);
+				wrappedResponse.finishResponse();
+			}
+			finally {
+				// a failed request leaves the response unfinished, its deflater goes back to the pool
+				wrappedResponse.release();
+			}
 			
 			return;
 		}
@@ -168,4 +226,39 @@ public class GZIPFilter extends OncePerRequestFilter {
 			return false;
 		}
 	}
+	
+	private static List<String> parseContentTypes(String contentTypes) {
+		List<String> result = new ArrayList<String>();
+		for (String contentType : StringUtils.split(contentTypes, ',')) {
+			if (StringUtils.isNotBlank(contentType)) {
+				result.add(contentType.trim().toLowerCase(Locale.ENGLISH));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param minCompressSize the number of bytes a response must exceed to be compressed
+	 * @since 2.2.0
+	 */
+	public void setMinCompressSize(int minCompressSize) {
+		this.minCompressSize = minCompressSize;
+	}
+	
+	/**
+	 * @param excludedContentTypes a comma separated list of content type prefixes which are not
+	 *            compressed
+	 * @since 2.2.0
+	 */
+	public void setExcludedContentTypes(String excludedContentTypes) {
+		this.excludedContentTypes = parseContentTypes(excludedContentTypes);
+	}
+	
+	/**
+	 * @param deflaterPoolSize the number of deflaters kept for reuse across requests
+	 * @since 2.2.0
+	 */
+	public void setDeflaterPoolSize(int deflaterPoolSize) {
+		this.deflaterPoolSize = deflaterPoolSize;
+	}
 }
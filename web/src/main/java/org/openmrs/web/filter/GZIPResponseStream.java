@@ -9,24 +9,40 @@
  */
 package org.openmrs.web.filter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
 /**
- * Wraps Response Stream for GZipFilter
- * 
+ * Wraps Response Stream for GZipFilter. <br>
+ * <br>
+ * The content is held in a small buffer until it grows larger than the minimum size to compress.
+ * Smaller responses are sent uncompressed with their Content-Length. Larger ones are compressed
+ * while they are written, unless their content type is excluded from compression, so nothing but
+ * the buffer of the deflater is held in memory and {@link #flush()} sends what has been compressed
+ * so far to the client.
+ *
  * @author Matt Raible
  * @version $Revision: 1.3 $ $Date: 2004/05/16 02:17:00 $
  */
 public class GZIPResponseStream extends ServletOutputStream {
 	
-	// abstraction of the output stream used for compression
-	protected OutputStream bufferedOutput = null;
+	/**
+	 * The default number of bytes a response must exceed to be compressed
+	 */
+	public static final int DEFAULT_MIN_COMPRESS_SIZE = 2048;
+	
+	private static final int DEFLATER_BUFFER_SIZE = 8192;
+	
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
 	
 	// state keeping variable for if close() has been called
 	protected boolean closed = false;
@@ -37,69 +53,94 @@ public class GZIPResponseStream extends ServletOutputStream {
 	// reference to the output stream to the client's browser
 	protected ServletOutputStream output = null;
 	
-	// default size of the in-memory buffer
-	private int bufferSize = 50000;
+	// content held until it is known whether it is compressed
+	private final byte[] buffer;
+	
+	private int count = 0;
+	
+	// the stream the content is written to once it is no longer buffered
+	private OutputStream streamingOutput = null;
+	
+	private final List<String> excludedContentTypes;
+	
+	private final DeflaterPool deflaterPool;
+	
+	private Deflater deflater = null;
+	
+	private final CRC32 crc = new CRC32();
 	
 	public GZIPResponseStream(HttpServletResponse response) throws IOException {
+		this(response, DEFAULT_MIN_COMPRESS_SIZE, Collections.<String> emptyList(), null);
+	}
+	
+	/**
+	 * @param response the response to write to
+	 * @param minCompressSize the number of bytes a response must exceed to be compressed
+	 * @param excludedContentTypes the lower case prefixes of content types which are not compressed
+	 * @param deflaterPool the pool to borrow the deflater from, or null to create one
+	 * @throws IOException if the output stream of the response cannot be obtained
+	 * @since 2.2.0
+	 */
+	public GZIPResponseStream(HttpServletResponse response, int minCompressSize, List<String> excludedContentTypes,
+	    DeflaterPool deflaterPool) throws IOException {
 		super();
 		closed = false;
 		this.response = response;
 		this.output = response.getOutputStream();
-		bufferedOutput = new ByteArrayOutputStream();
+		this.buffer = new byte[Math.max(minCompressSize, 1)];
+		this.excludedContentTypes = excludedContentTypes;
+		this.deflaterPool = deflaterPool;
 	}
 	
+	/**
+	 * @should send small responses uncompressed with their content length
+	 * @should compress large responses
+	 * @should not compress excluded content types
+	 */
 	@Override
 	public void close() throws IOException {
 		// verify the stream is yet to be closed
 		if (closed) {
 			throw new IOException("This output stream has already been closed");
 		}
+		closed = true;
 		
-		// if we buffered everything in memory, gzip it
-		if (bufferedOutput instanceof ByteArrayOutputStream) {
-			// get the content
-			ByteArrayOutputStream baos = (ByteArrayOutputStream) bufferedOutput;
-			
-			// prepare a gzip stream
-			ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
-			GZIPOutputStream gzipstream = new GZIPOutputStream(compressedContent);
-			byte[] bytes = baos.toByteArray();
-			gzipstream.write(bytes);
-			gzipstream.finish();
-			
-			// get the compressed content
-			byte[] compressedBytes = compressedContent.toByteArray();
-			
-			// set appropriate HTTP headers
-			response.setContentLength(compressedBytes.length);
-			response.addHeader("Content-Encoding", "gzip");
-			output.write(compressedBytes);
-			output.flush();
-			output.close();
-			closed = true;
-		}
-		// if things were not buffered in memory, finish the GZIP stream and response
-		else if (bufferedOutput instanceof GZIPOutputStream) {
-			// cast to appropriate type
-			GZIPOutputStream gzipstream = (GZIPOutputStream) bufferedOutput;
-			
-			// finish the compression
-			gzipstream.finish();
+		try {
+			if (streamingOutput == null) {
+				// everything fit in the buffer, it is too small to be worth compressing
+				response.setContentLength(count);
+				output.write(buffer, 0, count);
+			} else if (deflater != null) {
+				// finish the compression and write the gzip trailer
+				((DeflaterOutputStream) streamingOutput).finish();
+				writeInt((int) crc.getValue());
+				writeInt((int) deflater.getBytesRead());
+			}
 			
 			// finish the response
 			output.flush();
 			output.close();
-			closed = true;
+		}
+		finally {
+			releaseDeflater();
 		}
 	}
 	
+	/**
+	 * Sends what has been written so far to the client, unless it is still small enough to be sent
+	 * uncompressed, in which case it is held until more is written or the stream is closed
+	 *
+	 * @should send the compressed content written so far
+	 */
 	@Override
 	public void flush() throws IOException {
 		if (closed) {
 			throw new IOException("Cannot flush a closed output stream");
 		}
 		
-		bufferedOutput.flush();
+		if (streamingOutput != null) {
+			streamingOutput.flush();
+		}
 	}
 	
 	@Override
@@ -108,32 +149,10 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("Cannot write to a closed output stream");
 		}
 		
-		// make sure we aren't over the buffer's limit
-		checkBufferSize(1);
-		
-		// write the byte to the temporary output
-		bufferedOutput.write((byte) b);
-	}
-	
-	private void checkBufferSize(int length) throws IOException {
-		// check if we are buffering too large of a file
-		if (bufferedOutput instanceof ByteArrayOutputStream) {
-			ByteArrayOutputStream baos = (ByteArrayOutputStream) bufferedOutput;
-			
-			if ((baos.size() + length) > bufferSize) {
-				// files too large to keep in memory are sent to the client without Content-Length specified
-				response.addHeader("Content-Encoding", "gzip");
-				
-				// get existing bytes
-				byte[] bytes = baos.toByteArray();
-				
-				// make new gzip stream using the response output stream
-				GZIPOutputStream gzipstream = new GZIPOutputStream(output);
-				gzipstream.write(bytes);
-				
-				// we are no longer buffering, send content via gzipstream
-				bufferedOutput = gzipstream;
-			}
+		if (streamingOutput == null && count < buffer.length) {
+			buffer[count++] = (byte) b;
+		} else {
+			write(new byte[] { (byte) b }, 0, 1);
 		}
 	}
 	
@@ -149,11 +168,85 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("Cannot write to a closed output stream");
 		}
 		
-		// make sure we aren't over the buffer's limit
-		checkBufferSize(len);
+		if (streamingOutput == null) {
+			// keep buffering as long as the content fits
+			if (count + len <= buffer.length) {
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+				return;
+			}
+			startStreaming();
+		}
+		
+		if (deflater != null) {
+			crc.update(b, off, len);
+		}
+		streamingOutput.write(b, off, len);
+	}
+	
+	/**
+	 * Decides whether the content is compressed once it has outgrown the buffer and writes the
+	 * buffered content to the stream chosen
+	 */
+	private void startStreaming() throws IOException {
+		if (isCompressible()) {
+			response.addHeader("Content-Encoding", "gzip");
+			response.addHeader("Vary", "Accept-Encoding");
+			output.write(GZIP_HEADER);
+			deflater = deflaterPool != null ? deflaterPool.borrow() : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			streamingOutput = new DeflaterOutputStream(output, deflater, DEFLATER_BUFFER_SIZE, true);
+			crc.update(buffer, 0, count);
+		} else {
+			streamingOutput = output;
+		}
+		streamingOutput.write(buffer, 0, count);
+		count = 0;
+	}
+	
+	private boolean isCompressible() {
+		if (response.containsHeader("Content-Encoding")) {
+			return false;
+		}
 		
-		// write the content to the buffer
-		bufferedOutput.write(b, off, len);
+		String contentType = response.getContentType();
+		if (contentType != null) {
+			contentType = contentType.toLowerCase(Locale.ENGLISH);
+			for (String excludedContentType : excludedContentTypes) {
+				if (contentType.startsWith(excludedContentType)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private void writeInt(int value) throws IOException {
+		output.write(value & 0xff);
+		output.write((value >> 8) & 0xff);
+		output.write((value >> 16) & 0xff);
+		output.write((value >> 24) & 0xff);
+	}
+	
+	/**
+	 * Closes the stream without finishing the response and hands the deflater back, for responses
+	 * which are abandoned because the request failed
+	 *
+	 * @should release the deflater once
+	 */
+	public void release() {
+		closed = true;
+		releaseDeflater();
+	}
+	
+	private void releaseDeflater() {
+		if (deflater != null) {
+			if (deflaterPool != null) {
+				deflaterPool.release(deflater);
+			} else {
+				deflater.end();
+			}
+			deflater = null;
+		}
 	}
 	
 	public boolean closed() {
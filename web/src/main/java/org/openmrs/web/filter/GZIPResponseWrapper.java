@@ -12,6 +12,8 @@ package org.openmrs.web.filter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
@@ -37,13 +39,34 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 	
 	protected int error = 0;
 	
+	private final int minCompressSize;
+	
+	private final List<String> excludedContentTypes;
+	
+	private final DeflaterPool deflaterPool;
+	
 	public GZIPResponseWrapper(HttpServletResponse response) {
+		this(response, GZIPResponseStream.DEFAULT_MIN_COMPRESS_SIZE, Collections.<String> emptyList(), null);
+	}
+	
+	/**
+	 * @param response the response to wrap
+	 * @param minCompressSize the number of bytes a response must exceed to be compressed
+	 * @param excludedContentTypes the lower case prefixes of content types which are not compressed
+	 * @param deflaterPool the pool to borrow deflaters from, or null to create them
+	 * @since 2.2.0
+	 */
+	public GZIPResponseWrapper(HttpServletResponse response, int minCompressSize, List<String> excludedContentTypes,
+	    DeflaterPool deflaterPool) {
 		super(response);
 		origResponse = response;
+		this.minCompressSize = minCompressSize;
+		this.excludedContentTypes = excludedContentTypes;
+		this.deflaterPool = deflaterPool;
 	}
 	
 	public ServletOutputStream createOutputStream() throws IOException {
-		return (new GZIPResponseStream(origResponse));
+		return (new GZIPResponseStream(origResponse, minCompressSize, excludedContentTypes, deflaterPool));
 	}
 	
 	public void finishResponse() {
@@ -61,9 +84,21 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 		}
 	}
 	
+	/**
+	 * Hands the deflater of the response stream back if the response was not finished, e.g. because
+	 * the request failed
+	 */
+	public void release() {
+		if (stream instanceof GZIPResponseStream) {
+			((GZIPResponseStream) stream).release();
+		}
+	}
+	
 	@Override
 	public void flushBuffer() throws IOException {
-		if (stream != null) {
+		if (writer != null) {
+			writer.flush();
+		} else if (stream != null) {
 			stream.flush();
 		}
 	}
@@ -0,0 +1,185 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.module.Module;
+
+public class ModuleResourceCacheTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private Module module;
+	
+	@Before
+	public void before() {
+		module = new Module("Test", "test", "org.openmrs.module.test", "OpenMRS", "Test module", "1.0");
+	}
+	
+	/**
+	 * @see ModuleResourceCache#get(Module,String)
+	 */
+	@Test
+	public void get_shouldReturnCachedResources() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		ModuleResource resource = cache.put(module, "/scripts/app.js", newFile("app.js", "alert('app');"));
+		
+		assertSame(resource, cache.get(module, "/scripts/app.js"));
+		assertNull(cache.get(module, "/scripts/other.js"));
+	}
+	
+	/**
+	 * @see ModuleResourceCache#get(Module,String)
+	 */
+	@Test
+	public void get_shouldNotReturnResourcesCachedForAnotherVersionOfTheModule() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		cache.put(module, "/scripts/app.js", newFile("app.js", "alert('app');"));
+		
+		module.setVersion("1.1");
+		
+		assertNull(cache.get(module, "/scripts/app.js"));
+	}
+	
+	/**
+	 * @see ModuleResourceCache#get(Module,String)
+	 */
+	@Test
+	public void get_shouldNotReturnResourcesWhichWereChangedSinceTheyWereCached() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		File file = newFile("app.js", "alert('app');");
+		cache.put(module, "/scripts/app.js", file);
+		
+		assertTrue(file.setLastModified(file.lastModified() - 60000));
+		
+		assertNull(cache.get(module, "/scripts/app.js"));
+		assertEquals(0, cache.getMemoryUsed());
+	}
+	
+	/**
+	 * @see ModuleResourceCache#remove(Module)
+	 */
+	@Test
+	public void remove_shouldRemoveTheResourcesOfTheModule() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		Module other = new Module("Other", "other", "org.openmrs.module.other", "OpenMRS", "Other module", "1.0");
+		cache.put(module, "/scripts/app.js", newFile("app.js", "alert('app');"));
+		ModuleResource resource = cache.put(other, "/scripts/app.js", newFile("other.js", "alert('other');"));
+		
+		cache.remove(module);
+		
+		assertNull(cache.get(module, "/scripts/app.js"));
+		assertSame(resource, cache.get(other, "/scripts/app.js"));
+	}
+	
+	/**
+	 * @see ModuleResourceCache#remove(Module)
+	 */
+	@Test
+	public void remove_shouldReleaseTheMemoryOfTheResourcesOfTheModule() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		cache.put(module, "/first.txt", newFile("first.txt", "0123456789"));
+		cache.put(module, "/second.txt", newFile("second.txt", "0123456789"));
+		assertEquals(20, cache.getMemoryUsed());
+		
+		cache.remove(module);
+		
+		assertEquals(0, cache.getMemoryUsed());
+	}
+	
+	/**
+	 * @see ModuleResourceCache#put(Module,String,File)
+	 */
+	@Test
+	public void put_shouldComputeAStrongEtagFromTheContent() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(0);
+		
+		String etag = cache.put(module, "/a.css", newFile("a.css", "body {}")).getETag();
+		
+		assertTrue(etag.startsWith("\"") && etag.endsWith("\"") && etag.length() > 2);
+		assertEquals(etag, cache.put(module, "/b.css", newFile("b.css", "body {}")).getETag());
+		assertNotEquals(etag, cache.put(module, "/c.css", newFile("c.css", "body { margin: 0 }")).getETag());
+	}
+	
+	/**
+	 * @see ModuleResourceCache#put(Module,String,File)
+	 */
+	@Test
+	public void put_shouldHoldSmallFilesInMemoryWithinTheMaximumMemory() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(20);
+		
+		ModuleResource first = cache.put(module, "/first.txt", newFile("first.txt", "0123456789"));
+		ModuleResource second = cache.put(module, "/second.txt", newFile("second.txt", "0123456789"));
+		ModuleResource third = cache.put(module, "/third.txt", newFile("third.txt", "0123456789"));
+		
+		assertArrayEquals("0123456789".getBytes("UTF-8"), first.getContent());
+		assertArrayEquals("0123456789".getBytes("UTF-8"), second.getContent());
+		assertNull(third.getContent());
+		assertEquals(10, third.getLength());
+		assertEquals(20, cache.getMemoryUsed());
+	}
+	
+	/**
+	 * @see ModuleResourceCache#put(Module,String,File)
+	 */
+	@Test
+	public void put_shouldAddThePrecompressedVariantOfTheFile() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		File file = newFile("app.js", "alert('app');");
+		File gzipFile = newFile("app.js.gz", "compressed");
+		assertTrue(gzipFile.setLastModified(file.lastModified()));
+		
+		ModuleResource compressed = cache.put(module, "/app.js", file).getCompressed();
+		
+		assertEquals(gzipFile, compressed.getFile());
+		assertEquals(10, compressed.getLength());
+		assertNotEquals(cache.get(module, "/app.js").getETag(), compressed.getETag());
+	}
+	
+	/**
+	 * @see ModuleResourceCache#put(Module,String,File)
+	 */
+	@Test
+	public void put_shouldIgnorePrecompressedVariantsOlderThanTheFile() throws Exception {
+		ModuleResourceCache cache = new ModuleResourceCache(1024);
+		File file = newFile("app.js", "alert('app');");
+		File gzipFile = newFile("app.js.gz", "compressed");
+		assertTrue(gzipFile.setLastModified(file.lastModified() - 60000));
+		
+		assertNull(cache.put(module, "/app.js", file).getCompressed());
+	}
+	
+	private File newFile(String name, String content) throws IOException {
+		File file = folder.newFile(name);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+}
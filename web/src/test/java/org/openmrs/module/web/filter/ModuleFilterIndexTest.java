@@ -0,0 +1,183 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.Filter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.Module;
+
+public class ModuleFilterIndexTest {
+
+	private List<ModuleFilterMapping> mappings;
+
+	private Map<String, Filter> filters;
+
+	@Before
+	public void before() {
+		mappings = new ArrayList<ModuleFilterMapping>();
+		filters = new HashMap<String, Filter>();
+	}
+
+	/**
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnFiltersMatchingAllPaths() {
+		Filter all = addMapping("all", "*");
+		Filter root = addMapping("root", "/*");
+
+		assertEquals(Arrays.asList(all, root), newIndex().getFilters("/patientDashboard.form"));
+	}
+
+	/**
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnFiltersMatchingTheExactPath() {
+		Filter exact = addMapping("exact", "/login.htm");
+
+		ModuleFilterIndex index = newIndex();
+
+		assertEquals(Collections.singletonList(exact), index.getFilters("/login.htm"));
+		assertTrue(index.getFilters("/login.html").isEmpty());
+	}
+
+	/**
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnFiltersMatchingAPrefixOfThePath() {
+		Filter prefix = addMapping("prefix", "/ws/rest/*");
+
+		ModuleFilterIndex index = newIndex();
+
+		assertEquals(Collections.singletonList(prefix), index.getFilters("/ws/rest"));
+		assertEquals(Collections.singletonList(prefix), index.getFilters("/ws/rest/v1/patient"));
+		assertTrue(index.getFilters("/ws/restful").isEmpty());
+		assertTrue(index.getFilters("/ws").isEmpty());
+	}
+
+	/**
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnFiltersMatchingTheExtensionOfThePath() {
+		Filter extension = addMapping("extension", "*.form");
+
+		ModuleFilterIndex index = newIndex();
+
+		assertEquals(Collections.singletonList(extension), index.getFilters("/admin/users/user.form"));
+		assertTrue(index.getFilters("/admin/users/user.formx").isEmpty());
+		assertTrue(index.getFilters("/admin.form/users").isEmpty());
+	}
+
+	/**
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnFiltersInTheOrderOfTheirMappings() {
+		Filter extension = addMapping("extension", "*.htm");
+		Filter prefix = addMapping("prefix", "/module/*");
+		Filter all = addMapping("all", "*");
+
+		assertEquals(Arrays.asList(extension, prefix, all), newIndex().getFilters("/module/page.htm"));
+	}
+
+	/**
+	 * Simulates the filter mappings of 40 modules and a mix of page, static resource and web
+	 * service requests
+	 *
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnTheSameFiltersAsTheFilterMappings() {
+		for (int i = 0; i < 40; i++) {
+			ModuleFilterMapping mapping = new ModuleFilterMapping(new Module("module" + i));
+			mapping.setFilterName("filter" + i);
+			switch (i % 5) {
+				case 0:
+					mapping.addUrlPattern("/module/module" + i + "/*");
+					break;
+				case 1:
+					mapping.addUrlPattern("*.form");
+					mapping.addUrlPattern("/ws/module" + i + "/*");
+					break;
+				case 2:
+					mapping.addUrlPattern("/index.htm");
+					mapping.addServletName("*");
+					break;
+				case 3:
+					mapping.addUrlPattern("*.js");
+					break;
+				default:
+					mapping.addUrlPattern("/ws/rest/*");
+			}
+			mappings.add(mapping);
+			filters.put(mapping.getFilterName(), mock(Filter.class));
+		}
+		List<String> requestPaths = Arrays.asList("/index.htm", "/login.htm", "/scripts/jquery.js",
+		    "/images/openmrs_logo.gif", "/module/module0/page.form", "/module/module5", "/module/module50/page",
+		    "/ws/rest/v1/patient", "/ws/module1/list.json", "/ws/rest", "/admin/index.form", "/", "",
+		    "/module/module10/scripts/app.js", "/dwr/interface/DWRPatientService.js", "/moduleResources/a.b/c.css");
+
+		ModuleFilterIndex index = newIndex();
+
+		for (int repeat = 0; repeat < 2; repeat++) {
+			for (String requestPath : requestPaths) {
+				List<Filter> expected = new ArrayList<Filter>();
+				for (ModuleFilterMapping mapping : mappings) {
+					if (ModuleFilterMapping.filterMappingPasses(mapping, requestPath)) {
+						expected.add(filters.get(mapping.getFilterName()));
+					}
+				}
+				assertEquals(requestPath, expected, index.getFilters(requestPath));
+			}
+		}
+		assertSame(index.getFilters("/login.htm"), index.getFilters("/images/openmrs_logo.gif"));
+	}
+
+	/**
+	 * @see ModuleFilterIndex#getFilters(String)
+	 */
+	@Test
+	public void getFilters_shouldReturnAnEmptyListIfThePathIsNull() {
+		addMapping("all", "*");
+
+		assertTrue(newIndex().getFilters(null).isEmpty());
+	}
+
+	private Filter addMapping(String filterName, String urlPattern) {
+		ModuleFilterMapping mapping = new ModuleFilterMapping(new Module(filterName));
+		mapping.setFilterName(filterName);
+		mapping.addUrlPattern(urlPattern);
+		mappings.add(mapping);
+		Filter filter = mock(Filter.class);
+		filters.put(filterName, filter);
+		return filter;
+	}
+
+	private ModuleFilterIndex newIndex() {
+		return new ModuleFilterIndex(mappings, filters);
+	}
+}
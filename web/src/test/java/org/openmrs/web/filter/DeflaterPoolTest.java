@@ -0,0 +1,51 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+public class DeflaterPoolTest {
+	
+	/**
+	 * @see DeflaterPool#borrow()
+	 */
+	@Test
+	public void borrow_shouldReuseReleasedDeflaters() {
+		DeflaterPool pool = new DeflaterPool(2, Deflater.DEFAULT_COMPRESSION);
+		Deflater deflater = pool.borrow();
+		
+		pool.release(deflater);
+		
+		assertSame(deflater, pool.borrow());
+	}
+	
+	/**
+	 * @see DeflaterPool#release(Deflater)
+	 */
+	@Test
+	public void release_shouldEndDeflatersIfThePoolIsFull() {
+		DeflaterPool pool = new DeflaterPool(1, Deflater.DEFAULT_COMPRESSION);
+		Deflater kept = pool.borrow();
+		Deflater ended = pool.borrow();
+		
+		pool.release(kept);
+		pool.release(ended);
+		
+		assertSame(kept, pool.borrow());
+		Deflater created = pool.borrow();
+		assertNotSame(kept, created);
+		assertNotSame(ended, created);
+	}
+}
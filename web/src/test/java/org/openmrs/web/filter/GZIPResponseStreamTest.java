@@ -0,0 +1,163 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class GZIPResponseStreamTest {
+	
+	private MockHttpServletResponse response;
+	
+	@Before
+	public void before() {
+		response = new MockHttpServletResponse();
+	}
+	
+	/**
+	 * @see GZIPResponseStream#close()
+	 */
+	@Test
+	public void close_shouldSendSmallResponsesUncompressedWithTheirContentLength() throws Exception {
+		byte[] content = "small response".getBytes("UTF-8");
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100, Collections.<String> emptyList(), null);
+		
+		stream.write(content);
+		stream.close();
+		
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(content.length, response.getContentLength());
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+	
+	/**
+	 * @see GZIPResponseStream#close()
+	 */
+	@Test
+	public void close_shouldCompressLargeResponses() throws Exception {
+		byte[] content = newContent(100000);
+		response.setContentType("text/html;charset=UTF-8");
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100, Collections.singletonList("image/png"),
+		        new DeflaterPool(1, 6));
+		
+		for (int i = 0; i < content.length; i += 1000) {
+			stream.write(content, i, 1000);
+		}
+		stream.close();
+		
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertTrue(response.getContentAsByteArray().length < content.length);
+		assertArrayEquals(content, gunzip(response.getContentAsByteArray()));
+	}
+	
+	/**
+	 * @see GZIPResponseStream#close()
+	 */
+	@Test
+	public void close_shouldNotCompressExcludedContentTypes() throws Exception {
+		byte[] content = newContent(1000);
+		response.setContentType("image/PNG");
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100, Arrays.asList("image/png", "video/"), null);
+		
+		stream.write(content);
+		stream.close();
+		
+		assertNull(response.getHeader("Content-Encoding"));
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+	
+	/**
+	 * @see GZIPResponseStream#flush()
+	 */
+	@Test
+	public void flush_shouldSendTheCompressedContentWrittenSoFar() throws Exception {
+		byte[] content = newContent(1000);
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100, Collections.<String> emptyList(), null);
+		
+		stream.write(content);
+		stream.flush();
+		
+		byte[] flushed = response.getContentAsByteArray();
+		GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(flushed));
+		byte[] read = new byte[content.length];
+		int count = 0;
+		while (count < read.length) {
+			count += input.read(read, count, read.length - count);
+		}
+		assertArrayEquals(content, read);
+		
+		stream.write(content);
+		stream.close();
+		
+		byte[] expected = Arrays.copyOf(content, content.length * 2);
+		System.arraycopy(content, 0, expected, content.length, content.length);
+		assertArrayEquals(expected, gunzip(response.getContentAsByteArray()));
+	}
+	
+	/**
+	 * @see GZIPResponseStream#release()
+	 */
+	@Test
+	public void release_shouldReleaseTheDeflaterOnce() throws Exception {
+		final AtomicInteger released = new AtomicInteger();
+		DeflaterPool deflaterPool = new DeflaterPool(1, 6) {
+			
+			@Override
+			public void release(Deflater deflater) {
+				released.incrementAndGet();
+				super.release(deflater);
+			}
+		};
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100, Collections.<String> emptyList(), deflaterPool);
+		stream.write(newContent(1000));
+		
+		stream.release();
+		stream.release();
+		
+		assertEquals(1, released.get());
+		assertTrue(stream.closed());
+	}
+	
+	private byte[] newContent(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + (i * 7 + i / 13) % 26);
+		}
+		return content;
+	}
+	
+	private byte[] gunzip(byte[] compressed) throws IOException {
+		InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+		return output.toByteArray();
+	}
+}